@@ -0,0 +1,34 @@
+package nl.rabobank.customerstatementservice.codec;
+
+/**
+ * A compact binary format for uploading customer statement records, as an alternative to newline delimited JSON.
+ * Records are written one after another, every record being length prefixed with a fixed layout, all numbers big-endian:
+ * <pre>
+ * int   length of the rest of the record in bytes
+ * int   transactionReference
+ * int   startBalance
+ * int   mutation
+ * int   endBalance
+ * short length of accountNumber in bytes, -1 when null
+ * byte* accountNumber, UTF-8
+ * short length of description in bytes, -1 when null
+ * byte* description, UTF-8
+ * </pre>
+ * Write records with {@link CustomerStatementRecordEncoder} and read them with {@link CustomerStatementRecordDecoder}.
+ */
+public final class BinaryCustomerStatementRecords {
+
+    public static final String MEDIA_TYPE_VALUE = "application/x-customer-statement-records";
+
+    public static final int MAXIMUM_STRING_LENGTH = Short.MAX_VALUE;
+
+    // The four numbers and the two string lengths.
+    static final int FIXED_LENGTH = 4 * Integer.BYTES + 2 * Short.BYTES;
+
+    static final int MAXIMUM_RECORD_LENGTH = FIXED_LENGTH + 2 * MAXIMUM_STRING_LENGTH;
+
+    static final short NULL_LENGTH = -1;
+
+    private BinaryCustomerStatementRecords() {
+    }
+}
@@ -0,0 +1,162 @@
+package nl.rabobank.customerstatementservice.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static nl.rabobank.customerstatementservice.codec.BinaryCustomerStatementRecords.*;
+
+/**
+ * Reads records in the format of {@link BinaryCustomerStatementRecords} one at a time. The fields of the current record
+ * are kept in primitive fields of the decoder itself, so no object is created per record apart from its strings.
+ * Not thread safe.
+ * <pre>
+ * while (decoder.next()) {
+ *     int transactionReference = decoder.getTransactionReference();
+ *     ...
+ * }
+ * </pre>
+ */
+public class CustomerStatementRecordDecoder {
+
+    private final InputStream inputStream;
+
+    private byte[] buffer = new byte[8192];
+
+    private int position;
+
+    private int limit;
+
+    private int transactionReference;
+
+    private String accountNumber;
+
+    private int startBalance;
+
+    private int mutation;
+
+    private String description;
+
+    private int endBalance;
+
+    public CustomerStatementRecordDecoder(InputStream inputStream) {
+        this.inputStream = inputStream;
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return false when the input ended, right after the previous record
+     * @throws CustomerStatementRecordFormatException when the record isn't valid, or the input ended within it
+     */
+    public boolean next() throws IOException {
+        if (!fill(Integer.BYTES)) {
+            if (position == limit) {
+                return false;
+            }
+            throw new CustomerStatementRecordFormatException("Input ended within the length of a record");
+        }
+
+        int recordLength = readInt();
+        if (recordLength < FIXED_LENGTH || recordLength > MAXIMUM_RECORD_LENGTH) {
+            throw new CustomerStatementRecordFormatException("Invalid record length " + recordLength);
+        }
+        if (!fill(recordLength)) {
+            throw new CustomerStatementRecordFormatException("Input ended within a record");
+        }
+
+        int recordEnd = position + recordLength;
+        transactionReference = readInt();
+        startBalance = readInt();
+        mutation = readInt();
+        endBalance = readInt();
+        accountNumber = readString(recordEnd);
+        description = readString(recordEnd);
+        if (position != recordEnd) {
+            throw new CustomerStatementRecordFormatException("Record length " + recordLength + " doesn't match its fields");
+        }
+        return true;
+    }
+
+    public int getTransactionReference() {
+        return transactionReference;
+    }
+
+    /**
+     * @return the account number, null when the record had none.
+     */
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public int getStartBalance() {
+        return startBalance;
+    }
+
+    public int getMutation() {
+        return mutation;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public int getEndBalance() {
+        return endBalance;
+    }
+
+    /**
+     * Makes sure the buffer holds at least the given number of bytes after the position.
+     *
+     * @return false when the input ended before that
+     */
+    private boolean fill(int length) throws IOException {
+        if (limit - position >= length) {
+            return true;
+        }
+
+        System.arraycopy(buffer, position, buffer, 0, limit - position);
+        limit -= position;
+        position = 0;
+        if (length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, length);
+        }
+        while (limit < length) {
+            int read = inputStream.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                return false;
+            }
+            limit += read;
+        }
+        return true;
+    }
+
+    private int readInt() {
+        int value = (buffer[position] & 0xFF) << 24
+                | (buffer[position + 1] & 0xFF) << 16
+                | (buffer[position + 2] & 0xFF) << 8
+                | (buffer[position + 3] & 0xFF);
+        position += Integer.BYTES;
+        return value;
+    }
+
+    private String readString(int recordEnd) throws CustomerStatementRecordFormatException {
+        if (position + Short.BYTES > recordEnd) {
+            throw new CustomerStatementRecordFormatException("Record is too short for its fields");
+        }
+
+        short length = (short) ((buffer[position] & 0xFF) << 8 | (buffer[position + 1] & 0xFF));
+        position += Short.BYTES;
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        if (length < 0 || position + length > recordEnd) {
+            throw new CustomerStatementRecordFormatException("Invalid string length " + length);
+        }
+
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+}
@@ -0,0 +1,115 @@
+package nl.rabobank.customerstatementservice.codec;
+
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordDto;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static nl.rabobank.customerstatementservice.codec.BinaryCustomerStatementRecords.*;
+
+/**
+ * Writes records in the format of {@link BinaryCustomerStatementRecords}. Records are buffered, so flush or close the
+ * encoder when done. Not thread safe.
+ */
+public class CustomerStatementRecordEncoder implements Flushable, Closeable {
+
+    private final OutputStream outputStream;
+
+    private byte[] buffer = new byte[8192];
+
+    private int position;
+
+    public CustomerStatementRecordEncoder(OutputStream outputStream) {
+        this.outputStream = outputStream;
+    }
+
+    /**
+     * Writes a record of which all numbers are present.
+     *
+     * @throws NullPointerException when one of the numbers of the record is null
+     */
+    public void write(CustomerStatementRecordDto recordDto) throws IOException {
+        write(recordDto.getTransactionReference(), recordDto.getAccountNumber(), recordDto.getStartBalance(), recordDto.getMutation(),
+                recordDto.getDescription(), recordDto.getEndBalance());
+    }
+
+    public void write(int transactionReference, String accountNumber, int startBalance, int mutation, String description, int endBalance) throws IOException {
+        byte[] accountNumberBytes = toBytes(accountNumber);
+        byte[] descriptionBytes = toBytes(description);
+        int recordLength = FIXED_LENGTH + lengthOf(accountNumberBytes) + lengthOf(descriptionBytes);
+        ensureCapacity(Integer.BYTES + recordLength);
+
+        writeInt(recordLength);
+        writeInt(transactionReference);
+        writeInt(startBalance);
+        writeInt(mutation);
+        writeInt(endBalance);
+        writeString(accountNumberBytes);
+        writeString(descriptionBytes);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        outputStream.write(buffer, 0, position);
+        position = 0;
+        outputStream.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    private static byte[] toBytes(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAXIMUM_STRING_LENGTH) {
+            throw new IllegalArgumentException("Can't encode a string of more than " + MAXIMUM_STRING_LENGTH + " bytes");
+        }
+        return bytes;
+    }
+
+    private static int lengthOf(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    private void ensureCapacity(int length) throws IOException {
+        if (position + length <= buffer.length) {
+            return;
+        }
+
+        outputStream.write(buffer, 0, position);
+        position = 0;
+        if (length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, length);
+        }
+    }
+
+    private void writeInt(int value) {
+        buffer[position++] = (byte) (value >>> 24);
+        buffer[position++] = (byte) (value >>> 16);
+        buffer[position++] = (byte) (value >>> 8);
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeString(byte[] bytes) {
+        int length = bytes == null ? NULL_LENGTH : bytes.length;
+        buffer[position++] = (byte) (length >>> 8);
+        buffer[position++] = (byte) length;
+        if (bytes != null) {
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+    }
+}
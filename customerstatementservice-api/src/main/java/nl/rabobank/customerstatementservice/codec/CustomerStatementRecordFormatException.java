@@ -0,0 +1,13 @@
+package nl.rabobank.customerstatementservice.codec;
+
+import java.io.IOException;
+
+/**
+ * Thrown when the input isn't in the format of {@link BinaryCustomerStatementRecords}, like a record cut off halfway.
+ */
+public class CustomerStatementRecordFormatException extends IOException {
+
+    public CustomerStatementRecordFormatException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,57 @@
+package nl.rabobank.customerstatementservice.dto;
+
+public class AccountSummaryDto {
+
+    private String accountNumber;
+
+    private long recordCount;
+
+    private long totalMutation;
+
+    /**
+     * End balance of the record of the account which was stored last, null when the account has no records.
+     */
+    private Integer lastEndBalance;
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    public long getTotalMutation() {
+        return totalMutation;
+    }
+
+    public Integer getLastEndBalance() {
+        return lastEndBalance;
+    }
+
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+
+    public void setRecordCount(long recordCount) {
+        this.recordCount = recordCount;
+    }
+
+    public void setTotalMutation(long totalMutation) {
+        this.totalMutation = totalMutation;
+    }
+
+    public void setLastEndBalance(Integer lastEndBalance) {
+        this.lastEndBalance = lastEndBalance;
+    }
+
+    @Override
+    public String toString() {
+        return "AccountSummaryDto{" +
+                "accountNumber='" + accountNumber + '\'' +
+                ", recordCount=" + recordCount +
+                ", totalMutation=" + totalMutation +
+                ", lastEndBalance=" + lastEndBalance +
+                '}';
+    }
+}
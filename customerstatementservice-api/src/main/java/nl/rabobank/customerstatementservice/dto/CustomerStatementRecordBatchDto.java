@@ -0,0 +1,26 @@
+package nl.rabobank.customerstatementservice.dto;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+public class CustomerStatementRecordBatchDto {
+
+    @NotNull
+    private List<@NotNull @Valid CustomerStatementRecordDto> records;
+
+    public List<CustomerStatementRecordDto> getRecords() {
+        return records;
+    }
+
+    public void setRecords(List<CustomerStatementRecordDto> records) {
+        this.records = records;
+    }
+
+    @Override
+    public String toString() {
+        return "CustomerStatementRecordBatchDto{" +
+                "records=" + (records == null ? null : records.size()) +
+                '}';
+    }
+}
@@ -0,0 +1,37 @@
+package nl.rabobank.customerstatementservice.dto;
+
+import java.util.List;
+
+public class CustomerStatementRecordPageDto {
+
+    private List<CustomerStatementRecordDto> records;
+
+    /**
+     * Transaction reference to request the next page after, null when this is the last page.
+     */
+    private Integer nextAfterTransactionReference;
+
+    public List<CustomerStatementRecordDto> getRecords() {
+        return records;
+    }
+
+    public Integer getNextAfterTransactionReference() {
+        return nextAfterTransactionReference;
+    }
+
+    public void setRecords(List<CustomerStatementRecordDto> records) {
+        this.records = records;
+    }
+
+    public void setNextAfterTransactionReference(Integer nextAfterTransactionReference) {
+        this.nextAfterTransactionReference = nextAfterTransactionReference;
+    }
+
+    @Override
+    public String toString() {
+        return "CustomerStatementRecordPageDto{" +
+                "records=" + (records == null ? null : records.size()) +
+                ", nextAfterTransactionReference=" + nextAfterTransactionReference +
+                '}';
+    }
+}
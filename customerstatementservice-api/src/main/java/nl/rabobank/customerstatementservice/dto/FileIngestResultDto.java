@@ -0,0 +1,60 @@
+package nl.rabobank.customerstatementservice.dto;
+
+public class FileIngestResultDto {
+
+    private String fileName;
+
+    /**
+     * Records handled by this run, records handled by an earlier run which was interrupted aren't counted.
+     */
+    private long recordCount;
+
+    private long rejectedRecordCount;
+
+    /**
+     * File next to the ingested file, containing one newline delimited ResponseBody per rejected record.
+     */
+    private String reportFileName;
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    public long getRejectedRecordCount() {
+        return rejectedRecordCount;
+    }
+
+    public String getReportFileName() {
+        return reportFileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public void setRecordCount(long recordCount) {
+        this.recordCount = recordCount;
+    }
+
+    public void setRejectedRecordCount(long rejectedRecordCount) {
+        this.rejectedRecordCount = rejectedRecordCount;
+    }
+
+    public void setReportFileName(String reportFileName) {
+        this.reportFileName = reportFileName;
+    }
+
+    @Override
+    public String toString() {
+        return "FileIngestResultDto{" +
+                "fileName='" + fileName + '\'' +
+                ", recordCount=" + recordCount +
+                ", rejectedRecordCount=" + rejectedRecordCount +
+                ", reportFileName='" + reportFileName + '\'' +
+                '}';
+    }
+}
@@ -1,10 +1,20 @@
 package nl.rabobank.customerstatementservice.dto;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class ResponseBody {
 
+    // One shared body without error records per result, see of(ResultType).
+    private static final ResponseBody[] WITHOUT_ERROR_RECORDS = new ResponseBody[ResultType.values().length];
+
+    static {
+        for (ResultType result : ResultType.values()) {
+            WITHOUT_ERROR_RECORDS[result.ordinal()] = new ResponseBody(result, Collections.emptyList());
+        }
+    }
+
     private final ResultType result;
 
     private final List<ErrorRecord> errorRecords;
@@ -18,6 +28,14 @@ public class ResponseBody {
         this.errorRecords = errorRecords;
     }
 
+    /**
+     * Returns the shared body of the given result without any error records. It's immutable, so it can be returned for
+     * every record without allocating anything.
+     */
+    public static ResponseBody of(ResultType result) {
+        return WITHOUT_ERROR_RECORDS[result.ordinal()];
+    }
+
     @Override
     public String toString() {
         return "ResponseBody{" +
@@ -9,6 +9,7 @@ public enum ResultType {
     DUPLICATE_REFERENCE,
     INCORRECT_END_BALANCE,
     DUPLICATE_REFERENCE_INCORRECT_END_BALANCE,
+    BROKEN_BALANCE_CHAIN,
     BAD_REQUEST,
     INTERNAL_SERVER_ERROR
 }
@@ -0,0 +1,65 @@
+package nl.rabobank.customerstatementservice.benchmark;
+
+import nl.rabobank.customerstatementservice.service.AccountSequencer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the contention of the AccountSequencer with 8 threads handling records of randomly picked accounts.
+ * One stripe is the same as serializing all records, more stripes only let records of the same stripe wait for each other.
+ * With a single account every record waits, whatever the number of stripes. The work per record stands in for the
+ * validation and the insert; compare with unsequenced for the cost of the sequencing itself.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class AccountSequencerBenchmark {
+
+    private static final long WORK_PER_RECORD = 500;
+
+    @Param({"1", "16", "64", "256"})
+    public int stripes;
+
+    @Param({"1", "100", "10000"})
+    public int accounts;
+
+    private AccountSequencer accountSequencer;
+
+    private String[] accountNumbers;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        accountSequencer = new AccountSequencer(stripes);
+        accountNumbers = new String[accounts];
+        for (int account = 0; account < accounts; account++) {
+            accountNumbers[account] = String.format("NL12RABO%010d", account);
+        }
+    }
+
+    @Benchmark
+    public long sequenced() {
+        return accountSequencer.sequence(nextAccountNumber(), AccountSequencerBenchmark::handleRecord);
+    }
+
+    @Benchmark
+    public long unsequenced() {
+        nextAccountNumber();
+        return handleRecord();
+    }
+
+    private String nextAccountNumber() {
+        return accountNumbers[ThreadLocalRandom.current().nextInt(accounts)];
+    }
+
+    private static long handleRecord() {
+        Blackhole.consumeCPU(WORK_PER_RECORD);
+        return WORK_PER_RECORD;
+    }
+}
@@ -0,0 +1,45 @@
+package nl.rabobank.customerstatementservice.benchmark;
+
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordDto;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecord;
+
+/**
+ * Builds the records used by the benchmarks.
+ */
+final class BenchmarkRecords {
+
+    static final int EXISTING_TRANSACTION_REFERENCE = 1234;
+
+    static final String ACCOUNT_NUMBER = "NL12RABO0123456789";
+
+    static final String EXISTING_ACCOUNT_NUMBER = "NL12RABO0987654321";
+
+    private BenchmarkRecords() {
+    }
+
+    static CustomerStatementRecordDto buildRecordDto(int transactionReference, boolean incorrectEndBalance) {
+        CustomerStatementRecordDto customerStatementRecordDto = new CustomerStatementRecordDto();
+
+        customerStatementRecordDto.setTransactionReference(transactionReference);
+        customerStatementRecordDto.setAccountNumber(ACCOUNT_NUMBER);
+        customerStatementRecordDto.setDescription("beautiful record");
+        customerStatementRecordDto.setStartBalance(100);
+        customerStatementRecordDto.setMutation(-10);
+        customerStatementRecordDto.setEndBalance(incorrectEndBalance ? 110 : 90);
+
+        return customerStatementRecordDto;
+    }
+
+    static CustomerStatementRecord buildRecord(int transactionReference) {
+        CustomerStatementRecord record = new CustomerStatementRecord();
+
+        record.setTransactionReference(transactionReference);
+        record.setAccountNumber(ACCOUNT_NUMBER);
+        record.setDescription("beautiful record");
+        record.setStartBalance(100);
+        record.setMutation(-10);
+        record.setEndBalance(90);
+
+        return record;
+    }
+}
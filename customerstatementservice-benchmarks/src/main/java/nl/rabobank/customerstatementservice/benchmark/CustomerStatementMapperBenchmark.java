@@ -0,0 +1,31 @@
+package nl.rabobank.customerstatementservice.benchmark;
+
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordDto;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecord;
+import nl.rabobank.customerstatementservice.mapper.CustomerStatementMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomerStatementMapperBenchmark {
+
+    private final CustomerStatementMapper customerStatementMapper = new CustomerStatementMapper();
+
+    private CustomerStatementRecordDto recordDto;
+
+    @Setup
+    public void setUp() {
+        recordDto = BenchmarkRecords.buildRecordDto(1, false);
+    }
+
+    @Benchmark
+    public CustomerStatementRecord toCustomerStatementRecord() {
+        return customerStatementMapper.toCustomerStatementRecord(recordDto);
+    }
+}
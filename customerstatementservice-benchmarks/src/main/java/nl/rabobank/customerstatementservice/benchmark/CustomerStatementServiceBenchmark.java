@@ -0,0 +1,78 @@
+package nl.rabobank.customerstatementservice.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordDto;
+import nl.rabobank.customerstatementservice.dto.ResponseBody;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecordStore;
+import nl.rabobank.customerstatementservice.infrastructure.DirectCustomerStatementRecordWriter;
+import nl.rabobank.customerstatementservice.infrastructure.RepositoryTransactionReferenceLookup;
+import nl.rabobank.customerstatementservice.infrastructure.UncheckedAccountBalanceLookup;
+import nl.rabobank.customerstatementservice.mapper.CustomerStatementMapper;
+import nl.rabobank.customerstatementservice.service.AccountSequencer;
+import nl.rabobank.customerstatementservice.service.CustomerStatementMetrics;
+import nl.rabobank.customerstatementservice.service.CustomerStatementService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the validation logic of every branch of {@link CustomerStatementService#addCustomerStatementRecordWithExceptionHandling},
+ * on top of a repository without a database. gc.alloc.rate.norm shows the allocations per record, a correct record
+ * should only allocate the entity handed to the store.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomerStatementServiceBenchmark {
+
+    private CustomerStatementService customerStatementService;
+
+    private CustomerStatementRecordDto successfulRecord;
+
+    private CustomerStatementRecordDto duplicateRecord;
+
+    private CustomerStatementRecordDto incorrectEndBalanceRecord;
+
+    private CustomerStatementRecordDto duplicateIncorrectEndBalanceRecord;
+
+    @Setup
+    public void setUp() {
+        CustomerStatementRecordStore store = new InMemoryStore();
+        customerStatementService = new CustomerStatementService(store,
+                new RepositoryTransactionReferenceLookup(store),
+                new UncheckedAccountBalanceLookup(),
+                new DirectCustomerStatementRecordWriter(store),
+                new CustomerStatementMapper(),
+                new CustomerStatementMetrics(new SimpleMeterRegistry()),
+                new AccountSequencer(64),
+                1000);
+
+        successfulRecord = BenchmarkRecords.buildRecordDto(1, false);
+        duplicateRecord = BenchmarkRecords.buildRecordDto(BenchmarkRecords.EXISTING_TRANSACTION_REFERENCE, false);
+        incorrectEndBalanceRecord = BenchmarkRecords.buildRecordDto(1, true);
+        duplicateIncorrectEndBalanceRecord = BenchmarkRecords.buildRecordDto(BenchmarkRecords.EXISTING_TRANSACTION_REFERENCE, true);
+    }
+
+    @Benchmark
+    public ResponseBody successful() {
+        return customerStatementService.addCustomerStatementRecordWithExceptionHandling(successfulRecord);
+    }
+
+    @Benchmark
+    public ResponseBody duplicateReference() {
+        return customerStatementService.addCustomerStatementRecordWithExceptionHandling(duplicateRecord);
+    }
+
+    @Benchmark
+    public ResponseBody incorrectEndBalance() {
+        return customerStatementService.addCustomerStatementRecordWithExceptionHandling(incorrectEndBalanceRecord);
+    }
+
+    @Benchmark
+    public ResponseBody duplicateReferenceIncorrectEndBalance() {
+        return customerStatementService.addCustomerStatementRecordWithExceptionHandling(duplicateIncorrectEndBalanceRecord);
+    }
+}
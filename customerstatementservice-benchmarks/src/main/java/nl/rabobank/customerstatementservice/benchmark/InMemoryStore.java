@@ -0,0 +1,78 @@
+package nl.rabobank.customerstatementservice.benchmark;
+
+import nl.rabobank.customerstatementservice.infrastructure.AccountSummary;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecord;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecordStore;
+import nl.rabobank.customerstatementservice.infrastructure.StoredCustomerStatementRecord;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Store without a database, to measure the service itself. Only {@link BenchmarkRecords#EXISTING_TRANSACTION_REFERENCE}
+ * exists, and nothing is stored, so the store doesn't grow during a benchmark.
+ */
+final class InMemoryStore implements CustomerStatementRecordStore {
+
+    private final DuplicateKeyException primaryKeyViolation = new DuplicateKeyException("Primary key violation");
+
+    @Override
+    public void insert(CustomerStatementRecord record) {
+        if (isExisting(record.getTransactionReference())) {
+            throw primaryKeyViolation;
+        }
+    }
+
+    @Override
+    public void insertAll(List<CustomerStatementRecord> records) {
+    }
+
+    @Override
+    public boolean exists(int transactionReference) {
+        return isExisting(transactionReference);
+    }
+
+    @Override
+    public String findAccountNumber(int transactionReference) {
+        return isExisting(transactionReference) ? BenchmarkRecords.EXISTING_ACCOUNT_NUMBER : null;
+    }
+
+    @Override
+    public Map<Integer, String> findAccountNumbers(Collection<Integer> transactionReferences) {
+        return new HashMap<>();
+    }
+
+    @Override
+    public Optional<Integer> findLastEndBalance(String accountNumber) {
+        throw new UnsupportedOperationException("findLastEndBalance");
+    }
+
+    @Override
+    public Map<String, Integer> findLastEndBalances(Collection<String> accountNumbers) {
+        throw new UnsupportedOperationException("findLastEndBalances");
+    }
+
+    @Override
+    public List<StoredCustomerStatementRecord> findPage(String accountNumber, Integer afterTransactionReference, int limit) {
+        throw new UnsupportedOperationException("findPage");
+    }
+
+    @Override
+    public Optional<AccountSummary> findAccountSummary(String accountNumber) {
+        throw new UnsupportedOperationException("findAccountSummary");
+    }
+
+    @Override
+    public Stream<CustomerStatementRecord> stream(String accountNumber, Integer fromTransactionReference, Integer toTransactionReference) {
+        throw new UnsupportedOperationException("stream");
+    }
+
+    private static boolean isExisting(int transactionReference) {
+        return transactionReference == BenchmarkRecords.EXISTING_TRANSACTION_REFERENCE;
+    }
+}
@@ -0,0 +1,37 @@
+package nl.rabobank.customerstatementservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what Spring MVC does for every request body, reading a record with an ObjectMapper.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonDeserializationBenchmark {
+
+    private ObjectReader recordReader;
+
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        recordReader = objectMapper.readerFor(CustomerStatementRecordDto.class);
+        json = objectMapper.writeValueAsBytes(BenchmarkRecords.buildRecordDto(1234, false));
+    }
+
+    @Benchmark
+    public CustomerStatementRecordDto readCustomerStatementRecordDto() throws IOException {
+        return recordReader.readValue(json);
+    }
+}
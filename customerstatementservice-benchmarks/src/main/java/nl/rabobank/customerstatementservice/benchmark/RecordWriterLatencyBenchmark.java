@@ -0,0 +1,47 @@
+package nl.rabobank.customerstatementservice.benchmark;
+
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecordWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares the direct and the write-behind writer under concurrent load. Sample time mode reports both the
+ * throughput and the latency percentiles (p0.99) of a single insert.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(32)
+@State(Scope.Benchmark)
+public class RecordWriterLatencyBenchmark {
+
+    @Param({"direct", "write-behind"})
+    public String writeMode;
+
+    private final AtomicInteger nextTransactionReference = new AtomicInteger();
+
+    private ConfigurableApplicationContext applicationContext;
+
+    private CustomerStatementRecordWriter customerStatementRecordWriter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        applicationContext = RepositoryInsertBenchmark.BenchmarkApplication.start(writeMode);
+        customerStatementRecordWriter = applicationContext.getBean(CustomerStatementRecordWriter.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        applicationContext.close();
+    }
+
+    @Benchmark
+    public boolean insertIfAbsent() {
+        return customerStatementRecordWriter.insertIfAbsent(BenchmarkRecords.buildRecord(nextTransactionReference.getAndIncrement()));
+    }
+}
@@ -0,0 +1,100 @@
+package nl.rabobank.customerstatementservice.benchmark;
+
+import nl.rabobank.customerstatementservice.CustomerstatementserviceApplication;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecord;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecordRepository;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecordWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures inserting records in the embedded H2 database of the application, both one by one through JPA and
+ * with a JDBC batch. Every trial starts with an empty database of its own.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RepositoryInsertBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final AtomicInteger nextTransactionReference = new AtomicInteger();
+
+    private ConfigurableApplicationContext applicationContext;
+
+    private CustomerStatementRecordRepository customerStatementRecordRepository;
+
+    private CustomerStatementRecordWriter customerStatementRecordWriter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        applicationContext = BenchmarkApplication.start("direct");
+        customerStatementRecordRepository = applicationContext.getBean(CustomerStatementRecordRepository.class);
+        customerStatementRecordWriter = applicationContext.getBean(CustomerStatementRecordWriter.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        applicationContext.close();
+    }
+
+    @Benchmark
+    public CustomerStatementRecord save() {
+        return customerStatementRecordRepository.save(BenchmarkRecords.buildRecord(nextTransactionReference.getAndIncrement()));
+    }
+
+    @Benchmark
+    public boolean insertIfAbsent() {
+        return customerStatementRecordWriter.insertIfAbsent(BenchmarkRecords.buildRecord(nextTransactionReference.getAndIncrement()));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void insertAll() {
+        List<CustomerStatementRecord> records = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            records.add(BenchmarkRecords.buildRecord(nextTransactionReference.getAndIncrement()));
+        }
+        customerStatementRecordRepository.insertAll(records);
+    }
+
+    /**
+     * Starts the application without web server, on a database named after the trial so every trial starts empty.
+     * The properties are passed as command line arguments, so they override application.properties.
+     */
+    static final class BenchmarkApplication {
+
+        private static final AtomicInteger DATABASE_COUNT = new AtomicInteger();
+
+        private BenchmarkApplication() {
+        }
+
+        static ConfigurableApplicationContext start(String writeMode, String... properties) {
+            String databaseName = "benchmark" + DATABASE_COUNT.incrementAndGet();
+
+            List<String> arguments = new ArrayList<>(Arrays.asList(
+                    "--spring.datasource.url=jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1",
+                    "--customerstatementservice.sharding.url-template=jdbc:h2:mem:" + databaseName + "-shard{shard};DB_CLOSE_DELAY=-1",
+                    "--customerstatementservice.write-mode=" + writeMode,
+                    "--logging.level.root=WARN"));
+            for (String property : properties) {
+                arguments.add("--" + property);
+            }
+
+            return new SpringApplicationBuilder(CustomerstatementserviceApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .run(arguments.toArray(new String[0]));
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package nl.rabobank.customerstatementservice.benchmark;
+
+import nl.rabobank.customerstatementservice.CustomerstatementserviceApplication;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares serving POST /v1/customerstatements on the Tomcat worker pool (200 threads) and on virtual threads, with
+ * an increasing number of concurrent clients. Every invocation sends one request per client at the same time and
+ * waits for all responses, so the "requests" counter reports the throughput in requests per second.
+ * <p>
+ * The application runs in a separate JVM, both sides need a file descriptor per connection. With 10000 clients
+ * raise the limit first, e.g. ulimit -n 65536.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestThreadBenchmark {
+
+    private static final long STARTUP_TIMEOUT_MILLIS = 60_000;
+
+    // Concurrent requests go to different accounts, so they don't wait for each other on an account or its summary row
+    private static final int ACCOUNTS = 10_000;
+
+    @Param({"platform", "virtual"})
+    public String threadMode;
+
+    @Param({"100", "1000", "10000"})
+    public int clients;
+
+    private final AtomicInteger nextTransactionReference = new AtomicInteger();
+
+    private Process application;
+
+    private URI customerStatementsUri;
+
+    private ExecutorService clientExecutor;
+
+    private HttpClient httpClient;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        int port = findFreePort();
+        application = new ProcessBuilder(
+                ProcessHandle.current().info().command().orElse("java"),
+                "-cp", System.getProperty("java.class.path"),
+                CustomerstatementserviceApplication.class.getName(),
+                "--server.port=" + port,
+                "--customerstatementservice.thread-mode=" + threadMode,
+                // Accept every client right away, so only the threads serving the requests differ
+                "--server.tomcat.max-connections=" + (clients + 1000),
+                "--server.tomcat.accept-count=" + clients,
+                "--logging.level.root=WARN")
+                .inheritIO()
+                .start();
+
+        clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clientExecutor)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        customerStatementsUri = URI.create("http://localhost:" + port + "/v1/customerstatements");
+
+        awaitStartup(URI.create("http://localhost:" + port + "/actuator/health"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        clientExecutor.shutdownNow();
+        application.destroy();
+        application.waitFor(30, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public void concurrentRequests(RequestCounters requestCounters) throws InterruptedException {
+        List<Future<Integer>> responses = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            HttpRequest request = buildRequest(nextTransactionReference.getAndIncrement());
+            responses.add(clientExecutor.submit(() -> httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode()));
+        }
+
+        for (Future<Integer> response : responses) {
+            try {
+                if (response.get() == 200) {
+                    requestCounters.requests++;
+                } else {
+                    requestCounters.failedRequests++;
+                }
+            } catch (ExecutionException e) {
+                requestCounters.failedRequests++;
+            }
+        }
+    }
+
+    private HttpRequest buildRequest(int transactionReference) {
+        return HttpRequest.newBuilder(customerStatementsUri)
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(60))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"transactionReference\":" + transactionReference
+                        + ",\"accountNumber\":\"" + String.format("NL12RABO%010d", transactionReference % ACCOUNTS)
+                        + "\",\"startBalance\":100,\"mutation\":-10,\"endBalance\":90,"
+                        + "\"description\":\"benchmark record\"}"))
+                .build();
+    }
+
+    private void awaitStartup(URI healthUri) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            if (!application.isAlive()) {
+                throw new IllegalStateException("The application stopped with exit code " + application.exitValue());
+            }
+            try {
+                if (httpClient.send(HttpRequest.newBuilder(healthUri).build(), HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(200);
+        }
+        throw new IllegalStateException("The application didn't start within " + STARTUP_TIMEOUT_MILLIS + " ms");
+    }
+
+    private static int findFreePort() throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            return serverSocket.getLocalPort();
+        }
+    }
+
+    /**
+     * Counts the responses, reported by JMH as a rate next to the rate of the invocations.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class RequestCounters {
+
+        public long requests;
+
+        public long failedRequests;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            requests = 0;
+            failedRequests = 0;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package nl.rabobank.customerstatementservice.benchmark;
+
+import nl.rabobank.customerstatementservice.config.CompiledCustomerStatementRecordValidator;
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordBatchDto;
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordDto;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Validator;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+
+import javax.validation.Validation;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the validation of the request bodies as done by the controller, with bean validation (the default) and
+ * with the compiled validator (customerstatementservice.validation-mode=compiled). Both validate into a new
+ * BindingResult, like the data binder does for every request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestValidationBenchmark {
+
+    @Param({"1", "100"})
+    private int batchSize;
+
+    private CustomerStatementRecordDto recordDto;
+
+    private CustomerStatementRecordBatchDto recordBatchDto;
+
+    private Validator beanValidator;
+
+    private Validator compiledValidator;
+
+    @Setup
+    public void setUp() {
+        recordDto = BenchmarkRecords.buildRecordDto(1, false);
+
+        List<CustomerStatementRecordDto> recordDtos = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            recordDtos.add(BenchmarkRecords.buildRecordDto(i, false));
+        }
+        recordBatchDto = new CustomerStatementRecordBatchDto();
+        recordBatchDto.setRecords(recordDtos);
+
+        beanValidator = new SpringValidatorAdapter(Validation.buildDefaultValidatorFactory().getValidator());
+        compiledValidator = new CompiledCustomerStatementRecordValidator();
+    }
+
+    @Benchmark
+    public boolean beanValidationRecord() {
+        return validate(beanValidator, recordDto, "customerStatementRecordDto");
+    }
+
+    @Benchmark
+    public boolean compiledValidationRecord() {
+        return validate(compiledValidator, recordDto, "customerStatementRecordDto");
+    }
+
+    @Benchmark
+    public boolean beanValidationBatch() {
+        return validate(beanValidator, recordBatchDto, "customerStatementRecordBatchDto");
+    }
+
+    @Benchmark
+    public boolean compiledValidationBatch() {
+        return validate(compiledValidator, recordBatchDto, "customerStatementRecordBatchDto");
+    }
+
+    private static boolean validate(Validator validator, Object target, String objectName) {
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(target, objectName);
+        validator.validate(target, bindingResult);
+        return bindingResult.hasErrors();
+    }
+}
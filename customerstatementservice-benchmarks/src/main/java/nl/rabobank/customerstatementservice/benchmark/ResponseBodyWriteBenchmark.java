@@ -0,0 +1,77 @@
+package nl.rabobank.customerstatementservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import nl.rabobank.customerstatementservice.config.ResponseBodyHttpMessageConverter;
+import nl.rabobank.customerstatementservice.dto.ResponseBody;
+import nl.rabobank.customerstatementservice.dto.ResultType;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares writing the SUCCESSFUL response body with the Jackson converter, which serializes it for every response,
+ * to writing its pre-serialized JSON with the {@link ResponseBodyHttpMessageConverter}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseBodyWriteBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final MappingJackson2HttpMessageConverter jacksonConverter = new MappingJackson2HttpMessageConverter(objectMapper);
+
+    private final ResponseBodyHttpMessageConverter responseBodyConverter = new ResponseBodyHttpMessageConverter(objectMapper);
+
+    private final ResponseBody responseBody = ResponseBody.of(ResultType.SUCCESSFUL);
+
+    private final BufferedOutputMessage outputMessage = new BufferedOutputMessage();
+
+    @Benchmark
+    public int jacksonConverter() throws IOException {
+        outputMessage.reset();
+        jacksonConverter.write(responseBody, MediaType.APPLICATION_JSON, outputMessage);
+        return outputMessage.body.size();
+    }
+
+    @Benchmark
+    public int preSerialized() throws IOException {
+        outputMessage.reset();
+        responseBodyConverter.write(responseBody, MediaType.APPLICATION_JSON, outputMessage);
+        return outputMessage.body.size();
+    }
+
+    /**
+     * Reused for every response, so only the writing itself is measured.
+     */
+    private static final class BufferedOutputMessage implements HttpOutputMessage {
+
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+
+        private final HttpHeaders headers = new HttpHeaders();
+
+        void reset() {
+            body.reset();
+            headers.clear();
+        }
+
+        @Override
+        public ByteArrayOutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package nl.rabobank.customerstatementservice.benchmark;
+
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecord;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecordRepository;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecordWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures how the write throughput scales with the number of shards, with 16 threads inserting at the same time.
+ * Every shard is an embedded H2 database of its own, so this shows the effect of spreading the commits over more
+ * databases; with databases on separate machines the gain also includes their disks and CPUs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class ShardedWriteBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({"1", "2", "4", "8"})
+    public int shardCount;
+
+    private final AtomicInteger nextTransactionReference = new AtomicInteger();
+
+    private ConfigurableApplicationContext applicationContext;
+
+    private CustomerStatementRecordRepository customerStatementRecordRepository;
+
+    private CustomerStatementRecordWriter customerStatementRecordWriter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        applicationContext = RepositoryInsertBenchmark.BenchmarkApplication.start("direct",
+                "customerstatementservice.sharding.shard-count=" + shardCount,
+                // Every shard gets a pool of its own, keep the total number of connections the same
+                "spring.datasource.hikari.maximum-pool-size=" + Math.max(2, 16 / shardCount));
+        customerStatementRecordRepository = applicationContext.getBean(CustomerStatementRecordRepository.class);
+        customerStatementRecordWriter = applicationContext.getBean(CustomerStatementRecordWriter.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        applicationContext.close();
+    }
+
+    @Benchmark
+    public boolean insertIfAbsent() {
+        return customerStatementRecordWriter.insertIfAbsent(BenchmarkRecords.buildRecord(nextTransactionReference.getAndIncrement()));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void insertAll() {
+        List<CustomerStatementRecord> records = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            records.add(BenchmarkRecords.buildRecord(nextTransactionReference.getAndIncrement()));
+        }
+        customerStatementRecordRepository.insertAll(records);
+    }
+}
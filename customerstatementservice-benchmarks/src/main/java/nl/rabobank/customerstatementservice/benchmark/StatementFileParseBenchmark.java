@@ -0,0 +1,105 @@
+package nl.rabobank.customerstatementservice.benchmark;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordDto;
+import nl.rabobank.customerstatementservice.service.CustomerStatementFileParser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares parsing a CSV statement file the way the CSV stream upload does, reading validated DTOs from the file with
+ * Jackson, to parsing the memory-mapped file in place like the file ingestion does. Scores are per record.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+@OperationsPerInvocation(StatementFileParseBenchmark.RECORD_COUNT)
+public class StatementFileParseBenchmark {
+
+    static final int RECORD_COUNT = 10000;
+
+    private static final String HEADER_LINE = "transactionReference,accountNumber,startBalance,mutation,description,endBalance";
+
+    private final ObjectReader recordReader = new CsvMapper().readerFor(CustomerStatementRecordDto.class)
+            .with(CsvSchema.emptySchema().withHeader());
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    private Path file;
+
+    private FileChannel channel;
+
+    private MappedByteBuffer buffer;
+
+    private int dataStart;
+
+    @Setup
+    public void setUp() throws IOException {
+        StringBuilder content = new StringBuilder(HEADER_LINE).append('\n');
+        for (int transactionReference = 0; transactionReference < RECORD_COUNT; transactionReference++) {
+            CustomerStatementRecordDto recordDto = BenchmarkRecords.buildRecordDto(transactionReference, false);
+            content.append(recordDto.getTransactionReference()).append(',').append(recordDto.getAccountNumber()).append(',')
+                    .append(recordDto.getStartBalance()).append(',').append(recordDto.getMutation()).append(',')
+                    .append(recordDto.getDescription()).append(',').append(recordDto.getEndBalance()).append('\n');
+        }
+        file = Files.createTempFile("statements", ".csv");
+        Files.write(file, content.toString().getBytes(StandardCharsets.UTF_8));
+
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        dataStart = HEADER_LINE.length() + 1;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        channel.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public void jackson(Blackhole blackhole) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(file);
+             MappingIterator<CustomerStatementRecordDto> records = recordReader.readValues(inputStream)) {
+            while (records.hasNext()) {
+                CustomerStatementRecordDto recordDto = records.next();
+                blackhole.consume(validator.validate(recordDto).isEmpty());
+                blackhole.consume(recordDto);
+            }
+        }
+    }
+
+    @Benchmark
+    public void mapped(Blackhole blackhole) {
+        CustomerStatementFileParser parser = CustomerStatementFileParser.forHeader(HEADER_LINE);
+        int position = dataStart;
+        int limit = buffer.limit();
+        while (position < limit) {
+            int lineEnd = position;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            if (parser.parseLine(buffer, position, lineEnd)) {
+                blackhole.consume(parser.toCustomerStatementRecord());
+            }
+            position = lineEnd + 1;
+        }
+    }
+}
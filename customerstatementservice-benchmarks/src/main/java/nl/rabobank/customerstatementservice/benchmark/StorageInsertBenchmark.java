@@ -0,0 +1,78 @@
+package nl.rabobank.customerstatementservice.benchmark;
+
+import nl.rabobank.customerstatementservice.benchmark.RepositoryInsertBenchmark.BenchmarkApplication;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecord;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecordStore;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares inserting records through the storage engines: the embedded H2 database through JPA, and the append-only
+ * log syncing every insert or leaving syncing to the operating system. The in-memory H2 database doesn't sync at all,
+ * so it compares best with log-never. Every trial starts with an empty store of its own.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StorageInsertBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({"jpa", "log-always", "log-never"})
+    public String storage;
+
+    private final AtomicInteger nextTransactionReference = new AtomicInteger();
+
+    private Path logDirectory;
+
+    private ConfigurableApplicationContext applicationContext;
+
+    private CustomerStatementRecordStore customerStatementRecordStore;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        logDirectory = Files.createTempDirectory("storage-benchmark");
+        if ("jpa".equals(storage)) {
+            applicationContext = BenchmarkApplication.start("direct");
+        } else {
+            applicationContext = BenchmarkApplication.start("direct",
+                    "customerstatementservice.storage=log",
+                    "customerstatementservice.log-storage.directory=" + logDirectory,
+                    "customerstatementservice.log-storage.fsync=" + storage.substring("log-".length()));
+        }
+        customerStatementRecordStore = applicationContext.getBean(CustomerStatementRecordStore.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        applicationContext.close();
+        FileSystemUtils.deleteRecursively(logDirectory);
+    }
+
+    @Benchmark
+    public void insert() {
+        customerStatementRecordStore.insert(BenchmarkRecords.buildRecord(nextTransactionReference.getAndIncrement()));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void insertAll() {
+        List<CustomerStatementRecord> records = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            records.add(BenchmarkRecords.buildRecord(nextTransactionReference.getAndIncrement()));
+        }
+        customerStatementRecordStore.insertAll(records);
+    }
+}
@@ -0,0 +1,45 @@
+package nl.rabobank.customerstatementservice.benchmark;
+
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordDto;
+import nl.rabobank.customerstatementservice.dto.ResponseBody;
+import nl.rabobank.customerstatementservice.dto.ResultType;
+import nl.rabobank.customerstatementservice.service.CustomerStatementRecordValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the verification of a correct record on its own, as done by the service for every record. It doesn't
+ * allocate anything, the allocations of the whole success path are measured by {@link CustomerStatementServiceBenchmark}.
+ * newResponseBody shows what creating a new body per record used to cost.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationBenchmark {
+
+    private CustomerStatementRecordDto recordDto;
+
+    private int lastEndBalance;
+
+    @Setup
+    public void setUp() {
+        recordDto = BenchmarkRecords.buildRecordDto(1, false);
+        lastEndBalance = recordDto.getStartBalance();
+    }
+
+    @Benchmark
+    public ResponseBody validate() {
+        return ResponseBody.of(CustomerStatementRecordValidator.validate(recordDto.getStartBalance(), recordDto.getMutation(),
+                recordDto.getEndBalance(), true, lastEndBalance));
+    }
+
+    @Benchmark
+    public ResponseBody newResponseBody() {
+        return new ResponseBody(CustomerStatementRecordValidator.validate(recordDto.getStartBalance(), recordDto.getMutation(),
+                recordDto.getEndBalance(), true, lastEndBalance));
+    }
+}
@@ -0,0 +1,96 @@
+package nl.rabobank.customerstatementservice.benchmark;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import nl.rabobank.customerstatementservice.codec.CustomerStatementRecordDecoder;
+import nl.rabobank.customerstatementservice.codec.CustomerStatementRecordEncoder;
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordDto;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares decoding a stream upload of newline delimited JSON, into validated DTOs like the stream service does, to
+ * decoding the binary format into primitive fields. Scores are per record. The bytes per record of each format are
+ * reported by JMH as the bytesPerRecord counter of its benchmark.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+@OperationsPerInvocation(WireFormatBenchmark.RECORD_COUNT)
+public class WireFormatBenchmark {
+
+    static final int RECORD_COUNT = 1000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ObjectReader recordReader = objectMapper.readerFor(CustomerStatementRecordDto.class);
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    private byte[] json;
+
+    private byte[] binary;
+
+    @Setup
+    public void setUp() throws IOException {
+        ByteArrayOutputStream jsonOutput = new ByteArrayOutputStream();
+        ByteArrayOutputStream binaryOutput = new ByteArrayOutputStream();
+        try (CustomerStatementRecordEncoder encoder = new CustomerStatementRecordEncoder(binaryOutput)) {
+            for (int transactionReference = 0; transactionReference < RECORD_COUNT; transactionReference++) {
+                CustomerStatementRecordDto recordDto = BenchmarkRecords.buildRecordDto(transactionReference, false);
+                jsonOutput.write(objectMapper.writeValueAsBytes(recordDto));
+                jsonOutput.write('\n');
+                encoder.write(recordDto);
+            }
+        }
+        json = jsonOutput.toByteArray();
+        binary = binaryOutput.toByteArray();
+    }
+
+    @Benchmark
+    public void json(RecordSize recordSize, Blackhole blackhole) throws IOException {
+        recordSize.bytesPerRecord = (double) json.length / RECORD_COUNT;
+        try (MappingIterator<CustomerStatementRecordDto> records = recordReader.readValues(json)) {
+            while (records.hasNext()) {
+                CustomerStatementRecordDto recordDto = records.next();
+                blackhole.consume(validator.validate(recordDto).isEmpty());
+                blackhole.consume(recordDto);
+            }
+        }
+    }
+
+    @Benchmark
+    public void binary(RecordSize recordSize, Blackhole blackhole) throws IOException {
+        recordSize.bytesPerRecord = (double) binary.length / RECORD_COUNT;
+        CustomerStatementRecordDecoder decoder = new CustomerStatementRecordDecoder(new ByteArrayInputStream(binary));
+        while (decoder.next()) {
+            blackhole.consume(decoder.getAccountNumber() != null);
+            blackhole.consume(decoder.getTransactionReference());
+            blackhole.consume(decoder.getStartBalance());
+            blackhole.consume(decoder.getMutation());
+            blackhole.consume(decoder.getEndBalance());
+            blackhole.consume(decoder.getDescription());
+        }
+    }
+
+    /**
+     * Size of the decoded format, reported by JMH next to the score of the benchmark.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RecordSize {
+
+        public double bytesPerRecord;
+    }
+}
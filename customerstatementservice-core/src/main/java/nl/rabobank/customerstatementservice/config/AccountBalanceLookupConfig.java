@@ -0,0 +1,56 @@
+package nl.rabobank.customerstatementservice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import nl.rabobank.customerstatementservice.infrastructure.AccountBalanceCache;
+import nl.rabobank.customerstatementservice.infrastructure.AccountBalanceLookup;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecordStore;
+import nl.rabobank.customerstatementservice.infrastructure.ShardRouter;
+import nl.rabobank.customerstatementservice.infrastructure.UncheckedAccountBalanceLookup;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Selects whether every record has to start at the end balance of the previous record of its account, using property
+ * customerstatementservice.balance-continuity.enabled. When enabled, the last end balance of the most recently used
+ * accounts is cached, see {@link AccountBalanceCache}.
+ */
+@Configuration
+public class AccountBalanceLookupConfig {
+
+    private static final String BALANCE_CONTINUITY_PROPERTY = "customerstatementservice.balance-continuity.enabled";
+
+    @Bean
+    @ConditionalOnProperty(name = BALANCE_CONTINUITY_PROPERTY, havingValue = "false", matchIfMissing = true)
+    public AccountBalanceLookup uncheckedAccountBalanceLookup() {
+        return new UncheckedAccountBalanceLookup();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = BALANCE_CONTINUITY_PROPERTY, havingValue = "true")
+    public AccountBalanceLookup accountBalanceCache(CustomerStatementRecordStore customerStatementRecordStore,
+                                                    ObjectProvider<JdbcTemplate> jdbcTemplate,
+                                                    ObjectProvider<ShardRouter> shardRouter,
+                                                    MeterRegistry meterRegistry,
+                                                    @Value("${customerstatementservice.balance-cache.maximum-accounts:100000}") int maximumAccounts,
+                                                    @Value("${customerstatementservice.file-ingest.directory:}") String fileIngestDirectory,
+                                                    @Value("${customerstatementservice.file-ingest.workers:4}") int fileIngestWorkers) {
+        if (shardRouter.getIfAvailable() != null) {
+            // Every shard numbers its records on its own, so the last record of an account can't be told across shards.
+            throw new IllegalStateException("The balance continuity check can't be combined with sharding");
+        }
+        if (!fileIngestDirectory.isEmpty() && fileIngestWorkers > 1) {
+            // Workers handle the segments of a file in parallel, so records of an account wouldn't be checked in file order.
+            throw new IllegalStateException("The balance continuity check needs customerstatementservice.file-ingest.workers=1");
+        }
+
+        AccountBalanceCache accountBalanceCache = new AccountBalanceCache(customerStatementRecordStore, maximumAccounts, meterRegistry);
+        // Without a database the records are in the log store, which keeps every last end balance in memory already.
+        jdbcTemplate.ifAvailable(accountBalanceCache::load);
+
+        return accountBalanceCache;
+    }
+}
@@ -0,0 +1,60 @@
+package nl.rabobank.customerstatementservice.config;
+
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordBatchDto;
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordDto;
+import org.springframework.validation.Errors;
+import org.springframework.validation.Validator;
+
+import java.util.List;
+
+/**
+ * Checks the same constraints as the annotations of {@link CustomerStatementRecordDto} and
+ * {@link CustomerStatementRecordBatchDto}, written out as plain null checks. Bean validation finds the constraints
+ * through reflection and builds a violation per failing one, this only rejects the request as a whole, as the response
+ * doesn't tell which field was missing anyway.
+ * <p>
+ * Keep the checks in line with the annotations of the DTOs.
+ */
+public class CompiledCustomerStatementRecordValidator implements Validator {
+
+    @Override
+    public boolean supports(Class<?> clazz) {
+        return CustomerStatementRecordDto.class == clazz || CustomerStatementRecordBatchDto.class == clazz;
+    }
+
+    @Override
+    public void validate(Object target, Errors errors) {
+        boolean valid = target instanceof CustomerStatementRecordDto
+                ? isValid((CustomerStatementRecordDto) target)
+                : isValid((CustomerStatementRecordBatchDto) target);
+        if (!valid) {
+            errors.reject("NotNull", "A required field is missing");
+        }
+    }
+
+    public static boolean isValid(CustomerStatementRecordDto recordDto) {
+        return recordDto != null
+                && recordDto.getTransactionReference() != null
+                && recordDto.getAccountNumber() != null
+                && recordDto.getStartBalance() != null
+                && recordDto.getMutation() != null
+                && recordDto.getEndBalance() != null;
+    }
+
+    /**
+     * A batch containing null records is rejected, like the @NotNull on the elements of its list does.
+     */
+    public static boolean isValid(CustomerStatementRecordBatchDto recordBatchDto) {
+        List<CustomerStatementRecordDto> recordDtos = recordBatchDto.getRecords();
+        if (recordDtos == null) {
+            return false;
+        }
+
+        for (CustomerStatementRecordDto recordDto : recordDtos) {
+            if (!isValid(recordDto)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
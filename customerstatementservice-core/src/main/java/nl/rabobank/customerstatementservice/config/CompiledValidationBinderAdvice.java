@@ -0,0 +1,31 @@
+package nl.rabobank.customerstatementservice.config;
+
+import nl.rabobank.customerstatementservice.ui.rest.CustomerStatementController;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.WebDataBinder;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.InitBinder;
+
+/**
+ * Selects how the request bodies of records are validated, using property customerstatementservice.validation-mode:
+ * <ul>
+ * <li>bean (default): bean validation of the constraint annotations of the DTOs</li>
+ * <li>compiled: the same constraints as plain null checks, see {@link CompiledCustomerStatementRecordValidator}</li>
+ * </ul>
+ * Either way an invalid body fails with a MethodArgumentNotValidException, which {@link CustomRestExceptionHandler}
+ * turns into the BAD_REQUEST response.
+ */
+@ControllerAdvice(assignableTypes = CustomerStatementController.class)
+@ConditionalOnProperty(name = "customerstatementservice.validation-mode", havingValue = "compiled")
+public class CompiledValidationBinderAdvice {
+
+    private final CompiledCustomerStatementRecordValidator compiledValidator = new CompiledCustomerStatementRecordValidator();
+
+    /**
+     * Only the binders of the record bodies, request parameters are still validated by bean validation.
+     */
+    @InitBinder({"customerStatementRecordDto", "customerStatementRecordBatchDto"})
+    public void useCompiledValidator(WebDataBinder binder) {
+        binder.replaceValidators(compiledValidator);
+    }
+}
@@ -2,17 +2,21 @@ package nl.rabobank.customerstatementservice.config;
 
 import nl.rabobank.customerstatementservice.dto.ResponseBody;
 import nl.rabobank.customerstatementservice.dto.ResultType;
+import org.springframework.beans.TypeMismatchException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
+import javax.validation.ConstraintViolationException;
+
 /**
  * This class is needed to return the requested response within a 400 or 500 HttpStatus.
  * This could've been handled by Spring itself, using the default response body.
@@ -30,6 +34,24 @@ public class CustomRestExceptionHandler extends ResponseEntityExceptionHandler {
         return createBadRequestResponse();
     }
 
+    @Override
+    protected ResponseEntity<Object> handleMissingServletRequestParameter(MissingServletRequestParameterException ex, HttpHeaders headers, HttpStatus status, WebRequest request) {
+        return createBadRequestResponse();
+    }
+
+    @Override
+    protected ResponseEntity<Object> handleTypeMismatch(TypeMismatchException ex, HttpHeaders headers, HttpStatus status, WebRequest request) {
+        return createBadRequestResponse();
+    }
+
+    /**
+     * Thrown when a request parameter doesn't meet its constraints.
+     */
+    @ExceptionHandler(ConstraintViolationException.class)
+    protected ResponseEntity<Object> handleConstraintViolationException(ConstraintViolationException ex) {
+        return createBadRequestResponse();
+    }
+
     /**
      * This method is to comply to the request that any internal exception must be returned with a specific body.
      *
@@ -43,14 +65,14 @@ public class CustomRestExceptionHandler extends ResponseEntityExceptionHandler {
             throw ex;
         }
 
-        ResponseBody responseBody = new ResponseBody(ResultType.INTERNAL_SERVER_ERROR);
+        ResponseBody responseBody = ResponseBody.of(ResultType.INTERNAL_SERVER_ERROR);
 
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(responseBody);
     }
 
     private ResponseEntity<Object> createBadRequestResponse() {
-        ResponseBody responseBody = new ResponseBody(ResultType.BAD_REQUEST);
+        ResponseBody responseBody = ResponseBody.of(ResultType.BAD_REQUEST);
 
         return ResponseEntity.badRequest()
                 .body(responseBody);
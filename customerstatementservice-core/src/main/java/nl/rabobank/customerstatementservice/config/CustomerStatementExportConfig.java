@@ -0,0 +1,31 @@
+package nl.rabobank.customerstatementservice.config;
+
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecordCursor;
+import nl.rabobank.customerstatementservice.infrastructure.ShardRouter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+
+/**
+ * Sets up the cursor exports read the records with, fetching customerstatementservice.export.fetch-size rows at a time
+ * from every shard. Only with the jpa storage engine, see {@link StorageConfig}.
+ */
+@Configuration
+@ConditionalOnProperty(name = StorageConfig.STORAGE_PROPERTY, havingValue = "jpa", matchIfMissing = true)
+public class CustomerStatementExportConfig {
+
+    @Bean
+    public CustomerStatementRecordCursor customerStatementRecordCursor(DataSource dataSource,
+                                                                       ObjectProvider<ShardRouter> shardRouter,
+                                                                       @Value("${customerstatementservice.export.fetch-size:1000}") int fetchSize) {
+        ShardRouter availableShardRouter = shardRouter.getIfAvailable();
+
+        return new CustomerStatementRecordCursor(availableShardRouter == null ? Collections.singletonList(dataSource) : availableShardRouter.getShardDataSources(),
+                fetchSize);
+    }
+}
@@ -0,0 +1,78 @@
+package nl.rabobank.customerstatementservice.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecord;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Selects whether {@link CustomerStatementRecord}s are kept in the Hibernate second-level cache, using property
+ * customerstatementservice.record-cache.enabled. When enabled, at most customerstatementservice.record-cache.maximum-records
+ * records are cached in an embedded Caffeine cache, each for customerstatementservice.record-cache.ttl-seconds after it
+ * was cached. Hits and misses are published as cache.gets{cache=customer-statement-record}.
+ * <p>
+ * Only lookups by transaction reference use the cache, which happen once a reference is known to be a duplicate. Whether
+ * a reference exists is always asked to the database and the query cache stays disabled, so a cached record can't hide a
+ * duplicate: records are never deleted and the primary key still rejects every duplicate insert.
+ */
+@Configuration
+public class CustomerStatementRecordCacheConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerStatementRecordCacheConfig.class);
+
+    private static final String RECORD_CACHE_PROPERTY = "customerstatementservice.record-cache.enabled";
+
+    private static final AtomicInteger CACHE_MANAGER_COUNT = new AtomicInteger();
+
+    @Bean
+    @ConditionalOnProperty(name = RECORD_CACHE_PROPERTY, havingValue = "false", matchIfMissing = true)
+    public HibernatePropertiesCustomizer disabledRecordCache() {
+        // Hibernate would pick up the JCache region factory by itself, with an unbounded cache per entity.
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, false);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = RECORD_CACHE_PROPERTY, havingValue = "true")
+    public HibernatePropertiesCustomizer enabledRecordCache(MeterRegistry meterRegistry,
+                                                            @Value("${customerstatementservice.record-cache.maximum-records:100000}") long maximumRecords,
+                                                            @Value("${customerstatementservice.record-cache.ttl-seconds:600}") long ttlSeconds) {
+        return hibernateProperties -> {
+            // Every application context gets a cache manager of its own, which Hibernate closes with the session factory.
+            CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager(
+                    URI.create("customerstatementservice-" + CACHE_MANAGER_COUNT.incrementAndGet()), getClass().getClassLoader());
+
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+            configuration.setMaximumSize(OptionalLong.of(maximumRecords));
+            configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(ttlSeconds)));
+            configuration.setStatisticsEnabled(true);
+            Cache<Object, Object> cache = cacheManager.createCache(CustomerStatementRecord.CACHE_REGION, configuration);
+            JCacheMetrics.monitor(meterRegistry, cache);
+
+            hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            hibernateProperties.put(AvailableSettings.USE_QUERY_CACHE, false);
+            hibernateProperties.put(AvailableSettings.CACHE_REGION_FACTORY, JCacheRegionFactory.class.getName());
+            hibernateProperties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+            hibernateProperties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            log.info("Caching at most {} records for {} seconds", maximumRecords, ttlSeconds);
+        };
+    }
+}
@@ -0,0 +1,41 @@
+package nl.rabobank.customerstatementservice.config;
+
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecordStore;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecordWriter;
+import nl.rabobank.customerstatementservice.infrastructure.DirectCustomerStatementRecordWriter;
+import nl.rabobank.customerstatementservice.infrastructure.GroupCommitCustomerStatementRecordWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Selects how accepted records are stored, using property customerstatementservice.write-mode:
+ * <ul>
+ * <li>direct (default): every record is inserted and committed on the request thread</li>
+ * <li>write-behind: records are queued and committed in groups, see {@link GroupCommitCustomerStatementRecordWriter}</li>
+ * </ul>
+ */
+@Configuration
+public class CustomerStatementRecordWriterConfig {
+
+    private static final String WRITE_MODE_PROPERTY = "customerstatementservice.write-mode";
+
+    @Bean
+    @ConditionalOnProperty(name = WRITE_MODE_PROPERTY, havingValue = "direct", matchIfMissing = true)
+    public CustomerStatementRecordWriter directCustomerStatementRecordWriter(CustomerStatementRecordStore customerStatementRecordStore) {
+        return new DirectCustomerStatementRecordWriter(customerStatementRecordStore);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = WRITE_MODE_PROPERTY, havingValue = "write-behind")
+    public CustomerStatementRecordWriter groupCommitCustomerStatementRecordWriter(CustomerStatementRecordStore customerStatementRecordStore,
+                                                                                  @Value("${customerstatementservice.write-behind.queue-capacity:10000}") int queueCapacity,
+                                                                                  @Value("${customerstatementservice.write-behind.group-size:500}") int groupSize,
+                                                                                  @Value("${customerstatementservice.write-behind.max-delay-ms:5}") long maxDelayMillis,
+                                                                                  @Value("${customerstatementservice.write-behind.offer-timeout-ms:1000}") long offerTimeoutMillis,
+                                                                                  @Value("${customerstatementservice.write-behind.commit-timeout-ms:30000}") long commitTimeoutMillis) {
+        return new GroupCommitCustomerStatementRecordWriter(customerStatementRecordStore, queueCapacity, groupSize, maxDelayMillis,
+                offerTimeoutMillis, commitTimeoutMillis);
+    }
+}
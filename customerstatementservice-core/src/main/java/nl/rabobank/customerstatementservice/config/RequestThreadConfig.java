@@ -0,0 +1,34 @@
+package nl.rabobank.customerstatementservice.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Selects the threads serving the requests, and thus running the {@link nl.rabobank.customerstatementservice.service.CustomerStatementService}
+ * calls, using property customerstatementservice.thread-mode:
+ * <ul>
+ * <li>platform (default): the Tomcat worker pool, limited by server.tomcat.threads.max</li>
+ * <li>virtual: a new virtual thread per request, which releases its carrier thread while waiting for the database</li>
+ * </ul>
+ * In virtual mode the number of concurrent requests is only limited by server.tomcat.max-connections and the
+ * database connection pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "customerstatementservice.thread-mode", havingValue = "virtual")
+public class RequestThreadConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadRequestExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("request-", 0).factory());
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService virtualThreadRequestExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadRequestExecutor);
+    }
+}
@@ -0,0 +1,18 @@
+package nl.rabobank.customerstatementservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers the {@link ResponseBodyHttpMessageConverter}. Spring Boot puts converter beans in front of the default
+ * ones, so it takes precedence over the Jackson converter for response bodies.
+ */
+@Configuration
+public class ResponseBodyConverterConfig {
+
+    @Bean
+    public ResponseBodyHttpMessageConverter responseBodyHttpMessageConverter(ObjectMapper objectMapper) {
+        return new ResponseBodyHttpMessageConverter(objectMapper);
+    }
+}
@@ -0,0 +1,63 @@
+package nl.rabobank.customerstatementservice.config;
+
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import nl.rabobank.customerstatementservice.dto.ResponseBody;
+import nl.rabobank.customerstatementservice.mapper.PreSerializedResponseBodies;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+
+/**
+ * Writes the shared bodies of {@link ResponseBody#of} as their pre-serialized JSON bytes, with a Content-Length.
+ * That covers the SUCCESSFUL response of a record, and the BAD_REQUEST and INTERNAL_SERVER_ERROR responses of
+ * {@link CustomRestExceptionHandler}. Bodies with error records are serialized with the ObjectMapper as before.
+ */
+public class ResponseBodyHttpMessageConverter extends AbstractHttpMessageConverter<ResponseBody> {
+
+    private final ObjectMapper objectMapper;
+
+    private final PreSerializedResponseBodies preSerializedResponseBodies;
+
+    public ResponseBodyHttpMessageConverter(ObjectMapper objectMapper) {
+        super(MediaType.APPLICATION_JSON);
+        this.objectMapper = objectMapper;
+        this.preSerializedResponseBodies = new PreSerializedResponseBodies(objectMapper);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ResponseBody.class == clazz;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        // Only used for writing responses, requests are read by the Jackson converter.
+        return false;
+    }
+
+    @Override
+    protected ResponseBody readInternal(Class<? extends ResponseBody> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Response bodies aren't read", inputMessage);
+    }
+
+    @Override
+    protected Long getContentLength(ResponseBody responseBody, MediaType contentType) {
+        SerializableString json = preSerializedResponseBodies.getJson(responseBody);
+        return json == null ? null : (long) json.asUnquotedUTF8().length;
+    }
+
+    @Override
+    protected void writeInternal(ResponseBody responseBody, HttpOutputMessage outputMessage) throws IOException {
+        SerializableString json = preSerializedResponseBodies.getJson(responseBody);
+        if (json != null) {
+            json.writeUnquotedUTF8(outputMessage.getBody());
+        } else {
+            objectMapper.writeValue(outputMessage.getBody(), responseBody);
+        }
+    }
+}
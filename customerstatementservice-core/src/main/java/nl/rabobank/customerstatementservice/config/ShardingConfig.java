@@ -0,0 +1,67 @@
+package nl.rabobank.customerstatementservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecordRepository;
+import nl.rabobank.customerstatementservice.infrastructure.ShardRouter;
+import nl.rabobank.customerstatementservice.infrastructure.ShardRoutingDataSource;
+import nl.rabobank.customerstatementservice.infrastructure.ShardRoutingRepositoryInvocationHandler;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Spreads the records over customerstatementservice.sharding.shard-count databases, when set to more than 1.
+ * The url of every shard is customerstatementservice.sharding.url-template with {shard} replaced by the number of the shard,
+ * the other spring.datasource properties apply to all shards. See {@link ShardRouter} for how records are assigned.
+ */
+@Configuration
+@ConditionalOnExpression("${customerstatementservice.sharding.shard-count:1} > 1")
+public class ShardingConfig {
+
+    @Bean
+    public ShardRouter shardRouter(DataSourceProperties dataSourceProperties,
+                                   @Value("${customerstatementservice.sharding.shard-count}") int shardCount,
+                                   @Value("${customerstatementservice.sharding.url-template}") String urlTemplate,
+                                   @Value("classpath:schema-h2.sql") Resource schema) {
+        List<DataSource> shardDataSources = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            HikariDataSource shardDataSource = dataSourceProperties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(urlTemplate.replace("{shard}", String.valueOf(shard)))
+                    .build();
+            shardDataSource.setPoolName("shard-" + shard);
+            DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(schema), shardDataSource);
+
+            shardDataSources.add(shardDataSource);
+        }
+
+        return new ShardRouter(shardDataSources);
+    }
+
+    @Bean
+    @Primary
+    public DataSource shardRoutingDataSource(ShardRouter shardRouter) {
+        return new ShardRoutingDataSource(shardRouter);
+    }
+
+    @Bean
+    @Primary
+    public CustomerStatementRecordRepository shardRoutingCustomerStatementRecordRepository(
+            @Qualifier("customerStatementRecordRepository") CustomerStatementRecordRepository customerStatementRecordRepository,
+            ShardRouter shardRouter,
+            PlatformTransactionManager transactionManager) {
+        return ShardRoutingRepositoryInvocationHandler.createRepository(customerStatementRecordRepository, shardRouter, transactionManager);
+    }
+}
@@ -0,0 +1,50 @@
+package nl.rabobank.customerstatementservice.config;
+
+import nl.rabobank.customerstatementservice.infrastructure.AccountSummaryRepository;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecordCursor;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecordRepository;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecordStore;
+import nl.rabobank.customerstatementservice.infrastructure.JpaCustomerStatementRecordStore;
+import nl.rabobank.customerstatementservice.infrastructure.LogCustomerStatementRecordStore;
+import nl.rabobank.customerstatementservice.infrastructure.LogCustomerStatementRecordStore.FsyncPolicy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * Selects where the records are stored, using property customerstatementservice.storage:
+ * <ul>
+ * <li>jpa (default): in the database, see {@link JpaCustomerStatementRecordStore}</li>
+ * <li>log: in an append-only log in customerstatementservice.log-storage.directory, without a database or Hibernate,
+ * see {@link LogCustomerStatementRecordStore}</li>
+ * </ul>
+ * The log engine only supports the modes which don't need a database, see {@link StorageEnvironmentPostProcessor}.
+ */
+@Configuration
+public class StorageConfig {
+
+    static final String STORAGE_PROPERTY = "customerstatementservice.storage";
+
+    @Bean
+    @ConditionalOnProperty(name = STORAGE_PROPERTY, havingValue = "jpa", matchIfMissing = true)
+    public CustomerStatementRecordStore jpaCustomerStatementRecordStore(CustomerStatementRecordRepository customerStatementRecordRepository,
+                                                                       AccountSummaryRepository accountSummaryRepository,
+                                                                       CustomerStatementRecordCursor customerStatementRecordCursor,
+                                                                       @Value("${customerstatementservice.account-summary.enabled:false}") boolean accountSummariesEnabled) {
+        return new JpaCustomerStatementRecordStore(customerStatementRecordRepository, accountSummaryRepository, customerStatementRecordCursor,
+                accountSummariesEnabled);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = STORAGE_PROPERTY, havingValue = "log")
+    public CustomerStatementRecordStore logCustomerStatementRecordStore(@Value("${customerstatementservice.log-storage.directory:log-storage}") String directory,
+                                                                       @Value("${customerstatementservice.log-storage.fsync:always}") String fsyncPolicy,
+                                                                       @Value("${customerstatementservice.log-storage.fsync-interval-ms:100}") long fsyncIntervalMillis) throws IOException {
+        return new LogCustomerStatementRecordStore(Paths.get(directory), FsyncPolicy.valueOf(fsyncPolicy.toUpperCase(Locale.ROOT)), fsyncIntervalMillis);
+    }
+}
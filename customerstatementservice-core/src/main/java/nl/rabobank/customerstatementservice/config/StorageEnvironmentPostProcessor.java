@@ -0,0 +1,55 @@
+package nl.rabobank.customerstatementservice.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.data.jpa.JpaRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationAutoConfiguration;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.util.StringUtils;
+
+import java.util.Collections;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * With the log storage engine, leaves the database, Hibernate and the JPA repositories out of the application, so they
+ * don't take time and memory without being used. Also rejects the modes which need them, before the context is started.
+ */
+public class StorageEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    private static final String EXCLUDE_PROPERTY = "spring.autoconfigure.exclude";
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (!"log".equals(environment.getProperty(StorageConfig.STORAGE_PROPERTY))) {
+            return;
+        }
+
+        requireProperty(environment, "customerstatementservice.duplicate-check", "repository");
+        requireProperty(environment, "customerstatementservice.write-mode", "direct");
+        if (environment.getProperty("customerstatementservice.sharding.shard-count", Integer.class, 1) > 1) {
+            throw new IllegalStateException("The log storage engine can't be combined with sharding");
+        }
+
+        String excluded = Stream.of(DataSourceAutoConfiguration.class, DataSourceTransactionManagerAutoConfiguration.class,
+                        JdbcTemplateAutoConfiguration.class, SqlInitializationAutoConfiguration.class,
+                        HibernateJpaAutoConfiguration.class, JpaRepositoriesAutoConfiguration.class)
+                .map(Class::getName)
+                .collect(Collectors.joining(","));
+        String alreadyExcluded = environment.getProperty(EXCLUDE_PROPERTY);
+        environment.getPropertySources().addFirst(new MapPropertySource("logStorage", Collections.singletonMap(EXCLUDE_PROPERTY,
+                StringUtils.hasText(alreadyExcluded) ? alreadyExcluded + "," + excluded : excluded)));
+    }
+
+    private static void requireProperty(ConfigurableEnvironment environment, String name, String value) {
+        String actualValue = environment.getProperty(name, value);
+        if (!value.equals(actualValue)) {
+            throw new IllegalStateException("The log storage engine requires " + name + "=" + value + ", not " + actualValue);
+        }
+    }
+}
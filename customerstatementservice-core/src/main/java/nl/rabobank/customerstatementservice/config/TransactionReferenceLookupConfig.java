@@ -0,0 +1,78 @@
+package nl.rabobank.customerstatementservice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import nl.rabobank.customerstatementservice.infrastructure.BloomFilterTransactionReferenceLookup;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecordRepository;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecordStore;
+import nl.rabobank.customerstatementservice.infrastructure.RepositoryTransactionReferenceLookup;
+import nl.rabobank.customerstatementservice.infrastructure.ShardRouter;
+import nl.rabobank.customerstatementservice.infrastructure.TransactionReferenceBloomFilter;
+import nl.rabobank.customerstatementservice.infrastructure.TransactionReferenceIndex;
+import nl.rabobank.customerstatementservice.infrastructure.TransactionReferenceLookup;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Selects how duplicate transaction references are detected, using property customerstatementservice.duplicate-check:
+ * <ul>
+ * <li>repository (default): ask the {@link CustomerStatementRecordStore} for every record</li>
+ * <li>index: keep all references in memory, see {@link TransactionReferenceIndex}</li>
+ * <li>bloom-filter: only query the database for references which probably exist, see {@link BloomFilterTransactionReferenceLookup}</li>
+ * </ul>
+ */
+@Configuration
+public class TransactionReferenceLookupConfig {
+
+    private static final String DUPLICATE_CHECK_PROPERTY = "customerstatementservice.duplicate-check";
+
+    @Bean
+    @ConditionalOnProperty(name = DUPLICATE_CHECK_PROPERTY, havingValue = "repository", matchIfMissing = true)
+    public TransactionReferenceLookup repositoryTransactionReferenceLookup(CustomerStatementRecordStore customerStatementRecordStore) {
+        return new RepositoryTransactionReferenceLookup(customerStatementRecordStore);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = DUPLICATE_CHECK_PROPERTY, havingValue = "index")
+    public TransactionReferenceLookup transactionReferenceIndex(CustomerStatementRecordRepository customerStatementRecordRepository,
+                                                                JdbcTemplate jdbcTemplate,
+                                                                ObjectProvider<ShardRouter> shardRouter,
+                                                                @Value("${customerstatementservice.reference-index.expected-references:1000000}") int expectedReferences) {
+        TransactionReferenceIndex transactionReferenceIndex = new TransactionReferenceIndex(customerStatementRecordRepository, expectedReferences);
+        getShardJdbcTemplates(jdbcTemplate, shardRouter).forEach(transactionReferenceIndex::load);
+
+        return transactionReferenceIndex;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = DUPLICATE_CHECK_PROPERTY, havingValue = "bloom-filter")
+    public TransactionReferenceLookup bloomFilterTransactionReferenceLookup(CustomerStatementRecordStore customerStatementRecordStore,
+                                                                            JdbcTemplate jdbcTemplate,
+                                                                            ObjectProvider<ShardRouter> shardRouter,
+                                                                            MeterRegistry meterRegistry,
+                                                                            @Value("${customerstatementservice.bloom-filter.expected-references:10000000}") long expectedReferences,
+                                                                            @Value("${customerstatementservice.bloom-filter.false-positive-probability:0.01}") double falsePositiveProbability) {
+        BloomFilterTransactionReferenceLookup bloomFilterLookup = new BloomFilterTransactionReferenceLookup(
+                new TransactionReferenceBloomFilter(expectedReferences, falsePositiveProbability),
+                new RepositoryTransactionReferenceLookup(customerStatementRecordStore),
+                meterRegistry);
+        getShardJdbcTemplates(jdbcTemplate, shardRouter).forEach(bloomFilterLookup::load);
+
+        return bloomFilterLookup;
+    }
+
+    /**
+     * @return the JdbcTemplates to load all stored references with, one per shard when the records are sharded.
+     */
+    private static List<JdbcTemplate> getShardJdbcTemplates(JdbcTemplate jdbcTemplate, ObjectProvider<ShardRouter> shardRouter) {
+        ShardRouter availableShardRouter = shardRouter.getIfAvailable();
+
+        return availableShardRouter == null ? Collections.singletonList(jdbcTemplate) : availableShardRouter.getShardJdbcTemplates();
+    }
+}
@@ -0,0 +1,11 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+/**
+ * Projection of the last stored record of an account, containing only what's needed to check the next record continues from it.
+ */
+public interface AccountBalance {
+
+    String getAccountNumber();
+
+    Integer getEndBalance();
+}
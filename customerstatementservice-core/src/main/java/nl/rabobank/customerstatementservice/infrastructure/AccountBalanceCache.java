@@ -0,0 +1,173 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the last end balance of the most recently used accounts in memory, so the balance continuity of a record can
+ * be checked without querying the database. Accounts which aren't cached are looked up in the
+ * {@link CustomerStatementRecordStore}, and cached from then on.
+ * <p>
+ * The cache holds at most maximumAccounts accounts, evicting the least recently used ones. It's split up in segments,
+ * each an access ordered LinkedHashMap with its own lock, so lookups of different accounts rarely wait for each other.
+ * The least recently used account is evicted per segment, which is close enough to the least recently used overall.
+ * <p>
+ * The cache is warmed at startup with the most recently stored accounts. Like {@link TransactionReferenceIndex} it
+ * assumes this service is the only one inserting records, otherwise a cached balance could be outdated.
+ */
+public class AccountBalanceCache implements AccountBalanceLookup {
+
+    private static final int SEGMENT_COUNT = 16;
+
+    // Joined on the account number too, so the records are found through the (account_number, sequence_number) index
+    private static final String SELECT_LAST_BALANCES = "SELECT r.account_number, r.end_balance FROM customer_statement_record r " +
+            "JOIN (SELECT account_number, MAX(sequence_number) AS last_sequence_number FROM customer_statement_record " +
+            "GROUP BY account_number ORDER BY last_sequence_number DESC LIMIT ?) l " +
+            "ON r.account_number = l.account_number AND r.sequence_number = l.last_sequence_number " +
+            "ORDER BY r.sequence_number";
+
+    private final CustomerStatementRecordStore customerStatementRecordStore;
+
+    private final int maximumAccounts;
+
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+
+    private final Counter hitCounter;
+
+    private final Counter missCounter;
+
+    private final Logger log = LoggerFactory.getLogger(AccountBalanceCache.class);
+
+    public AccountBalanceCache(CustomerStatementRecordStore customerStatementRecordStore, int maximumAccounts, MeterRegistry meterRegistry) {
+        this.customerStatementRecordStore = customerStatementRecordStore;
+        this.maximumAccounts = maximumAccounts;
+        int segmentCapacity = Math.max(1, (maximumAccounts + SEGMENT_COUNT - 1) / SEGMENT_COUNT);
+        for (int segment = 0; segment < SEGMENT_COUNT; segment++) {
+            segments[segment] = new Segment(segmentCapacity);
+        }
+
+        this.hitCounter = lookupCounter(meterRegistry, "hit");
+        this.missCounter = lookupCounter(meterRegistry, "miss");
+        Gauge.builder("customerstatement.balance.cache.size", this, AccountBalanceCache::size)
+                .description("Number of accounts of which the last end balance is cached")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Caches the last end balance of the most recently stored accounts, up to the maximum number of accounts.
+     */
+    public void load(JdbcTemplate jdbcTemplate) {
+        long start = System.currentTimeMillis();
+        // Oldest first, so the most recently stored accounts end up as the most recently used ones.
+        jdbcTemplate.query(SELECT_LAST_BALANCES, resultSet -> {
+            registerInserted(resultSet.getString(1), resultSet.getInt(2));
+        }, maximumAccounts);
+        log.info("Loaded the last end balance of {} accounts in {} ms", size(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public Integer getLastEndBalance(String accountNumber) {
+        Integer lastEndBalance = segmentOf(accountNumber).get(accountNumber);
+        if (lastEndBalance != null) {
+            hitCounter.increment();
+            return lastEndBalance;
+        }
+
+        missCounter.increment();
+        lastEndBalance = customerStatementRecordStore.findLastEndBalance(accountNumber).orElse(null);
+        if (lastEndBalance != null) {
+            segmentOf(accountNumber).put(accountNumber, lastEndBalance);
+        }
+        return lastEndBalance;
+    }
+
+    @Override
+    public Map<String, Integer> getLastEndBalances(Collection<String> accountNumbers) {
+        Map<String, Integer> lastEndBalances = new HashMap<>();
+        Set<String> missingAccountNumbers = new HashSet<>();
+        for (String accountNumber : accountNumbers) {
+            if (lastEndBalances.containsKey(accountNumber) || missingAccountNumbers.contains(accountNumber)) {
+                continue;
+            }
+
+            Integer lastEndBalance = segmentOf(accountNumber).get(accountNumber);
+            if (lastEndBalance != null) {
+                lastEndBalances.put(accountNumber, lastEndBalance);
+            } else {
+                missingAccountNumbers.add(accountNumber);
+            }
+        }
+        hitCounter.increment(lastEndBalances.size());
+        missCounter.increment(missingAccountNumbers.size());
+
+        if (!missingAccountNumbers.isEmpty()) {
+            customerStatementRecordStore.findLastEndBalances(missingAccountNumbers).forEach((accountNumber, lastEndBalance) -> {
+                lastEndBalances.put(accountNumber, lastEndBalance);
+                segmentOf(accountNumber).put(accountNumber, lastEndBalance);
+            });
+        }
+        return lastEndBalances;
+    }
+
+    @Override
+    public void registerInserted(String accountNumber, int endBalance) {
+        segmentOf(accountNumber).put(accountNumber, endBalance);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private Segment segmentOf(String accountNumber) {
+        int hash = accountNumber.hashCode();
+        return segments[Math.floorMod(hash ^ (hash >>> 16), SEGMENT_COUNT)];
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("customerstatement.balance.cache.lookups")
+                .description("Lookups of the last end balance of an account by whether it was cached")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static final class Segment {
+
+        private final LinkedHashMap<String, Integer> lastEndBalances;
+
+        Segment(int capacity) {
+            this.lastEndBalances = new LinkedHashMap<String, Integer>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        synchronized Integer get(String accountNumber) {
+            return lastEndBalances.get(accountNumber);
+        }
+
+        synchronized void put(String accountNumber, int endBalance) {
+            lastEndBalances.put(accountNumber, endBalance);
+        }
+
+        synchronized int size() {
+            return lastEndBalances.size();
+        }
+    }
+}
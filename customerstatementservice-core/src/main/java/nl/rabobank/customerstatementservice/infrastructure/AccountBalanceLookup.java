@@ -0,0 +1,36 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Answers what the end balance of the last stored record of an account is, which is where the next record of that
+ * account has to start. Implementations may answer from memory, but have to be kept up to date through
+ * {@link #registerInserted(String, int)}.
+ */
+public interface AccountBalanceLookup {
+
+    /**
+     * @return end balance of the last stored record of the account, or null if the account has no records yet.
+     */
+    Integer getLastEndBalance(String accountNumber);
+
+    /**
+     * Set based variant of {@link #getLastEndBalance(String)}.
+     *
+     * @return modifiable map containing the last end balances of the given accounts which have records, by account number.
+     */
+    Map<String, Integer> getLastEndBalances(Collection<String> accountNumbers);
+
+    /**
+     * Called after a record has been stored successfully. Records of one account are registered in the order they're stored.
+     */
+    void registerInserted(String accountNumber, int endBalance);
+
+    /**
+     * @return false when the balance continuity isn't checked, so there's no need to keep track of the balances at all.
+     */
+    default boolean isCheckingBalanceContinuity() {
+        return true;
+    }
+}
@@ -0,0 +1,73 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Number of records, total mutation and last end balance of an account, kept up to date by every insert of
+ * {@link CustomerStatementRecordBatchRepository} when customerstatementservice.account-summary.enabled is set. So they
+ * can be read with one primary key lookup, instead of aggregating all records of the account.
+ * <p>
+ * Only maintained by the inserts of this service, and read-only through JPA.
+ */
+@Entity
+@Immutable
+@Table(name = "account_summary")
+public class AccountSummary {
+
+    @Id
+    @Column(name = "account_number", nullable = false, unique = true)
+    private String accountNumber;
+
+    @Column(name = "record_count")
+    private long recordCount;
+
+    @Column(name = "total_mutation")
+    private long totalMutation;
+
+    @Column(name = "last_end_balance")
+    private int lastEndBalance;
+
+    protected AccountSummary() {
+    }
+
+    AccountSummary(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+
+    AccountSummary(String accountNumber, long recordCount, long totalMutation, int lastEndBalance) {
+        this.accountNumber = accountNumber;
+        this.recordCount = recordCount;
+        this.totalMutation = totalMutation;
+        this.lastEndBalance = lastEndBalance;
+    }
+
+    /**
+     * Adds a record inserted after all records added so far.
+     */
+    void add(CustomerStatementRecord record) {
+        recordCount++;
+        totalMutation += record.getMutation();
+        lastEndBalance = record.getEndBalance();
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    public long getTotalMutation() {
+        return totalMutation;
+    }
+
+    public int getLastEndBalance() {
+        return lastEndBalance;
+    }
+}
@@ -0,0 +1,12 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Reads the account summaries, which are written by {@link CustomerStatementRecordBatchRepository} only.
+ * When the records are sharded, all summaries are kept on the first shard.
+ */
+@Repository
+public interface AccountSummaryRepository extends JpaRepository<AccountSummary, String> {
+}
@@ -0,0 +1,131 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Puts a {@link TransactionReferenceBloomFilter} in front of another lookup. A reference which isn't in the filter
+ * can't exist, so the delegate is only asked about references which probably exist.
+ * <p>
+ * The filter is rebuilt from the database at startup, and has to be kept up to date through {@link #registerInserted(int, String)}.
+ * Records inserted by anything else than this service would be reported as new, so this assumes the service is the only writer.
+ */
+public class BloomFilterTransactionReferenceLookup implements TransactionReferenceLookup {
+
+    private static final String SELECT_ALL_REFERENCES = "SELECT transaction_reference FROM customer_statement_record";
+
+    private final TransactionReferenceBloomFilter bloomFilter;
+
+    private final TransactionReferenceLookup delegate;
+
+    private final Counter negativeCounter;
+
+    private final Counter truePositiveCounter;
+
+    private final Counter falsePositiveCounter;
+
+    private final Logger log = LoggerFactory.getLogger(BloomFilterTransactionReferenceLookup.class);
+
+    public BloomFilterTransactionReferenceLookup(TransactionReferenceBloomFilter bloomFilter, TransactionReferenceLookup delegate, MeterRegistry meterRegistry) {
+        this.bloomFilter = bloomFilter;
+        this.delegate = delegate;
+
+        this.negativeCounter = lookupCounter(meterRegistry, "negative");
+        this.truePositiveCounter = lookupCounter(meterRegistry, "true_positive");
+        this.falsePositiveCounter = lookupCounter(meterRegistry, "false_positive");
+
+        Gauge.builder("customerstatement.bloomfilter.false.positive.rate", this, BloomFilterTransactionReferenceLookup::getObservedFalsePositiveRate)
+                .description("Share of references which don't exist, but still had to be looked up")
+                .register(meterRegistry);
+        Gauge.builder("customerstatement.bloomfilter.expected.false.positive.rate", bloomFilter, TransactionReferenceBloomFilter::expectedFalsePositiveProbability)
+                .description("False positive probability following from the current fill ratio of the filter")
+                .register(meterRegistry);
+        Gauge.builder("customerstatement.bloomfilter.memory", bloomFilter, TransactionReferenceBloomFilter::getMemoryInBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Adds all references currently stored in the database to the filter.
+     */
+    public void load(JdbcTemplate jdbcTemplate) {
+        long start = System.currentTimeMillis();
+        jdbcTemplate.query(SELECT_ALL_REFERENCES, resultSet -> {
+            bloomFilter.put(resultSet.getInt(1));
+        });
+        log.info("Loaded transaction references into a bloom filter of {} bytes with {} hash functions in {} ms",
+                bloomFilter.getMemoryInBytes(), bloomFilter.getHashFunctionCount(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public boolean exists(int transactionReference) {
+        if (!bloomFilter.mightContain(transactionReference)) {
+            negativeCounter.increment();
+            return false;
+        }
+
+        boolean exists = delegate.exists(transactionReference);
+        (exists ? truePositiveCounter : falsePositiveCounter).increment();
+
+        return exists;
+    }
+
+    @Override
+    public String getAccountNumber(int transactionReference) {
+        return delegate.getAccountNumber(transactionReference);
+    }
+
+    @Override
+    public Map<Integer, String> getAccountNumbers(Collection<Integer> transactionReferences) {
+        List<Integer> probablyExistingReferences = new ArrayList<>();
+        for (Integer transactionReference : transactionReferences) {
+            if (bloomFilter.mightContain(transactionReference)) {
+                probablyExistingReferences.add(transactionReference);
+            }
+        }
+        negativeCounter.increment(transactionReferences.size() - probablyExistingReferences.size());
+
+        if (probablyExistingReferences.isEmpty()) {
+            return new HashMap<>();
+        }
+
+        Map<Integer, String> accountNumbers = delegate.getAccountNumbers(probablyExistingReferences);
+        truePositiveCounter.increment(accountNumbers.size());
+        falsePositiveCounter.increment(probablyExistingReferences.size() - accountNumbers.size());
+
+        return accountNumbers;
+    }
+
+    @Override
+    public void registerInserted(int transactionReference, String accountNumber) {
+        bloomFilter.put(transactionReference);
+        delegate.registerInserted(transactionReference, accountNumber);
+    }
+
+    /**
+     * @return false positives divided by all lookups of references which turned out not to exist.
+     */
+    double getObservedFalsePositiveRate() {
+        double falsePositives = falsePositiveCounter.count();
+        double nonExisting = falsePositives + negativeCounter.count();
+
+        return nonExisting == 0 ? 0 : falsePositives / nonExisting;
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("customerstatement.bloomfilter.lookups")
+                .description("Transaction reference lookups by outcome of the bloom filter")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -1,13 +1,33 @@
 package nl.rabobank.customerstatementservice.infrastructure;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Id;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
 import javax.persistence.Table;
-
+import javax.persistence.Transient;
+
+/**
+ * The transaction reference is assigned by the application, so Spring Data can't tell a new record from an existing one
+ * by its id. Without {@link Persistable} every save would be a merge, which selects the record before inserting it.
+ * <p>
+ * Records are never updated, so when the second-level cache is enabled they can be cached read-only.
+ */
 @Entity
+@Immutable
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = CustomerStatementRecord.CACHE_REGION)
 @Table(name = "customer_statement_record")
-public class CustomerStatementRecord {
+public class CustomerStatementRecord implements Persistable<Integer> {
+
+    public static final String CACHE_REGION = "customer-statement-record";
 
     @Id
     @Column(name = "transaction_reference", nullable = false, unique = true)
@@ -28,6 +48,25 @@ public class CustomerStatementRecord {
     @Column(name = "end_balance")
     private int endBalance;
 
+    @Transient
+    private boolean isNew = true;
+
+    @Override
+    public Integer getId() {
+        return transactionReference;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
     public String getAccountNumber() {
         return accountNumber;
     }
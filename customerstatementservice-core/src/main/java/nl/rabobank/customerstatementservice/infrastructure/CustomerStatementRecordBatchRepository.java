@@ -0,0 +1,43 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+import java.util.List;
+
+/**
+ * Repository fragment for bulk operations which would be too costly when executed entity by entity through JPA.
+ */
+public interface CustomerStatementRecordBatchRepository {
+
+    /**
+     * Inserts the given record and adds it to the summary of its account, within one transaction. Without account
+     * summaries this is a single statement.
+     *
+     * @param record to be inserted record
+     */
+    void insert(CustomerStatementRecord record);
+
+    /**
+     * Inserts all given records using a single JDBC batch within one transaction, and adds them to the summaries of
+     * their accounts within the same transaction.
+     * The caller is responsible for making sure none of the transaction references exist yet.
+     *
+     * @param records to be inserted records
+     */
+    void insertAll(List<CustomerStatementRecord> records);
+
+    /**
+     * Inserts all given records using a single JDBC batch, without adding them to the account summaries.
+     * Only meant for callers which add them to the summaries in the same transaction themselves.
+     *
+     * @param records to be inserted records
+     */
+    void insertRecords(List<CustomerStatementRecord> records);
+
+    /**
+     * Adds the given records to the summaries of their accounts, see {@link AccountSummary}. Has to be called in the
+     * transaction which inserts the records, the last given record of an account determines its last end balance.
+     * Does nothing unless customerstatementservice.account-summary.enabled is set.
+     *
+     * @param records inserted records, in the order they were inserted
+     */
+    void addToAccountSummaries(List<CustomerStatementRecord> records);
+}
@@ -0,0 +1,153 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class CustomerStatementRecordBatchRepositoryImpl implements CustomerStatementRecordBatchRepository {
+
+    private static final String INSERT_STATEMENT = "INSERT INTO customer_statement_record " +
+            "(transaction_reference, account_number, start_balance, mutation, end_balance, description) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String MERGE_SUMMARY_STATEMENT = "MERGE INTO account_summary s " +
+            "USING (VALUES (CAST(? AS VARCHAR(255)), CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS INT))) " +
+            "AS d (account_number, record_count, total_mutation, last_end_balance) ON s.account_number = d.account_number " +
+            "WHEN MATCHED THEN UPDATE SET record_count = s.record_count + d.record_count, " +
+            "total_mutation = s.total_mutation + d.total_mutation, last_end_balance = d.last_end_balance " +
+            "WHEN NOT MATCHED THEN INSERT (account_number, record_count, total_mutation, last_end_balance) " +
+            "VALUES (d.account_number, d.record_count, d.total_mutation, d.last_end_balance)";
+
+    private static final String UNIQUE_VIOLATION_STATE = "23505";
+
+    private static final int MAXIMUM_SUMMARY_ATTEMPTS = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final boolean accountSummariesEnabled;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public CustomerStatementRecordBatchRepositoryImpl(JdbcTemplate jdbcTemplate,
+                                                      @Value("${customerstatementservice.account-summary.enabled:false}") boolean accountSummariesEnabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.accountSummariesEnabled = accountSummariesEnabled;
+    }
+
+    @Override
+    @Transactional
+    public void insert(CustomerStatementRecord record) {
+        // A reference found in the second-level cache would fail persist as a detached record instead of a duplicate,
+        // so the cache isn't read while inserting and the primary key alone decides.
+        Session session = entityManager.unwrap(Session.class);
+        CacheMode cacheMode = session.getCacheMode();
+        session.setCacheMode(CacheMode.PUT);
+        try {
+            entityManager.persist(record);
+            // Inserting right away, so a duplicate reference fails here instead of at commit.
+            entityManager.flush();
+        } finally {
+            session.setCacheMode(cacheMode);
+        }
+        addToAccountSummaries(Collections.singletonList(record));
+    }
+
+    @Override
+    @Transactional
+    public void insertAll(List<CustomerStatementRecord> records) {
+        insertRecords(records);
+        addToAccountSummaries(records);
+    }
+
+    @Override
+    @Transactional
+    public void insertRecords(List<CustomerStatementRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_STATEMENT, records, records.size(), (preparedStatement, record) -> {
+            preparedStatement.setInt(1, record.getTransactionReference());
+            preparedStatement.setString(2, record.getAccountNumber());
+            preparedStatement.setInt(3, record.getStartBalance());
+            preparedStatement.setInt(4, record.getMutation());
+            preparedStatement.setInt(5, record.getEndBalance());
+            preparedStatement.setString(6, record.getDescription());
+        });
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void addToAccountSummaries(List<CustomerStatementRecord> records) {
+        if (!accountSummariesEnabled || records.isEmpty()) {
+            return;
+        }
+
+        // One change per account, in the order of the account numbers. So two transactions always lock the summaries
+        // they share in the same order, and can't deadlock.
+        Map<String, AccountSummary> changes = new TreeMap<>();
+        for (CustomerStatementRecord record : records) {
+            changes.computeIfAbsent(record.getAccountNumber(), AccountSummary::new).add(record);
+        }
+
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            mergeAccountSummaries(connection, changes.values());
+            return null;
+        });
+    }
+
+    /**
+     * Two transactions adding the first records of the same account both insert its summary, the second one fails on
+     * the primary key once the first one committed. The summary exists by then, so the second one merges again from a
+     * savepoint, keeping the records it inserted.
+     */
+    private static void mergeAccountSummaries(Connection connection, Collection<AccountSummary> changes) throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            Savepoint savepoint = connection.setSavepoint();
+            try (PreparedStatement statement = connection.prepareStatement(MERGE_SUMMARY_STATEMENT)) {
+                for (AccountSummary change : changes) {
+                    statement.setString(1, change.getAccountNumber());
+                    statement.setLong(2, change.getRecordCount());
+                    statement.setLong(3, change.getTotalMutation());
+                    statement.setInt(4, change.getLastEndBalance());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                connection.releaseSavepoint(savepoint);
+                return;
+            } catch (SQLException e) {
+                connection.rollback(savepoint);
+                if (attempt == MAXIMUM_SUMMARY_ATTEMPTS || !isUniqueViolation(e)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static boolean isUniqueViolation(SQLException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException && UNIQUE_VIOLATION_STATE.equals(((SQLException) cause).getSQLState())) {
+                return true;
+            }
+        }
+        SQLException nextException = e.getNextException();
+        return nextException != null && UNIQUE_VIOLATION_STATE.equals(nextException.getSQLState());
+    }
+}
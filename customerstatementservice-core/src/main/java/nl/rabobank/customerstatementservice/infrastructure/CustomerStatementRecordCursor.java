@@ -0,0 +1,158 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads stored records one at a time through a forward-only, read-only cursor, fetching fetchSize rows per round trip.
+ * So a read of any number of records only keeps one fetch of rows in memory, unlike findAll() which loads them all.
+ * <p>
+ * The records are ordered by transaction reference. When the records are sharded, a cursor is opened on every shard
+ * and the shards are merged while reading, keeping one record per shard in memory.
+ * <p>
+ * Whether rows are really fetched on demand is up to the JDBC driver. PostgreSQL for instance only uses a cursor
+ * within a transaction, and an embedded H2 database buffers large results in a temporary file instead.
+ */
+public class CustomerStatementRecordCursor {
+
+    private static final String SELECT_RECORDS = "SELECT transaction_reference, account_number, start_balance, mutation, end_balance, description " +
+            "FROM customer_statement_record WHERE 1 = 1";
+
+    private static final RowMapper<CustomerStatementRecord> RECORD_MAPPER = (resultSet, rowNumber) -> {
+        CustomerStatementRecord record = new CustomerStatementRecord();
+        record.setTransactionReference(resultSet.getInt(1));
+        record.setAccountNumber(resultSet.getString(2));
+        record.setStartBalance(resultSet.getInt(3));
+        record.setMutation(resultSet.getInt(4));
+        record.setEndBalance(resultSet.getInt(5));
+        record.setDescription(resultSet.getString(6));
+        return record;
+    };
+
+    private final List<JdbcTemplate> shardJdbcTemplates = new ArrayList<>();
+
+    public CustomerStatementRecordCursor(List<DataSource> shardDataSources, int fetchSize) {
+        for (DataSource shardDataSource : shardDataSources) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(shardDataSource);
+            jdbcTemplate.setFetchSize(fetchSize);
+            shardJdbcTemplates.add(jdbcTemplate);
+        }
+    }
+
+    /**
+     * Streams the stored records matching all given criteria, criteria which are null match every record. The stream
+     * holds a connection of every shard until it's closed, so always close it.
+     *
+     * @param accountNumber            only records of this account
+     * @param fromTransactionReference only records with at least this reference
+     * @param toTransactionReference   only records with at most this reference
+     */
+    public Stream<CustomerStatementRecord> stream(String accountNumber, Integer fromTransactionReference, Integer toTransactionReference) {
+        StringBuilder sql = new StringBuilder(SELECT_RECORDS);
+        List<Object> arguments = new ArrayList<>();
+        if (accountNumber != null) {
+            sql.append(" AND account_number = ?");
+            arguments.add(accountNumber);
+        }
+        if (fromTransactionReference != null) {
+            sql.append(" AND transaction_reference >= ?");
+            arguments.add(fromTransactionReference);
+        }
+        if (toTransactionReference != null) {
+            sql.append(" AND transaction_reference <= ?");
+            arguments.add(toTransactionReference);
+        }
+        sql.append(" ORDER BY transaction_reference");
+        PreparedStatementCreator statementCreator = createForwardOnlyStatement(sql.toString(), arguments);
+
+        if (shardJdbcTemplates.size() == 1) {
+            return shardJdbcTemplates.get(0).queryForStream(statementCreator, RECORD_MAPPER);
+        }
+
+        List<Stream<CustomerStatementRecord>> shardStreams = new ArrayList<>();
+        try {
+            for (JdbcTemplate shardJdbcTemplate : shardJdbcTemplates) {
+                shardStreams.add(shardJdbcTemplate.queryForStream(statementCreator, RECORD_MAPPER));
+            }
+        } catch (RuntimeException e) {
+            shardStreams.forEach(Stream::close);
+            throw e;
+        }
+
+        MergingIterator mergingIterator = new MergingIterator(shardStreams);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(mergingIterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> shardStreams.forEach(Stream::close));
+    }
+
+    private static PreparedStatementCreator createForwardOnlyStatement(String sql, List<Object> arguments) {
+        return connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            for (int index = 0; index < arguments.size(); index++) {
+                statement.setObject(index + 1, arguments.get(index));
+            }
+            return statement;
+        };
+    }
+
+    /**
+     * Merges the ordered records of every shard into one ordered sequence, by always taking the lowest next reference.
+     */
+    private static final class MergingIterator implements Iterator<CustomerStatementRecord> {
+
+        private final PriorityQueue<ShardHead> heads = new PriorityQueue<>(Comparator.comparing(head -> head.record.getTransactionReference()));
+
+        MergingIterator(List<Stream<CustomerStatementRecord>> shardStreams) {
+            for (Stream<CustomerStatementRecord> shardStream : shardStreams) {
+                advance(shardStream.iterator());
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public CustomerStatementRecord next() {
+            ShardHead head = heads.poll();
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+            advance(head.shardRecords);
+            return head.record;
+        }
+
+        private void advance(Iterator<CustomerStatementRecord> shardRecords) {
+            if (shardRecords.hasNext()) {
+                heads.add(new ShardHead(shardRecords.next(), shardRecords));
+            }
+        }
+    }
+
+    private static final class ShardHead {
+
+        private final CustomerStatementRecord record;
+
+        private final Iterator<CustomerStatementRecord> shardRecords;
+
+        ShardHead(CustomerStatementRecord record, Iterator<CustomerStatementRecord> shardRecords) {
+            this.record = record;
+            this.shardRecords = shardRecords;
+        }
+    }
+}
@@ -1,9 +1,57 @@
 package nl.rabobank.customerstatementservice.infrastructure;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
-public interface CustomerStatementRecordRepository extends JpaRepository<CustomerStatementRecord, Integer> {
+public interface CustomerStatementRecordRepository extends JpaRepository<CustomerStatementRecord, Integer>, CustomerStatementRecordBatchRepository {
+
+    String STORED_RECORD_COLUMNS = "transaction_reference AS transactionReference, account_number AS accountNumber, " +
+            "start_balance AS startBalance, mutation AS mutation, end_balance AS endBalance, description AS description";
+
+    /**
+     * Set based variant of {@link #existsById(Object)}, returning only the references which already exist.
+     */
+    List<ExistingTransactionReference> findByTransactionReferenceIn(Collection<Integer> transactionReferences);
+
+    /**
+     * First page of the records of an account, ordered by transaction reference.
+     * Seeks into the index on (account_number, transaction_reference), so only the returned rows are read.
+     */
+    @Query(value = "SELECT " + STORED_RECORD_COLUMNS + " FROM customer_statement_record WHERE account_number = :accountNumber " +
+            "ORDER BY transaction_reference LIMIT :limit", nativeQuery = true)
+    List<StoredCustomerStatementRecord> findPageByAccountNumber(@Param("accountNumber") String accountNumber, @Param("limit") int limit);
+
+    /**
+     * Next page of the records of an account, continuing after the last transaction reference of the previous page.
+     * The cost doesn't depend on how many pages came before, unlike an offset.
+     */
+    @Query(value = "SELECT " + STORED_RECORD_COLUMNS + " FROM customer_statement_record WHERE account_number = :accountNumber " +
+            "AND transaction_reference > :afterTransactionReference ORDER BY transaction_reference LIMIT :limit", nativeQuery = true)
+    List<StoredCustomerStatementRecord> findPageByAccountNumberAfter(@Param("accountNumber") String accountNumber,
+                                                                     @Param("afterTransactionReference") int afterTransactionReference,
+                                                                     @Param("limit") int limit);
+
+    /**
+     * @return end balance of the record of the account which was stored last, empty if the account has no records.
+     */
+    @Query(value = "SELECT end_balance FROM customer_statement_record WHERE account_number = :accountNumber " +
+            "ORDER BY sequence_number DESC LIMIT 1", nativeQuery = true)
+    Optional<Integer> findLastEndBalance(@Param("accountNumber") String accountNumber);
 
+    /**
+     * Set based variant of {@link #findLastEndBalance(String)}, returning only the accounts which have records.
+     * Both the last sequence numbers and the records themselves are looked up through the (account_number,
+     * sequence_number) index, there's no index on sequence_number alone.
+     */
+    @Query(value = "SELECT account_number AS accountNumber, end_balance AS endBalance FROM customer_statement_record " +
+            "WHERE account_number IN (:accountNumbers) AND sequence_number IN (SELECT MAX(sequence_number) " +
+            "FROM customer_statement_record WHERE account_number IN (:accountNumbers) GROUP BY account_number)", nativeQuery = true)
+    List<AccountBalance> findLastEndBalances(@Param("accountNumbers") Collection<String> accountNumbers);
 }
@@ -0,0 +1,98 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Storage engine of the records and account summaries, selected with property customerstatementservice.storage:
+ * <ul>
+ * <li>jpa (default): the database, through {@link CustomerStatementRecordRepository}, see {@link JpaCustomerStatementRecordStore}</li>
+ * <li>log: an embedded append-only log with in-memory indexes, see {@link LogCustomerStatementRecordStore}</li>
+ * </ul>
+ * The services only store and read records through this interface, so they work the same on either engine. Both have to
+ * pass CustomerStatementRecordStoreContract.
+ * <p>
+ * Records are only ever inserted, never updated or deleted, and are unique by transaction reference. A duplicate
+ * reference fails with a {@link org.springframework.dao.DataIntegrityViolationException}, like a primary key would.
+ */
+public interface CustomerStatementRecordStore {
+
+    /**
+     * Inserts the given record and adds it to the summary of its account. Only returns once the record is durable, as
+     * far as the engine guarantees that.
+     *
+     * @throws org.springframework.dao.DataIntegrityViolationException when the transaction reference already exists
+     */
+    void insert(CustomerStatementRecord record);
+
+    /**
+     * Inserts all given records and adds them to the summaries of their accounts, all or nothing. The caller is
+     * responsible for making sure none of the transaction references exist yet.
+     *
+     * @param records to be inserted records, in the order they're inserted
+     * @throws org.springframework.dao.DataIntegrityViolationException when a transaction reference already exists,
+     *                                                                  none of the records is inserted then
+     */
+    void insertAll(List<CustomerStatementRecord> records);
+
+    boolean exists(int transactionReference);
+
+    /**
+     * @return account number of the record with the given reference, null if there's none.
+     */
+    String findAccountNumber(int transactionReference);
+
+    /**
+     * Set based variant of {@link #findAccountNumber(int)}.
+     *
+     * @return modifiable map containing the account numbers of the given references which exist, by transaction reference.
+     */
+    Map<Integer, String> findAccountNumbers(Collection<Integer> transactionReferences);
+
+    /**
+     * @return end balance of the record of the account which was stored last, empty if the account has no records.
+     */
+    Optional<Integer> findLastEndBalance(String accountNumber);
+
+    /**
+     * Set based variant of {@link #findLastEndBalance(String)}.
+     *
+     * @return modifiable map containing the last end balances of the given accounts which have records, by account number.
+     */
+    Map<String, Integer> findLastEndBalances(Collection<String> accountNumbers);
+
+    /**
+     * Page of the records of an account, ordered by transaction reference.
+     *
+     * @param afterTransactionReference only records after this reference, null for the first page
+     * @param limit                     maximum number of records
+     */
+    List<StoredCustomerStatementRecord> findPage(String accountNumber, Integer afterTransactionReference, int limit);
+
+    /**
+     * Only supported when {@link #hasAccountSummaries()}.
+     *
+     * @return summary of the account, empty if the account has no records.
+     */
+    Optional<AccountSummary> findAccountSummary(String accountNumber);
+
+    /**
+     * @return whether the summaries of the accounts are kept up to date by the inserts.
+     */
+    default boolean hasAccountSummaries() {
+        return true;
+    }
+
+    /**
+     * Streams the stored records matching all given criteria ordered by transaction reference, criteria which are null
+     * match every record. The stream may hold resources until it's closed, so always close it.
+     *
+     * @param accountNumber            only records of this account
+     * @param fromTransactionReference only records with at least this reference
+     * @param toTransactionReference   only records with at most this reference
+     */
+    Stream<CustomerStatementRecord> stream(String accountNumber, Integer fromTransactionReference, Integer toTransactionReference);
+}
@@ -0,0 +1,14 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+/**
+ * Stores accepted records, using the primary key to detect duplicate transaction references atomically.
+ */
+public interface CustomerStatementRecordWriter {
+
+    /**
+     * Inserts the record unless its transaction reference already exists. Only returns once the record is durable.
+     *
+     * @return true when inserted, false when the transaction reference already existed.
+     */
+    boolean insertIfAbsent(CustomerStatementRecord toBeInsertedRecord);
+}
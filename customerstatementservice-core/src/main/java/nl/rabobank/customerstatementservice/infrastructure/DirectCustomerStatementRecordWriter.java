@@ -0,0 +1,27 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+import org.springframework.dao.DataIntegrityViolationException;
+
+/**
+ * Inserts every record in its own transaction, on the thread of the caller.
+ */
+public class DirectCustomerStatementRecordWriter implements CustomerStatementRecordWriter {
+
+    private final CustomerStatementRecordStore customerStatementRecordStore;
+
+    public DirectCustomerStatementRecordWriter(CustomerStatementRecordStore customerStatementRecordStore) {
+        this.customerStatementRecordStore = customerStatementRecordStore;
+    }
+
+    @Override
+    public boolean insertIfAbsent(CustomerStatementRecord toBeInsertedRecord) {
+        try {
+            customerStatementRecordStore.insert(toBeInsertedRecord);
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            // A verified record can only violate the primary key. If it turns out to be something else, reading the
+            // existing record fails, which results in an internal server error.
+            return false;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+/**
+ * Projection of an already stored record, containing only what's needed to report a duplicate reference.
+ */
+public interface ExistingTransactionReference {
+
+    Integer getTransactionReference();
+
+    String getAccountNumber();
+}
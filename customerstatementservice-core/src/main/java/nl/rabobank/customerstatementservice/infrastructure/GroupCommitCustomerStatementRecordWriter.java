@@ -0,0 +1,183 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Write-behind writer which lets many callers share one transaction commit.
+ * <p>
+ * Callers put their record in a bounded queue and wait. A single writer thread drains the queue in groups of at most
+ * {@code groupSize} records, or whatever arrived within {@code maxDelayMillis} after the first record of the group, and
+ * inserts every group with one JDBC batch and one commit. Callers are released once their group has been committed.
+ * <p>
+ * When the queue is full callers wait at most {@code offerTimeoutMillis} for space, after which the record is rejected.
+ * Callers wait at most {@code commitTimeoutMillis} for their group to be committed. When the writer stops, every record
+ * it hasn't committed yet fails, so no caller keeps waiting for a writer which is gone.
+ */
+public class GroupCommitCustomerStatementRecordWriter implements CustomerStatementRecordWriter, AutoCloseable {
+
+    private final CustomerStatementRecordStore customerStatementRecordStore;
+
+    private final BlockingQueue<PendingRecord> queue;
+
+    private final int groupSize;
+
+    private final long maxDelayNanos;
+
+    private final long offerTimeoutMillis;
+
+    private final long commitTimeoutMillis;
+
+    private final Thread writerThread;
+
+    private volatile boolean running = true;
+
+    private final Logger log = LoggerFactory.getLogger(GroupCommitCustomerStatementRecordWriter.class);
+
+    public GroupCommitCustomerStatementRecordWriter(CustomerStatementRecordStore customerStatementRecordStore, int queueCapacity,
+                                                    int groupSize, long maxDelayMillis, long offerTimeoutMillis, long commitTimeoutMillis) {
+        this.customerStatementRecordStore = customerStatementRecordStore;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.groupSize = groupSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.commitTimeoutMillis = commitTimeoutMillis;
+
+        this.writerThread = new Thread(this::writeGroups, "group-commit-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    @Override
+    public boolean insertIfAbsent(CustomerStatementRecord toBeInsertedRecord) {
+        PendingRecord pendingRecord = new PendingRecord(toBeInsertedRecord);
+
+        try {
+            if (!running || !queue.offer(pendingRecord, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new RejectedExecutionException("Write-behind queue is full, rejecting record " + toBeInsertedRecord.getTransactionReference());
+            }
+            // The writer may have stopped after the check above. If the record is still queued nobody will take it anymore,
+            // otherwise the writer took it and completes it either way.
+            if (!running && queue.remove(pendingRecord)) {
+                throw new RejectedExecutionException("Write-behind writer stopped, rejecting record " + toBeInsertedRecord.getTransactionReference());
+            }
+            return pendingRecord.inserted.get(commitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for record " + toBeInsertedRecord.getTransactionReference(), e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Group commit failed for record " + toBeInsertedRecord.getTransactionReference(), e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Timed out waiting for the group commit of record " + toBeInsertedRecord.getTransactionReference(), e);
+        }
+    }
+
+    /**
+     * Stops accepting records, and waits for the writer to commit what has already been queued. A writer which doesn't
+     * finish in time is interrupted, failing the records it hasn't committed.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        if (writerThread.isAlive()) {
+            writerThread.interrupt();
+            writerThread.join();
+        }
+    }
+
+    private void writeGroups() {
+        List<PendingRecord> group = new ArrayList<>(groupSize);
+
+        try {
+            while (running || !queue.isEmpty()) {
+                PendingRecord first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (group.size() < groupSize) {
+                    // Take whatever is already waiting first, only block for the remainder of the delay when the queue is empty.
+                    if (queue.drainTo(group, groupSize - group.size()) == 0) {
+                        PendingRecord next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                        if (next == null) {
+                            break;
+                        }
+                        group.add(next);
+                    }
+                }
+
+                try {
+                    writeGroup(group);
+                } catch (RuntimeException e) {
+                    log.info("Group commit of {} records failed", group.size(), e);
+                    group.forEach(pendingRecord -> pendingRecord.inserted.completeExceptionally(e));
+                }
+                group.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("Group commit writer interrupted with {} records in its group and {} queued", group.size(), queue.size());
+        } finally {
+            running = false;
+            IllegalStateException stopped = new IllegalStateException("Write-behind writer stopped");
+            group.forEach(pendingRecord -> pendingRecord.inserted.completeExceptionally(stopped));
+            List<PendingRecord> queued = new ArrayList<>();
+            queue.drainTo(queued);
+            queued.forEach(pendingRecord -> pendingRecord.inserted.completeExceptionally(stopped));
+        }
+    }
+
+    private void writeGroup(List<PendingRecord> group) {
+        List<CustomerStatementRecord> records = new ArrayList<>(group.size());
+        group.forEach(pendingRecord -> records.add(pendingRecord.record));
+
+        try {
+            customerStatementRecordStore.insertAll(records);
+        } catch (DataIntegrityViolationException e) {
+            // At least one of the references exists already, the group has been rolled back as a whole.
+            log.debug("Group of {} records contained an existing reference, inserting them one by one", group.size());
+            for (PendingRecord pendingRecord : group) {
+                pendingRecord.inserted.complete(insertOne(pendingRecord.record));
+            }
+            return;
+        }
+
+        log.debug("Committed a group of {} records", group.size());
+        group.forEach(pendingRecord -> pendingRecord.inserted.complete(true));
+    }
+
+    private boolean insertOne(CustomerStatementRecord record) {
+        try {
+            customerStatementRecordStore.insertAll(Collections.singletonList(record));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    private static final class PendingRecord {
+
+        private final CustomerStatementRecord record;
+
+        private final CompletableFuture<Boolean> inserted = new CompletableFuture<>();
+
+        private PendingRecord(CustomerStatementRecord record) {
+            this.record = record;
+        }
+    }
+}
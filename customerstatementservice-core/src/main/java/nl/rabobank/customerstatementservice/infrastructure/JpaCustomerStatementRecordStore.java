@@ -0,0 +1,103 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Stores the records in the database, through {@link CustomerStatementRecordRepository}. The repository may be sharded,
+ * see {@link ShardRoutingRepositoryInvocationHandler}.
+ */
+public class JpaCustomerStatementRecordStore implements CustomerStatementRecordStore {
+
+    private final CustomerStatementRecordRepository customerStatementRecordRepository;
+
+    private final AccountSummaryRepository accountSummaryRepository;
+
+    private final CustomerStatementRecordCursor customerStatementRecordCursor;
+
+    private final boolean accountSummariesEnabled;
+
+    public JpaCustomerStatementRecordStore(CustomerStatementRecordRepository customerStatementRecordRepository,
+                                           AccountSummaryRepository accountSummaryRepository,
+                                           CustomerStatementRecordCursor customerStatementRecordCursor,
+                                           boolean accountSummariesEnabled) {
+        this.customerStatementRecordRepository = customerStatementRecordRepository;
+        this.accountSummaryRepository = accountSummaryRepository;
+        this.customerStatementRecordCursor = customerStatementRecordCursor;
+        this.accountSummariesEnabled = accountSummariesEnabled;
+    }
+
+    @Override
+    public void insert(CustomerStatementRecord record) {
+        customerStatementRecordRepository.insert(record);
+    }
+
+    @Override
+    public void insertAll(List<CustomerStatementRecord> records) {
+        customerStatementRecordRepository.insertAll(records);
+    }
+
+    @Override
+    public boolean exists(int transactionReference) {
+        return customerStatementRecordRepository.existsById(transactionReference);
+    }
+
+    @Override
+    public String findAccountNumber(int transactionReference) {
+        return customerStatementRecordRepository.findById(transactionReference)
+                .map(CustomerStatementRecord::getAccountNumber)
+                .orElse(null);
+    }
+
+    @Override
+    public Map<Integer, String> findAccountNumbers(Collection<Integer> transactionReferences) {
+        Map<Integer, String> accountNumbers = new HashMap<>();
+        for (ExistingTransactionReference existingReference : customerStatementRecordRepository.findByTransactionReferenceIn(transactionReferences)) {
+            accountNumbers.put(existingReference.getTransactionReference(), existingReference.getAccountNumber());
+        }
+        return accountNumbers;
+    }
+
+    @Override
+    public Optional<Integer> findLastEndBalance(String accountNumber) {
+        return customerStatementRecordRepository.findLastEndBalance(accountNumber);
+    }
+
+    @Override
+    public Map<String, Integer> findLastEndBalances(Collection<String> accountNumbers) {
+        Map<String, Integer> lastEndBalances = new HashMap<>();
+        for (AccountBalance accountBalance : customerStatementRecordRepository.findLastEndBalances(accountNumbers)) {
+            lastEndBalances.put(accountBalance.getAccountNumber(), accountBalance.getEndBalance());
+        }
+        return lastEndBalances;
+    }
+
+    @Override
+    public List<StoredCustomerStatementRecord> findPage(String accountNumber, Integer afterTransactionReference, int limit) {
+        return afterTransactionReference == null
+                ? customerStatementRecordRepository.findPageByAccountNumber(accountNumber, limit)
+                : customerStatementRecordRepository.findPageByAccountNumberAfter(accountNumber, afterTransactionReference, limit);
+    }
+
+    @Override
+    public Optional<AccountSummary> findAccountSummary(String accountNumber) {
+        if (!accountSummariesEnabled) {
+            throw new UnsupportedOperationException("Account summaries aren't enabled");
+        }
+        return accountSummaryRepository.findById(accountNumber);
+    }
+
+    @Override
+    public boolean hasAccountSummaries() {
+        return accountSummariesEnabled;
+    }
+
+    @Override
+    public Stream<CustomerStatementRecord> stream(String accountNumber, Integer fromTransactionReference, Integer toTransactionReference) {
+        return customerStatementRecordCursor.stream(accountNumber, fromTransactionReference, toTransactionReference);
+    }
+}
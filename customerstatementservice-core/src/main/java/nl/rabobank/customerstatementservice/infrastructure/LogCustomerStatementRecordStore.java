@@ -0,0 +1,585 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Stores the records in an append-only log file in a directory of its own, without a database. Every insert appends
+ * one frame to the log:
+ * <pre>
+ * frame:  &lt;payload length&gt; &lt;CRC32 of the payload&gt; &lt;record count&gt; &lt;record&gt;...
+ * record: &lt;length of the rest&gt; &lt;transaction reference&gt; &lt;start balance&gt; &lt;mutation&gt; &lt;end balance&gt;
+ *         &lt;account number length&gt; &lt;account number&gt; &lt;description length, -1 for none&gt; &lt;description&gt;
+ * </pre>
+ * All numbers are big endian ints and texts are UTF-8. A frame is only used when it's complete and its checksum
+ * matches, so a batch is stored all or nothing, also when the process crashes halfway writing it.
+ * <p>
+ * Only the offset of every record is kept in memory, indexed by transaction reference and per account, together with
+ * the summary of every account. So duplicate checks, balance lookups and summaries never touch the file, and reading
+ * a record is one positional read, mostly served from the page cache. The indexes take roughly 150 bytes per record,
+ * which bounds the number of records this store is meant for. They're rebuilt by replaying the log when the store is
+ * opened. A frame which is incomplete or doesn't match its checksum at the end of the log is the tail of an
+ * interrupted write, so the log is truncated there. Such a frame followed by more data is corruption instead, then the
+ * store refuses to open rather than dropping the records after it.
+ * <p>
+ * Writes are serialized, reads don't take a lock. When an append returns depends on the {@link FsyncPolicy}. The log is
+ * locked while opened, so no other store can append to it.
+ */
+public class LogCustomerStatementRecordStore implements CustomerStatementRecordStore, Closeable {
+
+    static final String LOG_FILE_NAME = "records.log";
+
+    private static final int FRAME_HEADER_SIZE = 8;
+
+    /**
+     * Bytes read at once when reading a record, enough for a record with a short description.
+     */
+    private static final int RECORD_READ_SIZE = 128;
+
+    private final Path logFile;
+
+    private final FileChannel channel;
+
+    private final FileLock fileLock;
+
+    private final FsyncPolicy fsyncPolicy;
+
+    private final ScheduledExecutorService fsyncScheduler;
+
+    private final ConcurrentSkipListMap<Integer, Long> recordOffsets = new ConcurrentSkipListMap<>();
+
+    private final Map<String, Account> accounts = new ConcurrentHashMap<>();
+
+    /**
+     * End of the last complete frame, where the next frame is appended. Guarded by this.
+     */
+    private long size;
+
+    private volatile boolean unsynced;
+
+    private final Logger log = LoggerFactory.getLogger(LogCustomerStatementRecordStore.class);
+
+    /**
+     * Opens the log in the given directory, creating it when it doesn't exist yet, and replays it.
+     *
+     * @param fsyncIntervalMillis time between syncs with {@link FsyncPolicy#INTERVAL}, unused otherwise
+     * @throws IOException when the log can't be opened or read, or is in use by another store
+     */
+    public LogCustomerStatementRecordStore(Path directory, FsyncPolicy fsyncPolicy, long fsyncIntervalMillis) throws IOException {
+        Files.createDirectories(directory);
+        this.logFile = directory.resolve(LOG_FILE_NAME);
+        this.fsyncPolicy = fsyncPolicy;
+        this.channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.fileLock = tryLock(channel);
+        if (fileLock == null) {
+            channel.close();
+            throw new IOException("Log " + logFile + " is in use by another store");
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            replay();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        log.info("Replayed {} records of {} accounts from log {} in {} ms", recordOffsets.size(), accounts.size(), logFile,
+                System.currentTimeMillis() - start);
+
+        if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+            this.fsyncScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "log-store-fsync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            fsyncScheduler.scheduleWithFixedDelay(this::syncIfUnsynced, fsyncIntervalMillis, fsyncIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.fsyncScheduler = null;
+        }
+    }
+
+    @Override
+    public void insert(CustomerStatementRecord record) {
+        insertAll(Collections.singletonList(record));
+    }
+
+    @Override
+    public synchronized void insertAll(List<CustomerStatementRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+
+        Set<Integer> references = new HashSet<>();
+        for (CustomerStatementRecord record : records) {
+            if (recordOffsets.containsKey(record.getTransactionReference()) || !references.add(record.getTransactionReference())) {
+                throw new DuplicateKeyException("Transaction reference " + record.getTransactionReference() + " already exists");
+            }
+        }
+
+        long frameStart = size;
+        long[] recordOffsetsInFrame = new long[records.size()];
+        ByteBuffer frame = encodeFrame(records, recordOffsetsInFrame);
+        try {
+            while (frame.hasRemaining()) {
+                channel.write(frame, frameStart + frame.position());
+            }
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                // Without metadata this is fdatasync on Linux, which still flushes the grown size of the file.
+                channel.force(false);
+            } else {
+                unsynced = true;
+            }
+        } catch (IOException e) {
+            truncateFailedFrame(frameStart, e);
+            throw new DataAccessResourceFailureException("Appending " + records.size() + " records to log " + logFile + " failed", e);
+        }
+        size = frameStart + frame.limit();
+
+        for (int index = 0; index < records.size(); index++) {
+            addToIndexes(records.get(index), frameStart + recordOffsetsInFrame[index]);
+        }
+    }
+
+    @Override
+    public boolean exists(int transactionReference) {
+        return recordOffsets.containsKey(transactionReference);
+    }
+
+    @Override
+    public String findAccountNumber(int transactionReference) {
+        Long recordOffset = recordOffsets.get(transactionReference);
+
+        return recordOffset == null ? null : readRecord(recordOffset).getAccountNumber();
+    }
+
+    @Override
+    public Map<Integer, String> findAccountNumbers(Collection<Integer> transactionReferences) {
+        Map<Integer, String> accountNumbers = new HashMap<>();
+        for (Integer transactionReference : transactionReferences) {
+            String accountNumber = findAccountNumber(transactionReference);
+            if (accountNumber != null) {
+                accountNumbers.put(transactionReference, accountNumber);
+            }
+        }
+        return accountNumbers;
+    }
+
+    @Override
+    public Optional<Integer> findLastEndBalance(String accountNumber) {
+        return findAccountSummary(accountNumber).map(AccountSummary::getLastEndBalance);
+    }
+
+    @Override
+    public Map<String, Integer> findLastEndBalances(Collection<String> accountNumbers) {
+        Map<String, Integer> lastEndBalances = new HashMap<>();
+        for (String accountNumber : accountNumbers) {
+            findLastEndBalance(accountNumber).ifPresent(lastEndBalance -> lastEndBalances.put(accountNumber, lastEndBalance));
+        }
+        return lastEndBalances;
+    }
+
+    @Override
+    public List<StoredCustomerStatementRecord> findPage(String accountNumber, Integer afterTransactionReference, int limit) {
+        Account account = accounts.get(accountNumber);
+        if (account == null) {
+            return Collections.emptyList();
+        }
+
+        NavigableMap<Integer, Long> offsets = afterTransactionReference == null
+                ? account.recordOffsets
+                : account.recordOffsets.tailMap(afterTransactionReference, false);
+        List<StoredCustomerStatementRecord> page = new ArrayList<>(Math.min(limit, offsets.size()));
+        for (Long recordOffset : offsets.values()) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(new LoggedRecord(readRecord(recordOffset)));
+        }
+        return page;
+    }
+
+    @Override
+    public Optional<AccountSummary> findAccountSummary(String accountNumber) {
+        Account account = accounts.get(accountNumber);
+
+        return account == null ? Optional.empty() : Optional.of(account.summary);
+    }
+
+    @Override
+    public Stream<CustomerStatementRecord> stream(String accountNumber, Integer fromTransactionReference, Integer toTransactionReference) {
+        NavigableMap<Integer, Long> offsets;
+        if (accountNumber == null) {
+            offsets = recordOffsets;
+        } else {
+            Account account = accounts.get(accountNumber);
+            if (account == null) {
+                return Stream.empty();
+            }
+            offsets = account.recordOffsets;
+        }
+
+        if (fromTransactionReference != null) {
+            offsets = offsets.tailMap(fromTransactionReference, true);
+        }
+        if (toTransactionReference != null) {
+            offsets = offsets.headMap(toTransactionReference, true);
+        }
+        return offsets.values().stream().map(this::readRecord);
+    }
+
+    /**
+     * Syncs and closes the log, appending fails from then on. A background sync which is running still finishes first,
+     * so it doesn't sync a closed channel.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (fsyncScheduler != null) {
+            fsyncScheduler.shutdown();
+            try {
+                if (!fsyncScheduler.awaitTermination(10, TimeUnit.SECONDS)) {
+                    log.warn("Background sync of log {} didn't finish in time, closing it anyway", logFile);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for the background sync of log " + logFile, e);
+            }
+        }
+        if (channel.isOpen()) {
+            channel.force(true);
+            fileLock.release();
+            channel.close();
+        }
+    }
+
+    /**
+     * @return the lock, null when another process or another store in this process holds it already
+     */
+    private static FileLock tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            return null;
+        }
+    }
+
+    private void replay() throws IOException {
+        long fileSize = channel.size();
+        long frameStart = 0;
+        while (frameStart < fileSize) {
+            ByteBuffer payload = readFramePayload(frameStart, fileSize);
+            if (payload == null) {
+                if (!isTail(frameStart, fileSize)) {
+                    throw new IOException("Log " + logFile + " has a corrupt frame at offset " + frameStart
+                            + " followed by more frames, refusing to drop them");
+                }
+                log.warn("Truncating log {} at offset {}, dropping {} bytes of an interrupted write", logFile, frameStart, fileSize - frameStart);
+                channel.truncate(frameStart);
+                channel.force(true);
+                break;
+            }
+
+            int recordCount = payload.getInt();
+            for (int index = 0; index < recordCount; index++) {
+                long recordOffset = frameStart + FRAME_HEADER_SIZE + payload.position();
+                addToIndexes(decodeRecord(payload), recordOffset);
+            }
+            frameStart += FRAME_HEADER_SIZE + payload.limit();
+        }
+        size = frameStart;
+    }
+
+    /**
+     * A failed frame is the tail of an interrupted write when it runs to the end of the file, or when everything from it
+     * is zeros, as some file systems leave behind for space which was allocated but never written.
+     */
+    private boolean isTail(long frameStart, long fileSize) throws IOException {
+        if (fileSize - frameStart < FRAME_HEADER_SIZE) {
+            return true;
+        }
+        int payloadLength = read(frameStart, FRAME_HEADER_SIZE).getInt();
+        if (payloadLength >= Integer.BYTES && frameStart + FRAME_HEADER_SIZE + payloadLength >= fileSize) {
+            return true;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        for (long position = frameStart; position < fileSize; position += buffer.limit()) {
+            buffer.clear();
+            if (channel.read(buffer, position) <= 0) {
+                break;
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                if (buffer.get() != 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return payload of the frame at the given offset, null when the frame is incomplete or doesn't match its checksum
+     */
+    private ByteBuffer readFramePayload(long frameStart, long fileSize) throws IOException {
+        if (fileSize - frameStart < FRAME_HEADER_SIZE) {
+            return null;
+        }
+        ByteBuffer header = read(frameStart, FRAME_HEADER_SIZE);
+        int payloadLength = header.getInt();
+        int checksum = header.getInt();
+        if (payloadLength < Integer.BYTES || payloadLength > fileSize - frameStart - FRAME_HEADER_SIZE) {
+            return null;
+        }
+
+        ByteBuffer payload = read(frameStart + FRAME_HEADER_SIZE, payloadLength);
+        CRC32 crc = new CRC32();
+        crc.update(payload.array(), 0, payloadLength);
+        return (int) crc.getValue() == checksum ? payload : null;
+    }
+
+    private static ByteBuffer encodeFrame(List<CustomerStatementRecord> records, long[] recordOffsetsInFrame) {
+        List<byte[]> accountNumbers = new ArrayList<>(records.size());
+        List<byte[]> descriptions = new ArrayList<>(records.size());
+        int payloadLength = Integer.BYTES;
+        for (CustomerStatementRecord record : records) {
+            byte[] accountNumber = record.getAccountNumber().getBytes(StandardCharsets.UTF_8);
+            byte[] description = record.getDescription() == null ? null : record.getDescription().getBytes(StandardCharsets.UTF_8);
+            accountNumbers.add(accountNumber);
+            descriptions.add(description);
+            payloadLength += 7 * Integer.BYTES + accountNumber.length + (description == null ? 0 : description.length);
+        }
+
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_SIZE + payloadLength);
+        frame.position(FRAME_HEADER_SIZE);
+        frame.putInt(records.size());
+        for (int index = 0; index < records.size(); index++) {
+            CustomerStatementRecord record = records.get(index);
+            byte[] accountNumber = accountNumbers.get(index);
+            byte[] description = descriptions.get(index);
+
+            recordOffsetsInFrame[index] = frame.position();
+            frame.putInt(6 * Integer.BYTES + accountNumber.length + (description == null ? 0 : description.length));
+            frame.putInt(record.getTransactionReference());
+            frame.putInt(record.getStartBalance());
+            frame.putInt(record.getMutation());
+            frame.putInt(record.getEndBalance());
+            frame.putInt(accountNumber.length);
+            frame.put(accountNumber);
+            if (description == null) {
+                frame.putInt(-1);
+            } else {
+                frame.putInt(description.length);
+                frame.put(description);
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(frame.array(), FRAME_HEADER_SIZE, payloadLength);
+        frame.putInt(0, payloadLength);
+        frame.putInt(Integer.BYTES, (int) crc.getValue());
+        frame.flip();
+        return frame;
+    }
+
+    /**
+     * Decodes the record at the position of the buffer, starting at its length, and moves the position past it.
+     */
+    private static CustomerStatementRecord decodeRecord(ByteBuffer buffer) {
+        buffer.getInt();
+        CustomerStatementRecord record = new CustomerStatementRecord();
+        record.setTransactionReference(buffer.getInt());
+        record.setStartBalance(buffer.getInt());
+        record.setMutation(buffer.getInt());
+        record.setEndBalance(buffer.getInt());
+        byte[] accountNumber = new byte[buffer.getInt()];
+        buffer.get(accountNumber);
+        record.setAccountNumber(new String(accountNumber, StandardCharsets.UTF_8));
+        int descriptionLength = buffer.getInt();
+        if (descriptionLength >= 0) {
+            byte[] description = new byte[descriptionLength];
+            buffer.get(description);
+            record.setDescription(new String(description, StandardCharsets.UTF_8));
+        }
+        return record;
+    }
+
+    private CustomerStatementRecord readRecord(long recordOffset) {
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_READ_SIZE);
+            int bytesRead = 0;
+            while (buffer.hasRemaining() && bytesRead >= 0) {
+                bytesRead = channel.read(buffer, recordOffset + buffer.position());
+            }
+            buffer.flip();
+
+            int recordSize = Integer.BYTES + buffer.getInt(0);
+            if (recordSize > buffer.limit()) {
+                buffer = read(recordOffset, recordSize);
+            }
+            return decodeRecord(buffer);
+        } catch (IOException e) {
+            throw new DataAccessResourceFailureException("Reading the record at offset " + recordOffset + " of log " + logFile + " failed", e);
+        }
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of log " + logFile + " at offset " + (position + buffer.position()));
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private void addToIndexes(CustomerStatementRecord record, long recordOffset) {
+        String accountNumber = record.getAccountNumber();
+        Account account = accounts.get(accountNumber);
+        if (account == null) {
+            account = new Account(new AccountSummary(accountNumber, 1, record.getMutation(), record.getEndBalance()));
+            account.recordOffsets.put(record.getTransactionReference(), recordOffset);
+            accounts.put(accountNumber, account);
+        } else {
+            AccountSummary summary = account.summary;
+            account.recordOffsets.put(record.getTransactionReference(), recordOffset);
+            account.summary = new AccountSummary(accountNumber, summary.getRecordCount() + 1,
+                    summary.getTotalMutation() + record.getMutation(), record.getEndBalance());
+        }
+        recordOffsets.put(record.getTransactionReference(), recordOffset);
+    }
+
+    /**
+     * Removes what was written of a frame which failed, so the next frame is appended right after the last complete one.
+     */
+    private void truncateFailedFrame(long frameStart, IOException writeException) {
+        try {
+            channel.truncate(frameStart);
+        } catch (IOException e) {
+            // Replaying drops the partial frame anyway, and the next append overwrites it.
+            writeException.addSuppressed(e);
+        }
+    }
+
+    private void syncIfUnsynced() {
+        if (!unsynced) {
+            return;
+        }
+
+        unsynced = false;
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            unsynced = true;
+            log.warn("Syncing log {} failed, retrying after the next interval", logFile, e);
+        }
+    }
+
+    /**
+     * When an append returns, relative to the records reaching the disk.
+     */
+    public enum FsyncPolicy {
+
+        /**
+         * Sync every append before returning, so a returned insert survives a crash of the machine.
+         */
+        ALWAYS,
+
+        /**
+         * Sync in the background at a fixed interval, so a crash of the machine loses at most the last interval of inserts.
+         */
+        INTERVAL,
+
+        /**
+         * Leave syncing to the operating system, so only a crash of the process is survived.
+         */
+        NEVER
+    }
+
+    /**
+     * Offsets of the records of an account and its summary. The summary is replaced on every insert instead of updated,
+     * so readers always see a consistent one.
+     */
+    private static final class Account {
+
+        private final ConcurrentSkipListMap<Integer, Long> recordOffsets = new ConcurrentSkipListMap<>();
+
+        private volatile AccountSummary summary;
+
+        Account(AccountSummary summary) {
+            this.summary = summary;
+        }
+    }
+
+    /**
+     * A record read back from the log, as returned by the page query of the database.
+     */
+    private static final class LoggedRecord implements StoredCustomerStatementRecord {
+
+        private final CustomerStatementRecord record;
+
+        LoggedRecord(CustomerStatementRecord record) {
+            this.record = record;
+        }
+
+        @Override
+        public Integer getTransactionReference() {
+            return record.getTransactionReference();
+        }
+
+        @Override
+        public String getAccountNumber() {
+            return record.getAccountNumber();
+        }
+
+        @Override
+        public Integer getStartBalance() {
+            return record.getStartBalance();
+        }
+
+        @Override
+        public Integer getMutation() {
+            return record.getMutation();
+        }
+
+        @Override
+        public Integer getEndBalance() {
+            return record.getEndBalance();
+        }
+
+        @Override
+        public String getDescription() {
+            return record.getDescription();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Default lookup, asking the {@link CustomerStatementRecordStore} for every question.
+ */
+public class RepositoryTransactionReferenceLookup implements TransactionReferenceLookup {
+
+    private final CustomerStatementRecordStore customerStatementRecordStore;
+
+    public RepositoryTransactionReferenceLookup(CustomerStatementRecordStore customerStatementRecordStore) {
+        this.customerStatementRecordStore = customerStatementRecordStore;
+    }
+
+    @Override
+    public boolean exists(int transactionReference) {
+        return customerStatementRecordStore.exists(transactionReference);
+    }
+
+    @Override
+    public String getAccountNumber(int transactionReference) {
+        return customerStatementRecordStore.findAccountNumber(transactionReference);
+    }
+
+    @Override
+    public Map<Integer, String> getAccountNumbers(Collection<Integer> transactionReferences) {
+        return customerStatementRecordStore.findAccountNumbers(transactionReferences);
+    }
+
+    @Override
+    public void registerInserted(int transactionReference, String accountNumber) {
+        // The store is the source of truth, nothing to keep up to date.
+    }
+}
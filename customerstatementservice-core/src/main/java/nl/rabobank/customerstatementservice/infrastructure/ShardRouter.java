@@ -0,0 +1,93 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Assigns every transaction reference to one of the shard datasources. Routing on the reference, instead of on the
+ * account number, keeps all records with the same reference on the same shard, so the primary key of each shard
+ * still detects every duplicate reference.
+ * <p>
+ * {@link #onShard(int, Supplier)} selects the shard used by the {@link ShardRoutingDataSource} on the current thread.
+ */
+public class ShardRouter implements AutoCloseable {
+
+    private static final ThreadLocal<Integer> CURRENT_SHARD = new ThreadLocal<>();
+
+    private final List<DataSource> shardDataSources;
+
+    private final List<JdbcTemplate> shardJdbcTemplates = new ArrayList<>();
+
+    public ShardRouter(List<DataSource> shardDataSources) {
+        if (shardDataSources.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shardDataSources = Collections.unmodifiableList(new ArrayList<>(shardDataSources));
+        this.shardDataSources.forEach(dataSource -> shardJdbcTemplates.add(new JdbcTemplate(dataSource)));
+    }
+
+    public int getShardCount() {
+        return shardDataSources.size();
+    }
+
+    public List<DataSource> getShardDataSources() {
+        return shardDataSources;
+    }
+
+    /**
+     * @return one JdbcTemplate per shard, for queries which have to read all shards.
+     */
+    public List<JdbcTemplate> getShardJdbcTemplates() {
+        return Collections.unmodifiableList(shardJdbcTemplates);
+    }
+
+    public int shardOf(int transactionReference) {
+        // Spreads references which share a pattern, e.g. only even ones, over all shards.
+        int hash = transactionReference * 0x9E3779B9;
+        hash ^= hash >>> 16;
+
+        return Math.floorMod(hash, shardDataSources.size());
+    }
+
+    /**
+     * Runs the given action with all connections obtained through the {@link ShardRoutingDataSource} on the current
+     * thread going to the given shard.
+     */
+    public <T> T onShard(int shard, Supplier<T> action) {
+        Integer previousShard = CURRENT_SHARD.get();
+        CURRENT_SHARD.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previousShard == null) {
+                CURRENT_SHARD.remove();
+            } else {
+                CURRENT_SHARD.set(previousShard);
+            }
+        }
+    }
+
+    /**
+     * Closes the shard datasources which can be closed, like connection pools.
+     */
+    @Override
+    public void close() throws Exception {
+        for (DataSource shardDataSource : shardDataSources) {
+            if (shardDataSource instanceof AutoCloseable) {
+                ((AutoCloseable) shardDataSource).close();
+            }
+        }
+    }
+
+    /**
+     * @return the shard selected on the current thread, or null outside of {@link #onShard(int, Supplier)}.
+     */
+    static Integer getCurrentShard() {
+        return CURRENT_SHARD.get();
+    }
+}
@@ -0,0 +1,28 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * DataSource handing out connections of the shard selected through {@link ShardRouter#onShard(int, java.util.function.Supplier)}.
+ * Outside of a selected shard, e.g. for the metadata Hibernate reads at startup, the first shard is used.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    public ShardRoutingDataSource(ShardRouter shardRouter) {
+        Map<Object, Object> targetDataSources = new HashMap<>();
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            targetDataSources.put(shard, shardRouter.getShardDataSources().get(shard));
+        }
+
+        setTargetDataSources(targetDataSources);
+        setDefaultTargetDataSource(shardRouter.getShardDataSources().get(0));
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardRouter.getCurrentShard();
+    }
+}
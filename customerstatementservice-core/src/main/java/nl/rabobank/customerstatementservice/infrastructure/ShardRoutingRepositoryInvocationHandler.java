@@ -0,0 +1,382 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Routes every call of a {@link CustomerStatementRecordRepository} to the shards of the records it concerns, following
+ * a route declared per repository method:
+ * <ul>
+ * <li>calls for one record or reference go to the shard of that reference</li>
+ * <li>calls for a collection of records or references are split up per shard, the results are combined</li>
+ * <li>calls for all records, like findAll() and count(), go to every shard and the results are combined</li>
+ * <li>pages of an account are read from every shard, as the records of an account are spread over all shards, and
+ * merged by transaction reference</li>
+ * </ul>
+ * Methods which can't be answered from the shards, like the last end balance of an account, are declared unsupported
+ * and throw an {@link UnsupportedOperationException}. Creating the repository fails for a method without a route, or
+ * with a route which can't combine results into its return type.
+ * <p>
+ * {@link CustomerStatementRecordRepository#insertAll(List)} opens a transaction on every shard involved before
+ * inserting, and only commits once all shards inserted their records. A duplicate reference on any shard thus rolls
+ * back the whole batch, as it does without shards. A failure while committing can still leave a part committed.
+ * <p>
+ * The account summaries are all kept on the first shard, as the records of an account are spread over all shards.
+ * insert and insertAll update them in the transaction of the first shard, which is always part of the batch for that reason.
+ */
+public class ShardRoutingRepositoryInvocationHandler implements InvocationHandler {
+
+    private static final int ACCOUNT_SUMMARY_SHARD = 0;
+
+    private final CustomerStatementRecordRepository customerStatementRecordRepository;
+
+    private final ShardRouter shardRouter;
+
+    private final TransactionTemplate newTransactionTemplate;
+
+    private final Map<Method, Route> routes;
+
+    private ShardRoutingRepositoryInvocationHandler(Class<? extends CustomerStatementRecordRepository> repositoryInterface,
+                                                    CustomerStatementRecordRepository customerStatementRecordRepository,
+                                                    ShardRouter shardRouter,
+                                                    PlatformTransactionManager transactionManager) {
+        this.customerStatementRecordRepository = customerStatementRecordRepository;
+        this.shardRouter = shardRouter;
+        this.newTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.routes = routeEveryMethod(repositoryInterface);
+    }
+
+    public static CustomerStatementRecordRepository createRepository(CustomerStatementRecordRepository customerStatementRecordRepository,
+                                                                     ShardRouter shardRouter,
+                                                                     PlatformTransactionManager transactionManager) {
+        return createRepository(CustomerStatementRecordRepository.class, customerStatementRecordRepository, shardRouter, transactionManager);
+    }
+
+    static <T extends CustomerStatementRecordRepository> T createRepository(Class<T> repositoryInterface,
+                                                                           CustomerStatementRecordRepository customerStatementRecordRepository,
+                                                                           ShardRouter shardRouter,
+                                                                           PlatformTransactionManager transactionManager) {
+        return repositoryInterface.cast(Proxy.newProxyInstance(repositoryInterface.getClassLoader(),
+                new Class<?>[]{repositoryInterface},
+                new ShardRoutingRepositoryInvocationHandler(repositoryInterface, customerStatementRecordRepository, shardRouter, transactionManager)));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            return invokeOnProxy(proxy, method, args);
+        }
+
+        return routes.get(method).invoke(method, args);
+    }
+
+    /**
+     * Looks up the declared route of every method of the repository interface, failing for methods without one.
+     * Variants of a method which only differ in return type, like findAll() of CrudRepository and JpaRepository,
+     * share the route of the most specific one.
+     */
+    private Map<Method, Route> routeEveryMethod(Class<?> repositoryInterface) {
+        Map<Method, Route> declaredRoutes = declareRoutes(repositoryInterface);
+
+        Map<Method, Route> methodRoutes = new HashMap<>();
+        for (Method method : repositoryInterface.getMethods()) {
+            if (Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            Route route = declaredRoutes.get(getMethod(repositoryInterface, method.getName(), method.getParameterTypes()));
+            if (route == null) {
+                throw new IllegalStateException("No shard route declared for " + method);
+            }
+            methodRoutes.put(method, route);
+        }
+        return methodRoutes;
+    }
+
+    private Map<Method, Route> declareRoutes(Class<?> repositoryInterface) {
+        RouteDeclarations declarations = new RouteDeclarations(repositoryInterface);
+
+        declarations.declare(this::onShardOfReference, "findById", Object.class);
+        declarations.declare(this::onShardOfReference, "existsById", Object.class);
+        declarations.declare(this::onShardOfReference, "getById", Object.class);
+        declarations.declare(this::onShardOfReference, "getOne", Object.class);
+        declarations.declare(this::onShardOfReference, "getReferenceById", Object.class);
+        declarations.declare(this::onShardOfReference, "save", Object.class);
+        declarations.declare(this::onShardOfReference, "saveAndFlush", Object.class);
+        declarations.declare(this::onShardOfReference, "delete", Object.class);
+        declarations.declare(this::onShardOfReference, "deleteById", Object.class);
+
+        declarations.declare(this::splitByReference, "findAllById", Iterable.class);
+        declarations.declare(this::splitByReference, "findByTransactionReferenceIn", Collection.class);
+        declarations.declare(this::splitByReference, "saveAll", Iterable.class);
+        declarations.declare(this::splitByReference, "saveAllAndFlush", Iterable.class);
+        declarations.declare(this::splitByReference, "deleteAll", Iterable.class);
+        declarations.declare(this::splitByReference, "deleteAllById", Iterable.class);
+        declarations.declare(this::splitByReference, "deleteAllInBatch", Iterable.class);
+        declarations.declare(this::splitByReference, "deleteInBatch", Iterable.class);
+        declarations.declare(this::splitByReference, "deleteAllByIdInBatch", Iterable.class);
+
+        declarations.declare(this::onEveryShard, "findAll");
+        declarations.declare(this::onEveryShard, "count");
+        declarations.declare(this::onEveryShard, "deleteAll");
+        declarations.declare(this::onEveryShard, "deleteAllInBatch");
+        declarations.declare(this::onEveryShard, "flush");
+
+        declarations.declare(method -> this::mergeAccountPages, "findPageByAccountNumber", String.class, int.class);
+        declarations.declare(method -> this::mergeAccountPages, "findPageByAccountNumberAfter", String.class, int.class, int.class);
+
+        declarations.declare(method -> this::insert, "insert", CustomerStatementRecord.class);
+        declarations.declare(method -> this::insertAll, "insertAll", List.class);
+        declarations.declare(method -> this::onAccountSummaryShard, "addToAccountSummaries", List.class);
+
+        String shardLocalOrder = "every shard numbers its records on its own, so the last record of an account can't be told across shards";
+        declarations.declare(unsupported(shardLocalOrder), "findLastEndBalance", String.class);
+        declarations.declare(unsupported(shardLocalOrder), "findLastEndBalances", Collection.class);
+        declarations.declare(unsupported("the records have to be added to the account summaries on another shard"),
+                "insertRecords", List.class);
+        String notMerged = "the results of the shards aren't merged in order";
+        declarations.declare(unsupported(notMerged), "findAll", Sort.class);
+        declarations.declare(unsupported(notMerged), "findAll", Pageable.class);
+        declarations.declare(unsupported(notMerged), "findAll", Example.class, Sort.class);
+        declarations.declare(unsupported(notMerged), "findAll", Example.class, Pageable.class);
+        String byExample = "an example can match records on every shard";
+        declarations.declare(unsupported(byExample), "findAll", Example.class);
+        declarations.declare(unsupported(byExample), "findOne", Example.class);
+        declarations.declare(unsupported(byExample), "findBy", Example.class, Function.class);
+        declarations.declare(unsupported(byExample), "count", Example.class);
+        declarations.declare(unsupported(byExample), "exists", Example.class);
+
+        return declarations.routes;
+    }
+
+    private Route onShardOfReference(Method method) {
+        return (invokedMethod, args) -> invokeOnShard(shardRouter.shardOf(transactionReferenceOf(args[0])), invokedMethod, args);
+    }
+
+    private Route splitByReference(Method method) {
+        Function<List<Object>, Object> combiner = combinerOf(method);
+        return (invokedMethod, args) -> {
+            Map<Integer, List<Object>> argumentsByShard = splitByShard((Iterable<?>) args[0]);
+            List<Object> results = new ArrayList<>();
+            for (Map.Entry<Integer, List<Object>> shardArguments : argumentsByShard.entrySet()) {
+                Object[] shardArgs = args.clone();
+                shardArgs[0] = shardArguments.getValue();
+                results.add(invokeOnShard(shardArguments.getKey(), invokedMethod, shardArgs));
+            }
+            return combiner.apply(results);
+        };
+    }
+
+    private Route onEveryShard(Method method) {
+        Function<List<Object>, Object> combiner = combinerOf(method);
+        return (invokedMethod, args) -> combiner.apply(invokeOnEveryShard(invokedMethod, args));
+    }
+
+    private static Route unsupported(String reason) {
+        return (invokedMethod, args) -> {
+            throw new UnsupportedOperationException("Can't route " + invokedMethod.getName() + " over the shards, " + reason);
+        };
+    }
+
+    /**
+     * Every shard returns at most limit records of the account, ordered by transaction reference. The lowest limit
+     * references of those make up the page, as they would without shards.
+     */
+    private Object mergeAccountPages(Method method, Object[] args) throws Throwable {
+        int limit = (Integer) args[args.length - 1];
+
+        List<StoredCustomerStatementRecord> merged = new ArrayList<>();
+        for (Object shardPage : invokeOnEveryShard(method, args)) {
+            for (Object record : (List<?>) shardPage) {
+                merged.add((StoredCustomerStatementRecord) record);
+            }
+        }
+        merged.sort(Comparator.comparing(StoredCustomerStatementRecord::getTransactionReference));
+
+        return new ArrayList<>(merged.subList(0, Math.min(limit, merged.size())));
+    }
+
+    private Object insert(Method method, Object[] args) {
+        insertAll(Collections.singletonList(args[0]));
+        return null;
+    }
+
+    private Object insertAll(Method method, Object[] args) {
+        insertAll((List<?>) args[0]);
+        return null;
+    }
+
+    private Object onAccountSummaryShard(Method method, Object[] args) throws Throwable {
+        return invokeOnShard(ACCOUNT_SUMMARY_SHARD, method, args);
+    }
+
+    private void insertAll(List<?> records) {
+        Map<Integer, List<Object>> recordsByShard = splitByShard(records);
+        recordsByShard.computeIfAbsent(ACCOUNT_SUMMARY_SHARD, shard -> new ArrayList<>());
+        insertAll(new ArrayList<>(recordsByShard.entrySet()), 0, records);
+    }
+
+    /**
+     * Opens a new transaction on the shard of the given index, inserts its records, and continues with the next shard
+     * within that transaction. So all inserts are done before the first commit. The transaction of the account summary
+     * shard adds all records to the summaries.
+     */
+    @SuppressWarnings("unchecked")
+    private void insertAll(List<Map.Entry<Integer, List<Object>>> recordsByShard, int index, List<?> allRecords) {
+        if (index == recordsByShard.size()) {
+            return;
+        }
+
+        Map.Entry<Integer, List<Object>> shardRecords = recordsByShard.get(index);
+        shardRouter.onShard(shardRecords.getKey(), () -> newTransactionTemplate.execute(status -> {
+            customerStatementRecordRepository.insertRecords((List<CustomerStatementRecord>) (List<?>) shardRecords.getValue());
+            if (shardRecords.getKey() == ACCOUNT_SUMMARY_SHARD) {
+                customerStatementRecordRepository.addToAccountSummaries((List<CustomerStatementRecord>) allRecords);
+            }
+            insertAll(recordsByShard, index + 1, allRecords);
+            return null;
+        }));
+    }
+
+    private Object invokeOnShard(int shard, Method method, Object[] args) throws Throwable {
+        try {
+            return shardRouter.onShard(shard, () -> {
+                try {
+                    return method.invoke(customerStatementRecordRepository, args);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                } catch (InvocationTargetException e) {
+                    throw new ShardInvocationException(e.getCause());
+                }
+            });
+        } catch (ShardInvocationException e) {
+            throw e.getCause();
+        }
+    }
+
+    private List<Object> invokeOnEveryShard(Method method, Object[] args) throws Throwable {
+        List<Object> results = new ArrayList<>();
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            results.add(invokeOnShard(shard, method, args));
+        }
+        return results;
+    }
+
+    private Map<Integer, List<Object>> splitByShard(Iterable<?> elements) {
+        Map<Integer, List<Object>> elementsByShard = new TreeMap<>();
+        for (Object element : elements) {
+            elementsByShard.computeIfAbsent(shardRouter.shardOf(transactionReferenceOf(element)), shard -> new ArrayList<>())
+                    .add(element);
+        }
+        return elementsByShard;
+    }
+
+    private static int transactionReferenceOf(Object element) {
+        if (element instanceof CustomerStatementRecord) {
+            return ((CustomerStatementRecord) element).getTransactionReference();
+        }
+        return (Integer) element;
+    }
+
+    /**
+     * @return how the results of the shards are combined into the return type of the given method: void, a summed count,
+     * or a list of all elements.
+     */
+    static Function<List<Object>, Object> combinerOf(Method method) {
+        Class<?> returnType = method.getReturnType();
+        if (returnType == void.class) {
+            return results -> null;
+        }
+        if (returnType == long.class) {
+            return results -> results.stream().mapToLong(result -> (Long) result).sum();
+        }
+        if (returnType.isAssignableFrom(ArrayList.class)) {
+            return results -> {
+                List<Object> combined = new ArrayList<>();
+                results.forEach(result -> ((Iterable<?>) result).forEach(combined::add));
+                return combined;
+            };
+        }
+        throw new IllegalStateException("Can't combine the results of " + method + " over the shards");
+    }
+
+    private static Method getMethod(Class<?> repositoryInterface, String methodName, Class<?>... parameterTypes) {
+        try {
+            return repositoryInterface.getMethod(methodName, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("Shard route declared for unknown method " + methodName, e);
+        }
+    }
+
+    private Object invokeOnProxy(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                return "Shard routing " + customerStatementRecordRepository;
+        }
+    }
+
+    /**
+     * Handles the calls of one repository method.
+     */
+    @FunctionalInterface
+    private interface Route {
+
+        Object invoke(Method method, Object[] args) throws Throwable;
+    }
+
+    /**
+     * Collects the route of every method, created once the method is known so it can check its return type.
+     */
+    private static final class RouteDeclarations {
+
+        private final Class<?> repositoryInterface;
+
+        private final Map<Method, Route> routes = new HashMap<>();
+
+        RouteDeclarations(Class<?> repositoryInterface) {
+            this.repositoryInterface = repositoryInterface;
+        }
+
+        void declare(Function<Method, Route> routeFactory, String methodName, Class<?>... parameterTypes) {
+            Method method = getMethod(repositoryInterface, methodName, parameterTypes);
+            routes.put(method, routeFactory.apply(method));
+        }
+
+        void declare(Route route, String methodName, Class<?>... parameterTypes) {
+            routes.put(getMethod(repositoryInterface, methodName, parameterTypes), route);
+        }
+    }
+
+    /**
+     * Carries the exception thrown by the repository through {@link ShardRouter#onShard(int, java.util.function.Supplier)}.
+     */
+    private static final class ShardInvocationException extends RuntimeException {
+
+        ShardInvocationException(Throwable cause) {
+            super(cause);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+/**
+ * Projection of a stored record for reading it back, selected as plain columns instead of loading a managed entity.
+ */
+public interface StoredCustomerStatementRecord {
+
+    Integer getTransactionReference();
+
+    String getAccountNumber();
+
+    Integer getStartBalance();
+
+    Integer getMutation();
+
+    Integer getEndBalance();
+
+    String getDescription();
+}
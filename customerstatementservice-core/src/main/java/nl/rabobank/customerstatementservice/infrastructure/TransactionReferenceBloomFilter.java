@@ -0,0 +1,99 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over int transaction references. Thread safe, as bits are only ever set using compare and set.
+ * <p>
+ * The number of bits and hash functions follow from the expected number of references and the accepted false
+ * positive probability. Adding more references than expected keeps working, but increases the false positive rate.
+ */
+public class TransactionReferenceBloomFilter {
+
+    private final AtomicLongArray words;
+
+    private final long bitCount;
+
+    private final int hashFunctionCount;
+
+    private final AtomicLong setBitCount = new AtomicLong();
+
+    public TransactionReferenceBloomFilter(long expectedReferences, double falsePositiveProbability) {
+        if (expectedReferences <= 0 || falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("Expected references must be positive and the false positive probability between 0 and 1");
+        }
+
+        long optimalBitCount = (long) Math.ceil(-expectedReferences * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        this.words = new AtomicLongArray(Math.toIntExact((optimalBitCount + 63) / 64));
+        this.bitCount = words.length() * 64L;
+        this.hashFunctionCount = Math.max(1, (int) Math.round((double) bitCount / expectedReferences * Math.log(2)));
+    }
+
+    public void put(int transactionReference) {
+        long hash1 = hash(transactionReference, 0x9E3779B9);
+        long hash2 = hash(transactionReference, 0x7F4A7C15);
+
+        for (int i = 0; i < hashFunctionCount; i++) {
+            long bitIndex = Math.floorMod(hash1 + i * hash2, bitCount);
+            int wordIndex = (int) (bitIndex >>> 6);
+            long mask = 1L << bitIndex;
+
+            long word;
+            do {
+                word = words.get(wordIndex);
+                if ((word & mask) != 0) {
+                    break;
+                }
+            } while (!words.compareAndSet(wordIndex, word, word | mask));
+
+            if ((word & mask) == 0) {
+                setBitCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * @return false if the reference has definitely never been added, true if it probably has.
+     */
+    public boolean mightContain(int transactionReference) {
+        long hash1 = hash(transactionReference, 0x9E3779B9);
+        long hash2 = hash(transactionReference, 0x7F4A7C15);
+
+        for (int i = 0; i < hashFunctionCount; i++) {
+            long bitIndex = Math.floorMod(hash1 + i * hash2, bitCount);
+            if ((words.get((int) (bitIndex >>> 6)) & (1L << bitIndex)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the false positive probability for the current fill ratio of the filter.
+     */
+    public double expectedFalsePositiveProbability() {
+        return Math.pow((double) setBitCount.get() / bitCount, hashFunctionCount);
+    }
+
+    public long getMemoryInBytes() {
+        return bitCount / 8;
+    }
+
+    public int getHashFunctionCount() {
+        return hashFunctionCount;
+    }
+
+    /**
+     * MurmurHash3 64 bit finalizer, seeded to derive the two hashes used for double hashing.
+     */
+    private static long hash(int transactionReference, long seed) {
+        long hash = transactionReference ^ seed;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
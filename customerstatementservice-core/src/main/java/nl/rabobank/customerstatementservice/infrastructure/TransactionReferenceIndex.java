@@ -0,0 +1,214 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory index of all stored transaction references, loaded from the database at startup.
+ * <p>
+ * References are kept in an open addressing table with linear probing. Every slot is a single long, containing the
+ * reference in the upper 32 bits and the id of the account number in the lower 32 bits. Account numbers are stored once
+ * in a dictionary, as there are far fewer accounts than references. An empty slot is 0, account ids start at 1.
+ * <p>
+ * The table grows at a load factor of 0.75 and always has a power of two capacity, so memory is 8 bytes per slot:
+ * <ul>
+ * <li>10M references: 2^24 slots, 128 MiB</li>
+ * <li>100M references: 2^27 slots, 1 GiB</li>
+ * </ul>
+ * Growing temporarily needs the old and the new table. A {@code HashMap<Integer, String>} needs around 64 bytes per
+ * entry instead (node, boxed key, table slot), so 640 MB for 10M references, and wouldn't fit a normal heap for 100M.
+ * <p>
+ * The index assumes this service is the only one inserting records. Records inserted by anything else aren't known,
+ * although {@link #getAccountNumber(int)} still falls back to the database for those.
+ */
+public class TransactionReferenceIndex implements TransactionReferenceLookup {
+
+    private static final double MAX_LOAD_FACTOR = 0.75;
+
+    private static final int MINIMUM_CAPACITY = 16;
+
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private static final String SELECT_ALL_REFERENCES = "SELECT transaction_reference, account_number FROM customer_statement_record";
+
+    private final CustomerStatementRecordRepository customerStatementRecordRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> accountIds = new HashMap<>();
+
+    // Index 0 is unused, as account id 0 marks an empty slot.
+    private final List<String> accountNumbers = new ArrayList<>();
+
+    private long[] slots;
+
+    private int size;
+
+    private final Logger log = LoggerFactory.getLogger(TransactionReferenceIndex.class);
+
+    public TransactionReferenceIndex(CustomerStatementRecordRepository customerStatementRecordRepository, int expectedReferences) {
+        this.customerStatementRecordRepository = customerStatementRecordRepository;
+        this.slots = new long[capacityFor(expectedReferences)];
+        this.accountNumbers.add(null);
+    }
+
+    /**
+     * Adds all references currently stored in the database to the index.
+     */
+    public void load(JdbcTemplate jdbcTemplate) {
+        long start = System.currentTimeMillis();
+        jdbcTemplate.query(SELECT_ALL_REFERENCES, resultSet -> {
+            registerInserted(resultSet.getInt(1), resultSet.getString(2));
+        });
+        log.info("Loaded {} transaction references in {} ms, using {} slots", size(), System.currentTimeMillis() - start, slots.length);
+    }
+
+    @Override
+    public boolean exists(int transactionReference) {
+        lock.readLock().lock();
+        try {
+            return findAccountId(transactionReference) != 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public String getAccountNumber(int transactionReference) {
+        String accountNumber;
+        lock.readLock().lock();
+        try {
+            accountNumber = accountNumbers.get(findAccountId(transactionReference));
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (accountNumber == null) {
+            // Not inserted through this service, the database could still know it.
+            return customerStatementRecordRepository.findById(transactionReference)
+                    .map(CustomerStatementRecord::getAccountNumber)
+                    .orElse(null);
+        }
+        return accountNumber;
+    }
+
+    @Override
+    public Map<Integer, String> getAccountNumbers(Collection<Integer> transactionReferences) {
+        Map<Integer, String> existingAccountNumbers = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (Integer transactionReference : transactionReferences) {
+                int accountId = findAccountId(transactionReference);
+                if (accountId != 0) {
+                    existingAccountNumbers.put(transactionReference, accountNumbers.get(accountId));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return existingAccountNumbers;
+    }
+
+    @Override
+    public void registerInserted(int transactionReference, String accountNumber) {
+        lock.writeLock().lock();
+        try {
+            if (size + 1 > slots.length * MAX_LOAD_FACTOR) {
+                if (slots.length == MAXIMUM_CAPACITY) {
+                    throw new IllegalStateException("Transaction reference index is full, containing " + size + " references");
+                }
+                resize(slots.length * 2);
+            }
+
+            Integer accountId = accountIds.get(accountNumber);
+            if (accountId == null) {
+                accountId = accountNumbers.size();
+                accountNumbers.add(accountNumber);
+                accountIds.put(accountNumber, accountId);
+            }
+
+            if (insert(slots, transactionReference, accountId)) {
+                size++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int findAccountId(int transactionReference) {
+        int mask = slots.length - 1;
+        for (int index = hash(transactionReference) & mask; ; index = (index + 1) & mask) {
+            long slot = slots[index];
+            if (slot == 0) {
+                return 0;
+            }
+            if ((int) (slot >>> 32) == transactionReference) {
+                return (int) slot;
+            }
+        }
+    }
+
+    /**
+     * @return false when the reference was already present, in which case its account id has been overwritten.
+     */
+    private static boolean insert(long[] table, int transactionReference, int accountId) {
+        int mask = table.length - 1;
+        for (int index = hash(transactionReference) & mask; ; index = (index + 1) & mask) {
+            long slot = table[index];
+            if (slot == 0 || (int) (slot >>> 32) == transactionReference) {
+                table[index] = ((long) transactionReference << 32) | (accountId & 0xFFFFFFFFL);
+                return slot == 0;
+            }
+        }
+    }
+
+    private void resize(int newCapacity) {
+        long[] newSlots = new long[newCapacity];
+        for (long slot : slots) {
+            if (slot != 0) {
+                insert(newSlots, (int) (slot >>> 32), (int) slot);
+            }
+        }
+        slots = newSlots;
+    }
+
+    private static int capacityFor(int expectedReferences) {
+        long required = (long) Math.ceil(expectedReferences / MAX_LOAD_FACTOR);
+        int capacity = MINIMUM_CAPACITY;
+        while (capacity < required && capacity < MAXIMUM_CAPACITY) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * Final mixing step of MurmurHash3, spreading references which only differ in their high bits over the table.
+     */
+    private static int hash(int transactionReference) {
+        int hash = transactionReference;
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+}
@@ -0,0 +1,31 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Answers whether a transaction reference has already been stored, and for which account number.
+ * Implementations may answer from memory, but have to be kept up to date through {@link #registerInserted(int, String)}.
+ */
+public interface TransactionReferenceLookup {
+
+    boolean exists(int transactionReference);
+
+    /**
+     * @param transactionReference reference of an existing record
+     * @return account number of the existing record, or null if the reference doesn't exist after all.
+     */
+    String getAccountNumber(int transactionReference);
+
+    /**
+     * Set based variant of {@link #getAccountNumber(int)}.
+     *
+     * @return modifiable map containing the account numbers of the given references which exist, by transaction reference.
+     */
+    Map<Integer, String> getAccountNumbers(Collection<Integer> transactionReferences);
+
+    /**
+     * Called after a record has been stored successfully.
+     */
+    void registerInserted(int transactionReference, String accountNumber);
+}
@@ -0,0 +1,31 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Used when the balance continuity isn't checked. No account has a last end balance, so every record may start anywhere.
+ */
+public class UncheckedAccountBalanceLookup implements AccountBalanceLookup {
+
+    @Override
+    public Integer getLastEndBalance(String accountNumber) {
+        return null;
+    }
+
+    @Override
+    public Map<String, Integer> getLastEndBalances(Collection<String> accountNumbers) {
+        return new HashMap<>();
+    }
+
+    @Override
+    public void registerInserted(String accountNumber, int endBalance) {
+        // Nothing to keep track of
+    }
+
+    @Override
+    public boolean isCheckingBalanceContinuity() {
+        return false;
+    }
+}
@@ -0,0 +1,47 @@
+package nl.rabobank.customerstatementservice.mapper;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+
+/**
+ * Creates the CsvMapper of the CSV uploads and exports with the settings of the application's ObjectMapper, like the
+ * spring.jackson.* properties. So a CSV record is read and written the same as the JSON record, e.g. an unknown column
+ * is ignored like an unknown field.
+ */
+public final class CsvMappers {
+
+    private CsvMappers() {
+    }
+
+    public static CsvMapper from(ObjectMapper objectMapper) {
+        CsvMapper csvMapper = new CsvMapper();
+        JsonFactory factory = objectMapper.getFactory();
+        SerializationConfig serializationConfig = objectMapper.getSerializationConfig();
+
+        for (DeserializationFeature feature : DeserializationFeature.values()) {
+            csvMapper.configure(feature, objectMapper.isEnabled(feature));
+        }
+        for (SerializationFeature feature : SerializationFeature.values()) {
+            csvMapper.configure(feature, objectMapper.isEnabled(feature));
+        }
+        for (JsonParser.Feature feature : JsonParser.Feature.values()) {
+            csvMapper.configure(feature, factory.isEnabled(feature));
+        }
+        for (JsonGenerator.Feature feature : JsonGenerator.Feature.values()) {
+            csvMapper.configure(feature, factory.isEnabled(feature));
+        }
+        csvMapper.setPropertyNamingStrategy(objectMapper.getPropertyNamingStrategy());
+        csvMapper.setDefaultPropertyInclusion(serializationConfig.getDefaultPropertyInclusion());
+        csvMapper.setDateFormat(objectMapper.getDateFormat());
+        csvMapper.setTimeZone(serializationConfig.getTimeZone());
+        csvMapper.setLocale(serializationConfig.getLocale());
+
+        return csvMapper;
+    }
+}
@@ -1,7 +1,10 @@
 package nl.rabobank.customerstatementservice.mapper;
 
+import nl.rabobank.customerstatementservice.dto.AccountSummaryDto;
 import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordDto;
+import nl.rabobank.customerstatementservice.infrastructure.AccountSummary;
 import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecord;
+import nl.rabobank.customerstatementservice.infrastructure.StoredCustomerStatementRecord;
 import org.springframework.stereotype.Service;
 
 // Normally I'd let this be generated by Mapstruct, but I came across an IntelliJ bug..
@@ -30,4 +33,36 @@ public class CustomerStatementMapper {
 
         return customerStatementRecord;
     }
+
+    public CustomerStatementRecordDto toCustomerStatementRecordDto(StoredCustomerStatementRecord storedCustomerStatementRecord) {
+        if (storedCustomerStatementRecord == null) {
+            return null;
+        }
+
+        CustomerStatementRecordDto customerStatementRecordDto = new CustomerStatementRecordDto();
+
+        customerStatementRecordDto.setAccountNumber(storedCustomerStatementRecord.getAccountNumber());
+        customerStatementRecordDto.setDescription(storedCustomerStatementRecord.getDescription());
+        customerStatementRecordDto.setEndBalance(storedCustomerStatementRecord.getEndBalance());
+        customerStatementRecordDto.setMutation(storedCustomerStatementRecord.getMutation());
+        customerStatementRecordDto.setStartBalance(storedCustomerStatementRecord.getStartBalance());
+        customerStatementRecordDto.setTransactionReference(storedCustomerStatementRecord.getTransactionReference());
+
+        return customerStatementRecordDto;
+    }
+
+    public AccountSummaryDto toAccountSummaryDto(AccountSummary accountSummary) {
+        if (accountSummary == null) {
+            return null;
+        }
+
+        AccountSummaryDto accountSummaryDto = new AccountSummaryDto();
+
+        accountSummaryDto.setAccountNumber(accountSummary.getAccountNumber());
+        accountSummaryDto.setRecordCount(accountSummary.getRecordCount());
+        accountSummaryDto.setTotalMutation(accountSummary.getTotalMutation());
+        accountSummaryDto.setLastEndBalance(accountSummary.getLastEndBalance());
+
+        return accountSummaryDto;
+    }
 }
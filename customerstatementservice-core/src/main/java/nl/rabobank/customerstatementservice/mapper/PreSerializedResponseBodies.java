@@ -0,0 +1,40 @@
+package nl.rabobank.customerstatementservice.mapper;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import nl.rabobank.customerstatementservice.dto.ResponseBody;
+import nl.rabobank.customerstatementservice.dto.ResultType;
+
+/**
+ * The JSON of the shared bodies of {@link ResponseBody#of(ResultType)}, serialized once with the given ObjectMapper.
+ * These bodies never vary, so they can be written as is instead of being serialized again for every response. Only
+ * the bodies carrying error records still have to be serialized.
+ */
+public class PreSerializedResponseBodies {
+
+    private final SerializableString[] json = new SerializableString[ResultType.values().length];
+
+    public PreSerializedResponseBodies(ObjectMapper objectMapper) {
+        for (ResultType result : ResultType.values()) {
+            try {
+                json[result.ordinal()] = new SerializedString(objectMapper.writeValueAsString(ResponseBody.of(result)));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Can't serialize the " + result + " response body", e);
+            }
+        }
+    }
+
+    /**
+     * @return the JSON of the given body, null when it isn't one of the shared bodies and has to be serialized.
+     * The UTF-8 bytes of the JSON are cached as well, see {@link SerializableString#asUnquotedUTF8()}.
+     */
+    public SerializableString getJson(ResponseBody responseBody) {
+        ResultType result = responseBody.getResult();
+        if (result == null || responseBody != ResponseBody.of(result)) {
+            return null;
+        }
+        return json[result.ordinal()];
+    }
+}
@@ -0,0 +1,136 @@
+package nl.rabobank.customerstatementservice.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Applies the records of one account one at a time, in the order they arrive, while records of other accounts proceed
+ * in parallel. Accounts are spread over a fixed number of stripes, customerstatementservice.account-sequencing.stripes,
+ * each guarded by a fair lock. So there's no lock per account to create or clean up, at the cost of two accounts
+ * sharing a stripe waiting for each other now and then.
+ * <p>
+ * A ReentrantLock is used instead of synchronized, as a virtual thread waiting for it doesn't block its carrier thread.
+ */
+@Component
+public class AccountSequencer {
+
+    private final ReentrantLock[] stripes;
+
+    public AccountSequencer(@Value("${customerstatementservice.account-sequencing.stripes:64}") int stripeCount) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("At least one stripe is needed, got " + stripeCount);
+        }
+
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int stripe = 0; stripe < stripeCount; stripe++) {
+            // Fair, so waiting records of the same account are let through in the order they arrived.
+            stripes[stripe] = new ReentrantLock(true);
+        }
+    }
+
+    /**
+     * Runs the given action once every earlier action of the same account has finished.
+     */
+    public <T> T sequence(String accountNumber, Supplier<T> action) {
+        ReentrantLock stripe = stripes[stripeOf(accountNumber)];
+        stripe.lock();
+        try {
+            return action.get();
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * Runs the given action holding the stripes of all given accounts at once, for a chunk of records which can't be
+     * split up per stripe, see {@link #sequencePerStripe(List, Function, Function)}.
+     * The stripes are always locked in ascending order, so two chunks sharing stripes can't deadlock.
+     */
+    public <T> T sequence(Collection<String> accountNumbers, Supplier<T> action) {
+        TreeSet<Integer> chunkStripes = new TreeSet<>();
+        accountNumbers.forEach(accountNumber -> chunkStripes.add(stripeOf(accountNumber)));
+
+        int locked = 0;
+        try {
+            for (Integer stripe : chunkStripes) {
+                stripes[stripe].lock();
+                locked++;
+            }
+            return action.get();
+        } finally {
+            // Unlocking only what was locked, in case locking failed halfway.
+            for (Integer stripe : chunkStripes) {
+                if (locked-- == 0) {
+                    break;
+                }
+                stripes[stripe].unlock();
+            }
+        }
+    }
+
+    /**
+     * Splits the given records into one group per stripe, keeping the order of the records within a group, and runs
+     * the given action for every group while holding only the stripe of that group. So a chunk of records of many
+     * accounts only ever blocks the records of one stripe, instead of every stripe it touches.
+     *
+     * @param accountNumberOf account number of a record
+     * @param action          handles a group of records, returning one result per record in the same order
+     * @return the results of all records, in the order of the given records.
+     */
+    public <R, T> List<T> sequencePerStripe(List<R> records, Function<R, String> accountNumberOf, Function<List<R>, List<T>> action) {
+        Map<Integer, List<Integer>> positionsByStripe = new TreeMap<>();
+        for (int position = 0; position < records.size(); position++) {
+            positionsByStripe.computeIfAbsent(stripeOf(accountNumberOf.apply(records.get(position))), stripe -> new ArrayList<>())
+                    .add(position);
+        }
+
+        Object[] results = new Object[records.size()];
+        for (Map.Entry<Integer, List<Integer>> stripePositions : positionsByStripe.entrySet()) {
+            List<Integer> positions = stripePositions.getValue();
+            List<R> stripeRecords = new ArrayList<>(positions.size());
+            positions.forEach(position -> stripeRecords.add(records.get(position)));
+
+            ReentrantLock stripe = stripes[stripePositions.getKey()];
+            stripe.lock();
+            try {
+                List<T> stripeResults = action.apply(stripeRecords);
+                for (int i = 0; i < positions.size(); i++) {
+                    results[positions.get(i)] = stripeResults.get(i);
+                }
+            } finally {
+                stripe.unlock();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        List<T> orderedResults = (List<T>) Arrays.asList(results);
+        return orderedResults;
+    }
+
+    int stripeOf(String accountNumber) {
+        int hash = Objects.hashCode(accountNumber);
+        // Mixing in the high bits, otherwise a power of two stripes only depends on the low bits of the hash.
+        hash ^= hash >>> 16;
+        return Math.floorMod(hash, stripes.length);
+    }
+
+    int getWaitingCount(String accountNumber) {
+        return stripes[stripeOf(accountNumber)].getQueueLength();
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+}
@@ -0,0 +1,131 @@
+package nl.rabobank.customerstatementservice.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvGenerator;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecord;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecordStore;
+import nl.rabobank.customerstatementservice.mapper.CsvMappers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Exports stored records of any number by writing every record to the output as soon as it's read from the database.
+ * Memory use doesn't depend on the number of exported records.
+ * <p>
+ * Records are written in the same format as the stream upload takes them: newline delimited JSON, or CSV with a header
+ * line containing the field names. So an export can be uploaded again as is.
+ */
+@Service
+public class CustomerStatementExportService {
+
+    private static final SerializableString TRANSACTION_REFERENCE = new SerializedString("transactionReference");
+
+    private static final SerializableString ACCOUNT_NUMBER = new SerializedString("accountNumber");
+
+    private static final SerializableString START_BALANCE = new SerializedString("startBalance");
+
+    private static final SerializableString MUTATION = new SerializedString("mutation");
+
+    private static final SerializableString DESCRIPTION = new SerializedString("description");
+
+    private static final SerializableString END_BALANCE = new SerializedString("endBalance");
+
+    // The columns in the order the fields are written.
+    private static final CsvSchema CSV_SCHEMA = CsvSchema.builder()
+            .addColumn(TRANSACTION_REFERENCE.getValue())
+            .addColumn(ACCOUNT_NUMBER.getValue())
+            .addColumn(START_BALANCE.getValue())
+            .addColumn(MUTATION.getValue())
+            .addColumn(DESCRIPTION.getValue())
+            .addColumn(END_BALANCE.getValue())
+            .setUseHeader(true)
+            .build();
+
+    private final CustomerStatementRecordStore customerStatementRecordStore;
+
+    private final ObjectMapper objectMapper;
+
+    private final CsvMapper csvMapper;
+
+    private final Logger log = LoggerFactory.getLogger(CustomerStatementExportService.class);
+
+    public CustomerStatementExportService(CustomerStatementRecordStore customerStatementRecordStore, ObjectMapper objectMapper) {
+        this.customerStatementRecordStore = customerStatementRecordStore;
+        this.objectMapper = objectMapper;
+        this.csvMapper = CsvMappers.from(objectMapper);
+    }
+
+    /**
+     * Writes the stored records matching all given criteria to the output, ordered by transaction reference. Criteria
+     * which are null match every record.
+     *
+     * @param accountNumber            only records of this account
+     * @param fromTransactionReference only records with at least this reference
+     * @param toTransactionReference   only records with at most this reference
+     * @param csv                      whether to write CSV instead of newline delimited JSON
+     * @param outputStream             stream to write the records to, closed afterwards
+     * @return the number of exported records
+     * @throws IOException when writing the output fails
+     */
+    public long exportCustomerStatementRecords(String accountNumber,
+                                               Integer fromTransactionReference,
+                                               Integer toTransactionReference,
+                                               boolean csv,
+                                               OutputStream outputStream) throws IOException {
+        long recordCount = 0;
+        try (Stream<CustomerStatementRecord> records = customerStatementRecordStore.stream(accountNumber, fromTransactionReference, toTransactionReference);
+             JsonGenerator generator = createGenerator(csv, outputStream)) {
+            Iterator<CustomerStatementRecord> recordIterator = records.iterator();
+            while (recordIterator.hasNext()) {
+                writeRecord(recordIterator.next(), generator);
+                recordCount++;
+            }
+            if (!csv && recordCount > 0) {
+                generator.writeRaw('\n');
+            }
+        }
+        log.debug("Exported {} customer statement records", recordCount);
+
+        return recordCount;
+    }
+
+    private static void writeRecord(CustomerStatementRecord record, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(TRANSACTION_REFERENCE);
+        generator.writeNumber(record.getTransactionReference());
+        generator.writeFieldName(ACCOUNT_NUMBER);
+        generator.writeString(record.getAccountNumber());
+        generator.writeFieldName(START_BALANCE);
+        generator.writeNumber(record.getStartBalance());
+        generator.writeFieldName(MUTATION);
+        generator.writeNumber(record.getMutation());
+        generator.writeFieldName(DESCRIPTION);
+        generator.writeString(record.getDescription());
+        generator.writeFieldName(END_BALANCE);
+        generator.writeNumber(record.getEndBalance());
+        generator.writeEndObject();
+    }
+
+    private JsonGenerator createGenerator(boolean csv, OutputStream outputStream) throws IOException {
+        if (!csv) {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+            generator.setRootValueSeparator(new SerializedString("\n"));
+            return generator;
+        }
+
+        CsvGenerator generator = csvMapper.getFactory().createGenerator(outputStream);
+        generator.setSchema(CSV_SCHEMA);
+        return generator;
+    }
+}
@@ -0,0 +1,397 @@
+package nl.rabobank.customerstatementservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import nl.rabobank.customerstatementservice.dto.ErrorRecord;
+import nl.rabobank.customerstatementservice.dto.FileIngestResultDto;
+import nl.rabobank.customerstatementservice.dto.ResponseBody;
+import nl.rabobank.customerstatementservice.dto.ResultType;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecord;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecordStore;
+import nl.rabobank.customerstatementservice.service.FileIngestCheckpoint.Segment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Ingests CSV statement files which are on a local disk already, instead of having them uploaded. The file is
+ * memory-mapped and parsed in place by {@link CustomerStatementFileParser}, and split at line ends into segments which
+ * are handled by several workers at the same time. Every chunk of records goes through the same verifications as an
+ * upload, see {@link CustomerStatementService#addMappedCustomerStatementRecordChunk(List)}.
+ * <p>
+ * The result of every rejected record is appended to a report next to the file. After every chunk the offset up to
+ * which its segment has been handled and the size of the report are stored in a {@link FileIngestCheckpoint}, so an
+ * interrupted ingestion resumes where it stopped when the file is ingested again. A chunk which was being handled during
+ * the interruption is handled again: the report is cut back to the size in the checkpoint first, and a record of that
+ * chunk which turns out to be stored with exactly the same content already is counted as accepted, not as a duplicate.
+ * <p>
+ * The segments are handled in parallel, so records of the same account aren't necessarily handled in the order of the
+ * file. With balance continuity enabled a single worker is required, see
+ * {@link nl.rabobank.customerstatementservice.config.AccountBalanceLookupConfig}.
+ */
+@Service
+public class CustomerStatementFileIngestService {
+
+    public static final String REPORT_SUFFIX = ".report.ndjson";
+
+    public static final String CHECKPOINT_SUFFIX = ".checkpoint";
+
+    // A mapped buffer is indexed by int, this leaves room for moving the end of a segment to the next line end.
+    private static final long MAXIMUM_SEGMENT_SIZE = Integer.MAX_VALUE / 2;
+
+    private static final int SCAN_BUFFER_SIZE = 8192;
+
+    private final CustomerStatementService customerStatementService;
+
+    private final CustomerStatementRecordStore customerStatementRecordStore;
+
+    private final ObjectWriter responseWriter;
+
+    private final Path directory;
+
+    private final int workers;
+
+    private final Set<Path> ingestingFiles = ConcurrentHashMap.newKeySet();
+
+    private final Logger log = LoggerFactory.getLogger(CustomerStatementFileIngestService.class);
+
+    public CustomerStatementFileIngestService(CustomerStatementService customerStatementService,
+                                              CustomerStatementRecordStore customerStatementRecordStore,
+                                              ObjectMapper objectMapper,
+                                              @Value("${customerstatementservice.file-ingest.directory:}") String directory,
+                                              @Value("${customerstatementservice.file-ingest.workers:4}") int workers) {
+        this.customerStatementService = customerStatementService;
+        this.customerStatementRecordStore = customerStatementRecordStore;
+        this.responseWriter = objectMapper.writerFor(ResponseBody.class);
+        this.directory = directory.isEmpty() ? null : Paths.get(directory).toAbsolutePath().normalize();
+        this.workers = workers;
+    }
+
+    /**
+     * Ingests a statement file of the configured directory, or resumes its ingestion when it has been interrupted.
+     * A file which has been ingested completely isn't ingested again, unless its checkpoint is deleted.
+     *
+     * @param fileName name of a CSV file with a header line, in the configured directory
+     * @return the number of records handled and rejected by this run
+     */
+    public FileIngestResultDto ingestFile(String fileName) {
+        Path file = resolve(fileName);
+        if (!ingestingFiles.add(file)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "File is being ingested already");
+        }
+
+        try {
+            return ingest(file);
+        } catch (IOException e) {
+            log.info("Ingesting statement file {} failed, it can be resumed from its checkpoint", file, e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR);
+        } finally {
+            ingestingFiles.remove(file);
+        }
+    }
+
+    private Path resolve(String fileName) {
+        if (directory == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Ingesting files isn't enabled");
+        }
+
+        Path file = directory.resolve(fileName).normalize();
+        if (!directory.equals(file.getParent()) || !Files.isRegularFile(file)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No such file");
+        }
+        return file;
+    }
+
+    private FileIngestResultDto ingest(Path file) throws IOException {
+        Path checkpointPath = file.resolveSibling(file.getFileName() + CHECKPOINT_SUFFIX);
+        Path reportPath = file.resolveSibling(file.getFileName() + REPORT_SUFFIX);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             FileChannel report = FileChannel.open(reportPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            long size = channel.size();
+            long lastModified = Files.getLastModifiedTime(file).toMillis();
+            long dataStart = nextLineStart(channel, 1, size);
+            String headerLine = readString(channel, 0, dataStart);
+            try {
+                CustomerStatementFileParser.forHeader(headerLine);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            }
+
+            FileIngestCheckpoint checkpoint = FileIngestCheckpoint.read(checkpointPath);
+            boolean resumed = checkpoint != null;
+            if (checkpoint == null) {
+                checkpoint = new FileIngestCheckpoint(size, lastModified, report.size(), split(channel, dataStart, size));
+                checkpoint.write(checkpointPath);
+            } else if (!checkpoint.matches(size, lastModified)) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "File has changed since its checkpoint, delete the checkpoint to ingest it again");
+            } else {
+                log.info("Resuming the ingestion of statement file {} from its checkpoint", file);
+                if (checkpoint.getReportSize() >= 0 && report.size() > checkpoint.getReportSize()) {
+                    // Rejections of a chunk the checkpoint hadn't moved past yet, they're reported again when it's handled again.
+                    report.truncate(checkpoint.getReportSize());
+                    report.force(false);
+                }
+            }
+
+            Ingestion ingestion = new Ingestion(channel, headerLine, checkpoint, checkpointPath, report, resumed);
+            ingestion.run();
+
+            FileIngestResultDto result = new FileIngestResultDto();
+            result.setFileName(file.getFileName().toString());
+            result.setRecordCount(ingestion.recordCount.get());
+            result.setRejectedRecordCount(ingestion.rejectedRecordCount.get());
+            result.setReportFileName(reportPath.getFileName().toString());
+            log.debug("Ingested statement file: {}", result);
+
+            return result;
+        }
+    }
+
+    /**
+     * Splits the records of the file in one segment per worker, or in more when a segment would be too large to map.
+     * Every segment starts at the start of a line.
+     */
+    private List<Segment> split(FileChannel channel, long dataStart, long size) throws IOException {
+        long dataSize = size - dataStart;
+        int segmentCount = (int) Math.max(workers, (dataSize + MAXIMUM_SEGMENT_SIZE - 1) / MAXIMUM_SEGMENT_SIZE);
+
+        List<Segment> segments = new ArrayList<>(segmentCount);
+        long start = dataStart;
+        for (int i = 1; i <= segmentCount && start < size; i++) {
+            long end = i == segmentCount ? size : nextLineStart(channel, dataStart + dataSize * i / segmentCount, size);
+            if (end > start) {
+                segments.add(new Segment(start, end, start));
+                start = end;
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * @return the position itself when it's at the start of a line, otherwise the start of the next line, or size
+     */
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer scanBuffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long scanPosition = position - 1;
+        while (scanPosition < size) {
+            scanBuffer.clear();
+            int read = channel.read(scanBuffer, scanPosition);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (scanBuffer.get(i) == '\n') {
+                    return scanPosition + i + 1;
+                }
+            }
+            scanPosition += read;
+        }
+        return size;
+    }
+
+    private static String readString(FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(end - start, Integer.MAX_VALUE));
+        while (buffer.hasRemaining() && channel.read(buffer, start + buffer.position()) > 0) {
+            // Reading until the buffer is full
+        }
+        return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * One run over the segments of a file which haven't been handled yet.
+     */
+    private class Ingestion {
+
+        private final FileChannel channel;
+
+        private final String headerLine;
+
+        private final FileIngestCheckpoint checkpoint;
+
+        private final Path checkpointPath;
+
+        private final FileChannel report;
+
+        private final boolean resumed;
+
+        private final AtomicLong recordCount = new AtomicLong();
+
+        private final AtomicLong rejectedRecordCount = new AtomicLong();
+
+        private Ingestion(FileChannel channel, String headerLine, FileIngestCheckpoint checkpoint, Path checkpointPath, FileChannel report,
+                          boolean resumed) {
+            this.channel = channel;
+            this.headerLine = headerLine;
+            this.checkpoint = checkpoint;
+            this.checkpointPath = checkpointPath;
+            this.report = report;
+            this.resumed = resumed;
+        }
+
+        private void run() throws IOException {
+            List<Segment> remainingSegments = new ArrayList<>();
+            checkpoint.getSegments().stream().filter(segment -> !segment.isDone()).forEach(remainingSegments::add);
+            if (remainingSegments.isEmpty()) {
+                return;
+            }
+
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(workers, remainingSegments.size()));
+            try {
+                List<Future<Void>> futures = new ArrayList<>(remainingSegments.size());
+                for (Segment segment : remainingSegments) {
+                    futures.add(executor.submit(() -> {
+                        ingestSegment(segment);
+                        return null;
+                    }));
+                }
+                for (Future<Void> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while ingesting", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException("Ingesting a segment failed", e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        private void ingestSegment(Segment segment) throws IOException {
+            CustomerStatementFileParser parser = CustomerStatementFileParser.forHeader(headerLine);
+            long bufferStart = segment.getOffset();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, bufferStart, segment.getEnd() - bufferStart);
+
+            int chunkSize = customerStatementService.getBatchChunkSize();
+            List<CustomerStatementRecord> chunk = new ArrayList<>(chunkSize);
+            List<ResponseBody> rejected = new ArrayList<>();
+            int lineCount = 0;
+            // Only the first chunk after the checkpoint can have been stored by the interrupted run.
+            boolean mayBeStored = resumed;
+
+            int position = 0;
+            int limit = buffer.limit();
+            while (position < limit) {
+                int lineEnd = position;
+                while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+
+                if (!isBlank(buffer, position, lineEnd)) {
+                    lineCount++;
+                    if (parser.parseLine(buffer, position, lineEnd)) {
+                        chunk.add(parser.toCustomerStatementRecord());
+                    } else {
+                        rejected.add(createBadRequestResponseBody(parser));
+                    }
+                }
+                position = Math.min(lineEnd + 1, limit);
+
+                // Lines which aren't records count as well, so the rejections of a chunk are bounded too.
+                if (lineCount == chunkSize) {
+                    handleChunk(segment, bufferStart + position, chunk, rejected, lineCount, mayBeStored);
+                    lineCount = 0;
+                    mayBeStored = false;
+                }
+            }
+            handleChunk(segment, segment.getEnd(), chunk, rejected, lineCount, mayBeStored);
+        }
+
+        private void handleChunk(Segment segment, long offset, List<CustomerStatementRecord> chunk, List<ResponseBody> rejected,
+                                 int lineCount, boolean mayBeStored) throws IOException {
+            if (!chunk.isEmpty()) {
+                List<ResponseBody> responseBodies = customerStatementService.addMappedCustomerStatementRecordChunk(chunk);
+                for (int i = 0; i < responseBodies.size(); i++) {
+                    ResponseBody responseBody = responseBodies.get(i);
+                    if (responseBody.getResult() == ResultType.DUPLICATE_REFERENCE && mayBeStored && isStored(chunk.get(i))) {
+                        log.debug("Record was stored before the interruption already: {}", chunk.get(i).getTransactionReference());
+                    } else if (responseBody.getResult() != ResultType.SUCCESSFUL) {
+                        rejected.add(responseBody);
+                    }
+                }
+            }
+
+            complete(segment, offset, rejected, lineCount);
+            chunk.clear();
+            rejected.clear();
+        }
+
+        /**
+         * The report is forced to disk before the checkpoint moves past the chunk, so no rejection gets lost.
+         */
+        private synchronized void complete(Segment segment, long offset, List<ResponseBody> rejected, int lineCount) throws IOException {
+            if (!rejected.isEmpty()) {
+                ByteArrayOutputStream reportLines = new ByteArrayOutputStream();
+                for (ResponseBody responseBody : rejected) {
+                    responseWriter.writeValue(reportLines, responseBody);
+                    reportLines.write('\n');
+                }
+                ByteBuffer reportBuffer = ByteBuffer.wrap(reportLines.toByteArray());
+                while (reportBuffer.hasRemaining()) {
+                    report.write(reportBuffer);
+                }
+                report.force(false);
+            }
+
+            segment.setOffset(offset);
+            checkpoint.setReportSize(report.size());
+            checkpoint.write(checkpointPath);
+            recordCount.addAndGet(lineCount);
+            rejectedRecordCount.addAndGet(rejected.size());
+        }
+    }
+
+    /**
+     * @return whether the record is stored with exactly the same content, so it's the record of this file itself
+     */
+    private boolean isStored(CustomerStatementRecord record) {
+        int transactionReference = record.getTransactionReference();
+        try (Stream<CustomerStatementRecord> storedRecords = customerStatementRecordStore.stream(record.getAccountNumber(),
+                transactionReference, transactionReference)) {
+            return storedRecords.anyMatch(storedRecord -> storedRecord.getStartBalance() == record.getStartBalance()
+                    && storedRecord.getMutation() == record.getMutation()
+                    && storedRecord.getEndBalance() == record.getEndBalance()
+                    && Objects.equals(storedRecord.getDescription(), record.getDescription()));
+        }
+    }
+
+    private static boolean isBlank(ByteBuffer buffer, int start, int end) {
+        return end == start || (end == start + 1 && buffer.get(start) == '\r');
+    }
+
+    private static ResponseBody createBadRequestResponseBody(CustomerStatementFileParser parser) {
+        ErrorRecord errorRecord = new ErrorRecord(parser.getTransactionReference(), parser.getAccountNumber());
+
+        return new ResponseBody(ResultType.BAD_REQUEST, Collections.singletonList(errorRecord));
+    }
+}
@@ -0,0 +1,274 @@
+package nl.rabobank.customerstatementservice.service;
+
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecord;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Parses the lines of a CSV statement file right from a (memory-mapped) buffer, in the format of the CSV stream upload:
+ * a header line containing the field names, followed by one record per line. Numbers are parsed from the bytes
+ * themselves, only the account number and description are decoded into strings. Values may be quoted, but a record
+ * can't span several lines, as the file is split at line ends.
+ * <p>
+ * The fields of the last parsed line are kept in the parser itself. Not thread safe, use one parser per thread.
+ */
+public class CustomerStatementFileParser {
+
+    private static final String[] FIELD_NAMES =
+            {"transactionReference", "accountNumber", "startBalance", "mutation", "description", "endBalance"};
+
+    private static final int TRANSACTION_REFERENCE = 0;
+
+    private static final int ACCOUNT_NUMBER = 1;
+
+    private static final int START_BALANCE = 2;
+
+    private static final int MUTATION = 3;
+
+    private static final int DESCRIPTION = 4;
+
+    private static final int END_BALANCE = 5;
+
+    private static final int IGNORED = -1;
+
+    // All fields apart from the description, like the @NotNull fields of CustomerStatementRecordDto.
+    private static final int REQUIRED_FIELDS = ~(1 << DESCRIPTION) & ((1 << FIELD_NAMES.length) - 1);
+
+    private final int[] fieldOfColumn;
+
+    private byte[] scratch = new byte[256];
+
+    private int parsedFields;
+
+    private boolean malformed;
+
+    private int transactionReference;
+
+    private String accountNumber;
+
+    private int startBalance;
+
+    private int mutation;
+
+    private String description;
+
+    private int endBalance;
+
+    private CustomerStatementFileParser(int[] fieldOfColumn) {
+        this.fieldOfColumn = fieldOfColumn;
+    }
+
+    /**
+     * @param headerLine first line of the file, containing the field names in the order of the columns. Unknown
+     *                   columns are ignored.
+     * @throws IllegalArgumentException when a required field has no column
+     */
+    public static CustomerStatementFileParser forHeader(String headerLine) {
+        String[] columnNames = headerLine.trim().split(",", -1);
+        int[] fieldOfColumn = new int[columnNames.length];
+        int foundFields = 0;
+        for (int column = 0; column < columnNames.length; column++) {
+            fieldOfColumn[column] = IGNORED;
+            for (int field = 0; field < FIELD_NAMES.length; field++) {
+                if (FIELD_NAMES[field].equals(unquote(columnNames[column].trim()))) {
+                    fieldOfColumn[column] = field;
+                    foundFields |= 1 << field;
+                }
+            }
+        }
+
+        if ((foundFields & REQUIRED_FIELDS) != REQUIRED_FIELDS) {
+            throw new IllegalArgumentException("Header line doesn't contain all required fields: " + headerLine);
+        }
+        return new CustomerStatementFileParser(fieldOfColumn);
+    }
+
+    /**
+     * Parses one line of the buffer, without its line end.
+     *
+     * @param buffer buffer containing the line, its position and limit aren't used or changed
+     * @param start  index of the first byte of the line
+     * @param end    index right after the last byte of the line, a trailing carriage return is ignored
+     * @return whether the line contains a complete record, see {@link #toCustomerStatementRecord()}
+     */
+    public boolean parseLine(ByteBuffer buffer, int start, int end) {
+        if (end > start && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        parsedFields = 0;
+        malformed = false;
+        accountNumber = null;
+        description = null;
+
+        int position = start;
+        for (int column = 0; column < fieldOfColumn.length && position <= end && !malformed; column++) {
+            position = parseValue(buffer, position, end, fieldOfColumn[column]) + 1;
+        }
+        return isComplete();
+    }
+
+    /**
+     * @return whether the last parsed line contains all required fields, with numbers where numbers are expected
+     */
+    public boolean isComplete() {
+        return !malformed && (parsedFields & REQUIRED_FIELDS) == REQUIRED_FIELDS;
+    }
+
+    /**
+     * @return the record of the last parsed line, which has to be complete
+     */
+    public CustomerStatementRecord toCustomerStatementRecord() {
+        CustomerStatementRecord record = new CustomerStatementRecord();
+        record.setTransactionReference(transactionReference);
+        record.setAccountNumber(accountNumber);
+        record.setStartBalance(startBalance);
+        record.setMutation(mutation);
+        record.setDescription(description);
+        record.setEndBalance(endBalance);
+        return record;
+    }
+
+    /**
+     * @return transaction reference of the last parsed line, null when it's missing or not a number
+     */
+    public Integer getTransactionReference() {
+        return (parsedFields & (1 << TRANSACTION_REFERENCE)) != 0 ? transactionReference : null;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    /**
+     * Parses the value starting at the given position into the given field.
+     *
+     * @return index of the separator after the value, or end
+     */
+    private int parseValue(ByteBuffer buffer, int position, int end, int field) {
+        if (position < end && buffer.get(position) == '"') {
+            return parseQuotedValue(buffer, position + 1, end, field);
+        }
+
+        int valueEnd = position;
+        while (valueEnd < end && buffer.get(valueEnd) != ',') {
+            valueEnd++;
+        }
+
+        if (field == ACCOUNT_NUMBER || field == DESCRIPTION) {
+            setString(field, decode(buffer, position, valueEnd));
+        } else if (field != IGNORED && valueEnd > position) {
+            parseInt(buffer, position, valueEnd, field);
+        }
+        return valueEnd;
+    }
+
+    /**
+     * Quoted values are copied into the scratch buffer, leaving out the escaping of the quotes within.
+     */
+    private int parseQuotedValue(ByteBuffer buffer, int position, int end, int field) {
+        int length = 0;
+        while (true) {
+            if (position >= end) {
+                malformed = true;
+                return end;
+            }
+
+            byte b = buffer.get(position++);
+            if (b == '"') {
+                if (position < end && buffer.get(position) == '"') {
+                    position++;
+                } else {
+                    break;
+                }
+            }
+            if (length == scratch.length) {
+                scratch = Arrays.copyOf(scratch, scratch.length * 2);
+            }
+            scratch[length++] = b;
+        }
+
+        if (field == ACCOUNT_NUMBER || field == DESCRIPTION) {
+            setString(field, new String(scratch, 0, length, StandardCharsets.UTF_8));
+        } else if (field != IGNORED && length > 0) {
+            parseInt(ByteBuffer.wrap(scratch), 0, length, field);
+        }
+
+        if (position < end && buffer.get(position) != ',') {
+            malformed = true;
+        }
+        return position;
+    }
+
+    private void parseInt(ByteBuffer buffer, int start, int end, int field) {
+        boolean negative = buffer.get(start) == '-';
+        int position = negative || buffer.get(start) == '+' ? start + 1 : start;
+        if (position == end) {
+            malformed = true;
+            return;
+        }
+
+        // Accumulated negatively, so Integer.MIN_VALUE can be parsed as well.
+        long value = 0;
+        for (; position < end; position++) {
+            int digit = buffer.get(position) - '0';
+            if (digit < 0 || digit > 9) {
+                malformed = true;
+                return;
+            }
+            value = value * 10 - digit;
+            if (value < Integer.MIN_VALUE) {
+                malformed = true;
+                return;
+            }
+        }
+        if (!negative && value == Integer.MIN_VALUE) {
+            malformed = true;
+            return;
+        }
+
+        setInt(field, (int) (negative ? value : -value));
+    }
+
+    private void setInt(int field, int value) {
+        switch (field) {
+            case TRANSACTION_REFERENCE:
+                transactionReference = value;
+                break;
+            case START_BALANCE:
+                startBalance = value;
+                break;
+            case MUTATION:
+                mutation = value;
+                break;
+            default:
+                endBalance = value;
+        }
+        parsedFields |= 1 << field;
+    }
+
+    private void setString(int field, String value) {
+        if (field == ACCOUNT_NUMBER) {
+            accountNumber = value;
+        } else {
+            description = value;
+        }
+        parsedFields |= 1 << field;
+    }
+
+    private String decode(ByteBuffer buffer, int start, int end) {
+        int length = end - start;
+        if (length > scratch.length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        buffer.get(start, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static String unquote(String columnName) {
+        return columnName.length() >= 2 && columnName.startsWith("\"") && columnName.endsWith("\"")
+                ? columnName.substring(1, columnName.length() - 1)
+                : columnName;
+    }
+}
@@ -0,0 +1,140 @@
+package nl.rabobank.customerstatementservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import nl.rabobank.customerstatementservice.dto.ResponseBody;
+import nl.rabobank.customerstatementservice.dto.ResultType;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrics of {@link CustomerStatementService}, all tagged with the resulting {@link ResultType}:
+ * <ul>
+ * <li>customerstatement.records: number of handled records</li>
+ * <li>customerstatement.record: duration of handling a single record</li>
+ * <li>customerstatement.stage: duration of every stage of handling a record, or a chunk of a batch, tagged with the stage</li>
+ * </ul>
+ * All meters are registered up front, so recording doesn't need to look them up in the registry.
+ */
+@Component
+public class CustomerStatementMetrics {
+
+    public enum Stage {
+        DUPLICATE_LOOKUP,
+        END_BALANCE_CHECK,
+        BALANCE_CONTINUITY_CHECK,
+        MAPPING,
+        SAVE,
+        EXISTING_RECORD_LOOKUP
+    }
+
+    private final Map<Stage, Map<ResultType, Timer>> stageTimers = new EnumMap<>(Stage.class);
+
+    private final Map<ResultType, Timer> recordTimers = new EnumMap<>(ResultType.class);
+
+    private final Map<ResultType, Counter> recordCounters = new EnumMap<>(ResultType.class);
+
+    private final ThreadLocal<StageTimings> recordTimings = ThreadLocal.withInitial(StageTimings::new);
+
+    public CustomerStatementMetrics(MeterRegistry meterRegistry) {
+        for (ResultType result : ResultType.values()) {
+            String resultTag = result.name();
+
+            for (Stage stage : Stage.values()) {
+                stageTimers.computeIfAbsent(stage, key -> new EnumMap<>(ResultType.class))
+                        .put(result, Timer.builder("customerstatement.stage")
+                                .description("Duration of a stage of handling customer statement records")
+                                .tag("stage", stage.name().toLowerCase(Locale.ROOT))
+                                .tag("result", resultTag)
+                                .register(meterRegistry));
+            }
+
+            recordTimers.put(result, Timer.builder("customerstatement.record")
+                    .description("Duration of handling a single customer statement record")
+                    .tag("result", resultTag)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            recordCounters.put(result, Counter.builder("customerstatement.records")
+                    .description("Number of handled customer statement records")
+                    .tag("result", resultTag)
+                    .register(meterRegistry));
+        }
+    }
+
+    public StageTimings startTimings() {
+        return new StageTimings();
+    }
+
+    /**
+     * Starts the timings of a single record. A platform thread reuses its own instance, so handling a correct record
+     * doesn't allocate them. They're only valid until the next record is started on the same thread.
+     */
+    public StageTimings startRecordTimings() {
+        if (Thread.currentThread().isVirtual()) {
+            // A thread local of a virtual thread lives as long as the request, reusing it wouldn't save anything
+            return new StageTimings();
+        }
+        return recordTimings.get().restart();
+    }
+
+    /**
+     * Records the stages of handling a single record.
+     */
+    public void record(StageTimings timings, ResultType result) {
+        recordStages(timings, result);
+        recordTimers.get(result).record(System.nanoTime() - timings.startNanos, TimeUnit.NANOSECONDS);
+        recordCounters.get(result).increment();
+    }
+
+    /**
+     * Records the stages of handling a chunk of records, tagged with the aggregated result of the chunk.
+     */
+    public void recordChunk(StageTimings timings, ResultType chunkResult, List<ResponseBody> responseBodies) {
+        recordStages(timings, chunkResult);
+        responseBodies.forEach(responseBody -> recordCounters.get(responseBody.getResult()).increment());
+    }
+
+    private void recordStages(StageTimings timings, ResultType result) {
+        for (Stage stage : Stage.values()) {
+            if (timings.stageNanos[stage.ordinal()] >= 0) {
+                stageTimers.get(stage).get(result).record(timings.stageNanos[stage.ordinal()], TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * Durations of the stages of handling one record or chunk. Stages which didn't run aren't recorded.
+     */
+    public static final class StageTimings {
+
+        private long startNanos = System.nanoTime();
+
+        private final long[] stageNanos = {-1, -1, -1, -1, -1, -1};
+
+        private StageTimings() {
+        }
+
+        private StageTimings restart() {
+            startNanos = System.nanoTime();
+            Arrays.fill(stageNanos, -1);
+            return this;
+        }
+
+        /**
+         * @param stageStartNanos result of {@link System#nanoTime()} when the stage started
+         * @return the current {@link System#nanoTime()}, which is the start of the next stage.
+         */
+        public long stop(Stage stage, long stageStartNanos) {
+            long now = System.nanoTime();
+            stageNanos[stage.ordinal()] = Math.max(stageNanos[stage.ordinal()], 0) + now - stageStartNanos;
+            return now;
+        }
+    }
+}
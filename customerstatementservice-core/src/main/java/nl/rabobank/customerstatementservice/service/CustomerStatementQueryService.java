@@ -0,0 +1,95 @@
+package nl.rabobank.customerstatementservice.service;
+
+import nl.rabobank.customerstatementservice.dto.AccountSummaryDto;
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordDto;
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordPageDto;
+import nl.rabobank.customerstatementservice.infrastructure.AccountSummary;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecordStore;
+import nl.rabobank.customerstatementservice.infrastructure.StoredCustomerStatementRecord;
+import nl.rabobank.customerstatementservice.mapper.CustomerStatementMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Reads the stored records of an account back, one page at a time.
+ * <p>
+ * Pages are ordered by transaction reference, and the next page continues after the last reference of the previous one
+ * (keyset pagination). So every page is one index seek followed by reading the page itself, however many records the
+ * account has and however far the client paged already. Records stored in the meantime show up in the right place,
+ * instead of shifting the pages as with an offset.
+ * <p>
+ * The summary of an account is read from its precomputed {@link AccountSummary}, so it takes one primary key lookup
+ * however many records the account has. The database only keeps them when customerstatementservice.account-summary.enabled
+ * is set.
+ */
+@Service
+public class CustomerStatementQueryService {
+
+    public static final int MAXIMUM_PAGE_SIZE = 1000;
+
+    private final CustomerStatementRecordStore customerStatementRecordStore;
+
+    private final CustomerStatementMapper customerStatementMapper;
+
+    private final Logger log = LoggerFactory.getLogger(CustomerStatementQueryService.class);
+
+    public CustomerStatementQueryService(CustomerStatementRecordStore customerStatementRecordStore,
+                                         CustomerStatementMapper customerStatementMapper) {
+        this.customerStatementRecordStore = customerStatementRecordStore;
+        this.customerStatementMapper = customerStatementMapper;
+    }
+
+    /**
+     * @return number of records, total mutation and last end balance of the account. An account without records has
+     * no records, a total mutation of 0 and no last end balance.
+     */
+    public AccountSummaryDto getAccountSummary(String accountNumber) {
+        if (!customerStatementRecordStore.hasAccountSummaries()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Account summaries aren't enabled");
+        }
+        AccountSummaryDto accountSummary = customerStatementRecordStore.findAccountSummary(accountNumber)
+                .map(customerStatementMapper::toAccountSummaryDto)
+                .orElseGet(() -> {
+                    AccountSummaryDto emptySummary = new AccountSummaryDto();
+                    emptySummary.setAccountNumber(accountNumber);
+                    return emptySummary;
+                });
+        log.debug("Returning the summary of account {}: {}", accountNumber, accountSummary);
+
+        return accountSummary;
+    }
+
+    /**
+     * @param accountNumber              account to return the records of
+     * @param afterTransactionReference  nextAfterTransactionReference of the previous page, null for the first page
+     * @param pageSize                   maximum number of records of the page, at most {@link #MAXIMUM_PAGE_SIZE}
+     * @return the page, with the reference to continue after when there are more records.
+     */
+    public CustomerStatementRecordPageDto getCustomerStatementRecords(String accountNumber, Integer afterTransactionReference, int pageSize) {
+        // One more than asked for, to know whether there's a next page without counting.
+        List<StoredCustomerStatementRecord> storedRecords = new ArrayList<>(
+                customerStatementRecordStore.findPage(accountNumber, afterTransactionReference, pageSize + 1));
+        // Already ordered by a single database, sharded records come as a page per shard.
+        storedRecords.sort(Comparator.comparing(StoredCustomerStatementRecord::getTransactionReference));
+
+        boolean lastPage = storedRecords.size() <= pageSize;
+        List<CustomerStatementRecordDto> records = new ArrayList<>(Math.min(storedRecords.size(), pageSize));
+        for (StoredCustomerStatementRecord storedRecord : storedRecords.subList(0, Math.min(storedRecords.size(), pageSize))) {
+            records.add(customerStatementMapper.toCustomerStatementRecordDto(storedRecord));
+        }
+
+        CustomerStatementRecordPageDto page = new CustomerStatementRecordPageDto();
+        page.setRecords(records);
+        page.setNextAfterTransactionReference(lastPage ? null : records.get(records.size() - 1).getTransactionReference());
+        log.debug("Returning {} records of account {} after reference {}", records.size(), accountNumber, afterTransactionReference);
+
+        return page;
+    }
+}
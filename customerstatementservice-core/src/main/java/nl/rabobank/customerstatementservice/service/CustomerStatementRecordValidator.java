@@ -0,0 +1,75 @@
+package nl.rabobank.customerstatementservice.service;
+
+import nl.rabobank.customerstatementservice.dto.ResultType;
+
+/**
+ * The verifications of a customer statement record, on the primitive fields of the record only. It doesn't depend on
+ * Spring, JPA or the DTOs, and doesn't allocate anything: every result is one of the {@link ResultType} constants.
+ * <p>
+ * Whether a reference is a duplicate, and what the last end balance of an account is, has to be looked up by the
+ * caller. The verifications themselves are done here.
+ */
+public final class CustomerStatementRecordValidator {
+
+    private CustomerStatementRecordValidator() {
+    }
+
+    /**
+     * Verifies a record of which the reference isn't known to exist yet.
+     *
+     * @param hasLastEndBalance whether the account has a previous record, lastEndBalance is ignored if not
+     * @param lastEndBalance    end balance of the previous record of the account
+     * @return SUCCESSFUL, INCORRECT_END_BALANCE or BROKEN_BALANCE_CHAIN
+     */
+    public static ResultType validate(int startBalance, int mutation, int endBalance, boolean hasLastEndBalance, int lastEndBalance) {
+        boolean incorrectEndBalance = isEndBalanceIncorrect(startBalance, mutation, endBalance);
+        boolean brokenBalanceChain = !incorrectEndBalance && hasLastEndBalance && isBalanceChainBroken(lastEndBalance, startBalance);
+
+        return resultOf(false, incorrectEndBalance, brokenBalanceChain);
+    }
+
+    private static boolean isEndBalanceIncorrect(int startBalance, int mutation, int endBalance) {
+        return (startBalance + mutation) != endBalance;
+    }
+
+    /**
+     * @param lastEndBalance end balance of the previous record of the account
+     */
+    private static boolean isBalanceChainBroken(int lastEndBalance, int startBalance) {
+        return lastEndBalance != startBalance;
+    }
+
+    /**
+     * The duplicate reference and incorrect end balance results take precedence, a broken balance chain is only
+     * reported when it's the only error.
+     */
+    public static ResultType resultOf(boolean duplicateReference, boolean incorrectEndBalance, boolean brokenBalanceChain) {
+        if (duplicateReference && incorrectEndBalance) {
+            return ResultType.DUPLICATE_REFERENCE_INCORRECT_END_BALANCE;
+        } else if (duplicateReference) {
+            return ResultType.DUPLICATE_REFERENCE;
+        } else if (incorrectEndBalance) {
+            return ResultType.INCORRECT_END_BALANCE;
+        } else if (brokenBalanceChain) {
+            return ResultType.BROKEN_BALANCE_CHAIN;
+        }
+        return ResultType.SUCCESSFUL;
+    }
+
+    /**
+     * Combines the results of two records into the result of both, for reporting one result for a batch.
+     */
+    public static ResultType aggregate(ResultType first, ResultType second) {
+        return resultOf(isDuplicateReference(first) || isDuplicateReference(second),
+                isIncorrectEndBalance(first) || isIncorrectEndBalance(second),
+                first == ResultType.BROKEN_BALANCE_CHAIN || second == ResultType.BROKEN_BALANCE_CHAIN);
+    }
+
+    private static boolean isDuplicateReference(ResultType result) {
+        return result == ResultType.DUPLICATE_REFERENCE || result == ResultType.DUPLICATE_REFERENCE_INCORRECT_END_BALANCE;
+    }
+
+    private static boolean isIncorrectEndBalance(ResultType result) {
+        return result == ResultType.INCORRECT_END_BALANCE || result == ResultType.DUPLICATE_REFERENCE_INCORRECT_END_BALANCE;
+    }
+}
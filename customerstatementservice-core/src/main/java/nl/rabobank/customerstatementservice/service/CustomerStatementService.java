@@ -4,36 +4,73 @@ import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordDto;
 import nl.rabobank.customerstatementservice.dto.ErrorRecord;
 import nl.rabobank.customerstatementservice.dto.ResponseBody;
 import nl.rabobank.customerstatementservice.dto.ResultType;
+import nl.rabobank.customerstatementservice.infrastructure.AccountBalanceLookup;
 import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecord;
-import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecordRepository;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecordStore;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecordWriter;
+import nl.rabobank.customerstatementservice.infrastructure.TransactionReferenceLookup;
 import nl.rabobank.customerstatementservice.mapper.CustomerStatementMapper;
+import nl.rabobank.customerstatementservice.service.CustomerStatementMetrics.StageTimings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import static java.util.Arrays.asList;
+import static nl.rabobank.customerstatementservice.service.CustomerStatementMetrics.Stage.*;
 
 @Service
 public class CustomerStatementService {
 
-    private final CustomerStatementRecordRepository customerStatementRecordRepository;
+    private final CustomerStatementRecordStore customerStatementRecordStore;
+
+    private final TransactionReferenceLookup transactionReferenceLookup;
+
+    private final AccountBalanceLookup accountBalanceLookup;
+
+    private final CustomerStatementRecordWriter customerStatementRecordWriter;
 
     private final CustomerStatementMapper customerStatementMapper;
 
+    private final CustomerStatementMetrics customerStatementMetrics;
+
+    private final AccountSequencer accountSequencer;
+
+    private final int batchChunkSize;
+
     private final Logger log = LoggerFactory.getLogger(CustomerStatementService.class);
 
-    public CustomerStatementService(CustomerStatementRecordRepository customerStatementRecordRepository,
-                                    CustomerStatementMapper customerStatementMapper) {
-        this.customerStatementRecordRepository = customerStatementRecordRepository;
+    public CustomerStatementService(CustomerStatementRecordStore customerStatementRecordStore,
+                                    TransactionReferenceLookup transactionReferenceLookup,
+                                    AccountBalanceLookup accountBalanceLookup,
+                                    CustomerStatementRecordWriter customerStatementRecordWriter,
+                                    CustomerStatementMapper customerStatementMapper,
+                                    CustomerStatementMetrics customerStatementMetrics,
+                                    AccountSequencer accountSequencer,
+                                    @Value("${customerstatementservice.batch.chunk-size:1000}") int batchChunkSize) {
+        this.customerStatementRecordStore = customerStatementRecordStore;
+        this.transactionReferenceLookup = transactionReferenceLookup;
+        this.accountBalanceLookup = accountBalanceLookup;
+        this.customerStatementRecordWriter = customerStatementRecordWriter;
         this.customerStatementMapper = customerStatementMapper;
+        this.customerStatementMetrics = customerStatementMetrics;
+        this.accountSequencer = accountSequencer;
+        this.batchChunkSize = batchChunkSize;
     }
 
     /**
      * Adds a customer statement record to the database after verifying it's valid. If not, the record won't be saved.
+     * With the balance continuity check, records of the same account are handled one at a time, in the order they
+     * arrive, see {@link AccountSequencer}.
      * <p>
      * As to not clutter the actual business logic, the overall catch is separated from the business logic.
      *
@@ -42,68 +79,347 @@ public class CustomerStatementService {
      */
     public ResponseBody addCustomerStatementRecordWithExceptionHandling(CustomerStatementRecordDto recordDto) {
         try {
-            return addCustomerStatementRecord(recordDto);
+            if (!accountBalanceLookup.isCheckingBalanceContinuity()) {
+                // Without it a record doesn't depend on the records of its account before it, the primary key still
+                // rejects every duplicate reference.
+                return addCustomerStatementRecord(recordDto);
+            }
+            return accountSequencer.sequence(recordDto.getAccountNumber(), () -> addCustomerStatementRecord(recordDto));
         } catch (Exception e) {
             log.info("Unknown exception thrown when adding customer statement record; {}", recordDto, e);
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    /**
+     * Adds a batch of customer statement records to the database, applying the same verifications as for a single record.
+     * Records within the batch are handled in order, so a reference which was accepted earlier in the batch counts as duplicate.
+     *
+     * @param recordDtos all records of the batch
+     * @return One aggregated ResponseBody containing the error records of the whole batch, or an exception if something went wrong.
+     */
+    public ResponseBody addCustomerStatementRecordsWithExceptionHandling(List<CustomerStatementRecordDto> recordDtos) {
+        try {
+            return addCustomerStatementRecords(recordDtos);
+        } catch (Exception e) {
+            log.info("Unknown exception thrown when adding a batch of {} customer statement records", recordDtos.size(), e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     /**
      * Adds a given customer statement record to the database, after verifying a few things first.
-     * If a verification fails, the record won't be inserted in the database.
+     * If a verification fails, the record won't be inserted in the database. A record which doesn't start at the end
+     * balance of the previous record of its account breaks the balance chain, unless it's a duplicate of a stored record.
      *
      * @param recordDto Given information
      * @return ResponseBody containing the way the record has been handled.
      */
     private ResponseBody addCustomerStatementRecord(CustomerStatementRecordDto recordDto) {
+        StageTimings timings = customerStatementMetrics.startRecordTimings();
+        long stageStart = System.nanoTime();
 
-        boolean duplicateReference = customerStatementRecordRepository.existsById(recordDto.getTransactionReference());
-        boolean incorrectEndBalance = checkEndBalanceIncorrect(recordDto.getStartBalance(), recordDto.getMutation(), recordDto.getEndBalance());
+        Integer lastEndBalance = accountBalanceLookup.getLastEndBalance(recordDto.getAccountNumber());
+        stageStart = timings.stop(BALANCE_CONTINUITY_CHECK, stageStart);
+        ResultType result = validate(recordDto.getStartBalance(), recordDto.getMutation(), recordDto.getEndBalance(), lastEndBalance);
+        stageStart = timings.stop(END_BALANCE_CHECK, stageStart);
+        boolean incorrectEndBalance = result == ResultType.INCORRECT_END_BALANCE;
+        boolean brokenBalanceChain = result == ResultType.BROKEN_BALANCE_CHAIN;
+        boolean duplicateReference;
 
-        ResponseBody responseBody;
-
-        // Expecting most records to be correct, thus checking for that first;
-        if (!duplicateReference && !incorrectEndBalance) {
+        // Expecting most records to be correct, thus inserting right away. The primary key detects a duplicate reference
+        // atomically, so concurrent requests with the same reference can't both be accepted.
+        if (result == ResultType.SUCCESSFUL) {
             CustomerStatementRecord toBeInsertedRecord = customerStatementMapper.toCustomerStatementRecord(recordDto);
+            stageStart = timings.stop(MAPPING, stageStart);
+
+            boolean inserted = insertIfAbsent(toBeInsertedRecord);
+            stageStart = timings.stop(SAVE, stageStart);
+            if (inserted) {
+                customerStatementMetrics.record(timings, ResultType.SUCCESSFUL);
+                return ResponseBody.of(ResultType.SUCCESSFUL);
+            }
+            duplicateReference = true;
+        } else {
+            duplicateReference = transactionReferenceLookup.exists(recordDto.getTransactionReference());
+            stageStart = timings.stop(DUPLICATE_LOOKUP, stageStart);
+        }
+
+        if (brokenBalanceChain && !duplicateReference) {
+            ResponseBody responseBody = createBrokenBalanceChainResponseBody(recordDto.getTransactionReference(), recordDto.getAccountNumber());
+            customerStatementMetrics.record(timings, responseBody.getResult());
+            return responseBody;
+        }
 
-            log.debug("Inserting the following record in the database: {}", toBeInsertedRecord);
-            customerStatementRecordRepository.save(toBeInsertedRecord);
-            log.debug("Successfully inserted the following record in the database: {}", toBeInsertedRecord);
+        String accountNumberFromExistingRecord = null;
+        if (duplicateReference) {
+            accountNumberFromExistingRecord = getAccountNumberFromExistingRecord(recordDto.getTransactionReference());
+            timings.stop(EXISTING_RECORD_LOOKUP, stageStart);
+        }
 
-            responseBody = new ResponseBody(ResultType.SUCCESSFUL);
-        } else if (!duplicateReference) {
-            log.debug("To be inserted record had an incorrect end balance. Won't insert it into the database: {}", recordDto);
-            ErrorRecord errorRecord = new ErrorRecord(recordDto.getTransactionReference(), recordDto.getAccountNumber());
+        ResponseBody responseBody = createErrorResponseBody(recordDto.getTransactionReference(), recordDto.getAccountNumber(),
+                accountNumberFromExistingRecord, incorrectEndBalance);
+        customerStatementMetrics.record(timings, responseBody.getResult());
 
-            responseBody = new ResponseBody(ResultType.INCORRECT_END_BALANCE, Collections.singletonList(errorRecord));
-        } else if (!incorrectEndBalance) {
-            log.debug("Transaction reference of the to be inserted record already existed. Won't insert it into the database: {}", recordDto);
-            String accountNumberFromExistingRecord = getAccountNumberFromExistingRecord(recordDto.getTransactionReference());
-            ErrorRecord errorRecord = new ErrorRecord(recordDto.getTransactionReference(), accountNumberFromExistingRecord);
+        return responseBody;
+    }
+
+    /**
+     * Inserts the record in one round trip, unless its transaction reference already exists.
+     *
+     * @return true when inserted, false when the transaction reference already existed.
+     */
+    private boolean insertIfAbsent(CustomerStatementRecord toBeInsertedRecord) {
+        log.debug("Inserting the following record in the database: {}", toBeInsertedRecord);
+        if (!customerStatementRecordWriter.insertIfAbsent(toBeInsertedRecord)) {
+            log.debug("Transaction reference of the to be inserted record already existed: {}", toBeInsertedRecord.getTransactionReference());
+            return false;
+        }
+        transactionReferenceLookup.registerInserted(toBeInsertedRecord.getTransactionReference(), toBeInsertedRecord.getAccountNumber());
+        accountBalanceLookup.registerInserted(toBeInsertedRecord.getAccountNumber(), toBeInsertedRecord.getEndBalance());
+        log.debug("Successfully inserted the following record in the database: {}", toBeInsertedRecord);
+
+        return true;
+    }
+
+    private ResponseBody addCustomerStatementRecords(List<CustomerStatementRecordDto> recordDtos) {
+        List<ErrorRecord> errorRecords = new ArrayList<>();
+        List<ResponseBody> responseBodies = new ArrayList<>(recordDtos.size());
+
+        for (int fromIndex = 0; fromIndex < recordDtos.size(); fromIndex += batchChunkSize) {
+            List<CustomerStatementRecordDto> chunk = recordDtos.subList(fromIndex, Math.min(fromIndex + batchChunkSize, recordDtos.size()));
+
+            for (ResponseBody responseBody : addCustomerStatementRecordChunk(chunk)) {
+                responseBodies.add(responseBody);
+                errorRecords.addAll(responseBody.getErrorRecords());
+            }
+        }
+
+        ResultType result = aggregateResultType(responseBodies);
+        return errorRecords.isEmpty() ? ResponseBody.of(result) : new ResponseBody(result, errorRecords);
+    }
+
+    /**
+     * Verifies and inserts one chunk of records. Duplicates are looked up with one query for the whole chunk,
+     * and all valid records are inserted with one JDBC batch. Records within the chunk are handled in order,
+     * so a reference which was accepted earlier in the chunk counts as duplicate. Earlier chunks have already been
+     * inserted by the time the next one is looked up, so nothing needs to be remembered between chunks.
+     * <p>
+     * The last end balances of the accounts are looked up once for the whole chunk as well, a record continues the
+     * balance chain of the accepted records of its account before it in the chunk.
+     * With the balance continuity check, the chunk is split up per {@link AccountSequencer} stripe. Every group is
+     * handled and committed holding only its own stripe, so single records of the other stripes don't wait for the
+     * whole chunk.
+     *
+     * @param chunk records to be handled, should be limited to {@link #getBatchChunkSize()} records
+     * @return ResponseBody per given record, in the same order.
+     */
+    public List<ResponseBody> addCustomerStatementRecordChunk(List<CustomerStatementRecordDto> chunk) {
+        StageTimings timings = customerStatementMetrics.startTimings();
+        long stageStart = System.nanoTime();
+        List<CustomerStatementRecord> records = new ArrayList<>(chunk.size());
+        chunk.forEach(recordDto -> records.add(customerStatementMapper.toCustomerStatementRecord(recordDto)));
+        timings.stop(MAPPING, stageStart);
+
+        return addCustomerStatementRecordChunk(records, timings);
+    }
+
+    /**
+     * Same as {@link #addCustomerStatementRecordChunk(List)}, for records which don't have to be mapped anymore, like the
+     * records decoded from the binary upload format.
+     */
+    public List<ResponseBody> addMappedCustomerStatementRecordChunk(List<CustomerStatementRecord> chunk) {
+        return addCustomerStatementRecordChunk(chunk, customerStatementMetrics.startTimings());
+    }
 
-            responseBody = new ResponseBody(ResultType.DUPLICATE_REFERENCE, Collections.singletonList(errorRecord));
+    private List<ResponseBody> addCustomerStatementRecordChunk(List<CustomerStatementRecord> chunk, StageTimings timings) {
+        List<ResponseBody> responseBodies;
+        if (!accountBalanceLookup.isCheckingBalanceContinuity()) {
+            responseBodies = addSequencedCustomerStatementRecordChunk(chunk, timings);
+        } else if (hasReferenceOnSeveralStripes(chunk)) {
+            List<String> accountNumbers = new ArrayList<>(chunk.size());
+            chunk.forEach(record -> accountNumbers.add(record.getAccountNumber()));
+            responseBodies = accountSequencer.sequence(accountNumbers, () -> addSequencedCustomerStatementRecordChunk(chunk, timings));
         } else {
-            log.debug("To be inserted record had an incorrect end balance & reference already exists in database. Won't insert it into the database: {}", recordDto);
-            Integer transactionReference = recordDto.getTransactionReference();
-            String accountNumberFromExistingRecord = getAccountNumberFromExistingRecord(recordDto.getTransactionReference());
+            responseBodies = accountSequencer.sequencePerStripe(chunk, CustomerStatementRecord::getAccountNumber,
+                    stripeRecords -> addSequencedCustomerStatementRecordChunk(stripeRecords, timings));
+        }
+        customerStatementMetrics.recordChunk(timings, aggregateResultType(responseBodies), responseBodies);
+
+        return responseBodies;
+    }
+
+    /**
+     * A record with a reference accepted earlier in the chunk is a duplicate, which is only noticed when both are handled
+     * in the same group. A chunk with such a reference on several stripes is therefore handled as a whole.
+     */
+    private boolean hasReferenceOnSeveralStripes(List<CustomerStatementRecord> chunk) {
+        Map<Integer, Integer> stripeByReference = new HashMap<>();
+        for (CustomerStatementRecord record : chunk) {
+            int stripe = accountSequencer.stripeOf(record.getAccountNumber());
+            Integer otherStripe = stripeByReference.putIfAbsent(record.getTransactionReference(), stripe);
+            if (otherStripe != null && otherStripe != stripe) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<ResponseBody> addSequencedCustomerStatementRecordChunk(List<CustomerStatementRecord> chunk, StageTimings timings) {
+        List<Integer> transactionReferences = new ArrayList<>(chunk.size());
+        List<String> accountNumbers = new ArrayList<>(chunk.size());
+        chunk.forEach(record -> {
+            transactionReferences.add(record.getTransactionReference());
+            accountNumbers.add(record.getAccountNumber());
+        });
+
+        long stageStart = System.nanoTime();
+        Map<Integer, String> existingReferences = transactionReferenceLookup.getAccountNumbers(transactionReferences);
+        stageStart = timings.stop(DUPLICATE_LOOKUP, stageStart);
+        Map<String, Integer> lastEndBalances = accountBalanceLookup.getLastEndBalances(accountNumbers);
+        // Kept as before the chunk, in case the records have to be inserted one by one after all.
+        Map<String, Integer> lastEndBalancesBeforeChunk = new HashMap<>(lastEndBalances);
+        stageStart = timings.stop(BALANCE_CONTINUITY_CHECK, stageStart);
+
+        List<ResponseBody> responseBodies = new ArrayList<>(chunk.size());
+        List<CustomerStatementRecord> toBeInsertedRecords = new ArrayList<>(chunk.size());
+        List<Integer> toBeInsertedPositions = new ArrayList<>(chunk.size());
+
+        for (CustomerStatementRecord record : chunk) {
+            int transactionReference = record.getTransactionReference();
+            String accountNumberFromExistingRecord = existingReferences.get(transactionReference);
+            ResultType result = validate(record.getStartBalance(), record.getMutation(), record.getEndBalance(),
+                    lastEndBalances.get(record.getAccountNumber()));
+            boolean incorrectEndBalance = result == ResultType.INCORRECT_END_BALANCE;
+            stageStart = timings.stop(END_BALANCE_CHECK, stageStart);
+
+            if (accountNumberFromExistingRecord == null && result == ResultType.BROKEN_BALANCE_CHAIN) {
+                responseBodies.add(createBrokenBalanceChainResponseBody(transactionReference, record.getAccountNumber()));
+            } else if (accountNumberFromExistingRecord == null && result == ResultType.SUCCESSFUL) {
+                toBeInsertedRecords.add(record);
+                toBeInsertedPositions.add(responseBodies.size());
+                existingReferences.put(transactionReference, record.getAccountNumber());
+                if (accountBalanceLookup.isCheckingBalanceContinuity()) {
+                    lastEndBalances.put(record.getAccountNumber(), record.getEndBalance());
+                }
+                responseBodies.add(ResponseBody.of(ResultType.SUCCESSFUL));
+            } else {
+                responseBodies.add(createErrorResponseBody(transactionReference, record.getAccountNumber(), accountNumberFromExistingRecord, incorrectEndBalance));
+            }
+        }
+
+        log.debug("Inserting {} of {} records of the chunk in the database", toBeInsertedRecords.size(), chunk.size());
+        try {
+            customerStatementRecordStore.insertAll(toBeInsertedRecords);
+        } catch (DataIntegrityViolationException e) {
+            // Someone else inserted one of the references since the lookup. The batch has been rolled back as a whole,
+            // so insert the records one by one to find out which ones are duplicates now.
+            log.info("Batch insert of {} records hit an existing reference, inserting them one by one", toBeInsertedRecords.size());
+            insertOneByOne(toBeInsertedRecords, toBeInsertedPositions, responseBodies, lastEndBalancesBeforeChunk);
+            timings.stop(SAVE, stageStart);
+            return responseBodies;
+        }
+        toBeInsertedRecords.forEach(insertedRecord -> {
+            transactionReferenceLookup.registerInserted(insertedRecord.getTransactionReference(), insertedRecord.getAccountNumber());
+            accountBalanceLookup.registerInserted(insertedRecord.getAccountNumber(), insertedRecord.getEndBalance());
+        });
+        timings.stop(SAVE, stageStart);
+
+        return responseBodies;
+    }
+
+    /**
+     * @param lastEndBalances last end balances of the accounts as before the chunk, a record which turns out to be a
+     *                        duplicate no longer continues the balance chain for the records after it.
+     */
+    private void insertOneByOne(List<CustomerStatementRecord> toBeInsertedRecords, List<Integer> toBeInsertedPositions,
+                                List<ResponseBody> responseBodies, Map<String, Integer> lastEndBalances) {
+        for (int i = 0; i < toBeInsertedRecords.size(); i++) {
+            CustomerStatementRecord toBeInsertedRecord = toBeInsertedRecords.get(i);
+            int position = toBeInsertedPositions.get(i);
+
+            // The end balance has been verified already, only the balance chain can be broken by now
+            if (validate(toBeInsertedRecord.getStartBalance(), toBeInsertedRecord.getMutation(), toBeInsertedRecord.getEndBalance(),
+                    lastEndBalances.get(toBeInsertedRecord.getAccountNumber())) == ResultType.BROKEN_BALANCE_CHAIN) {
+                responseBodies.set(position, createBrokenBalanceChainResponseBody(toBeInsertedRecord.getTransactionReference(), toBeInsertedRecord.getAccountNumber()));
+            } else if (!insertIfAbsent(toBeInsertedRecord)) {
+                String accountNumberFromExistingRecord = getAccountNumberFromExistingRecord(toBeInsertedRecord.getTransactionReference());
+                responseBodies.set(position, createErrorResponseBody(toBeInsertedRecord.getTransactionReference(), toBeInsertedRecord.getAccountNumber(),
+                        accountNumberFromExistingRecord, false));
+            } else if (accountBalanceLookup.isCheckingBalanceContinuity()) {
+                lastEndBalances.put(toBeInsertedRecord.getAccountNumber(), toBeInsertedRecord.getEndBalance());
+            }
+        }
+    }
+
+    public int getBatchChunkSize() {
+        return batchChunkSize;
+    }
+
+    /**
+     * Creates the response for a record which won't be inserted.
+     *
+     * @param transactionReference            reference of the rejected record
+     * @param accountNumber                   account number of the rejected record
+     * @param accountNumberFromExistingRecord account number of the record which already has the same reference, null if there's none
+     * @param incorrectEndBalance             whether the end balance of the given record is incorrect
+     * @return ResponseBody containing the error records.
+     */
+    private ResponseBody createErrorResponseBody(Integer transactionReference, String accountNumber, String accountNumberFromExistingRecord,
+                                                 boolean incorrectEndBalance) {
+        if (accountNumberFromExistingRecord == null) {
+            log.debug("To be inserted record had an incorrect end balance. Won't insert it into the database: {}", transactionReference);
+            ErrorRecord errorRecord = new ErrorRecord(transactionReference, accountNumber);
+
+            return new ResponseBody(ResultType.INCORRECT_END_BALANCE, Collections.singletonList(errorRecord));
+        } else if (!incorrectEndBalance) {
+            log.debug("Transaction reference of the to be inserted record already existed. Won't insert it into the database: {}", transactionReference);
+            ErrorRecord errorRecord = new ErrorRecord(transactionReference, accountNumberFromExistingRecord);
 
-            ErrorRecord duplicateReferenceError = new ErrorRecord(transactionReference, recordDto.getAccountNumber());
+            return new ResponseBody(ResultType.DUPLICATE_REFERENCE, Collections.singletonList(errorRecord));
+        } else {
+            log.debug("To be inserted record had an incorrect end balance & reference already exists in database. Won't insert it into the database: {}", transactionReference);
+            ErrorRecord duplicateReferenceError = new ErrorRecord(transactionReference, accountNumber);
             ErrorRecord incorrectEndBalanceError = new ErrorRecord(transactionReference, accountNumberFromExistingRecord);
 
-            responseBody = new ResponseBody(ResultType.DUPLICATE_REFERENCE_INCORRECT_END_BALANCE, asList(duplicateReferenceError, incorrectEndBalanceError));
+            return new ResponseBody(ResultType.DUPLICATE_REFERENCE_INCORRECT_END_BALANCE, asList(duplicateReferenceError, incorrectEndBalanceError));
         }
+    }
 
-        return responseBody;
+    private ResponseBody createBrokenBalanceChainResponseBody(Integer transactionReference, String accountNumber) {
+        log.debug("To be inserted record doesn't start at the end balance of the previous record of its account. Won't insert it into the database: {}", transactionReference);
+        ErrorRecord errorRecord = new ErrorRecord(transactionReference, accountNumber);
+
+        return new ResponseBody(ResultType.BROKEN_BALANCE_CHAIN, Collections.singletonList(errorRecord));
+    }
+
+    /**
+     * The duplicate reference and incorrect end balance results take precedence, a batch only results in
+     * BROKEN_BALANCE_CHAIN when that's its only kind of error. All error records are reported either way.
+     */
+    private ResultType aggregateResultType(List<ResponseBody> responseBodies) {
+        ResultType aggregatedResult = ResultType.SUCCESSFUL;
+        for (ResponseBody responseBody : responseBodies) {
+            aggregatedResult = CustomerStatementRecordValidator.aggregate(aggregatedResult, responseBody.getResult());
+        }
+        return aggregatedResult;
     }
 
-    private boolean checkEndBalanceIncorrect(int startBalance, int mutation, int expectedEndBalance) {
-        return (startBalance + mutation) != expectedEndBalance;
+    /**
+     * Verifies a record of which the reference isn't known to exist yet, see {@link CustomerStatementRecordValidator}.
+     *
+     * @param lastEndBalance end balance of the previous record of the account, null if there's none
+     */
+    private ResultType validate(int startBalance, int mutation, int endBalance, Integer lastEndBalance) {
+        return CustomerStatementRecordValidator.validate(startBalance, mutation, endBalance, lastEndBalance != null,
+                lastEndBalance == null ? 0 : lastEndBalance);
     }
 
     private String getAccountNumberFromExistingRecord(Integer transactionReference) {
-        return customerStatementRecordRepository.findById(transactionReference)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR))
-                .getAccountNumber();
+        String accountNumber = transactionReferenceLookup.getAccountNumber(transactionReference);
+        if (accountNumber == null) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+        return accountNumber;
     }
 }
@@ -0,0 +1,239 @@
+package nl.rabobank.customerstatementservice.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import nl.rabobank.customerstatementservice.codec.CustomerStatementRecordDecoder;
+import nl.rabobank.customerstatementservice.codec.CustomerStatementRecordFormatException;
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordDto;
+import nl.rabobank.customerstatementservice.dto.ResponseBody;
+import nl.rabobank.customerstatementservice.dto.ResultType;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecord;
+import nl.rabobank.customerstatementservice.mapper.CsvMappers;
+import nl.rabobank.customerstatementservice.mapper.PreSerializedResponseBodies;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Handles uploads of arbitrary size by reading one record at a time from the stream, and writing the result of every
+ * record back as soon as its chunk has been handled. At most one chunk of records is kept in memory.
+ */
+@Service
+public class CustomerStatementStreamService {
+
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    private final CustomerStatementService customerStatementService;
+
+    private final Validator validator;
+
+    private final ObjectMapper objectMapper;
+
+    private final CsvMapper csvMapper;
+
+    private final ObjectWriter responseWriter;
+
+    private final PreSerializedResponseBodies preSerializedResponseBodies;
+
+    private final Logger log = LoggerFactory.getLogger(CustomerStatementStreamService.class);
+
+    public CustomerStatementStreamService(CustomerStatementService customerStatementService, Validator validator, ObjectMapper objectMapper) {
+        this.customerStatementService = customerStatementService;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.csvMapper = CsvMappers.from(objectMapper);
+        // Flushing is done once per chunk, instead of once per written result.
+        this.responseWriter = objectMapper.writerFor(ResponseBody.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.preSerializedResponseBodies = new PreSerializedResponseBodies(objectMapper);
+    }
+
+    /**
+     * Reads records from the given stream, and writes one newline delimited ResponseBody per record to the output.
+     * A record which is incomplete results in a BAD_REQUEST line. Malformed input, or anything else than a record object
+     * at the top level, ends the stream with a BAD_REQUEST line.
+     *
+     * @param inputStream  newline delimited JSON, or CSV with a header line containing the field names
+     * @param csv          whether the input is CSV instead of JSON
+     * @param outputStream stream to write the results to
+     * @throws IOException when reading or writing the streams fails
+     */
+    public void addCustomerStatementRecords(InputStream inputStream, boolean csv, OutputStream outputStream) throws IOException {
+        try (JsonParser parser = createParser(inputStream, csv);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.setRootValueSeparator(new SerializedString("\n"));
+
+            addCustomerStatementRecords(parser, generator);
+            generator.writeRaw('\n');
+        }
+    }
+
+    /**
+     * Reads records in the binary format of {@link nl.rabobank.customerstatementservice.codec.BinaryCustomerStatementRecords}
+     * from the given stream, and writes one newline delimited ResponseBody per record to the output like
+     * {@link #addCustomerStatementRecords(InputStream, boolean, OutputStream)}. The records are decoded right into the
+     * records to be inserted, skipping the DTOs and bean validation: the numbers can't be missing in this format, so only
+     * the account number has to be checked.
+     *
+     * @param inputStream  records in the binary format
+     * @param outputStream stream to write the results to
+     * @throws IOException when reading or writing the streams fails
+     */
+    public void addBinaryCustomerStatementRecords(InputStream inputStream, OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.setRootValueSeparator(new SerializedString("\n"));
+
+            addBinaryCustomerStatementRecords(new CustomerStatementRecordDecoder(inputStream), generator);
+            generator.writeRaw('\n');
+        }
+    }
+
+    private void addBinaryCustomerStatementRecords(CustomerStatementRecordDecoder decoder, JsonGenerator generator) throws IOException {
+        int chunkSize = customerStatementService.getBatchChunkSize();
+        List<CustomerStatementRecord> chunk = new ArrayList<>(chunkSize);
+        long recordCount = 0;
+
+        try {
+            while (decoder.next()) {
+                recordCount++;
+                if (decoder.getAccountNumber() == null) {
+                    writeRecordChunk(chunk, generator);
+                    writeResponseBody(ResponseBody.of(ResultType.BAD_REQUEST), generator);
+                    continue;
+                }
+
+                chunk.add(toCustomerStatementRecord(decoder));
+                if (chunk.size() == chunkSize) {
+                    writeRecordChunk(chunk, generator);
+                }
+            }
+            writeRecordChunk(chunk, generator);
+        } catch (CustomerStatementRecordFormatException e) {
+            log.info("Malformed binary record after {} records of the stream, stopping", recordCount, e);
+            writeRecordChunk(chunk, generator);
+            writeResponseBody(ResponseBody.of(ResultType.BAD_REQUEST), generator);
+        } catch (RuntimeException e) {
+            log.info("Unknown exception thrown when adding a binary stream of customer statement records", e);
+            writeResponseBody(ResponseBody.of(ResultType.INTERNAL_SERVER_ERROR), generator);
+        }
+        log.debug("Handled a binary stream of {} customer statement records", recordCount);
+    }
+
+    private static CustomerStatementRecord toCustomerStatementRecord(CustomerStatementRecordDecoder decoder) {
+        CustomerStatementRecord record = new CustomerStatementRecord();
+        record.setTransactionReference(decoder.getTransactionReference());
+        record.setAccountNumber(decoder.getAccountNumber());
+        record.setStartBalance(decoder.getStartBalance());
+        record.setMutation(decoder.getMutation());
+        record.setDescription(decoder.getDescription());
+        record.setEndBalance(decoder.getEndBalance());
+        return record;
+    }
+
+    private void addCustomerStatementRecords(JsonParser parser, JsonGenerator generator) throws IOException {
+        int chunkSize = customerStatementService.getBatchChunkSize();
+        List<CustomerStatementRecordDto> chunk = new ArrayList<>(chunkSize);
+        long recordCount = 0;
+
+        try {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw MismatchedInputException.from(parser, CustomerStatementRecordDto.class, "Expected a record object, found " + token);
+                }
+                CustomerStatementRecordDto recordDto = parser.readValueAs(CustomerStatementRecordDto.class);
+                recordCount++;
+
+                if (!validator.validate(recordDto).isEmpty()) {
+                    // Results are written in the order of the input, so everything before this record goes first.
+                    writeChunk(chunk, generator);
+                    writeResponseBody(ResponseBody.of(ResultType.BAD_REQUEST), generator);
+                    continue;
+                }
+
+                chunk.add(recordDto);
+                if (chunk.size() == chunkSize) {
+                    writeChunk(chunk, generator);
+                }
+            }
+            writeChunk(chunk, generator);
+        } catch (JsonProcessingException e) {
+            log.info("Malformed record after {} records of the stream, stopping", recordCount, e);
+            writeChunk(chunk, generator);
+            writeResponseBody(ResponseBody.of(ResultType.BAD_REQUEST), generator);
+        } catch (RuntimeException e) {
+            log.info("Unknown exception thrown when adding a stream of customer statement records", e);
+            writeResponseBody(ResponseBody.of(ResultType.INTERNAL_SERVER_ERROR), generator);
+        }
+        log.debug("Handled a stream of {} customer statement records", recordCount);
+    }
+
+    private void writeChunk(List<CustomerStatementRecordDto> chunk, JsonGenerator generator) throws IOException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        writeResponseBodies(customerStatementService.addCustomerStatementRecordChunk(chunk), generator);
+        chunk.clear();
+    }
+
+    private void writeRecordChunk(List<CustomerStatementRecord> chunk, JsonGenerator generator) throws IOException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        writeResponseBodies(customerStatementService.addMappedCustomerStatementRecordChunk(chunk), generator);
+        chunk.clear();
+    }
+
+    private void writeResponseBodies(List<ResponseBody> responseBodies, JsonGenerator generator) throws IOException {
+        for (ResponseBody responseBody : responseBodies) {
+            writeResponseBody(responseBody, generator);
+        }
+        generator.flush();
+    }
+
+    /**
+     * Writes the shared bodies as their pre-serialized JSON, only the bodies with error records are serialized.
+     */
+    private void writeResponseBody(ResponseBody responseBody, JsonGenerator generator) throws IOException {
+        SerializableString json = preSerializedResponseBodies.getJson(responseBody);
+        if (json != null) {
+            generator.writeRawValue(json);
+        } else {
+            responseWriter.writeValue(generator, responseBody);
+        }
+    }
+
+    private JsonParser createParser(InputStream inputStream, boolean csv) throws IOException {
+        if (!csv) {
+            return objectMapper.getFactory().createParser(inputStream);
+        }
+
+        CsvParser parser = csvMapper.getFactory().createParser(inputStream);
+        parser.setSchema(CsvSchema.emptySchema().withHeader());
+        parser.setCodec(csvMapper);
+
+        return parser;
+    }
+}
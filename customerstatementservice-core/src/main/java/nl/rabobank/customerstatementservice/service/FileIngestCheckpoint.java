@@ -0,0 +1,180 @@
+package nl.rabobank.customerstatementservice.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Progress of the ingestion of a statement file: the segments the file has been split into, for every segment the
+ * byte offset up to which its records have been handled, and the size of the report covering those records. Stored as a
+ * small text file next to the statement file:
+ * <pre>
+ * size=&lt;size of the statement file&gt;
+ * lastModified=&lt;last modified time of the statement file, in milliseconds&gt;
+ * reportSize=&lt;size of the report&gt;
+ * segment=&lt;start&gt;,&lt;end&gt;,&lt;offset&gt;
+ * ...
+ * </pre>
+ * Not thread safe, callers synchronize updating and storing it.
+ */
+public class FileIngestCheckpoint {
+
+    private final long size;
+
+    private final long lastModified;
+
+    private final List<Segment> segments;
+
+    private long reportSize;
+
+    public FileIngestCheckpoint(long size, long lastModified, long reportSize, List<Segment> segments) {
+        this.size = size;
+        this.lastModified = lastModified;
+        this.reportSize = reportSize;
+        this.segments = segments;
+    }
+
+    /**
+     * @return the stored checkpoint, null when there's none
+     * @throws IOException when the checkpoint can't be read, or isn't a checkpoint
+     */
+    public static FileIngestCheckpoint read(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+
+        long size = -1;
+        long lastModified = -1;
+        long reportSize = -1;
+        List<Segment> segments = new ArrayList<>();
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            try {
+                if (line.startsWith("size=")) {
+                    size = Long.parseLong(line.substring("size=".length()));
+                } else if (line.startsWith("lastModified=")) {
+                    lastModified = Long.parseLong(line.substring("lastModified=".length()));
+                } else if (line.startsWith("reportSize=")) {
+                    reportSize = Long.parseLong(line.substring("reportSize=".length()));
+                } else if (line.startsWith("segment=")) {
+                    String[] values = line.substring("segment=".length()).split(",");
+                    segments.add(new Segment(Long.parseLong(values[0]), Long.parseLong(values[1]), Long.parseLong(values[2])));
+                }
+            } catch (RuntimeException e) {
+                throw new IOException("Invalid line in checkpoint " + path + ": " + line, e);
+            }
+        }
+
+        if (size < 0 || lastModified < 0) {
+            throw new IOException("Checkpoint " + path + " doesn't contain the size and last modified time of its file");
+        }
+        return new FileIngestCheckpoint(size, lastModified, reportSize, segments);
+    }
+
+    /**
+     * Replaces the stored checkpoint atomically, so a crash leaves either the previous or this checkpoint behind. The
+     * content is on disk before the rename, and the rename is on disk before this returns.
+     */
+    public void write(Path path) throws IOException {
+        StringBuilder content = new StringBuilder()
+                .append("size=").append(size).append('\n')
+                .append("lastModified=").append(lastModified).append('\n')
+                .append("reportSize=").append(reportSize).append('\n');
+        for (Segment segment : segments) {
+            content.append("segment=").append(segment.getStart()).append(',').append(segment.getEnd()).append(',')
+                    .append(segment.getOffset()).append('\n');
+        }
+
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporaryPath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(path.toAbsolutePath().getParent());
+    }
+
+    private static void syncDirectory(Path directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            // Not every platform can open a directory, those make a rename durable by themselves.
+            return;
+        }
+        try (FileChannel directoryChannel = channel) {
+            directoryChannel.force(true);
+        }
+    }
+
+    /**
+     * @return whether this checkpoint belongs to a file of the given size and last modified time
+     */
+    public boolean matches(long size, long lastModified) {
+        return this.size == size && this.lastModified == lastModified;
+    }
+
+    /**
+     * @return size of the report when the segment offsets were stored, -1 when unknown
+     */
+    public long getReportSize() {
+        return reportSize;
+    }
+
+    public void setReportSize(long reportSize) {
+        this.reportSize = reportSize;
+    }
+
+    public List<Segment> getSegments() {
+        return Collections.unmodifiableList(segments);
+    }
+
+    /**
+     * A range of lines of the file, handled by one worker. Records before offset have been handled.
+     */
+    public static class Segment {
+
+        private final long start;
+
+        private final long end;
+
+        private long offset;
+
+        public Segment(long start, long end, long offset) {
+            this.start = start;
+            this.end = end;
+            this.offset = offset;
+        }
+
+        public long getStart() {
+            return start;
+        }
+
+        public long getEnd() {
+            return end;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public void setOffset(long offset) {
+            this.offset = offset;
+        }
+
+        public boolean isDone() {
+            return offset >= end;
+        }
+    }
+}
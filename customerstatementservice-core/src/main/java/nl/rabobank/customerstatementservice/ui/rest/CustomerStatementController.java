@@ -4,26 +4,161 @@ import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
+import nl.rabobank.customerstatementservice.codec.BinaryCustomerStatementRecords;
+import nl.rabobank.customerstatementservice.dto.AccountSummaryDto;
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordBatchDto;
 import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordDto;
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordPageDto;
+import nl.rabobank.customerstatementservice.dto.FileIngestResultDto;
 import nl.rabobank.customerstatementservice.dto.ResponseBody;
+import nl.rabobank.customerstatementservice.service.CustomerStatementExportService;
+import nl.rabobank.customerstatementservice.service.CustomerStatementFileIngestService;
+import nl.rabobank.customerstatementservice.service.CustomerStatementQueryService;
 import nl.rabobank.customerstatementservice.service.CustomerStatementService;
+import nl.rabobank.customerstatementservice.service.CustomerStatementStreamService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+import static nl.rabobank.customerstatementservice.service.CustomerStatementQueryService.MAXIMUM_PAGE_SIZE;
+import static nl.rabobank.customerstatementservice.service.CustomerStatementStreamService.APPLICATION_NDJSON_VALUE;
+import static nl.rabobank.customerstatementservice.service.CustomerStatementStreamService.TEXT_CSV_VALUE;
 
 @RestController
+@Validated
 @RequestMapping("/v1/customerstatements")
 @Api(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
 public class CustomerStatementController {
 
+    private static final int GZIP_BUFFER_SIZE = 8192;
+
     private final CustomerStatementService customerStatementService;
 
-    public CustomerStatementController(CustomerStatementService customerStatementService) {
+    private final CustomerStatementStreamService customerStatementStreamService;
+
+    private final CustomerStatementQueryService customerStatementQueryService;
+
+    private final CustomerStatementExportService customerStatementExportService;
+
+    private final CustomerStatementFileIngestService customerStatementFileIngestService;
+
+    public CustomerStatementController(CustomerStatementService customerStatementService,
+                                       CustomerStatementStreamService customerStatementStreamService,
+                                       CustomerStatementQueryService customerStatementQueryService,
+                                       CustomerStatementExportService customerStatementExportService,
+                                       CustomerStatementFileIngestService customerStatementFileIngestService) {
         this.customerStatementService = customerStatementService;
+        this.customerStatementStreamService = customerStatementStreamService;
+        this.customerStatementQueryService = customerStatementQueryService;
+        this.customerStatementExportService = customerStatementExportService;
+        this.customerStatementFileIngestService = customerStatementFileIngestService;
+    }
+
+    @ApiOperation("Returns a page of the records of an account, ordered by transaction reference. "
+            + "Pass nextAfterTransactionReference of a page as afterTransactionReference to get the next one.")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "The page, nextAfterTransactionReference is missing on the last page."),
+            @ApiResponse(code = 400, message = "Bad Request")
+    })
+    @GetMapping
+    public CustomerStatementRecordPageDto getCustomerStatementRecords(@RequestParam String accountNumber,
+                                                                      @RequestParam(required = false) Integer afterTransactionReference,
+                                                                      @RequestParam(defaultValue = "100") @Min(1) @Max(MAXIMUM_PAGE_SIZE) int pageSize) {
+
+        return customerStatementQueryService.getCustomerStatementRecords(accountNumber, afterTransactionReference, pageSize);
+    }
+
+    @ApiOperation("Returns the number of records, the total mutation and the last end balance of an account.")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "The summary, lastEndBalance is null when the account has no records."),
+            @ApiResponse(code = 400, message = "Bad Request"),
+            @ApiResponse(code = 404, message = "Account summaries aren't enabled")
+    })
+    @GetMapping("/summary")
+    public AccountSummaryDto getAccountSummary(@RequestParam String accountNumber) {
+
+        return customerStatementQueryService.getAccountSummary(accountNumber);
+    }
+
+    @ApiOperation("Exports all records of an account and/or a range of transaction references as newline delimited JSON, "
+            + "or as CSV when accepting text/csv. Compressed with gzip when accepted.")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "The records ordered by transaction reference, in the format of the stream upload."),
+            @ApiResponse(code = 400, message = "Bad Request")
+    })
+    @GetMapping(value = "/export", produces = {APPLICATION_NDJSON_VALUE, TEXT_CSV_VALUE})
+    public void exportCustomerStatementRecords(@RequestParam(required = false) String accountNumber,
+                                               @RequestParam(required = false) Integer fromTransactionReference,
+                                               @RequestParam(required = false) Integer toTransactionReference,
+                                               @RequestHeader(value = HttpHeaders.ACCEPT, defaultValue = APPLICATION_NDJSON_VALUE) String accept,
+                                               @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, defaultValue = "") String acceptEncoding,
+                                               HttpServletResponse response) throws IOException {
+        boolean csv = MediaType.parseMediaTypes(accept).stream().anyMatch(MediaType.valueOf(TEXT_CSV_VALUE)::equalsTypeAndSubtype);
+        response.setContentType(csv ? TEXT_CSV_VALUE : APPLICATION_NDJSON_VALUE);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        OutputStream outputStream = response.getOutputStream();
+        if (acceptsGzip(acceptEncoding)) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            outputStream = new GZIPOutputStream(outputStream, GZIP_BUFFER_SIZE);
+        }
+
+        customerStatementExportService.exportCustomerStatementRecords(accountNumber, fromTransactionReference, toTransactionReference, csv, outputStream);
+    }
+
+    /**
+     * @return whether the given Accept-Encoding header accepts gzip, either by name or through *, with a q-value above 0.
+     * A q-value given for gzip itself takes precedence over the one of *.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        Double gzipQuality = null;
+        Double anyQuality = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] codingParts = coding.split(";");
+            String codingName = codingParts[0].trim().toLowerCase(Locale.ROOT);
+            if (!codingName.equals("gzip") && !codingName.equals("x-gzip") && !codingName.equals("*")) {
+                continue;
+            }
+
+            double quality = 1;
+            for (int i = 1; i < codingParts.length; i++) {
+                String[] parameter = codingParts[i].split("=", 2);
+                if (parameter.length == 2 && parameter[0].trim().equalsIgnoreCase("q")) {
+                    try {
+                        quality = Double.parseDouble(parameter[1].trim());
+                    } catch (NumberFormatException e) {
+                        // A coding with a malformed q-value isn't taken as accepted.
+                        quality = 0;
+                    }
+                }
+            }
+            if (codingName.equals("*")) {
+                anyQuality = quality;
+            } else {
+                gzipQuality = quality;
+            }
+        }
+
+        Double quality = gzipQuality != null ? gzipQuality : anyQuality;
+        return quality != null && quality > 0;
     }
 
     @ApiOperation("Adds a new customer statement record.")
@@ -37,4 +172,53 @@ public class CustomerStatementController {
 
         return customerStatementService.addCustomerStatementRecordWithExceptionHandling(customerStatementRecordDto);
     }
+
+    @ApiOperation("Adds a batch of customer statement records, reporting the inconsistent records of the whole batch at once.")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Added all consistent records, any inconsistent records are listed as error records."),
+            @ApiResponse(code = 400, message = "Bad Request"),
+            @ApiResponse(code = 500, message = "Internal Failure")
+    })
+    @PostMapping("/batch")
+    public ResponseBody addCustomerStatementRecords(@Valid @RequestBody CustomerStatementRecordBatchDto customerStatementRecordBatchDto) {
+
+        return customerStatementService.addCustomerStatementRecordsWithExceptionHandling(customerStatementRecordBatchDto.getRecords());
+    }
+
+    @ApiOperation("Adds a stream of newline delimited JSON, CSV or binary customer statement records, writing back one result per record while reading.")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Newline delimited results, one per given record."),
+            @ApiResponse(code = 415, message = "Unsupported Media Type")
+    })
+    @PostMapping(value = "/stream", consumes = {APPLICATION_NDJSON_VALUE, TEXT_CSV_VALUE, BinaryCustomerStatementRecords.MEDIA_TYPE_VALUE},
+            produces = APPLICATION_NDJSON_VALUE)
+    public void addCustomerStatementRecordStream(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                 HttpServletRequest request,
+                                                 HttpServletResponse response) throws IOException {
+        // Not setting a content length makes sure the results are sent in chunks while the upload is still being read.
+        response.setContentType(APPLICATION_NDJSON_VALUE);
+
+        if (MediaType.valueOf(BinaryCustomerStatementRecords.MEDIA_TYPE_VALUE).includes(contentType)) {
+            customerStatementStreamService.addBinaryCustomerStatementRecords(request.getInputStream(), response.getOutputStream());
+            return;
+        }
+
+        boolean csv = MediaType.valueOf(TEXT_CSV_VALUE).includes(contentType);
+        customerStatementStreamService.addCustomerStatementRecords(request.getInputStream(), csv, response.getOutputStream());
+    }
+
+    @ApiOperation("Ingests a CSV statement file of the configured file ingest directory, or resumes its ingestion where it was interrupted. "
+            + "The results of the rejected records are written to a report next to the file.")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "The number of records handled and rejected by this run."),
+            @ApiResponse(code = 400, message = "The header line of the file doesn't contain all fields"),
+            @ApiResponse(code = 404, message = "No such file, or file ingestion isn't enabled"),
+            @ApiResponse(code = 409, message = "The file is being ingested already, or has changed since it was partly ingested"),
+            @ApiResponse(code = 500, message = "Internal Failure")
+    })
+    @PostMapping("/files/{fileName}")
+    public FileIngestResultDto ingestCustomerStatementFile(@PathVariable String fileName) {
+
+        return customerStatementFileIngestService.ingestFile(fileName);
+    }
 }
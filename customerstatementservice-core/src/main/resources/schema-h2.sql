@@ -1,9 +1,19 @@
 CREATE TABLE IF NOT EXISTS customer_statement_record (
   transaction_reference INT NOT NULL,
   account_number varchar(255) NOT NULL,
-  start_balance int(100) NOT NULL,
-  mutation int(100) NOT NULL,
-  end_balance int(100) NOT NULL,
+  start_balance int NOT NULL,
+  mutation int NOT NULL,
+  end_balance int NOT NULL,
   description varchar(255),
+  sequence_number BIGINT AUTO_INCREMENT NOT NULL,
   PRIMARY KEY (transaction_reference)
-);
\ No newline at end of file
+);
+CREATE INDEX IF NOT EXISTS customer_statement_record_account_sequence ON customer_statement_record (account_number, sequence_number);
+CREATE INDEX IF NOT EXISTS customer_statement_record_account_reference ON customer_statement_record (account_number, transaction_reference);
+CREATE TABLE IF NOT EXISTS account_summary (
+  account_number varchar(255) NOT NULL,
+  record_count BIGINT NOT NULL,
+  total_mutation BIGINT NOT NULL,
+  last_end_balance int NOT NULL,
+  PRIMARY KEY (account_number)
+);
@@ -1,8 +1,13 @@
 package nl.rabobank.customerstatementservice;
 
+import nl.rabobank.customerstatementservice.codec.CustomerStatementRecordEncoder;
+import nl.rabobank.customerstatementservice.dto.AccountSummaryDto;
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordBatchDto;
 import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordDto;
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordPageDto;
 import nl.rabobank.customerstatementservice.dto.ErrorRecord;
 import nl.rabobank.customerstatementservice.dto.ResponseBody;
+import nl.rabobank.customerstatementservice.infrastructure.AccountSummaryRepository;
 import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecord;
 import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecordRepository;
 import nl.rabobank.customerstatementservice.ui.rest.CustomerStatementController;
@@ -11,14 +16,41 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
-
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.validation.ConstraintViolationException;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 
 import static nl.rabobank.customerstatementservice.dto.ResultType.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 
-@SpringBootTest
+@SpringBootTest(properties = "customerstatementservice.account-summary.enabled=true")
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 class CustomerStatementIT {
 
@@ -34,9 +66,19 @@ class CustomerStatementIT {
     @Autowired
     CustomerStatementRecordRepository customerStatementRecordRepository;
 
+    @Autowired
+    AccountSummaryRepository accountSummaryRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    WebApplicationContext webApplicationContext;
+
     @BeforeEach
     public void setUp() {
         customerStatementRecordRepository.deleteAll();
+        jdbcTemplate.update("DELETE FROM account_summary");
     }
 
     @Test
@@ -141,6 +183,347 @@ class CustomerStatementIT {
         assertEquals(givenRecord.getDescription(), insertedRecord.getDescription());
     }
 
+    @Test
+    void addCustomerStatementRecordTestConcurrentDuplicatesAreReportedAsDuplicate() throws Exception {
+        // Given
+        int givenConcurrentRequests = 8;
+        CountDownLatch startSignal = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(givenConcurrentRequests);
+
+        List<Callable<ResponseBody>> requests = new ArrayList<>();
+        for (int i = 0; i < givenConcurrentRequests; i++) {
+            requests.add(() -> {
+                startSignal.await();
+                return customerStatementController.addCustomerStatementRecord(buildRecord(false));
+            });
+        }
+
+        // When
+        List<Future<ResponseBody>> responses = new ArrayList<>();
+        requests.forEach(request -> responses.add(executorService.submit(request)));
+        startSignal.countDown();
+
+        // Then
+        int successful = 0;
+        int duplicate = 0;
+        for (Future<ResponseBody> response : responses) {
+            ResponseBody responseBody = response.get();
+            if (responseBody.getResult() == SUCCESSFUL) {
+                successful++;
+            } else if (responseBody.getResult() == DUPLICATE_REFERENCE) {
+                duplicate++;
+                assertEquals(GIVEN_RECORD_ACCOUNT_NUMBER, responseBody.getErrorRecords().get(0).getAccountNumber());
+            }
+        }
+        executorService.shutdown();
+
+        assertEquals(1, successful);
+        assertEquals(givenConcurrentRequests - 1, duplicate);
+        assertEquals(1, customerStatementRecordRepository.count());
+    }
+
+    @Test
+    void addCustomerStatementRecordsTestBatchWithDuplicatesAndIncorrectEndBalance() {
+        // Given
+        customerStatementRecordRepository.save(buildDuplicateDatabaseRecord());
+
+        CustomerStatementRecordDto newRecord = buildRecord(false);
+        newRecord.setTransactionReference(GIVEN_TRANSACTION_REFERENCE + 1);
+        CustomerStatementRecordDto incorrectRecord = buildRecord(true);
+        incorrectRecord.setTransactionReference(GIVEN_TRANSACTION_REFERENCE + 2);
+
+        CustomerStatementRecordBatchDto givenBatch = new CustomerStatementRecordBatchDto();
+        givenBatch.setRecords(Arrays.asList(newRecord, buildRecord(false), incorrectRecord, newRecord));
+
+        // When
+        ResponseBody returnedResponseBody = customerStatementController.addCustomerStatementRecords(givenBatch);
+
+        // Then
+        assertEquals(DUPLICATE_REFERENCE_INCORRECT_END_BALANCE, returnedResponseBody.getResult());
+        assertEquals(3, returnedResponseBody.getErrorRecords().size());
+        assertEquals(DUPLICATED_RECORD_ACCOUNT_NUMBER, returnedResponseBody.getErrorRecords().get(0).getAccountNumber());
+
+        List<CustomerStatementRecord> databaseRecords = customerStatementRecordRepository.findAll();
+        assertEquals(2, databaseRecords.size());
+    }
+
+    @Test
+    void addCustomerStatementRecordStreamTestNdjson() throws Exception {
+        // Given
+        customerStatementRecordRepository.save(buildDuplicateDatabaseRecord());
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setContent(("{\"transactionReference\":1234,\"accountNumber\":\"NL12RABO0123456789\",\"startBalance\":100,\"mutation\":-10,\"endBalance\":90}\n" +
+                "{\"transactionReference\":1235,\"accountNumber\":\"NL12RABO0123456789\",\"startBalance\":100,\"mutation\":-10,\"endBalance\":90}\n")
+                .getBytes());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        customerStatementController.addCustomerStatementRecordStream(MediaType.valueOf("application/x-ndjson"), request, response);
+
+        // Then
+        assertEquals("{\"result\":\"DUPLICATE_REFERENCE\",\"errorRecords\":[{\"reference\":1234,\"accountNumber\":\"NL12RABO0987654321\"}]}\n" +
+                "{\"result\":\"SUCCESSFUL\",\"errorRecords\":[]}\n", response.getContentAsString());
+
+        List<CustomerStatementRecord> databaseRecords = customerStatementRecordRepository.findAll();
+        assertEquals(2, databaseRecords.size());
+    }
+
+    @Test
+    void addCustomerStatementRecordStreamTestBinary() throws Exception {
+        // Given
+        customerStatementRecordRepository.save(buildDuplicateDatabaseRecord());
+
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        try (CustomerStatementRecordEncoder encoder = new CustomerStatementRecordEncoder(content)) {
+            encoder.write(1234, GIVEN_RECORD_ACCOUNT_NUMBER, 100, -10, null, 90);
+            encoder.write(1235, GIVEN_RECORD_ACCOUNT_NUMBER, 100, -10, "beautiful record", 90);
+        }
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setContent(content.toByteArray());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        customerStatementController.addCustomerStatementRecordStream(MediaType.valueOf("application/x-customer-statement-records"), request, response);
+
+        // Then
+        assertEquals("{\"result\":\"DUPLICATE_REFERENCE\",\"errorRecords\":[{\"reference\":1234,\"accountNumber\":\"NL12RABO0987654321\"}]}\n" +
+                "{\"result\":\"SUCCESSFUL\",\"errorRecords\":[]}\n", response.getContentAsString());
+
+        CustomerStatementRecord insertedRecord = customerStatementRecordRepository.findById(1235).orElseThrow(IllegalStateException::new);
+        assertEquals(GIVEN_RECORD_ACCOUNT_NUMBER, insertedRecord.getAccountNumber());
+        assertEquals(-10, insertedRecord.getMutation());
+        assertEquals("beautiful record", insertedRecord.getDescription());
+        assertEquals(90, insertedRecord.getEndBalance());
+    }
+
+    @Test
+    void getCustomerStatementRecordsTestPagesThroughTheRecordsOfAnAccount() {
+        // Given
+        List<CustomerStatementRecord> givenRecords = new ArrayList<>();
+        for (int transactionReference = 250; transactionReference > 0; transactionReference--) {
+            givenRecords.add(buildDatabaseRecord(transactionReference, GIVEN_RECORD_ACCOUNT_NUMBER));
+            givenRecords.add(buildDatabaseRecord(-transactionReference, DUPLICATED_RECORD_ACCOUNT_NUMBER));
+        }
+        customerStatementRecordRepository.insertAll(givenRecords);
+
+        // When
+        List<Integer> returnedReferences = new ArrayList<>();
+        List<Integer> returnedPageSizes = new ArrayList<>();
+        Integer afterTransactionReference = null;
+        do {
+            CustomerStatementRecordPageDto page = customerStatementController.getCustomerStatementRecords(GIVEN_RECORD_ACCOUNT_NUMBER, afterTransactionReference, 100);
+            page.getRecords().forEach(record -> returnedReferences.add(record.getTransactionReference()));
+            returnedPageSizes.add(page.getRecords().size());
+            afterTransactionReference = page.getNextAfterTransactionReference();
+        } while (afterTransactionReference != null);
+
+        // Then
+        assertEquals(Arrays.asList(100, 100, 50), returnedPageSizes);
+        for (int i = 0; i < 250; i++) {
+            assertEquals(i + 1, returnedReferences.get(i));
+        }
+    }
+
+    @Test
+    void getCustomerStatementRecordsTestPageSeeksIntoTheAccountIndex() {
+        // When
+        String plan = jdbcTemplate.queryForObject("EXPLAIN SELECT transaction_reference, end_balance FROM customer_statement_record " +
+                "WHERE account_number = 'NL12RABO0123456789' AND transaction_reference > 100 ORDER BY transaction_reference LIMIT 101", String.class);
+
+        // Then
+        assertTrue(plan.toUpperCase().contains("CUSTOMER_STATEMENT_RECORD_ACCOUNT_REFERENCE: ACCOUNT_NUMBER ="), plan);
+    }
+
+    @Test
+    void addCustomerStatementRecordTestSuccessfulResponseIsPreSerialized() throws Exception {
+        // Given
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+        String givenRecord = "{\"transactionReference\":1234,\"accountNumber\":\"NL12RABO0123456789\"," +
+                "\"startBalance\":100,\"mutation\":-10,\"description\":\"beautiful record\",\"endBalance\":90}";
+
+        // When
+        MvcResult result = mockMvc.perform(post("/v1/customerstatements").contentType(MediaType.APPLICATION_JSON).content(givenRecord))
+                .andReturn();
+
+        // Then
+        String expectedBody = "{\"result\":\"SUCCESSFUL\",\"errorRecords\":[]}";
+        assertEquals(200, result.getResponse().getStatus());
+        assertEquals(expectedBody, result.getResponse().getContentAsString());
+        assertEquals(expectedBody.length(), result.getResponse().getContentLength());
+    }
+
+    @Test
+    void addCustomerStatementRecordTestBadRequestResponseIsPreSerialized() throws Exception {
+        // Given
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+
+        // When
+        MvcResult result = mockMvc.perform(post("/v1/customerstatements").contentType(MediaType.APPLICATION_JSON).content("{\"transactionReference\":1}"))
+                .andReturn();
+
+        // Then
+        String expectedBody = "{\"result\":\"BAD_REQUEST\",\"errorRecords\":[]}";
+        assertEquals(400, result.getResponse().getStatus());
+        assertEquals(expectedBody, result.getResponse().getContentAsString());
+        assertEquals(expectedBody.length(), result.getResponse().getContentLength());
+    }
+
+    @Test
+    void getCustomerStatementRecordsTestTooLargePageIsRejected() {
+        // When & Then
+        assertThrows(ConstraintViolationException.class,
+                () -> customerStatementController.getCustomerStatementRecords(GIVEN_RECORD_ACCOUNT_NUMBER, null, 1001));
+    }
+
+    @Test
+    void exportCustomerStatementRecordsTestAccountIsExportedInOrder() throws Exception {
+        // Given
+        List<CustomerStatementRecord> givenRecords = new ArrayList<>();
+        for (int transactionReference = 20_000; transactionReference > 0; transactionReference--) {
+            givenRecords.add(buildDatabaseRecord(transactionReference, GIVEN_RECORD_ACCOUNT_NUMBER));
+            givenRecords.add(buildDatabaseRecord(-transactionReference, DUPLICATED_RECORD_ACCOUNT_NUMBER));
+        }
+        customerStatementRecordRepository.insertAll(givenRecords);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        customerStatementController.exportCustomerStatementRecords(GIVEN_RECORD_ACCOUNT_NUMBER, null, null,
+                "application/x-ndjson", "gzip", response);
+
+        // Then
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        List<String> exportedLines;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray())), StandardCharsets.UTF_8))) {
+            exportedLines = reader.lines().collect(Collectors.toList());
+        }
+        assertEquals(20_000, exportedLines.size());
+        assertEquals("{\"transactionReference\":1,\"accountNumber\":\"NL12RABO0123456789\",\"startBalance\":100,\"mutation\":-10," +
+                "\"description\":\"beautiful record\",\"endBalance\":90}", exportedLines.get(0));
+        assertTrue(exportedLines.get(19_999).startsWith("{\"transactionReference\":20000,"));
+    }
+
+    @Test
+    void exportCustomerStatementRecordsTestReferenceRangeAsCsv() throws Exception {
+        // Given
+        List<CustomerStatementRecord> givenRecords = new ArrayList<>();
+        for (int transactionReference = 1; transactionReference <= 10; transactionReference++) {
+            givenRecords.add(buildDatabaseRecord(transactionReference, transactionReference % 2 == 0 ? GIVEN_RECORD_ACCOUNT_NUMBER : DUPLICATED_RECORD_ACCOUNT_NUMBER));
+        }
+        customerStatementRecordRepository.insertAll(givenRecords);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        customerStatementController.exportCustomerStatementRecords(null, 4, 6, "text/csv", "", response);
+
+        // Then
+        assertEquals("text/csv", response.getContentType());
+        assertEquals("transactionReference,accountNumber,startBalance,mutation,description,endBalance\n" +
+                "4,NL12RABO0123456789,100,-10,\"beautiful record\",90\n" +
+                "5,NL12RABO0987654321,100,-10,\"beautiful record\",90\n" +
+                "6,NL12RABO0123456789,100,-10,\"beautiful record\",90\n", response.getContentAsString());
+    }
+
+    @Test
+    void getAccountSummaryTestInsertedRecordsAreSummarised() {
+        // Given
+        CustomerStatementRecordDto firstRecord = buildRecord(false);
+        CustomerStatementRecordDto secondRecord = buildRecord(false);
+        secondRecord.setTransactionReference(GIVEN_TRANSACTION_REFERENCE + 1);
+        secondRecord.setStartBalance(90);
+        secondRecord.setMutation(25);
+        secondRecord.setEndBalance(115);
+        CustomerStatementRecordDto otherAccountRecord = buildRecord(false);
+        otherAccountRecord.setTransactionReference(GIVEN_TRANSACTION_REFERENCE + 2);
+        otherAccountRecord.setAccountNumber(DUPLICATED_RECORD_ACCOUNT_NUMBER);
+        CustomerStatementRecordBatchDto givenBatch = new CustomerStatementRecordBatchDto();
+        givenBatch.setRecords(Arrays.asList(secondRecord, otherAccountRecord, buildRecord(true)));
+
+        // When
+        customerStatementController.addCustomerStatementRecord(firstRecord);
+        customerStatementController.addCustomerStatementRecord(firstRecord);
+        customerStatementController.addCustomerStatementRecords(givenBatch);
+        AccountSummaryDto returnedSummary = customerStatementController.getAccountSummary(GIVEN_RECORD_ACCOUNT_NUMBER);
+
+        // Then
+        assertEquals(GIVEN_RECORD_ACCOUNT_NUMBER, returnedSummary.getAccountNumber());
+        assertEquals(2, returnedSummary.getRecordCount());
+        assertEquals(15, returnedSummary.getTotalMutation());
+        assertEquals(115, returnedSummary.getLastEndBalance());
+        assertEquals(1, customerStatementController.getAccountSummary(DUPLICATED_RECORD_ACCOUNT_NUMBER).getRecordCount());
+    }
+
+    @Test
+    void getAccountSummaryTestRolledBackBatchIsNotSummarised() {
+        // Given
+        customerStatementRecordRepository.insertAll(Arrays.asList(buildDatabaseRecord(1, GIVEN_RECORD_ACCOUNT_NUMBER)));
+
+        // When
+        assertThrows(DataIntegrityViolationException.class, () -> customerStatementRecordRepository.insertAll(Arrays.asList(
+                buildDatabaseRecord(2, GIVEN_RECORD_ACCOUNT_NUMBER), buildDatabaseRecord(1, GIVEN_RECORD_ACCOUNT_NUMBER))));
+
+        // Then
+        AccountSummaryDto returnedSummary = customerStatementController.getAccountSummary(GIVEN_RECORD_ACCOUNT_NUMBER);
+        assertEquals(1, returnedSummary.getRecordCount());
+        assertEquals(-10, returnedSummary.getTotalMutation());
+    }
+
+    @Test
+    void getAccountSummaryTestConcurrentFirstRecordsOfAnAccountAreAllSummarised() throws Exception {
+        // Given
+        int threadCount = 8;
+        ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> inserts = new ArrayList<>();
+
+        // When
+        try {
+            for (int thread = 0; thread < threadCount; thread++) {
+                int transactionReference = thread + 1;
+                inserts.add(executorService.submit(() -> {
+                    start.await();
+                    customerStatementRecordRepository.insert(buildDatabaseRecord(transactionReference, GIVEN_RECORD_ACCOUNT_NUMBER));
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> insert : inserts) {
+                insert.get();
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        // Then
+        AccountSummaryDto returnedSummary = customerStatementController.getAccountSummary(GIVEN_RECORD_ACCOUNT_NUMBER);
+        assertEquals(threadCount, returnedSummary.getRecordCount());
+        assertEquals(-10 * threadCount, returnedSummary.getTotalMutation());
+    }
+
+    @Test
+    void getAccountSummaryTestSummaryIsReadByPrimaryKey() {
+        // When
+        String plan = jdbcTemplate.queryForObject("EXPLAIN SELECT record_count, total_mutation, last_end_balance FROM account_summary " +
+                "WHERE account_number = 'NL12RABO0123456789'", String.class);
+
+        // Then
+        assertTrue(plan.toUpperCase().contains("PRIMARY_KEY"), plan);
+    }
+
+    private CustomerStatementRecord buildDatabaseRecord(int transactionReference, String accountNumber) {
+        CustomerStatementRecord databaseRecord = new CustomerStatementRecord();
+
+        databaseRecord.setTransactionReference(transactionReference);
+        databaseRecord.setAccountNumber(accountNumber);
+        databaseRecord.setDescription("beautiful record");
+        databaseRecord.setStartBalance(100);
+        databaseRecord.setMutation(-10);
+        databaseRecord.setEndBalance(90);
+
+        return databaseRecord;
+    }
+
     private CustomerStatementRecord buildDuplicateDatabaseRecord() {
         CustomerStatementRecord databaseRecord = new CustomerStatementRecord();
 
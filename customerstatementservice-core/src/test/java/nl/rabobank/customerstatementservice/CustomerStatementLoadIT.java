@@ -0,0 +1,203 @@
+package nl.rabobank.customerstatementservice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordDto;
+import nl.rabobank.customerstatementservice.dto.ResponseBody;
+import nl.rabobank.customerstatementservice.dto.ResultType;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecordRepository;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.ResponseEntity;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static nl.rabobank.customerstatementservice.dto.ResultType.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Load test firing a mix of valid, duplicate and incorrect end balance records at the running application from many
+ * concurrent clients. Only runs with the loadtest profile: mvn test -Ploadtest -pl customerstatementservice-core -am
+ * <p>
+ * Configured through system properties, e.g. -Dloadtest.clients=64:
+ * <ul>
+ * <li>loadtest.clients: number of concurrent clients, default 16</li>
+ * <li>loadtest.requests: number of measured requests, default 20000</li>
+ * <li>loadtest.warmup-requests: number of requests before measuring, default 5000</li>
+ * <li>loadtest.duplicate-ratio: share of records with an existing reference, default 0.1</li>
+ * <li>loadtest.incorrect-end-balance-ratio: share of records with an incorrect end balance, default 0.1</li>
+ * <li>loadtest.report: file to write the JSON report to, default target/loadtest-report.json</li>
+ * </ul>
+ * Any customerstatementservice property can be passed the same way, to compare modes of the application.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class CustomerStatementLoadIT {
+
+    private static final int EXISTING_REFERENCES = 1000;
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final int clients = Integer.getInteger("loadtest.clients", 16);
+
+    private final int requests = Integer.getInteger("loadtest.requests", 20000);
+
+    private final int warmupRequests = Integer.getInteger("loadtest.warmup-requests", 5000);
+
+    private final double duplicateRatio = Double.parseDouble(System.getProperty("loadtest.duplicate-ratio", "0.1"));
+
+    private final double incorrectEndBalanceRatio = Double.parseDouble(System.getProperty("loadtest.incorrect-end-balance-ratio", "0.1"));
+
+    private final String reportFile = System.getProperty("loadtest.report", "target/loadtest-report.json");
+
+    private final AtomicInteger nextTransactionReference = new AtomicInteger(EXISTING_REFERENCES);
+
+    private final Logger log = LoggerFactory.getLogger(CustomerStatementLoadIT.class);
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Autowired
+    CustomerStatementRecordRepository customerStatementRecordRepository;
+
+    @Test
+    void addCustomerStatementRecordUnderLoad() throws Exception {
+        // Given
+        customerStatementRecordRepository.deleteAll();
+        for (int transactionReference = 0; transactionReference < EXISTING_REFERENCES; transactionReference++) {
+            post(buildRecord(transactionReference, false));
+        }
+        run(warmupRequests);
+
+        // When
+        long start = System.nanoTime();
+        List<ClientResult> clientResults = run(requests);
+        long durationNanos = System.nanoTime() - start;
+
+        // Then
+        Histogram latency = new Histogram(MAX_LATENCY_MICROS, 3);
+        Map<ResultType, Integer> expected = new EnumMap<>(ResultType.class);
+        Map<ResultType, Integer> actual = new EnumMap<>(ResultType.class);
+        for (ClientResult clientResult : clientResults) {
+            latency.add(clientResult.latency);
+            clientResult.expected.forEach((result, count) -> expected.merge(result, count, Integer::sum));
+            clientResult.actual.forEach((result, count) -> actual.merge(result, count, Integer::sum));
+        }
+
+        Map<String, Object> report = buildReport(latency, actual, durationNanos);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(new File(reportFile), report);
+        log.info("Load test report written to {}: {}", reportFile, report);
+
+        assertEquals(expected, actual);
+    }
+
+    private List<ClientResult> run(int totalRequests) throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<ClientResult>> futures = new ArrayList<>();
+            for (int client = 0; client < clients; client++) {
+                int clientRequests = totalRequests / clients + (client < totalRequests % clients ? 1 : 0);
+                futures.add(executorService.submit(() -> runClient(clientRequests)));
+            }
+
+            List<ClientResult> clientResults = new ArrayList<>();
+            for (Future<ClientResult> future : futures) {
+                clientResults.add(future.get());
+            }
+            return clientResults;
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    private ClientResult runClient(int clientRequests) {
+        ClientResult clientResult = new ClientResult();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        for (int i = 0; i < clientRequests; i++) {
+            double type = random.nextDouble();
+            boolean duplicate = type < duplicateRatio;
+            boolean incorrectEndBalance = !duplicate && type < duplicateRatio + incorrectEndBalanceRatio;
+            int transactionReference = duplicate ? random.nextInt(EXISTING_REFERENCES) : nextTransactionReference.getAndIncrement();
+
+            long start = System.nanoTime();
+            ResponseEntity<ResponseBody> response = post(buildRecord(transactionReference, incorrectEndBalance));
+            long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+
+            clientResult.latency.recordValue(Math.min(latencyMicros, MAX_LATENCY_MICROS));
+            clientResult.expected.merge(duplicate ? DUPLICATE_REFERENCE : incorrectEndBalance ? INCORRECT_END_BALANCE : SUCCESSFUL, 1, Integer::sum);
+            ResultType actualResult = response.getBody() == null ? INTERNAL_SERVER_ERROR : response.getBody().getResult();
+            clientResult.actual.merge(actualResult, 1, Integer::sum);
+        }
+        return clientResult;
+    }
+
+    private ResponseEntity<ResponseBody> post(CustomerStatementRecordDto recordDto) {
+        return restTemplate.postForEntity("/v1/customerstatements", recordDto, ResponseBody.class);
+    }
+
+    private Map<String, Object> buildReport(Histogram latency, Map<ResultType, Integer> results, long durationNanos) {
+        Map<String, Object> configuration = new LinkedHashMap<>();
+        configuration.put("clients", clients);
+        configuration.put("requests", requests);
+        configuration.put("warmupRequests", warmupRequests);
+        configuration.put("duplicateRatio", duplicateRatio);
+        configuration.put("incorrectEndBalanceRatio", incorrectEndBalanceRatio);
+
+        Map<String, Object> latencyMicros = new LinkedHashMap<>();
+        latencyMicros.put("mean", latency.getMean());
+        latencyMicros.put("p50", latency.getValueAtPercentile(50));
+        latencyMicros.put("p90", latency.getValueAtPercentile(90));
+        latencyMicros.put("p99", latency.getValueAtPercentile(99));
+        latencyMicros.put("p99.9", latency.getValueAtPercentile(99.9));
+        latencyMicros.put("max", latency.getMaxValue());
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("configuration", configuration);
+        report.put("durationMillis", TimeUnit.NANOSECONDS.toMillis(durationNanos));
+        report.put("throughputPerSecond", latency.getTotalCount() * 1e9 / durationNanos);
+        report.put("results", results);
+        report.put("latencyMicros", latencyMicros);
+
+        return report;
+    }
+
+    private CustomerStatementRecordDto buildRecord(int transactionReference, boolean incorrectEndBalance) {
+        CustomerStatementRecordDto customerStatementRecordDto = new CustomerStatementRecordDto();
+
+        customerStatementRecordDto.setTransactionReference(transactionReference);
+        customerStatementRecordDto.setAccountNumber("NL12RABO0123456789");
+        customerStatementRecordDto.setDescription("load test record");
+        customerStatementRecordDto.setStartBalance(100);
+        customerStatementRecordDto.setMutation(-10);
+        customerStatementRecordDto.setEndBalance(incorrectEndBalance ? 110 : 90);
+
+        return customerStatementRecordDto;
+    }
+
+    private static final class ClientResult {
+
+        private final Histogram latency = new Histogram(MAX_LATENCY_MICROS, 3);
+
+        private final Map<ResultType, Integer> expected = new EnumMap<>(ResultType.class);
+
+        private final Map<ResultType, Integer> actual = new EnumMap<>(ResultType.class);
+    }
+}
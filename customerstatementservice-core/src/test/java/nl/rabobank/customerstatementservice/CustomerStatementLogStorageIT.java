@@ -0,0 +1,91 @@
+package nl.rabobank.customerstatementservice;
+
+import nl.rabobank.customerstatementservice.dto.AccountSummaryDto;
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordBatchDto;
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordDto;
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordPageDto;
+import nl.rabobank.customerstatementservice.dto.ResponseBody;
+import nl.rabobank.customerstatementservice.ui.rest.CustomerStatementController;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static nl.rabobank.customerstatementservice.dto.ResultType.DUPLICATE_REFERENCE;
+import static nl.rabobank.customerstatementservice.dto.ResultType.SUCCESSFUL;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Runs the application on the log storage engine, without a database.
+ */
+@SpringBootTest(properties = "customerstatementservice.storage=log")
+class CustomerStatementLogStorageIT {
+
+    private static final String GIVEN_RECORD_ACCOUNT_NUMBER = "NL12RABO0123456789";
+
+    @Autowired
+    CustomerStatementController customerStatementController;
+
+    @Autowired
+    ApplicationContext applicationContext;
+
+    @DynamicPropertySource
+    static void logStorageProperties(DynamicPropertyRegistry registry) throws IOException {
+        String directory = Files.createTempDirectory("log-storage-it").toString();
+        registry.add("customerstatementservice.log-storage.directory", () -> directory);
+    }
+
+    @Test
+    void contextTestRunsWithoutDatabase() {
+        assertEquals(0, applicationContext.getBeanNamesForType(DataSource.class).length);
+        assertEquals(0, applicationContext.getBeanNamesForType(EntityManagerFactory.class).length);
+    }
+
+    @Test
+    void addCustomerStatementRecordsTestStoredRecordsAreReadBack() {
+        // Given
+        CustomerStatementRecordBatchDto givenBatch = new CustomerStatementRecordBatchDto();
+        givenBatch.setRecords(Arrays.asList(buildRecord(2, 100), buildRecord(1, 90)));
+        customerStatementController.addCustomerStatementRecords(givenBatch);
+
+        // When
+        ResponseBody duplicateResponseBody = customerStatementController.addCustomerStatementRecord(buildRecord(1, 80));
+        ResponseBody successfulResponseBody = customerStatementController.addCustomerStatementRecord(buildRecord(3, 80));
+
+        // Then
+        assertEquals(DUPLICATE_REFERENCE, duplicateResponseBody.getResult());
+        assertEquals(SUCCESSFUL, successfulResponseBody.getResult());
+
+        AccountSummaryDto accountSummary = customerStatementController.getAccountSummary(GIVEN_RECORD_ACCOUNT_NUMBER);
+        assertEquals(3, accountSummary.getRecordCount());
+        assertEquals(-30, accountSummary.getTotalMutation());
+        assertEquals(70, accountSummary.getLastEndBalance());
+
+        CustomerStatementRecordPageDto page = customerStatementController.getCustomerStatementRecords(GIVEN_RECORD_ACCOUNT_NUMBER, 1, 100);
+        assertEquals(2, page.getRecords().size());
+        assertEquals(2, page.getRecords().get(0).getTransactionReference());
+        assertNull(page.getNextAfterTransactionReference());
+    }
+
+    private CustomerStatementRecordDto buildRecord(int transactionReference, int startBalance) {
+        CustomerStatementRecordDto customerStatementRecordDto = new CustomerStatementRecordDto();
+
+        customerStatementRecordDto.setTransactionReference(transactionReference);
+        customerStatementRecordDto.setAccountNumber(GIVEN_RECORD_ACCOUNT_NUMBER);
+        customerStatementRecordDto.setDescription("beautiful record");
+        customerStatementRecordDto.setStartBalance(startBalance);
+        customerStatementRecordDto.setMutation(-10);
+        customerStatementRecordDto.setEndBalance(startBalance - 10);
+
+        return customerStatementRecordDto;
+    }
+}
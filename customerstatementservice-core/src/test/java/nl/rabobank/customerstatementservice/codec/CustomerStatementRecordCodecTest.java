@@ -0,0 +1,143 @@
+package nl.rabobank.customerstatementservice.codec;
+
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordDto;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerStatementRecordCodecTest {
+
+    private static final String GIVEN_RECORD_ACCOUNT_NUMBER = "NL12RABO0123456789";
+
+    @Test
+    void decodeTestEncodedRecordsAreDecodedInOrder() throws IOException {
+        // Given
+        CustomerStatementRecordDto givenRecord = new CustomerStatementRecordDto();
+        givenRecord.setTransactionReference(1234);
+        givenRecord.setAccountNumber(GIVEN_RECORD_ACCOUNT_NUMBER);
+        givenRecord.setStartBalance(100);
+        givenRecord.setMutation(-10);
+        givenRecord.setDescription("beautiful récord");
+        givenRecord.setEndBalance(90);
+
+        byte[] encoded = encode(encoder -> {
+            encoder.write(givenRecord);
+            encoder.write(Integer.MIN_VALUE, GIVEN_RECORD_ACCOUNT_NUMBER, Integer.MAX_VALUE, -1, null, 0);
+        });
+
+        // When
+        CustomerStatementRecordDecoder decoder = new CustomerStatementRecordDecoder(new ByteArrayInputStream(encoded));
+
+        // Then
+        assertTrue(decoder.next());
+        assertEquals(1234, decoder.getTransactionReference());
+        assertEquals(GIVEN_RECORD_ACCOUNT_NUMBER, decoder.getAccountNumber());
+        assertEquals(100, decoder.getStartBalance());
+        assertEquals(-10, decoder.getMutation());
+        assertEquals("beautiful récord", decoder.getDescription());
+        assertEquals(90, decoder.getEndBalance());
+
+        assertTrue(decoder.next());
+        assertEquals(Integer.MIN_VALUE, decoder.getTransactionReference());
+        assertEquals(Integer.MAX_VALUE, decoder.getStartBalance());
+        assertEquals(-1, decoder.getMutation());
+        assertNull(decoder.getDescription());
+        assertEquals(0, decoder.getEndBalance());
+
+        assertFalse(decoder.next());
+    }
+
+    @Test
+    void decodeTestRecordsLargerThanTheBufferAreDecoded() throws IOException {
+        // Given
+        char[] description = new char[BinaryCustomerStatementRecords.MAXIMUM_STRING_LENGTH];
+        Arrays.fill(description, 'a');
+        byte[] encoded = encode(encoder -> {
+            for (int transactionReference = 0; transactionReference < 3; transactionReference++) {
+                encoder.write(transactionReference, GIVEN_RECORD_ACCOUNT_NUMBER, 100, -10, new String(description), 90);
+            }
+        });
+
+        // When
+        CustomerStatementRecordDecoder decoder = new CustomerStatementRecordDecoder(new ByteArrayInputStream(encoded));
+
+        // Then
+        for (int transactionReference = 0; transactionReference < 3; transactionReference++) {
+            assertTrue(decoder.next());
+            assertEquals(transactionReference, decoder.getTransactionReference());
+            assertEquals(description.length, decoder.getDescription().length());
+        }
+        assertFalse(decoder.next());
+    }
+
+    @Test
+    void decodeTestMissingAccountNumberIsDecodedAsNull() throws IOException {
+        // Given
+        byte[] encoded = encode(encoder -> encoder.write(1234, null, 100, -10, "beautiful record", 90));
+
+        // When
+        CustomerStatementRecordDecoder decoder = new CustomerStatementRecordDecoder(new ByteArrayInputStream(encoded));
+
+        // Then
+        assertTrue(decoder.next());
+        assertNull(decoder.getAccountNumber());
+        assertEquals("beautiful record", decoder.getDescription());
+    }
+
+    @Test
+    void decodeTestTruncatedRecordIsRejected() throws IOException {
+        // Given
+        byte[] encoded = encode(encoder -> encoder.write(1234, GIVEN_RECORD_ACCOUNT_NUMBER, 100, -10, "beautiful record", 90));
+
+        // When
+        CustomerStatementRecordDecoder decoder = new CustomerStatementRecordDecoder(new ByteArrayInputStream(Arrays.copyOf(encoded, encoded.length - 1)));
+
+        // Then
+        assertThrows(CustomerStatementRecordFormatException.class, decoder::next);
+    }
+
+    @Test
+    void decodeTestRecordLengthNotMatchingItsFieldsIsRejected() throws IOException {
+        // Given
+        byte[] encoded = encode(encoder -> encoder.write(1234, GIVEN_RECORD_ACCOUNT_NUMBER, 100, -10, "beautiful record", 90));
+        // One byte more than the fields take.
+        encoded[3]++;
+        encoded = Arrays.copyOf(encoded, encoded.length + 1);
+
+        // When
+        CustomerStatementRecordDecoder decoder = new CustomerStatementRecordDecoder(new ByteArrayInputStream(encoded));
+
+        // Then
+        assertThrows(CustomerStatementRecordFormatException.class, decoder::next);
+    }
+
+    @Test
+    void encodeTestTooLongStringIsRejected() {
+        // Given
+        char[] description = new char[BinaryCustomerStatementRecords.MAXIMUM_STRING_LENGTH + 1];
+        Arrays.fill(description, 'a');
+        CustomerStatementRecordEncoder encoder = new CustomerStatementRecordEncoder(new ByteArrayOutputStream());
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class,
+                () -> encoder.write(1234, GIVEN_RECORD_ACCOUNT_NUMBER, 100, -10, new String(description), 90));
+    }
+
+    private static byte[] encode(EncoderCallback callback) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (CustomerStatementRecordEncoder encoder = new CustomerStatementRecordEncoder(outputStream)) {
+            callback.write(encoder);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private interface EncoderCallback {
+
+        void write(CustomerStatementRecordEncoder encoder) throws IOException;
+    }
+}
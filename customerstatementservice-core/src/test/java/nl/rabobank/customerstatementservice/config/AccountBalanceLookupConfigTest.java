@@ -0,0 +1,64 @@
+package nl.rabobank.customerstatementservice.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nl.rabobank.customerstatementservice.infrastructure.AccountBalanceCache;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecordStore;
+import nl.rabobank.customerstatementservice.infrastructure.ShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class AccountBalanceLookupConfigTest {
+
+    @Mock
+    CustomerStatementRecordStore customerStatementRecordStore;
+
+    @Mock
+    ObjectProvider<JdbcTemplate> jdbcTemplate;
+
+    @Mock
+    ObjectProvider<ShardRouter> shardRouter;
+
+    private final AccountBalanceLookupConfig accountBalanceLookupConfig = new AccountBalanceLookupConfig();
+
+    @BeforeEach
+    public void setUp() {
+        initMocks(this);
+    }
+
+    @Test
+    void accountBalanceCacheTestSingleFileIngestWorkerIsAccepted() {
+        // When
+        Object accountBalanceLookup = accountBalanceLookupConfig.accountBalanceCache(customerStatementRecordStore, jdbcTemplate,
+                shardRouter, new SimpleMeterRegistry(), 100, "statements", 1);
+
+        // Then
+        assertInstanceOf(AccountBalanceCache.class, accountBalanceLookup);
+    }
+
+    @Test
+    void accountBalanceCacheTestParallelFileIngestIsRejected() {
+        // When
+        IllegalStateException thrownException = assertThrows(IllegalStateException.class,
+                () -> accountBalanceLookupConfig.accountBalanceCache(customerStatementRecordStore, jdbcTemplate,
+                        shardRouter, new SimpleMeterRegistry(), 100, "statements", 4));
+
+        // Then
+        assertTrue(thrownException.getMessage().contains("customerstatementservice.file-ingest.workers=1"), thrownException.getMessage());
+    }
+
+    @Test
+    void accountBalanceCacheTestWorkersDontMatterWithoutFileIngest() {
+        // When
+        Object accountBalanceLookup = accountBalanceLookupConfig.accountBalanceCache(customerStatementRecordStore, jdbcTemplate,
+                shardRouter, new SimpleMeterRegistry(), 100, "", 4);
+
+        // Then
+        assertInstanceOf(AccountBalanceCache.class, accountBalanceLookup);
+    }
+}
@@ -0,0 +1,90 @@
+package nl.rabobank.customerstatementservice.config;
+
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordBatchDto;
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompiledCustomerStatementRecordValidatorTest {
+
+    private final CompiledCustomerStatementRecordValidator compiledValidator = new CompiledCustomerStatementRecordValidator();
+
+    @Test
+    void validateTestCompleteRecordHasNoErrors() {
+        // Given
+        CustomerStatementRecordDto givenRecord = buildRecord();
+        Errors errors = new BeanPropertyBindingResult(givenRecord, "customerStatementRecordDto");
+
+        // When
+        compiledValidator.validate(givenRecord, errors);
+
+        // Then
+        assertFalse(errors.hasErrors());
+    }
+
+    @Test
+    void validateTestRecordWithoutAccountNumberIsRejected() {
+        // Given
+        CustomerStatementRecordDto givenRecord = buildRecord();
+        givenRecord.setAccountNumber(null);
+        Errors errors = new BeanPropertyBindingResult(givenRecord, "customerStatementRecordDto");
+
+        // When
+        compiledValidator.validate(givenRecord, errors);
+
+        // Then
+        assertTrue(errors.hasGlobalErrors());
+    }
+
+    @Test
+    void validateTestRecordWithoutDescriptionIsAccepted() {
+        // Given
+        CustomerStatementRecordDto givenRecord = buildRecord();
+        givenRecord.setDescription(null);
+
+        // Then
+        assertTrue(CompiledCustomerStatementRecordValidator.isValid(givenRecord));
+    }
+
+    @Test
+    void validateTestBatchWithIncompleteOrNullRecordIsRejected() {
+        // Given
+        CustomerStatementRecordDto incompleteRecord = buildRecord();
+        incompleteRecord.setEndBalance(null);
+        CustomerStatementRecordBatchDto givenBatch = new CustomerStatementRecordBatchDto();
+
+        // Then
+        assertFalse(CompiledCustomerStatementRecordValidator.isValid(givenBatch));
+        givenBatch.setRecords(Arrays.asList(buildRecord(), incompleteRecord));
+        assertFalse(CompiledCustomerStatementRecordValidator.isValid(givenBatch));
+        givenBatch.setRecords(Arrays.asList(buildRecord(), null));
+        assertFalse(CompiledCustomerStatementRecordValidator.isValid(givenBatch));
+        givenBatch.setRecords(Collections.singletonList(buildRecord()));
+        assertTrue(CompiledCustomerStatementRecordValidator.isValid(givenBatch));
+    }
+
+    @Test
+    void supportsTestOnlyRecordBodies() {
+        // Then
+        assertTrue(compiledValidator.supports(CustomerStatementRecordDto.class));
+        assertTrue(compiledValidator.supports(CustomerStatementRecordBatchDto.class));
+        assertFalse(compiledValidator.supports(String.class));
+    }
+
+    private CustomerStatementRecordDto buildRecord() {
+        CustomerStatementRecordDto customerStatementRecordDto = new CustomerStatementRecordDto();
+        customerStatementRecordDto.setTransactionReference(1234);
+        customerStatementRecordDto.setAccountNumber("NL12RABO0123456789");
+        customerStatementRecordDto.setDescription("beautiful record");
+        customerStatementRecordDto.setStartBalance(100);
+        customerStatementRecordDto.setMutation(-10);
+        customerStatementRecordDto.setEndBalance(90);
+        return customerStatementRecordDto;
+    }
+}
@@ -0,0 +1,63 @@
+package nl.rabobank.customerstatementservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import nl.rabobank.customerstatementservice.dto.ErrorRecord;
+import nl.rabobank.customerstatementservice.dto.ResponseBody;
+import nl.rabobank.customerstatementservice.dto.ResultType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseBodyHttpMessageConverterTest {
+
+    private ResponseBodyHttpMessageConverter responseBodyHttpMessageConverter;
+
+    @BeforeEach
+    public void setUp() {
+        this.responseBodyHttpMessageConverter = new ResponseBodyHttpMessageConverter(new ObjectMapper());
+    }
+
+    @Test
+    void writeTestSharedBodyIsWrittenPreSerialized() throws Exception {
+        // Given
+        MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+
+        // When
+        responseBodyHttpMessageConverter.write(ResponseBody.of(ResultType.SUCCESSFUL), MediaType.APPLICATION_JSON, outputMessage);
+
+        // Then
+        String expectedJson = "{\"result\":\"SUCCESSFUL\",\"errorRecords\":[]}";
+        assertEquals(expectedJson, outputMessage.getBodyAsString());
+        assertEquals(expectedJson.length(), outputMessage.getHeaders().getContentLength());
+        assertEquals(MediaType.APPLICATION_JSON, outputMessage.getHeaders().getContentType());
+    }
+
+    @Test
+    void writeTestBodyWithErrorRecordsIsSerialized() throws Exception {
+        // Given
+        MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+        ResponseBody givenResponseBody = new ResponseBody(ResultType.DUPLICATE_REFERENCE,
+                Collections.singletonList(new ErrorRecord(1, "NL12RABO0987654321")));
+
+        // When
+        responseBodyHttpMessageConverter.write(givenResponseBody, MediaType.APPLICATION_JSON, outputMessage);
+
+        // Then
+        assertEquals("{\"result\":\"DUPLICATE_REFERENCE\",\"errorRecords\":[{\"reference\":1,\"accountNumber\":\"NL12RABO0987654321\"}]}",
+                outputMessage.getBodyAsString());
+        assertEquals(-1, outputMessage.getHeaders().getContentLength());
+    }
+
+    @Test
+    void canReadTestResponseBodiesAreOnlyWritten() {
+        // Then
+        assertFalse(responseBodyHttpMessageConverter.canRead(ResponseBody.class, MediaType.APPLICATION_JSON));
+        assertTrue(responseBodyHttpMessageConverter.canWrite(ResponseBody.class, MediaType.APPLICATION_JSON));
+        assertFalse(responseBodyHttpMessageConverter.canWrite(String.class, MediaType.APPLICATION_JSON));
+    }
+}
@@ -0,0 +1,57 @@
+package nl.rabobank.customerstatementservice.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StorageEnvironmentPostProcessorTest {
+
+    private final StorageEnvironmentPostProcessor storageEnvironmentPostProcessor = new StorageEnvironmentPostProcessor();
+
+    @Test
+    void postProcessEnvironmentTestJpaStorageIsLeftAlone() {
+        // Given
+        MockEnvironment givenEnvironment = new MockEnvironment()
+                .withProperty("customerstatementservice.duplicate-check", "index");
+
+        // When
+        storageEnvironmentPostProcessor.postProcessEnvironment(givenEnvironment, new SpringApplication());
+
+        // Then
+        assertNull(givenEnvironment.getProperty("spring.autoconfigure.exclude"));
+    }
+
+    @Test
+    void postProcessEnvironmentTestLogStorageExcludesTheDatabase() {
+        // Given
+        MockEnvironment givenEnvironment = new MockEnvironment()
+                .withProperty("customerstatementservice.storage", "log")
+                .withProperty("spring.autoconfigure.exclude", "some.AutoConfiguration");
+
+        // When
+        storageEnvironmentPostProcessor.postProcessEnvironment(givenEnvironment, new SpringApplication());
+
+        // Then
+        String excluded = givenEnvironment.getProperty("spring.autoconfigure.exclude");
+        assertTrue(excluded.startsWith("some.AutoConfiguration,"), excluded);
+        assertTrue(excluded.contains(HibernateJpaAutoConfiguration.class.getName()), excluded);
+    }
+
+    @Test
+    void postProcessEnvironmentTestLogStorageRejectsModesNeedingTheDatabase() {
+        // Given
+        MockEnvironment givenEnvironment = new MockEnvironment()
+                .withProperty("customerstatementservice.storage", "log")
+                .withProperty("customerstatementservice.write-mode", "write-behind");
+
+        // When
+        IllegalStateException thrownException = assertThrows(IllegalStateException.class,
+                () -> storageEnvironmentPostProcessor.postProcessEnvironment(givenEnvironment, new SpringApplication()));
+
+        // Then
+        assertTrue(thrownException.getMessage().contains("customerstatementservice.write-mode=direct"), thrownException.getMessage());
+    }
+}
@@ -0,0 +1,52 @@
+package nl.rabobank.customerstatementservice.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class SwaggerConfigIT {
+
+    @Autowired
+    WebApplicationContext webApplicationContext;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+    }
+
+    @Test
+    void apiDocsTestDocumentsTheControllerNextToTheActuator() throws Exception {
+        // When
+        MvcResult result = mockMvc.perform(get("/v2/api-docs")).andReturn();
+
+        // Then
+        String apiDocs = result.getResponse().getContentAsString();
+        assertEquals(200, result.getResponse().getStatus());
+        assertTrue(apiDocs.contains("\"/v1/customerstatements\""), apiDocs);
+        assertFalse(apiDocs.contains("/actuator"), apiDocs);
+    }
+
+    @Test
+    void healthTestActuatorEndpointIsMapped() throws Exception {
+        // When
+        MvcResult result = mockMvc.perform(get("/actuator/health")).andReturn();
+
+        // Then
+        assertEquals(200, result.getResponse().getStatus());
+    }
+}
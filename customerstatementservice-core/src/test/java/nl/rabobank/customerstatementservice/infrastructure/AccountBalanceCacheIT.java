@@ -0,0 +1,174 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordBatchDto;
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordDto;
+import nl.rabobank.customerstatementservice.dto.ResponseBody;
+import nl.rabobank.customerstatementservice.ui.rest.CustomerStatementController;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static nl.rabobank.customerstatementservice.dto.ResultType.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:balance-it;DB_CLOSE_DELAY=-1",
+        "customerstatementservice.balance-continuity.enabled=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class AccountBalanceCacheIT {
+
+    private static final String ACCOUNT_NUMBER = "NL12RABO0123456789";
+
+    private static final String OTHER_ACCOUNT_NUMBER = "NL12RABO0987654321";
+
+    @Autowired
+    CustomerStatementRecordRepository customerStatementRecordRepository;
+
+    @Autowired
+    CustomerStatementRecordStore customerStatementRecordStore;
+
+    @Autowired
+    CustomerStatementController customerStatementController;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        // The balance cache of the application isn't cleared, so every test using it has an account of its own.
+        customerStatementRecordRepository.deleteAll();
+    }
+
+    @Test
+    void findLastEndBalancesTestReturnsTheBalanceOfTheLastStoredRecord() {
+        // Given
+        customerStatementRecordRepository.insertAll(Arrays.asList(
+                buildRecord(3, ACCOUNT_NUMBER, 90),
+                buildRecord(1, OTHER_ACCOUNT_NUMBER, 10),
+                buildRecord(2, ACCOUNT_NUMBER, 80)));
+
+        // When
+        List<AccountBalance> lastEndBalances = customerStatementRecordRepository.findLastEndBalances(
+                Arrays.asList(ACCOUNT_NUMBER, OTHER_ACCOUNT_NUMBER, "NL12RABO0000000099"));
+
+        // Then
+        Map<String, Integer> lastEndBalanceByAccount = lastEndBalances.stream()
+                .collect(Collectors.toMap(AccountBalance::getAccountNumber, AccountBalance::getEndBalance));
+        assertEquals(2, lastEndBalanceByAccount.size());
+        assertEquals(80, lastEndBalanceByAccount.get(ACCOUNT_NUMBER));
+        assertEquals(10, lastEndBalanceByAccount.get(OTHER_ACCOUNT_NUMBER));
+        assertEquals(80, customerStatementRecordRepository.findLastEndBalance(ACCOUNT_NUMBER).orElse(null));
+        assertFalse(customerStatementRecordRepository.findLastEndBalance("NL12RABO0000000099").isPresent());
+    }
+
+    @Test
+    void findLastEndBalancesTestRecordsAreFoundThroughTheAccountIndex() throws NoSuchMethodException {
+        // Given
+        String query = CustomerStatementRecordRepository.class.getMethod("findLastEndBalances", Collection.class)
+                .getAnnotation(Query.class).value()
+                .replace(":accountNumbers", "'" + ACCOUNT_NUMBER + "', '" + OTHER_ACCOUNT_NUMBER + "'");
+
+        // When
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + query, String.class);
+
+        // Then
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+
+    @Test
+    void loadTestCachesTheMostRecentlyStoredAccounts() {
+        // Given
+        customerStatementRecordRepository.insertAll(Arrays.asList(
+                buildRecord(1, "NL12RABO0000000099", 70),
+                buildRecord(2, ACCOUNT_NUMBER, 90),
+                buildRecord(3, OTHER_ACCOUNT_NUMBER, 10),
+                buildRecord(4, ACCOUNT_NUMBER, 80)));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AccountBalanceCache accountBalanceCache = new AccountBalanceCache(customerStatementRecordStore, 2, meterRegistry);
+
+        // When
+        accountBalanceCache.load(jdbcTemplate);
+
+        // Then
+        assertEquals(2, accountBalanceCache.size());
+        assertEquals(80, accountBalanceCache.getLastEndBalance(ACCOUNT_NUMBER));
+        assertEquals(10, accountBalanceCache.getLastEndBalance(OTHER_ACCOUNT_NUMBER));
+        assertEquals(0, meterRegistry.get("customerstatement.balance.cache.lookups").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void addCustomerStatementRecordTestRecordHasToContinueTheBalanceChain() {
+        // Given
+        String givenAccountNumber = "NL12RABO0000000001";
+        customerStatementController.addCustomerStatementRecord(buildRecordDto(1, givenAccountNumber, 100));
+
+        // When
+        ResponseBody continuingResponseBody = customerStatementController.addCustomerStatementRecord(buildRecordDto(2, givenAccountNumber, 90));
+        ResponseBody brokenResponseBody = customerStatementController.addCustomerStatementRecord(buildRecordDto(3, givenAccountNumber, 100));
+        ResponseBody duplicateResponseBody = customerStatementController.addCustomerStatementRecord(buildRecordDto(1, givenAccountNumber, 100));
+
+        // Then
+        assertEquals(SUCCESSFUL, continuingResponseBody.getResult());
+        assertEquals(BROKEN_BALANCE_CHAIN, brokenResponseBody.getResult());
+        assertEquals(DUPLICATE_REFERENCE, duplicateResponseBody.getResult());
+        assertEquals(2, customerStatementRecordRepository.count());
+    }
+
+    @Test
+    void addCustomerStatementRecordsTestBatchContinuesTheBalanceChain() {
+        // Given
+        String givenAccountNumber = "NL12RABO0000000002";
+        customerStatementController.addCustomerStatementRecord(buildRecordDto(1, givenAccountNumber, 100));
+        CustomerStatementRecordBatchDto givenBatch = new CustomerStatementRecordBatchDto();
+        givenBatch.setRecords(Arrays.asList(buildRecordDto(2, givenAccountNumber, 90), buildRecordDto(3, givenAccountNumber, 80),
+                buildRecordDto(4, givenAccountNumber, 80)));
+
+        // When
+        ResponseBody returnedResponseBody = customerStatementController.addCustomerStatementRecords(givenBatch);
+
+        // Then
+        assertEquals(BROKEN_BALANCE_CHAIN, returnedResponseBody.getResult());
+        assertEquals(Collections.singletonList(4), returnedResponseBody.getErrorRecords().stream()
+                .map(errorRecord -> errorRecord.getReference()).collect(Collectors.toList()));
+        assertEquals(3, customerStatementRecordRepository.count());
+        assertEquals(70, customerStatementRecordRepository.findLastEndBalance(givenAccountNumber).orElse(null));
+    }
+
+    private static CustomerStatementRecord buildRecord(int transactionReference, String accountNumber, int endBalance) {
+        CustomerStatementRecord customerStatementRecord = new CustomerStatementRecord();
+
+        customerStatementRecord.setTransactionReference(transactionReference);
+        customerStatementRecord.setAccountNumber(accountNumber);
+        customerStatementRecord.setStartBalance(endBalance + 10);
+        customerStatementRecord.setMutation(-10);
+        customerStatementRecord.setEndBalance(endBalance);
+
+        return customerStatementRecord;
+    }
+
+    private static CustomerStatementRecordDto buildRecordDto(int transactionReference, String accountNumber, int startBalance) {
+        CustomerStatementRecordDto customerStatementRecordDto = new CustomerStatementRecordDto();
+
+        customerStatementRecordDto.setTransactionReference(transactionReference);
+        customerStatementRecordDto.setAccountNumber(accountNumber);
+        customerStatementRecordDto.setDescription("beautiful record");
+        customerStatementRecordDto.setStartBalance(startBalance);
+        customerStatementRecordDto.setMutation(-10);
+        customerStatementRecordDto.setEndBalance(startBalance - 10);
+
+        return customerStatementRecordDto;
+    }
+}
@@ -0,0 +1,124 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class AccountBalanceCacheTest {
+
+    private static final String ACCOUNT_NUMBER = "NL12RABO0123456789";
+
+    private static final String OTHER_ACCOUNT_NUMBER = "NL12RABO0987654321";
+
+    @Mock
+    CustomerStatementRecordStore customerStatementRecordStore;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private AccountBalanceCache accountBalanceCache;
+
+    @BeforeEach
+    public void setUp() {
+        initMocks(this);
+        when(customerStatementRecordStore.findLastEndBalance(anyString())).thenReturn(Optional.empty());
+        meterRegistry = new SimpleMeterRegistry();
+        accountBalanceCache = new AccountBalanceCache(customerStatementRecordStore, 32, meterRegistry);
+    }
+
+    @Test
+    void getLastEndBalanceTestRegisteredBalancesAreFoundWithoutDatabase() {
+        // Given
+        accountBalanceCache.registerInserted(ACCOUNT_NUMBER, 90);
+        accountBalanceCache.registerInserted(ACCOUNT_NUMBER, 80);
+        accountBalanceCache.registerInserted(OTHER_ACCOUNT_NUMBER, -10);
+
+        // Then
+        assertEquals(80, accountBalanceCache.getLastEndBalance(ACCOUNT_NUMBER));
+        assertEquals(-10, accountBalanceCache.getLastEndBalance(OTHER_ACCOUNT_NUMBER));
+        assertEquals(2, meterRegistry.get("customerstatement.balance.cache.lookups").tag("result", "hit").counter().count());
+        verifyNoInteractions(customerStatementRecordStore);
+    }
+
+    @Test
+    void getLastEndBalanceTestMissIsLookedUpOnceAndCached() {
+        // Given
+        when(customerStatementRecordStore.findLastEndBalance(ACCOUNT_NUMBER)).thenReturn(Optional.of(90));
+
+        // When
+        Integer firstLastEndBalance = accountBalanceCache.getLastEndBalance(ACCOUNT_NUMBER);
+        Integer secondLastEndBalance = accountBalanceCache.getLastEndBalance(ACCOUNT_NUMBER);
+
+        // Then
+        assertEquals(90, firstLastEndBalance);
+        assertEquals(90, secondLastEndBalance);
+        assertNull(accountBalanceCache.getLastEndBalance(OTHER_ACCOUNT_NUMBER));
+        verify(customerStatementRecordStore, times(1)).findLastEndBalance(ACCOUNT_NUMBER);
+        assertEquals(2, meterRegistry.get("customerstatement.balance.cache.lookups").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void getLastEndBalancesTestOnlyLooksUpMissingAccounts() {
+        // Given
+        accountBalanceCache.registerInserted(ACCOUNT_NUMBER, 90);
+        when(customerStatementRecordStore.findLastEndBalances(anyCollection()))
+                .thenReturn(buildLastEndBalances(OTHER_ACCOUNT_NUMBER, 40));
+
+        // When
+        Map<String, Integer> lastEndBalances = accountBalanceCache.getLastEndBalances(
+                Arrays.asList(ACCOUNT_NUMBER, OTHER_ACCOUNT_NUMBER, OTHER_ACCOUNT_NUMBER, "NL12RABO0000000000"));
+
+        // Then
+        assertEquals(2, lastEndBalances.size());
+        assertEquals(90, lastEndBalances.get(ACCOUNT_NUMBER));
+        assertEquals(40, lastEndBalances.get(OTHER_ACCOUNT_NUMBER));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<String>> lookedUpAccountNumbers = ArgumentCaptor.forClass(Collection.class);
+        verify(customerStatementRecordStore).findLastEndBalances(lookedUpAccountNumbers.capture());
+        assertEquals(2, lookedUpAccountNumbers.getValue().size());
+        assertFalse(lookedUpAccountNumbers.getValue().contains(ACCOUNT_NUMBER));
+        // Found balances are cached from then on
+        assertEquals(40, accountBalanceCache.getLastEndBalance(OTHER_ACCOUNT_NUMBER));
+        verify(customerStatementRecordStore, times(0)).findLastEndBalance(anyString());
+    }
+
+    @Test
+    void registerInsertedTestEvictsLeastRecentlyUsedAccounts() {
+        // Given
+        accountBalanceCache.registerInserted(ACCOUNT_NUMBER, 90);
+
+        // When
+        for (int account = 0; account < 1000; account++) {
+            accountBalanceCache.getLastEndBalance(ACCOUNT_NUMBER);
+            accountBalanceCache.registerInserted(String.format("NL12RABO%010d", account), account);
+        }
+
+        // Then
+        assertTrue(accountBalanceCache.size() <= 32, "Cached accounts: " + accountBalanceCache.size());
+        // Kept as it's used all the time
+        assertEquals(90, accountBalanceCache.getLastEndBalance(ACCOUNT_NUMBER));
+        assertNull(accountBalanceCache.getLastEndBalance(String.format("NL12RABO%010d", 0)));
+        verify(customerStatementRecordStore, times(0)).findLastEndBalance(ACCOUNT_NUMBER);
+    }
+
+    private static Map<String, Integer> buildLastEndBalances(String accountNumber, int endBalance) {
+        Map<String, Integer> lastEndBalances = new HashMap<>();
+        lastEndBalances.put(accountNumber, endBalance);
+
+        return lastEndBalances;
+    }
+}
@@ -0,0 +1,78 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordDto;
+import nl.rabobank.customerstatementservice.dto.ResponseBody;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecordRepositoryIT.StatementCountingConfig;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecordRepositoryIT.StatementCountingDataSource;
+import nl.rabobank.customerstatementservice.ui.rest.CustomerStatementController;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import javax.sql.DataSource;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static nl.rabobank.customerstatementservice.dto.ResultType.SUCCESSFUL;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Counts the statements sent to the database with account summaries enabled, see {@link CustomerStatementRecordRepositoryIT}
+ * for the default.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:account-summary-statement-count-it;DB_CLOSE_DELAY=-1",
+        "customerstatementservice.duplicate-check=index",
+        "customerstatementservice.account-summary.enabled=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(StatementCountingConfig.class)
+class AccountSummaryStatementCountIT {
+
+    @Autowired
+    CustomerStatementController customerStatementController;
+
+    @Autowired
+    DataSource dataSource;
+
+    private AtomicInteger executedStatements;
+
+    @BeforeEach
+    public void setUp() {
+        executedStatements = ((StatementCountingDataSource) dataSource).executedStatements;
+        executedStatements.set(0);
+    }
+
+    @Test
+    void addCustomerStatementRecordTestTwoStatementsPerAcceptedRecord() {
+        for (int transactionReference = 7001; transactionReference <= 7010; transactionReference++) {
+            // Given
+            CustomerStatementRecordDto givenRecord = buildRecordDto(transactionReference);
+
+            // When
+            ResponseBody returnedResponseBody = customerStatementController.addCustomerStatementRecord(givenRecord);
+
+            // Then
+            assertEquals(SUCCESSFUL, returnedResponseBody.getResult());
+        }
+
+        // The insert of the record, and the merge of its account summary.
+        assertEquals(20, executedStatements.get());
+        assertEquals(10, customerStatementController.getAccountSummary("NL12RABO0123456789").getRecordCount());
+    }
+
+    private CustomerStatementRecordDto buildRecordDto(int transactionReference) {
+        CustomerStatementRecordDto customerStatementRecordDto = new CustomerStatementRecordDto();
+
+        customerStatementRecordDto.setTransactionReference(transactionReference);
+        customerStatementRecordDto.setAccountNumber("NL12RABO0123456789");
+        customerStatementRecordDto.setDescription("beautiful record");
+        customerStatementRecordDto.setStartBalance(100);
+        customerStatementRecordDto.setMutation(-10);
+        customerStatementRecordDto.setEndBalance(90);
+
+        return customerStatementRecordDto;
+    }
+}
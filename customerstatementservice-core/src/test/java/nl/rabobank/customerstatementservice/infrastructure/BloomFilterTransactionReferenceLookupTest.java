@@ -0,0 +1,114 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class BloomFilterTransactionReferenceLookupTest {
+
+    private static final String ACCOUNT_NUMBER = "NL12RABO0123456789";
+
+    @Mock
+    TransactionReferenceLookup delegate;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private BloomFilterTransactionReferenceLookup bloomFilterLookup;
+
+    @BeforeEach
+    public void setUp() {
+        initMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        bloomFilterLookup = new BloomFilterTransactionReferenceLookup(new TransactionReferenceBloomFilter(1000, 0.01), delegate, meterRegistry);
+    }
+
+    @Test
+    void existsTestUnknownReferenceSkipsDelegate() {
+        // When
+        boolean exists = bloomFilterLookup.exists(1234);
+
+        // Then
+        assertFalse(exists);
+        verify(delegate, times(0)).exists(1234);
+        assertEquals(1, meterRegistry.get("customerstatement.bloomfilter.lookups").tag("result", "negative").counter().count());
+    }
+
+    @Test
+    void existsTestRegisteredReferenceIsConfirmedByDelegate() {
+        // Given
+        bloomFilterLookup.registerInserted(1234, ACCOUNT_NUMBER);
+        when(delegate.exists(1234)).thenReturn(true);
+
+        // When
+        boolean exists = bloomFilterLookup.exists(1234);
+
+        // Then
+        assertTrue(exists);
+        verify(delegate).registerInserted(1234, ACCOUNT_NUMBER);
+        verify(delegate).exists(1234);
+        assertEquals(1, meterRegistry.get("customerstatement.bloomfilter.lookups").tag("result", "true_positive").counter().count());
+    }
+
+    @Test
+    void existsTestFalsePositiveIsMeasured() {
+        // Given
+        bloomFilterLookup.registerInserted(1234, ACCOUNT_NUMBER);
+        when(delegate.exists(1234)).thenReturn(false);
+
+        // When
+        boolean exists = bloomFilterLookup.exists(1234);
+        bloomFilterLookup.exists(1235);
+
+        // Then
+        assertFalse(exists);
+        assertEquals(0.5, meterRegistry.get("customerstatement.bloomfilter.false.positive.rate").gauge().value());
+    }
+
+    @Test
+    void getAccountNumbersTestOnlyProbablyExistingReferencesAreLookedUp() {
+        // Given
+        bloomFilterLookup.registerInserted(1, ACCOUNT_NUMBER);
+        when(delegate.getAccountNumbers(anyCollection())).thenReturn(Collections.singletonMap(1, ACCOUNT_NUMBER));
+
+        // When
+        Map<Integer, String> accountNumbers = bloomFilterLookup.getAccountNumbers(Arrays.asList(1, 2, 3));
+
+        // Then
+        assertEquals(ACCOUNT_NUMBER, accountNumbers.get(1));
+        verify(delegate).getAccountNumbers(Collections.singletonList(1));
+    }
+
+    @Test
+    void bloomFilterTestFalsePositiveRateStaysNearConfiguredProbability() {
+        // Given
+        TransactionReferenceBloomFilter bloomFilter = new TransactionReferenceBloomFilter(100_000, 0.01);
+        for (int reference = 0; reference < 100_000; reference++) {
+            bloomFilter.put(reference);
+        }
+
+        // When
+        int falsePositives = 0;
+        for (int reference = 100_000; reference < 200_000; reference++) {
+            if (bloomFilter.mightContain(reference)) {
+                falsePositives++;
+            }
+        }
+
+        // Then
+        for (int reference = 0; reference < 100_000; reference++) {
+            assertTrue(bloomFilter.mightContain(reference));
+        }
+        assertTrue(falsePositives < 2_000, "False positives: " + falsePositives);
+        assertEquals(0.01, bloomFilter.expectedFalsePositiveProbability(), 0.005);
+    }
+}
@@ -0,0 +1,125 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordDto;
+import nl.rabobank.customerstatementservice.dto.ResponseBody;
+import nl.rabobank.customerstatementservice.ui.rest.CustomerStatementController;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManagerFactory;
+
+import static nl.rabobank.customerstatementservice.dto.ResultType.DUPLICATE_REFERENCE;
+import static nl.rabobank.customerstatementservice.dto.ResultType.SUCCESSFUL;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:record-cache-it;DB_CLOSE_DELAY=-1",
+        "customerstatementservice.record-cache.enabled=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class CustomerStatementRecordCacheIT {
+
+    private static final String ACCOUNT_NUMBER = "NL12RABO0123456789";
+
+    private static final String OTHER_ACCOUNT_NUMBER = "NL12RABO0987654321";
+
+    @Autowired
+    CustomerStatementController customerStatementController;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate.update("DELETE FROM customer_statement_record");
+        jdbcTemplate.update("DELETE FROM account_summary");
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void addCustomerStatementRecordTestDuplicateAccountNumberIsReadFromTheCache() {
+        // Given
+        customerStatementController.addCustomerStatementRecord(buildRecordDto(1, ACCOUNT_NUMBER));
+        double givenHits = getLookups("hit");
+
+        // When
+        ResponseBody firstResponseBody = customerStatementController.addCustomerStatementRecord(buildRecordDto(1, OTHER_ACCOUNT_NUMBER));
+        ResponseBody secondResponseBody = customerStatementController.addCustomerStatementRecord(buildRecordDto(1, OTHER_ACCOUNT_NUMBER));
+
+        // Then
+        assertDuplicateOf(ACCOUNT_NUMBER, firstResponseBody);
+        assertDuplicateOf(ACCOUNT_NUMBER, secondResponseBody);
+        assertTrue(entityManagerFactory.getCache().contains(CustomerStatementRecord.class, 1));
+        assertTrue(getLookups("hit") >= givenHits + 2, "every duplicate lookup is a hit");
+    }
+
+    @Test
+    void addCustomerStatementRecordTestRecordUnknownToTheCacheIsStillADuplicate() {
+        // Given
+        jdbcTemplate.update("INSERT INTO customer_statement_record (transaction_reference, account_number, start_balance, mutation, end_balance) "
+                + "VALUES (2, ?, 100, -10, 90)", ACCOUNT_NUMBER);
+        double givenMisses = getLookups("miss");
+
+        // When
+        ResponseBody returnedResponseBody = customerStatementController.addCustomerStatementRecord(buildRecordDto(2, OTHER_ACCOUNT_NUMBER));
+
+        // Then
+        assertDuplicateOf(ACCOUNT_NUMBER, returnedResponseBody);
+        assertTrue(getLookups("miss") > givenMisses);
+        assertTrue(entityManagerFactory.getCache().contains(CustomerStatementRecord.class, 2));
+    }
+
+    @Test
+    void addCustomerStatementRecordTestExistenceIsNotReadFromTheCache() {
+        // Given
+        customerStatementController.addCustomerStatementRecord(buildRecordDto(3, ACCOUNT_NUMBER));
+        customerStatementController.addCustomerStatementRecord(buildRecordDto(3, ACCOUNT_NUMBER));
+        assertTrue(entityManagerFactory.getCache().contains(CustomerStatementRecord.class, 3));
+        jdbcTemplate.update("DELETE FROM customer_statement_record");
+
+        // When
+        ResponseBody returnedResponseBody = customerStatementController.addCustomerStatementRecord(buildRecordDto(3, OTHER_ACCOUNT_NUMBER));
+
+        // Then
+        assertEquals(SUCCESSFUL, returnedResponseBody.getResult());
+    }
+
+    private double getLookups(String result) {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", CustomerStatementRecord.CACHE_REGION)
+                .tag("result", result)
+                .functionCounter()
+                .count();
+    }
+
+    private static void assertDuplicateOf(String accountNumber, ResponseBody responseBody) {
+        assertEquals(DUPLICATE_REFERENCE, responseBody.getResult());
+        assertEquals(1, responseBody.getErrorRecords().size());
+        assertEquals(accountNumber, responseBody.getErrorRecords().get(0).getAccountNumber());
+    }
+
+    private static CustomerStatementRecordDto buildRecordDto(int transactionReference, String accountNumber) {
+        CustomerStatementRecordDto customerStatementRecordDto = new CustomerStatementRecordDto();
+
+        customerStatementRecordDto.setTransactionReference(transactionReference);
+        customerStatementRecordDto.setAccountNumber(accountNumber);
+        customerStatementRecordDto.setDescription("beautiful record");
+        customerStatementRecordDto.setStartBalance(100);
+        customerStatementRecordDto.setMutation(-10);
+        customerStatementRecordDto.setEndBalance(90);
+
+        return customerStatementRecordDto;
+    }
+}
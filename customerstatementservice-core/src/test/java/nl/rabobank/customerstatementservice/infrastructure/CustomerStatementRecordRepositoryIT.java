@@ -0,0 +1,178 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordDto;
+import nl.rabobank.customerstatementservice.dto.ResponseBody;
+import nl.rabobank.customerstatementservice.ui.rest.CustomerStatementController;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static nl.rabobank.customerstatementservice.dto.ResultType.SUCCESSFUL;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Counts the statements sent to the database, using the Hibernate statistics and a data source counting every statement
+ * executed through it, including the ones Hibernate doesn't know about.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "customerstatementservice.duplicate-check=index"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class CustomerStatementRecordRepositoryIT {
+
+    @Autowired
+    CustomerStatementRecordRepository customerStatementRecordRepository;
+
+    @Autowired
+    CustomerStatementController customerStatementController;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    DataSource dataSource;
+
+    private Statistics statistics;
+
+    private AtomicInteger executedStatements;
+
+    @BeforeEach
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        executedStatements = ((StatementCountingDataSource) dataSource).executedStatements;
+        executedStatements.set(0);
+    }
+
+    @Test
+    void saveTestNewRecordIsInsertedWithoutSelect() {
+        // Given
+        CustomerStatementRecord givenRecord = buildRecord(5001);
+
+        // When
+        customerStatementRecordRepository.save(givenRecord);
+
+        // Then
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getEntityInsertCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void addCustomerStatementRecordTestOneStatementPerAcceptedRecord() {
+        for (int transactionReference = 6001; transactionReference <= 6010; transactionReference++) {
+            // Given
+            CustomerStatementRecordDto givenRecord = buildRecordDto(transactionReference);
+
+            // When
+            ResponseBody returnedResponseBody = customerStatementController.addCustomerStatementRecord(givenRecord);
+
+            // Then
+            assertEquals(SUCCESSFUL, returnedResponseBody.getResult());
+        }
+
+        assertEquals(10, statistics.getPrepareStatementCount());
+        assertEquals(10, executedStatements.get());
+        assertEquals(10, statistics.getEntityInsertCount());
+    }
+
+    private CustomerStatementRecord buildRecord(int transactionReference) {
+        CustomerStatementRecord databaseRecord = new CustomerStatementRecord();
+
+        databaseRecord.setTransactionReference(transactionReference);
+        databaseRecord.setAccountNumber("NL12RABO0123456789");
+        databaseRecord.setDescription("beautiful record");
+        databaseRecord.setStartBalance(100);
+        databaseRecord.setMutation(-10);
+        databaseRecord.setEndBalance(90);
+
+        return databaseRecord;
+    }
+
+    private CustomerStatementRecordDto buildRecordDto(int transactionReference) {
+        CustomerStatementRecordDto customerStatementRecordDto = new CustomerStatementRecordDto();
+
+        customerStatementRecordDto.setTransactionReference(transactionReference);
+        customerStatementRecordDto.setAccountNumber("NL12RABO0123456789");
+        customerStatementRecordDto.setDescription("beautiful record");
+        customerStatementRecordDto.setStartBalance(100);
+        customerStatementRecordDto.setMutation(-10);
+        customerStatementRecordDto.setEndBalance(90);
+
+        return customerStatementRecordDto;
+    }
+
+    @TestConfiguration
+    static class StatementCountingConfig {
+
+        @Bean
+        static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource && !(bean instanceof StatementCountingDataSource)
+                            ? new StatementCountingDataSource((DataSource) bean) : bean;
+                }
+            };
+        }
+    }
+
+    /**
+     * Counts every execute call on the statements of its connections, a batch counts as one.
+     */
+    static class StatementCountingDataSource extends DelegatingDataSource {
+
+        final AtomicInteger executedStatements = new AtomicInteger();
+
+        StatementCountingDataSource(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = super.getConnection();
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        Object result = invoke(connection, method, args);
+                        return result instanceof Statement ? countExecutions((Statement) result, method.getReturnType()) : result;
+                    });
+        }
+
+        private Object countExecutions(Statement statement, Class<?> statementType) {
+            return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{statementType},
+                    (proxy, method, args) -> {
+                        if (method.getName().startsWith("execute")) {
+                            executedStatements.incrementAndGet();
+                        }
+                        return invoke(statement, method, args);
+                    });
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
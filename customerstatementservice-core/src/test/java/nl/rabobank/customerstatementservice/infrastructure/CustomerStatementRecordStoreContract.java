@@ -0,0 +1,222 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The behaviour every {@link CustomerStatementRecordStore} has to have, run against every storage engine by a subclass.
+ */
+abstract class CustomerStatementRecordStoreContract {
+
+    static final String ACCOUNT_NUMBER = "NL12RABO0123456789";
+
+    static final String OTHER_ACCOUNT_NUMBER = "NL12RABO0987654321";
+
+    CustomerStatementRecordStore customerStatementRecordStore;
+
+    /**
+     * @return the store to test, without any records
+     */
+    abstract CustomerStatementRecordStore createEmptyStore() throws Exception;
+
+    @BeforeEach
+    public void setUpStore() throws Exception {
+        customerStatementRecordStore = createEmptyStore();
+    }
+
+    @Test
+    void insertTestRecordIsReadBackAsInserted() {
+        // Given
+        CustomerStatementRecord givenRecord = buildRecord(1, ACCOUNT_NUMBER, 90);
+        CustomerStatementRecord givenRecordWithoutDescription = buildRecord(2, ACCOUNT_NUMBER, 80);
+        givenRecordWithoutDescription.setDescription(null);
+
+        // When
+        customerStatementRecordStore.insert(givenRecord);
+        customerStatementRecordStore.insert(givenRecordWithoutDescription);
+
+        // Then
+        assertTrue(customerStatementRecordStore.exists(1));
+        assertFalse(customerStatementRecordStore.exists(3));
+        assertEquals(ACCOUNT_NUMBER, customerStatementRecordStore.findAccountNumber(1));
+        assertNull(customerStatementRecordStore.findAccountNumber(3));
+
+        List<CustomerStatementRecord> storedRecords = streamToList(null, null, null);
+        assertEquals(2, storedRecords.size());
+        CustomerStatementRecord storedRecord = storedRecords.get(0);
+        assertEquals(1, storedRecord.getTransactionReference());
+        assertEquals(ACCOUNT_NUMBER, storedRecord.getAccountNumber());
+        assertEquals(100, storedRecord.getStartBalance());
+        assertEquals(-10, storedRecord.getMutation());
+        assertEquals(90, storedRecord.getEndBalance());
+        assertEquals("beautiful record", storedRecord.getDescription());
+        assertNull(storedRecords.get(1).getDescription());
+    }
+
+    @Test
+    void insertTestDuplicateReferenceIsRejected() {
+        // Given
+        customerStatementRecordStore.insert(buildRecord(1, ACCOUNT_NUMBER, 90));
+
+        // When
+        assertThrows(DataIntegrityViolationException.class,
+                () -> customerStatementRecordStore.insert(buildRecord(1, OTHER_ACCOUNT_NUMBER, 80)));
+
+        // Then
+        assertEquals(ACCOUNT_NUMBER, customerStatementRecordStore.findAccountNumber(1));
+        assertEquals(1, customerStatementRecordStore.findAccountSummary(ACCOUNT_NUMBER).get().getRecordCount());
+        assertFalse(customerStatementRecordStore.findAccountSummary(OTHER_ACCOUNT_NUMBER).isPresent());
+    }
+
+    @Test
+    void insertAllTestDuplicateReferenceRejectsTheWholeBatch() {
+        // Given
+        customerStatementRecordStore.insert(buildRecord(1, ACCOUNT_NUMBER, 90));
+
+        // When
+        assertThrows(DataIntegrityViolationException.class, () -> customerStatementRecordStore.insertAll(Arrays.asList(
+                buildRecord(2, OTHER_ACCOUNT_NUMBER, 80),
+                buildRecord(1, OTHER_ACCOUNT_NUMBER, 70))));
+
+        // Then
+        assertFalse(customerStatementRecordStore.exists(2));
+        assertFalse(customerStatementRecordStore.findAccountSummary(OTHER_ACCOUNT_NUMBER).isPresent());
+        assertEquals(1, streamToList(null, null, null).size());
+    }
+
+    @Test
+    void findAccountNumbersTestOnlyReturnsExistingReferences() {
+        // Given
+        customerStatementRecordStore.insertAll(Arrays.asList(
+                buildRecord(1, ACCOUNT_NUMBER, 90),
+                buildRecord(2, OTHER_ACCOUNT_NUMBER, 80)));
+
+        // When
+        Map<Integer, String> accountNumbers = customerStatementRecordStore.findAccountNumbers(Arrays.asList(1, 2, 3));
+
+        // Then
+        assertEquals(2, accountNumbers.size());
+        assertEquals(ACCOUNT_NUMBER, accountNumbers.get(1));
+        assertEquals(OTHER_ACCOUNT_NUMBER, accountNumbers.get(2));
+    }
+
+    @Test
+    void findLastEndBalanceTestReturnsTheBalanceOfTheLastStoredRecord() {
+        // Given
+        customerStatementRecordStore.insertAll(Arrays.asList(
+                buildRecord(3, ACCOUNT_NUMBER, 90),
+                buildRecord(1, OTHER_ACCOUNT_NUMBER, 10)));
+        customerStatementRecordStore.insert(buildRecord(2, ACCOUNT_NUMBER, 80));
+
+        // When
+        Map<String, Integer> lastEndBalances = customerStatementRecordStore.findLastEndBalances(
+                Arrays.asList(ACCOUNT_NUMBER, OTHER_ACCOUNT_NUMBER, "NL12RABO0000000099"));
+
+        // Then
+        assertEquals(2, lastEndBalances.size());
+        assertEquals(80, lastEndBalances.get(ACCOUNT_NUMBER));
+        assertEquals(10, lastEndBalances.get(OTHER_ACCOUNT_NUMBER));
+        assertEquals(80, customerStatementRecordStore.findLastEndBalance(ACCOUNT_NUMBER).orElse(null));
+        assertFalse(customerStatementRecordStore.findLastEndBalance("NL12RABO0000000099").isPresent());
+    }
+
+    @Test
+    void findPageTestRecordsOfTheAccountOrderedByReference() {
+        // Given
+        customerStatementRecordStore.insertAll(Arrays.asList(
+                buildRecord(3, ACCOUNT_NUMBER, 70),
+                buildRecord(1, ACCOUNT_NUMBER, 90),
+                buildRecord(5, OTHER_ACCOUNT_NUMBER, 90),
+                buildRecord(2, ACCOUNT_NUMBER, 80),
+                buildRecord(4, ACCOUNT_NUMBER, 60)));
+
+        // When
+        List<StoredCustomerStatementRecord> firstPage = customerStatementRecordStore.findPage(ACCOUNT_NUMBER, null, 2);
+        List<StoredCustomerStatementRecord> nextPage = customerStatementRecordStore.findPage(ACCOUNT_NUMBER, 2, 10);
+
+        // Then
+        assertEquals(Arrays.asList(1, 2), getReferences(firstPage));
+        assertEquals(Arrays.asList(3, 4), getReferences(nextPage));
+        StoredCustomerStatementRecord storedRecord = firstPage.get(0);
+        assertEquals(ACCOUNT_NUMBER, storedRecord.getAccountNumber());
+        assertEquals(100, storedRecord.getStartBalance());
+        assertEquals(-10, storedRecord.getMutation());
+        assertEquals(90, storedRecord.getEndBalance());
+        assertEquals("beautiful record", storedRecord.getDescription());
+        assertTrue(customerStatementRecordStore.findPage("NL12RABO0000000099", null, 10).isEmpty());
+    }
+
+    @Test
+    void findAccountSummaryTestAddsUpAllRecordsOfTheAccount() {
+        // Given
+        customerStatementRecordStore.insertAll(Arrays.asList(
+                buildRecord(1, ACCOUNT_NUMBER, 90),
+                buildRecord(2, OTHER_ACCOUNT_NUMBER, 90)));
+        customerStatementRecordStore.insert(buildRecord(3, ACCOUNT_NUMBER, 80));
+
+        // When
+        AccountSummary accountSummary = customerStatementRecordStore.findAccountSummary(ACCOUNT_NUMBER).orElse(null);
+
+        // Then
+        assertNotNull(accountSummary);
+        assertEquals(ACCOUNT_NUMBER, accountSummary.getAccountNumber());
+        assertEquals(2, accountSummary.getRecordCount());
+        assertEquals(-20, accountSummary.getTotalMutation());
+        assertEquals(80, accountSummary.getLastEndBalance());
+        assertFalse(customerStatementRecordStore.findAccountSummary("NL12RABO0000000099").isPresent());
+    }
+
+    @Test
+    void streamTestOnlyRecordsMatchingAllCriteria() {
+        // Given
+        customerStatementRecordStore.insertAll(Arrays.asList(
+                buildRecord(4, ACCOUNT_NUMBER, 60),
+                buildRecord(1, ACCOUNT_NUMBER, 90),
+                buildRecord(2, OTHER_ACCOUNT_NUMBER, 90),
+                buildRecord(3, ACCOUNT_NUMBER, 80)));
+
+        // When
+        List<CustomerStatementRecord> accountRecords = streamToList(ACCOUNT_NUMBER, 2, 3);
+        List<CustomerStatementRecord> allRecords = streamToList(null, null, null);
+
+        // Then
+        assertEquals(Collections.singletonList(3), accountRecords.stream()
+                .map(CustomerStatementRecord::getTransactionReference).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(1, 2, 3, 4), allRecords.stream()
+                .map(CustomerStatementRecord::getTransactionReference).collect(Collectors.toList()));
+        assertTrue(streamToList("NL12RABO0000000099", null, null).isEmpty());
+    }
+
+    List<CustomerStatementRecord> streamToList(String accountNumber, Integer fromTransactionReference, Integer toTransactionReference) {
+        try (Stream<CustomerStatementRecord> records = customerStatementRecordStore.stream(accountNumber, fromTransactionReference, toTransactionReference)) {
+            return records.collect(Collectors.toList());
+        }
+    }
+
+    static CustomerStatementRecord buildRecord(int transactionReference, String accountNumber, int endBalance) {
+        CustomerStatementRecord record = new CustomerStatementRecord();
+
+        record.setTransactionReference(transactionReference);
+        record.setAccountNumber(accountNumber);
+        record.setDescription("beautiful record");
+        record.setStartBalance(endBalance + 10);
+        record.setMutation(-10);
+        record.setEndBalance(endBalance);
+
+        return record;
+    }
+
+    private static List<Integer> getReferences(List<StoredCustomerStatementRecord> storedRecords) {
+        return storedRecords.stream().map(StoredCustomerStatementRecord::getTransactionReference).collect(Collectors.toList());
+    }
+}
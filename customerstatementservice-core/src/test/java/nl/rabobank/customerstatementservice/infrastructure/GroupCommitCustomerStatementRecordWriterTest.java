@@ -0,0 +1,190 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class GroupCommitCustomerStatementRecordWriterTest {
+
+    @Mock
+    CustomerStatementRecordStore customerStatementRecordStore;
+
+    private GroupCommitCustomerStatementRecordWriter groupCommitWriter;
+
+    private ExecutorService executorService;
+
+    @BeforeEach
+    public void setUp() {
+        initMocks(this);
+        executorService = Executors.newFixedThreadPool(10);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        executorService.shutdownNow();
+        groupCommitWriter.close();
+    }
+
+    @Test
+    void insertIfAbsentTestConcurrentCallersShareOneGroup() throws Exception {
+        // Given
+        groupCommitWriter = new GroupCommitCustomerStatementRecordWriter(customerStatementRecordStore, 100, 10, 1000, 1000, 5000);
+
+        // When
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int reference = 0; reference < 10; reference++) {
+            CustomerStatementRecord givenRecord = buildRecord(reference);
+            results.add(executorService.submit(() -> groupCommitWriter.insertIfAbsent(givenRecord)));
+        }
+
+        // Then
+        for (Future<Boolean> result : results) {
+            assertTrue(result.get());
+        }
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<CustomerStatementRecord>> groups = ArgumentCaptor.forClass(List.class);
+        verify(customerStatementRecordStore, atLeastOnce()).insertAll(groups.capture());
+        int insertedRecords = groups.getAllValues().stream().mapToInt(List::size).sum();
+        assertEquals(10, insertedRecords);
+        // The group size is reached long before the delay of a second passes
+        assertTrue(groups.getAllValues().size() < 10, "Groups: " + groups.getAllValues().size());
+    }
+
+    @Test
+    void insertIfAbsentTestDuplicateInGroupOnlyRejectsThatRecord() throws Exception {
+        // Given
+        groupCommitWriter = new GroupCommitCustomerStatementRecordWriter(customerStatementRecordStore, 100, 10, 1, 1000, 5000);
+        doThrow(new DuplicateKeyException("Existing reference"))
+                .when(customerStatementRecordStore).insertAll(argThat(records -> records.stream().anyMatch(record -> record.getTransactionReference() == 1234)));
+
+        // When
+        boolean duplicateInserted = groupCommitWriter.insertIfAbsent(buildRecord(1234));
+        boolean newInserted = groupCommitWriter.insertIfAbsent(buildRecord(1));
+
+        // Then
+        assertFalse(duplicateInserted);
+        assertTrue(newInserted);
+    }
+
+    @Test
+    void insertIfAbsentTestFullQueueRejectsRecords() throws Exception {
+        // Given
+        CountDownLatch writerBlocked = new CountDownLatch(1);
+        CountDownLatch releaseWriter = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writerBlocked.countDown();
+            releaseWriter.await();
+            return null;
+        }).when(customerStatementRecordStore).insertAll(any());
+        groupCommitWriter = new GroupCommitCustomerStatementRecordWriter(customerStatementRecordStore, 1, 1, 1, 10, 5000);
+
+        Future<Boolean> first = executorService.submit(() -> groupCommitWriter.insertIfAbsent(buildRecord(1)));
+        writerBlocked.await();
+        Future<Boolean> queued = executorService.submit(() -> groupCommitWriter.insertIfAbsent(buildRecord(2)));
+        // Give the second record a moment to fill the queue, as the writer is still blocked on the first one.
+        Thread.sleep(100);
+
+        // When
+        assertThrows(RejectedExecutionException.class, () -> groupCommitWriter.insertIfAbsent(buildRecord(3)));
+
+        // Then
+        releaseWriter.countDown();
+        assertTrue(first.get());
+        assertTrue(queued.get());
+    }
+
+    @Test
+    void insertIfAbsentTestInterruptedWriterFailsGroupAndQueuedRecords() throws Exception {
+        // Given
+        AtomicReference<Thread> writerThread = new AtomicReference<>();
+        CountDownLatch writerBlocked = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writerThread.set(Thread.currentThread());
+            writerBlocked.countDown();
+            new CountDownLatch(1).await();
+            return null;
+        }).when(customerStatementRecordStore).insertAll(any());
+        groupCommitWriter = new GroupCommitCustomerStatementRecordWriter(customerStatementRecordStore, 10, 1, 1, 1000, 60000);
+
+        Future<Boolean> inGroup = executorService.submit(() -> groupCommitWriter.insertIfAbsent(buildRecord(1)));
+        writerBlocked.await();
+        Future<Boolean> queued = executorService.submit(() -> groupCommitWriter.insertIfAbsent(buildRecord(2)));
+        Thread.sleep(100);
+
+        // When
+        writerThread.get().interrupt();
+
+        // Then
+        ExecutionException inGroupException = assertThrows(ExecutionException.class, () -> inGroup.get(5, TimeUnit.SECONDS));
+        ExecutionException queuedException = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, inGroupException.getCause());
+        assertInstanceOf(IllegalStateException.class, queuedException.getCause());
+        assertThrows(RejectedExecutionException.class, () -> groupCommitWriter.insertIfAbsent(buildRecord(3)));
+    }
+
+    @Test
+    void insertIfAbsentTestClosedWriterRejectsRecords() throws Exception {
+        // Given
+        groupCommitWriter = new GroupCommitCustomerStatementRecordWriter(customerStatementRecordStore, 10, 1, 1, 1000, 5000);
+        assertTrue(groupCommitWriter.insertIfAbsent(buildRecord(1)));
+
+        // When
+        groupCommitWriter.close();
+
+        // Then
+        assertThrows(RejectedExecutionException.class, () -> groupCommitWriter.insertIfAbsent(buildRecord(2)));
+        verify(customerStatementRecordStore, times(1)).insertAll(any());
+    }
+
+    @Test
+    void insertIfAbsentTestCallerStopsWaitingAfterCommitTimeout() throws Exception {
+        // Given
+        CountDownLatch releaseWriter = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            releaseWriter.await();
+            return null;
+        }).when(customerStatementRecordStore).insertAll(any());
+        groupCommitWriter = new GroupCommitCustomerStatementRecordWriter(customerStatementRecordStore, 10, 1, 1, 1000, 50);
+
+        // When
+        IllegalStateException thrownException = assertThrows(IllegalStateException.class,
+                () -> groupCommitWriter.insertIfAbsent(buildRecord(1)));
+
+        // Then
+        assertTrue(thrownException.getMessage().startsWith("Timed out"), thrownException.getMessage());
+        releaseWriter.countDown();
+    }
+
+    private CustomerStatementRecord buildRecord(int transactionReference) {
+        CustomerStatementRecord record = new CustomerStatementRecord();
+
+        record.setTransactionReference(transactionReference);
+        record.setAccountNumber("NL12RABO0123456789");
+        record.setStartBalance(100);
+        record.setMutation(-10);
+        record.setEndBalance(90);
+
+        return record;
+    }
+}
@@ -0,0 +1,25 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest(properties = "customerstatementservice.account-summary.enabled=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class JpaCustomerStatementRecordStoreIT extends CustomerStatementRecordStoreContract {
+
+    @Autowired
+    CustomerStatementRecordStore jpaCustomerStatementRecordStore;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Override
+    CustomerStatementRecordStore createEmptyStore() {
+        jdbcTemplate.update("DELETE FROM customer_statement_record");
+        jdbcTemplate.update("DELETE FROM account_summary");
+
+        return jpaCustomerStatementRecordStore;
+    }
+}
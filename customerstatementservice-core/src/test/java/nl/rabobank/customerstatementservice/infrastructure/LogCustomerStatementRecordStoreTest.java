@@ -0,0 +1,182 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+import nl.rabobank.customerstatementservice.infrastructure.LogCustomerStatementRecordStore.FsyncPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogCustomerStatementRecordStoreTest extends CustomerStatementRecordStoreContract {
+
+    @TempDir
+    Path directory;
+
+    private LogCustomerStatementRecordStore logStore;
+
+    @Override
+    CustomerStatementRecordStore createEmptyStore() throws IOException {
+        logStore = new LogCustomerStatementRecordStore(directory, FsyncPolicy.ALWAYS, 0);
+
+        return logStore;
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        logStore.close();
+    }
+
+    @Test
+    void constructorTestRecordsAreReplayed() throws IOException {
+        // Given
+        logStore.insertAll(Arrays.asList(
+                buildRecord(2, ACCOUNT_NUMBER, 90),
+                buildRecord(1, OTHER_ACCOUNT_NUMBER, 90)));
+        logStore.insert(buildRecord(3, ACCOUNT_NUMBER, 80));
+        logStore.close();
+
+        // When
+        logStore = new LogCustomerStatementRecordStore(directory, FsyncPolicy.ALWAYS, 0);
+
+        // Then
+        assertTrue(logStore.exists(1));
+        assertEquals(ACCOUNT_NUMBER, logStore.findAccountNumber(3));
+        assertEquals(80, logStore.findLastEndBalance(ACCOUNT_NUMBER).orElse(null));
+        AccountSummary accountSummary = logStore.findAccountSummary(ACCOUNT_NUMBER).get();
+        assertEquals(2, accountSummary.getRecordCount());
+        assertEquals(-20, accountSummary.getTotalMutation());
+        assertEquals(3, logStore.findPage(ACCOUNT_NUMBER, 2, 10).get(0).getTransactionReference());
+    }
+
+    @Test
+    void constructorTestIncompleteLastFrameIsTruncated() throws IOException {
+        // Given
+        logStore.insert(buildRecord(1, ACCOUNT_NUMBER, 90));
+        logStore.close();
+        Path logFile = directory.resolve(LogCustomerStatementRecordStore.LOG_FILE_NAME);
+        long completeSize = Files.size(logFile);
+        logStore = new LogCustomerStatementRecordStore(directory, FsyncPolicy.ALWAYS, 0);
+        logStore.insert(buildRecord(2, ACCOUNT_NUMBER, 80));
+        logStore.close();
+        // A crash halfway writing the second frame
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(logFile) - 5);
+        }
+
+        // When
+        logStore = new LogCustomerStatementRecordStore(directory, FsyncPolicy.ALWAYS, 0);
+
+        // Then
+        assertTrue(logStore.exists(1));
+        assertFalse(logStore.exists(2));
+        assertEquals(completeSize, Files.size(logFile));
+        assertEquals(90, logStore.findLastEndBalance(ACCOUNT_NUMBER).orElse(null));
+        // Appending continues right after the last complete frame
+        logStore.insert(buildRecord(2, ACCOUNT_NUMBER, 80));
+        logStore.close();
+        logStore = new LogCustomerStatementRecordStore(directory, FsyncPolicy.ALWAYS, 0);
+        assertTrue(logStore.exists(2));
+    }
+
+    @Test
+    void constructorTestFrameNotMatchingItsChecksumIsTruncated() throws IOException {
+        // Given
+        logStore.insert(buildRecord(1, ACCOUNT_NUMBER, 90));
+        Path logFile = directory.resolve(LogCustomerStatementRecordStore.LOG_FILE_NAME);
+        long completeSize = Files.size(logFile);
+        logStore.insert(buildRecord(2, ACCOUNT_NUMBER, 80));
+        logStore.close();
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{42}), Files.size(logFile) - 1);
+        }
+
+        // When
+        logStore = new LogCustomerStatementRecordStore(directory, FsyncPolicy.ALWAYS, 0);
+
+        // Then
+        assertTrue(logStore.exists(1));
+        assertFalse(logStore.exists(2));
+        assertEquals(completeSize, Files.size(logFile));
+    }
+
+    @Test
+    void constructorTestCorruptFrameFollowedByMoreFramesIsRejected() throws IOException {
+        // Given
+        logStore.insert(buildRecord(1, ACCOUNT_NUMBER, 90));
+        Path logFile = directory.resolve(LogCustomerStatementRecordStore.LOG_FILE_NAME);
+        long firstFrameSize = Files.size(logFile);
+        logStore.insert(buildRecord(2, ACCOUNT_NUMBER, 80));
+        logStore.close();
+        long completeSize = Files.size(logFile);
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{42}), firstFrameSize - 1);
+        }
+
+        // When
+        IOException thrownException = assertThrows(IOException.class,
+                () -> new LogCustomerStatementRecordStore(directory, FsyncPolicy.ALWAYS, 0));
+
+        // Then
+        assertTrue(thrownException.getMessage().contains("offset 0"), thrownException.getMessage());
+        assertEquals(completeSize, Files.size(logFile));
+        // The failed store released the log, so it can be repaired
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+            assertNotNull(channel.tryLock());
+        }
+    }
+
+    @Test
+    void constructorTestZeroFilledTailIsTruncated() throws IOException {
+        // Given
+        logStore.insert(buildRecord(1, ACCOUNT_NUMBER, 90));
+        logStore.close();
+        Path logFile = directory.resolve(LogCustomerStatementRecordStore.LOG_FILE_NAME);
+        long completeSize = Files.size(logFile);
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(100), completeSize);
+        }
+
+        // When
+        logStore = new LogCustomerStatementRecordStore(directory, FsyncPolicy.ALWAYS, 0);
+
+        // Then
+        assertTrue(logStore.exists(1));
+        assertEquals(completeSize, Files.size(logFile));
+    }
+
+    @Test
+    void constructorTestLogInUseIsRejected() {
+        // When
+        assertThrows(IOException.class, () -> new LogCustomerStatementRecordStore(directory, FsyncPolicy.ALWAYS, 0));
+
+        // Then
+        logStore.insert(buildRecord(1, ACCOUNT_NUMBER, 90));
+        assertTrue(logStore.exists(1));
+    }
+
+    @Test
+    void insertTestSyncedInTheBackgroundWithIntervalPolicy() throws IOException {
+        // Given
+        logStore.close();
+        logStore = new LogCustomerStatementRecordStore(directory, FsyncPolicy.INTERVAL, 10);
+
+        // When
+        logStore.insert(buildRecord(1, ACCOUNT_NUMBER, 90));
+
+        // Then
+        assertTrue(logStore.exists(1));
+        logStore.close();
+        assertTrue(Thread.getAllStackTraces().keySet().stream().noneMatch(thread -> thread.getName().equals("log-store-fsync")),
+                "The background sync has stopped by the time the log is closed");
+        logStore = new LogCustomerStatementRecordStore(directory, FsyncPolicy.NEVER, 0);
+        assertTrue(logStore.exists(1));
+    }
+}
@@ -0,0 +1,84 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ShardRouterTest {
+
+    private final ShardRouter shardRouter = new ShardRouter(Collections.nCopies(4, new SimpleDriverDataSource()));
+
+    @Test
+    void shardOfTestReferencesAreSpreadEvenly() {
+        // Given
+        int[] recordsPerShard = new int[4];
+
+        // When
+        for (int transactionReference = 0; transactionReference < 40_000; transactionReference += 2) {
+            recordsPerShard[shardRouter.shardOf(transactionReference)]++;
+        }
+
+        // Then
+        Arrays.stream(recordsPerShard).forEach(records -> assertTrue(Math.abs(records - 5_000) < 500, "Unevenly spread: " + records));
+    }
+
+    @Test
+    void shardOfTestSameReferenceSameShard() {
+        // Given
+        ShardRouter otherShardRouter = new ShardRouter(Collections.nCopies(4, new SimpleDriverDataSource()));
+
+        // When & Then
+        for (int transactionReference = -1000; transactionReference < 1000; transactionReference++) {
+            int shard = shardRouter.shardOf(transactionReference);
+            assertTrue(shard >= 0 && shard < 4);
+            assertEquals(shard, otherShardRouter.shardOf(transactionReference));
+        }
+    }
+
+    @Test
+    void onShardTestRoutesTheDataSourceAndRestoresThePreviousShard() throws SQLException {
+        // Given
+        DataSource firstShard = mock(DataSource.class);
+        DataSource secondShard = mock(DataSource.class);
+        Connection firstShardConnection = mock(Connection.class);
+        Connection secondShardConnection = mock(Connection.class);
+        when(firstShard.getConnection()).thenReturn(firstShardConnection);
+        when(secondShard.getConnection()).thenReturn(secondShardConnection);
+
+        ShardRouter twoShardRouter = new ShardRouter(Arrays.asList(firstShard, secondShard));
+        ShardRoutingDataSource routingDataSource = new ShardRoutingDataSource(twoShardRouter);
+        routingDataSource.afterPropertiesSet();
+
+        // When & Then
+        assertEquals(firstShardConnection, routingDataSource.getConnection());
+        twoShardRouter.onShard(1, () -> {
+            assertEquals(secondShardConnection, getConnection(routingDataSource));
+            twoShardRouter.onShard(0, () -> {
+                assertEquals(firstShardConnection, getConnection(routingDataSource));
+                return null;
+            });
+            assertEquals(secondShardConnection, getConnection(routingDataSource));
+            return null;
+        });
+        assertNull(ShardRouter.getCurrentShard());
+    }
+
+    private static Connection getConnection(DataSource dataSource) {
+        try {
+            return dataSource.getConnection();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
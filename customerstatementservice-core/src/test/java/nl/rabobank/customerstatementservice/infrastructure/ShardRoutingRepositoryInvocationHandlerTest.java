@@ -0,0 +1,134 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class ShardRoutingRepositoryInvocationHandlerTest {
+
+    private static final String ACCOUNT_NUMBER = "NL12RABO0123456789";
+
+    @Mock
+    CustomerStatementRecordRepository customerStatementRecordRepository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    private final ShardRouter shardRouter = new ShardRouter(Collections.nCopies(3, new SimpleDriverDataSource()));
+
+    private CustomerStatementRecordRepository shardRoutingRepository;
+
+    @BeforeEach
+    public void setUp() {
+        initMocks(this);
+        shardRoutingRepository = ShardRoutingRepositoryInvocationHandler.createRepository(customerStatementRecordRepository,
+                shardRouter, transactionManager);
+    }
+
+    @Test
+    void findPageByAccountNumberTestPagesOfAllShardsAreMergedByReference() {
+        // Given
+        // Every shard returns the references it holds among 1..9, ordered and cut off at the limit like the query does
+        when(customerStatementRecordRepository.findPageByAccountNumber(eq(ACCOUNT_NUMBER), anyInt()))
+                .thenAnswer(invocation -> pageOfCurrentShard(invocation.getArgument(1)));
+
+        // When
+        List<StoredCustomerStatementRecord> returnedPage = shardRoutingRepository.findPageByAccountNumber(ACCOUNT_NUMBER, 4);
+
+        // Then
+        assertEquals(Arrays.asList(1, 2, 3, 4), returnedPage.stream()
+                .map(StoredCustomerStatementRecord::getTransactionReference)
+                .collect(Collectors.toList()));
+        verify(customerStatementRecordRepository, times(3)).findPageByAccountNumber(ACCOUNT_NUMBER, 4);
+    }
+
+    @Test
+    void findByTransactionReferenceInTestOnlyShardsOfTheReferencesAreQueried() {
+        // Given
+        int transactionReference = 7;
+        ExistingTransactionReference existingReference = mock(ExistingTransactionReference.class);
+        when(customerStatementRecordRepository.findByTransactionReferenceIn(anyCollection()))
+                .thenReturn(Collections.singletonList(existingReference));
+
+        // When
+        List<ExistingTransactionReference> returnedReferences = shardRoutingRepository.findByTransactionReferenceIn(
+                Collections.singletonList(transactionReference));
+
+        // Then
+        assertEquals(Collections.singletonList(existingReference), returnedReferences);
+        verify(customerStatementRecordRepository, times(1)).findByTransactionReferenceIn(Collections.singletonList(transactionReference));
+    }
+
+    @Test
+    void countTestCountsOfAllShardsAreSummed() {
+        // Given
+        when(customerStatementRecordRepository.count()).thenReturn(2L);
+
+        // When & Then
+        assertEquals(6, shardRoutingRepository.count());
+    }
+
+    @Test
+    void findLastEndBalanceTestIsRejectedWithoutQueryingTheShards() {
+        // When
+        UnsupportedOperationException thrownException = assertThrows(UnsupportedOperationException.class,
+                () -> shardRoutingRepository.findLastEndBalance(ACCOUNT_NUMBER));
+
+        // Then
+        assertTrue(thrownException.getMessage().contains("findLastEndBalance"), thrownException.getMessage());
+        verifyNoInteractions(customerStatementRecordRepository);
+    }
+
+    @Test
+    void createRepositoryTestMethodWithoutRouteIsRejected() {
+        // When
+        IllegalStateException thrownException = assertThrows(IllegalStateException.class,
+                () -> ShardRoutingRepositoryInvocationHandler.createRepository(UnroutedRepository.class,
+                        customerStatementRecordRepository, shardRouter, transactionManager));
+
+        // Then
+        assertTrue(thrownException.getMessage().contains("findAccountNumbers"), thrownException.getMessage());
+    }
+
+    @Test
+    void combinerOfTestSetCantBeCombined() throws NoSuchMethodException {
+        // When
+        IllegalStateException thrownException = assertThrows(IllegalStateException.class,
+                () -> ShardRoutingRepositoryInvocationHandler.combinerOf(UnroutedRepository.class.getMethod("findAccountNumbers", Collection.class)));
+
+        // Then
+        assertTrue(thrownException.getMessage().contains("findAccountNumbers"), thrownException.getMessage());
+    }
+
+    private List<StoredCustomerStatementRecord> pageOfCurrentShard(int limit) {
+        List<StoredCustomerStatementRecord> page = new ArrayList<>();
+        for (int transactionReference = 1; transactionReference <= 9 && page.size() < limit; transactionReference++) {
+            if (shardRouter.shardOf(transactionReference) == ShardRouter.getCurrentShard()) {
+                StoredCustomerStatementRecord record = mock(StoredCustomerStatementRecord.class);
+                when(record.getTransactionReference()).thenReturn(transactionReference);
+                page.add(record);
+            }
+        }
+        return page;
+    }
+
+    interface UnroutedRepository extends CustomerStatementRecordRepository {
+
+        Set<String> findAccountNumbers(Collection<Integer> transactionReferences);
+    }
+}
@@ -0,0 +1,196 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+import nl.rabobank.customerstatementservice.dto.AccountSummaryDto;
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordDto;
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordPageDto;
+import nl.rabobank.customerstatementservice.dto.ResponseBody;
+import nl.rabobank.customerstatementservice.ui.rest.CustomerStatementController;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static nl.rabobank.customerstatementservice.dto.ResultType.DUPLICATE_REFERENCE;
+import static nl.rabobank.customerstatementservice.dto.ResultType.SUCCESSFUL;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "customerstatementservice.sharding.shard-count=3",
+        "customerstatementservice.account-summary.enabled=true",
+        "customerstatementservice.sharding.url-template=jdbc:h2:mem:sharded-it-{shard};DB_CLOSE_DELAY=-1"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ShardedCustomerStatementRecordRepositoryIT {
+
+    private static final String GIVEN_RECORD_ACCOUNT_NUMBER = "NL12RABO0123456789";
+
+    @Autowired
+    CustomerStatementRecordRepository customerStatementRecordRepository;
+
+    @Autowired
+    CustomerStatementController customerStatementController;
+
+    @Autowired
+    ShardRouter shardRouter;
+
+    @BeforeEach
+    public void setUp() {
+        customerStatementRecordRepository.deleteAll();
+        shardRouter.getShardJdbcTemplates().forEach(jdbcTemplate -> jdbcTemplate.update("DELETE FROM account_summary"));
+    }
+
+    @Test
+    void addCustomerStatementRecordTestRecordsAreStoredOnTheShardOfTheirReference() {
+        for (int transactionReference = 1; transactionReference <= 30; transactionReference++) {
+            // When
+            ResponseBody returnedResponseBody = customerStatementController.addCustomerStatementRecord(buildRecordDto(transactionReference));
+
+            // Then
+            assertEquals(SUCCESSFUL, returnedResponseBody.getResult());
+        }
+
+        assertEquals(30, customerStatementRecordRepository.count());
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            JdbcTemplate shardJdbcTemplate = shardRouter.getShardJdbcTemplates().get(shard);
+            List<Integer> shardReferences = shardJdbcTemplate.queryForList("SELECT transaction_reference FROM customer_statement_record", Integer.class);
+            for (Integer transactionReference : shardReferences) {
+                assertEquals(shard, shardRouter.shardOf(transactionReference));
+            }
+        }
+    }
+
+    @Test
+    void addCustomerStatementRecordTestDuplicateReferenceIsDetected() {
+        // Given
+        customerStatementController.addCustomerStatementRecord(buildRecordDto(1234));
+
+        // When
+        ResponseBody returnedResponseBody = customerStatementController.addCustomerStatementRecord(buildRecordDto(1234));
+
+        // Then
+        assertEquals(DUPLICATE_REFERENCE, returnedResponseBody.getResult());
+        assertEquals(1, customerStatementRecordRepository.count());
+    }
+
+    @Test
+    void insertAllTestDuplicateOnOneShardRollsBackAllShards() {
+        // Given
+        customerStatementRecordRepository.save(buildRecord(7));
+        List<CustomerStatementRecord> givenRecords = new ArrayList<>();
+        for (int transactionReference = 1; transactionReference <= 10; transactionReference++) {
+            givenRecords.add(buildRecord(transactionReference));
+        }
+
+        // When
+        assertThrows(DataIntegrityViolationException.class, () -> customerStatementRecordRepository.insertAll(givenRecords));
+
+        // Then
+        assertEquals(1, customerStatementRecordRepository.count());
+        assertEquals(1, customerStatementRecordRepository.findByTransactionReferenceIn(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10)).size());
+        assertEquals(0, customerStatementController.getAccountSummary(GIVEN_RECORD_ACCOUNT_NUMBER).getRecordCount());
+    }
+
+    @Test
+    void getCustomerStatementRecordsTestPagesAreMergedOverTheShards() {
+        // Given
+        List<CustomerStatementRecord> givenRecords = new ArrayList<>();
+        for (int transactionReference = 1; transactionReference <= 10; transactionReference++) {
+            givenRecords.add(buildRecord(transactionReference));
+        }
+        customerStatementRecordRepository.insertAll(givenRecords);
+
+        // When
+        CustomerStatementRecordPageDto returnedFirstPage = customerStatementController.getCustomerStatementRecords(GIVEN_RECORD_ACCOUNT_NUMBER, null, 4);
+        CustomerStatementRecordPageDto returnedSecondPage = customerStatementController.getCustomerStatementRecords(GIVEN_RECORD_ACCOUNT_NUMBER,
+                returnedFirstPage.getNextAfterTransactionReference(), 4);
+
+        // Then
+        assertEquals(Arrays.asList(1, 2, 3, 4), getReferences(returnedFirstPage));
+        assertEquals(Arrays.asList(5, 6, 7, 8), getReferences(returnedSecondPage));
+        assertEquals(8, returnedSecondPage.getNextAfterTransactionReference());
+    }
+
+    @Test
+    void exportCustomerStatementRecordsTestShardsAreMergedInOrder() throws Exception {
+        // Given
+        List<CustomerStatementRecord> givenRecords = new ArrayList<>();
+        for (int transactionReference = 1; transactionReference <= 100; transactionReference++) {
+            givenRecords.add(buildRecord(transactionReference));
+        }
+        customerStatementRecordRepository.insertAll(givenRecords);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        customerStatementController.exportCustomerStatementRecords(GIVEN_RECORD_ACCOUNT_NUMBER, 11, 90, "text/csv", "", response);
+
+        // Then
+        String[] exportedLines = response.getContentAsString().split("\n");
+        assertEquals(81, exportedLines.length);
+        for (int transactionReference = 11; transactionReference <= 90; transactionReference++) {
+            assertTrue(exportedLines[transactionReference - 10].startsWith(transactionReference + ","), exportedLines[transactionReference - 10]);
+        }
+    }
+
+    @Test
+    void insertAllTestAccountSummaryIsKeptOnTheFirstShard() {
+        // Given
+        List<CustomerStatementRecord> givenRecords = new ArrayList<>();
+        for (int transactionReference = 1; transactionReference <= 20; transactionReference++) {
+            givenRecords.add(buildRecord(transactionReference));
+        }
+
+        // When
+        customerStatementRecordRepository.insertAll(givenRecords);
+        customerStatementController.addCustomerStatementRecord(buildRecordDto(21));
+
+        // Then
+        AccountSummaryDto returnedSummary = customerStatementController.getAccountSummary(GIVEN_RECORD_ACCOUNT_NUMBER);
+        assertEquals(21, returnedSummary.getRecordCount());
+        assertEquals(-210, returnedSummary.getTotalMutation());
+        assertEquals(90, returnedSummary.getLastEndBalance());
+        for (int shard = 1; shard < shardRouter.getShardCount(); shard++) {
+            assertEquals(0, shardRouter.getShardJdbcTemplates().get(shard).queryForObject("SELECT COUNT(*) FROM account_summary", Integer.class));
+        }
+    }
+
+    private static List<Integer> getReferences(CustomerStatementRecordPageDto page) {
+        return page.getRecords().stream().map(CustomerStatementRecordDto::getTransactionReference).collect(Collectors.toList());
+    }
+
+    private CustomerStatementRecord buildRecord(int transactionReference) {
+        CustomerStatementRecord databaseRecord = new CustomerStatementRecord();
+
+        databaseRecord.setTransactionReference(transactionReference);
+        databaseRecord.setAccountNumber(GIVEN_RECORD_ACCOUNT_NUMBER);
+        databaseRecord.setDescription("beautiful record");
+        databaseRecord.setStartBalance(100);
+        databaseRecord.setMutation(-10);
+        databaseRecord.setEndBalance(90);
+
+        return databaseRecord;
+    }
+
+    private CustomerStatementRecordDto buildRecordDto(int transactionReference) {
+        CustomerStatementRecordDto customerStatementRecordDto = new CustomerStatementRecordDto();
+
+        customerStatementRecordDto.setTransactionReference(transactionReference);
+        customerStatementRecordDto.setAccountNumber(GIVEN_RECORD_ACCOUNT_NUMBER);
+        customerStatementRecordDto.setDescription("beautiful record");
+        customerStatementRecordDto.setStartBalance(100);
+        customerStatementRecordDto.setMutation(-10);
+        customerStatementRecordDto.setEndBalance(90);
+
+        return customerStatementRecordDto;
+    }
+}
@@ -0,0 +1,97 @@
+package nl.rabobank.customerstatementservice.infrastructure;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class TransactionReferenceIndexTest {
+
+    private static final String ACCOUNT_NUMBER = "NL12RABO0123456789";
+
+    private static final String OTHER_ACCOUNT_NUMBER = "NL12RABO0987654321";
+
+    @Mock
+    CustomerStatementRecordRepository customerStatementRecordRepository;
+
+    private TransactionReferenceIndex transactionReferenceIndex;
+
+    @BeforeEach
+    public void setUp() {
+        initMocks(this);
+        when(customerStatementRecordRepository.findById(anyInt())).thenReturn(Optional.empty());
+        this.transactionReferenceIndex = new TransactionReferenceIndex(customerStatementRecordRepository, 4);
+    }
+
+    @Test
+    void existsTestRegisteredReferencesAreFoundWithoutDatabase() {
+        // Given
+        transactionReferenceIndex.registerInserted(1234, ACCOUNT_NUMBER);
+        transactionReferenceIndex.registerInserted(0, OTHER_ACCOUNT_NUMBER);
+        transactionReferenceIndex.registerInserted(-1, ACCOUNT_NUMBER);
+
+        // Then
+        assertTrue(transactionReferenceIndex.exists(1234));
+        assertTrue(transactionReferenceIndex.exists(0));
+        assertTrue(transactionReferenceIndex.exists(-1));
+        assertFalse(transactionReferenceIndex.exists(1235));
+        assertEquals(OTHER_ACCOUNT_NUMBER, transactionReferenceIndex.getAccountNumber(0));
+        assertEquals(ACCOUNT_NUMBER, transactionReferenceIndex.getAccountNumber(-1));
+
+        verifyNoInteractions(customerStatementRecordRepository);
+    }
+
+    @Test
+    void registerInsertedTestGrowsBeyondExpectedReferences() {
+        // Given
+        int givenReferences = 100_000;
+
+        // When
+        for (int reference = 0; reference < givenReferences; reference++) {
+            transactionReferenceIndex.registerInserted(reference * 31, reference % 2 == 0 ? ACCOUNT_NUMBER : OTHER_ACCOUNT_NUMBER);
+        }
+        transactionReferenceIndex.registerInserted(0, ACCOUNT_NUMBER);
+
+        // Then
+        assertEquals(givenReferences, transactionReferenceIndex.size());
+        for (int reference = 0; reference < givenReferences; reference++) {
+            assertTrue(transactionReferenceIndex.exists(reference * 31));
+            assertFalse(transactionReferenceIndex.exists(reference * 31 + 1));
+        }
+        assertEquals(OTHER_ACCOUNT_NUMBER, transactionReferenceIndex.getAccountNumber(31));
+    }
+
+    @Test
+    void getAccountNumberTestUnknownReferenceFallsBackToDatabase() {
+        // When
+        String accountNumber = transactionReferenceIndex.getAccountNumber(1234);
+
+        // Then
+        assertNull(accountNumber);
+        verify(customerStatementRecordRepository).findById(1234);
+    }
+
+    @Test
+    void getAccountNumbersTestOnlyReturnsExistingReferences() {
+        // Given
+        transactionReferenceIndex.registerInserted(1, ACCOUNT_NUMBER);
+        transactionReferenceIndex.registerInserted(3, OTHER_ACCOUNT_NUMBER);
+
+        // When
+        Map<Integer, String> accountNumbers = transactionReferenceIndex.getAccountNumbers(Arrays.asList(1, 2, 3));
+
+        // Then
+        assertEquals(2, accountNumbers.size());
+        assertEquals(ACCOUNT_NUMBER, accountNumbers.get(1));
+        assertEquals(OTHER_ACCOUNT_NUMBER, accountNumbers.get(3));
+        verifyNoInteractions(customerStatementRecordRepository);
+    }
+}
@@ -0,0 +1,187 @@
+package nl.rabobank.customerstatementservice.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountSequencerTest {
+
+    private static final String ACCOUNT_NUMBER = "NL12RABO0123456789";
+
+    private AccountSequencer accountSequencer;
+
+    private ExecutorService executorService;
+
+    @BeforeEach
+    public void setUp() {
+        accountSequencer = new AccountSequencer(16);
+        executorService = Executors.newFixedThreadPool(10);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    void sequenceTestSameAccountRunsOneAtATimeInArrivalOrder() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> appliedRecords = new CopyOnWriteArrayList<>();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        executorService.submit(() -> accountSequencer.sequence(ACCOUNT_NUMBER, () -> await(release)));
+
+        // When
+        List<Future<?>> results = new ArrayList<>();
+        for (int record = 0; record < 5; record++) {
+            int givenRecord = record;
+            results.add(executorService.submit(() -> accountSequencer.sequence(ACCOUNT_NUMBER, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                appliedRecords.add(givenRecord);
+                running.decrementAndGet();
+                return null;
+            })));
+            waitUntilWaiting(ACCOUNT_NUMBER, record + 1);
+        }
+        release.countDown();
+        for (Future<?> result : results) {
+            result.get(5, TimeUnit.SECONDS);
+        }
+
+        // Then
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), appliedRecords);
+        assertEquals(1, maxRunning.get());
+    }
+
+    @Test
+    void sequenceTestOtherAccountsAreNotBlocked() throws Exception {
+        // Given
+        String otherAccountNumber = findAccountOnOtherStripe(ACCOUNT_NUMBER);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> blockedRecord = executorService.submit(() -> accountSequencer.sequence(ACCOUNT_NUMBER, () -> await(release)));
+
+        // When
+        Future<String> otherRecord = executorService.submit(() -> accountSequencer.sequence(otherAccountNumber, () -> "applied"));
+
+        // Then
+        assertEquals("applied", otherRecord.get(5, TimeUnit.SECONDS));
+        assertFalse(blockedRecord.isDone());
+        release.countDown();
+        blockedRecord.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void sequenceTestChunksLockingTheSameStripesDoNotDeadlock() throws Exception {
+        // Given
+        String otherAccountNumber = findAccountOnOtherStripe(ACCOUNT_NUMBER);
+        AtomicInteger appliedChunks = new AtomicInteger();
+
+        // When
+        List<Future<?>> results = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            List<String> givenAccountNumbers = thread % 2 == 0
+                    ? Arrays.asList(ACCOUNT_NUMBER, otherAccountNumber)
+                    : Arrays.asList(otherAccountNumber, ACCOUNT_NUMBER, otherAccountNumber);
+            results.add(executorService.submit(() -> {
+                for (int chunk = 0; chunk < 1000; chunk++) {
+                    accountSequencer.sequence(givenAccountNumbers, appliedChunks::incrementAndGet);
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get(10, TimeUnit.SECONDS);
+        }
+
+        // Then
+        assertEquals(4000, appliedChunks.get());
+        assertEquals(0, accountSequencer.getWaitingCount(ACCOUNT_NUMBER));
+        // Every stripe has been unlocked again
+        assertEquals("applied", executorService.submit(() -> accountSequencer.sequence(ACCOUNT_NUMBER, () -> "applied")).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void sequencePerStripeTestHoldsOnlyTheStripeOfTheRunningGroup() {
+        // Given
+        String otherAccountNumber = findAccountOnOtherStripe(ACCOUNT_NUMBER);
+        List<String> givenRecords = Arrays.asList(ACCOUNT_NUMBER + ":1", otherAccountNumber + ":2", ACCOUNT_NUMBER + ":3");
+        List<List<String>> groups = new ArrayList<>();
+
+        // When
+        List<String> results = accountSequencer.sequencePerStripe(givenRecords, record -> record.split(":")[0], stripeRecords -> {
+            groups.add(stripeRecords);
+            String accountNumber = stripeRecords.get(0).split(":")[0];
+            String accountOfOtherGroup = accountNumber.equals(ACCOUNT_NUMBER) ? otherAccountNumber : ACCOUNT_NUMBER;
+            try {
+                // The other stripe is free while this group runs
+                executorService.submit(() -> accountSequencer.sequence(accountOfOtherGroup, () -> "applied")).get(5, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            List<String> stripeResults = new ArrayList<>();
+            stripeRecords.forEach(record -> stripeResults.add(record + " applied"));
+            return stripeResults;
+        });
+
+        // Then
+        assertEquals(Arrays.asList(ACCOUNT_NUMBER + ":1 applied", otherAccountNumber + ":2 applied", ACCOUNT_NUMBER + ":3 applied"), results);
+        assertEquals(2, groups.size());
+        assertTrue(groups.contains(Arrays.asList(ACCOUNT_NUMBER + ":1", ACCOUNT_NUMBER + ":3")));
+        assertEquals(0, accountSequencer.getWaitingCount(ACCOUNT_NUMBER));
+    }
+
+    @Test
+    void stripeOfTestSpreadsAccountsOverAllStripes() {
+        // Given
+        int[] accountsPerStripe = new int[accountSequencer.getStripeCount()];
+
+        // When
+        for (int account = 0; account < 1600; account++) {
+            accountsPerStripe[accountSequencer.stripeOf(String.format("NL12RABO%010d", account))]++;
+        }
+
+        // Then
+        for (int accounts : accountsPerStripe) {
+            assertTrue(accounts > 50 && accounts < 150, "Accounts per stripe: " + Arrays.toString(accountsPerStripe));
+        }
+    }
+
+    private String findAccountOnOtherStripe(String accountNumber) {
+        for (int account = 0; ; account++) {
+            String otherAccountNumber = String.format("NL12RABO%010d", account);
+            if (accountSequencer.stripeOf(otherAccountNumber) != accountSequencer.stripeOf(accountNumber)) {
+                return otherAccountNumber;
+            }
+        }
+    }
+
+    private void waitUntilWaiting(String accountNumber, int expectedWaiting) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (accountSequencer.getWaitingCount(accountNumber) < expectedWaiting) {
+            assertTrue(System.nanoTime() < deadline, "Records didn't start waiting for the account");
+            Thread.sleep(1);
+        }
+    }
+
+    private static Object await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,115 @@
+package nl.rabobank.customerstatementservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecord;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecordStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class CustomerStatementExportServiceTest {
+
+    private static final String GIVEN_RECORD_ACCOUNT_NUMBER = "NL12RABO0123456789";
+
+    @Mock
+    CustomerStatementRecordStore customerStatementRecordStore;
+
+    private CustomerStatementExportService customerStatementExportService;
+
+    private final AtomicBoolean streamClosed = new AtomicBoolean();
+
+    @BeforeEach
+    public void setUp() {
+        initMocks(this);
+        when(customerStatementRecordStore.stream(GIVEN_RECORD_ACCOUNT_NUMBER, 1, 2))
+                .thenReturn(Stream.of(buildRecord(1), buildRecord(2)).onClose(() -> streamClosed.set(true)));
+
+        this.customerStatementExportService = new CustomerStatementExportService(customerStatementRecordStore, new ObjectMapper());
+    }
+
+    @Test
+    void exportCustomerStatementRecordsTestRecordsAreWrittenAsNdjson() throws Exception {
+        // Given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // When
+        long exportedCount = customerStatementExportService.exportCustomerStatementRecords(GIVEN_RECORD_ACCOUNT_NUMBER, 1, 2, false, outputStream);
+
+        // Then
+        assertEquals(2, exportedCount);
+        assertEquals(buildJsonRecord(1) + "\n" + buildJsonRecord(2) + "\n", outputStream.toString(StandardCharsets.UTF_8.name()));
+        assertTrue(streamClosed.get());
+    }
+
+    @Test
+    void exportCustomerStatementRecordsTestRecordsAreWrittenAsCsvWithHeader() throws Exception {
+        // Given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // When
+        customerStatementExportService.exportCustomerStatementRecords(GIVEN_RECORD_ACCOUNT_NUMBER, 1, 2, true, outputStream);
+
+        // Then
+        assertEquals("transactionReference,accountNumber,startBalance,mutation,description,endBalance\n" +
+                "1,NL12RABO0123456789,100,-10,\"beautiful, exported record\",90\n" +
+                "2,NL12RABO0123456789,100,-10,\"beautiful, exported record\",90\n", outputStream.toString(StandardCharsets.UTF_8.name()));
+        assertTrue(streamClosed.get());
+    }
+
+    @Test
+    void exportCustomerStatementRecordsTestNothingToExportWritesNothing() throws Exception {
+        // Given
+        when(customerStatementRecordStore.stream(null, null, null)).thenReturn(Stream.empty());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // When
+        long exportedCount = customerStatementExportService.exportCustomerStatementRecords(null, null, null, false, outputStream);
+
+        // Then
+        assertEquals(0, exportedCount);
+        assertEquals(0, outputStream.size());
+    }
+
+    @Test
+    void exportCustomerStatementRecordsTestStreamIsClosedWhenReadingFails() {
+        // Given
+        Stream<CustomerStatementRecord> failingRecords = Stream.<CustomerStatementRecord>generate(() -> {
+            throw new IllegalStateException("Connection lost");
+        }).onClose(() -> streamClosed.set(true));
+        when(customerStatementRecordStore.stream(GIVEN_RECORD_ACCOUNT_NUMBER, null, null)).thenReturn(failingRecords);
+
+        // When
+        assertThrows(IllegalStateException.class, () -> customerStatementExportService.exportCustomerStatementRecords(
+                GIVEN_RECORD_ACCOUNT_NUMBER, null, null, false, new ByteArrayOutputStream()));
+
+        // Then
+        assertTrue(streamClosed.get());
+    }
+
+    private static String buildJsonRecord(int transactionReference) {
+        return "{\"transactionReference\":" + transactionReference + ",\"accountNumber\":\"NL12RABO0123456789\"," +
+                "\"startBalance\":100,\"mutation\":-10,\"description\":\"beautiful, exported record\",\"endBalance\":90}";
+    }
+
+    private static CustomerStatementRecord buildRecord(int transactionReference) {
+        CustomerStatementRecord databaseRecord = new CustomerStatementRecord();
+
+        databaseRecord.setTransactionReference(transactionReference);
+        databaseRecord.setAccountNumber(GIVEN_RECORD_ACCOUNT_NUMBER);
+        databaseRecord.setDescription("beautiful, exported record");
+        databaseRecord.setStartBalance(100);
+        databaseRecord.setMutation(-10);
+        databaseRecord.setEndBalance(90);
+
+        return databaseRecord;
+    }
+}
@@ -0,0 +1,279 @@
+package nl.rabobank.customerstatementservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import nl.rabobank.customerstatementservice.dto.ErrorRecord;
+import nl.rabobank.customerstatementservice.dto.FileIngestResultDto;
+import nl.rabobank.customerstatementservice.dto.ResponseBody;
+import nl.rabobank.customerstatementservice.dto.ResultType;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecord;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecordStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class CustomerStatementFileIngestServiceTest {
+
+    private static final String HEADER_LINE = "transactionReference,accountNumber,startBalance,mutation,description,endBalance\n";
+
+    @Mock
+    CustomerStatementService customerStatementService;
+
+    @Mock
+    CustomerStatementRecordStore customerStatementRecordStore;
+
+    @TempDir
+    Path directory;
+
+    private final List<Integer> ingestedReferences = Collections.synchronizedList(new ArrayList<>());
+
+    private final Map<Integer, CustomerStatementRecord> storedRecords = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    public void setUp() {
+        initMocks(this);
+        when(customerStatementService.getBatchChunkSize()).thenReturn(2);
+        when(customerStatementService.addMappedCustomerStatementRecordChunk(anyList()))
+                .thenAnswer(invocation -> ingest(invocation.getArgument(0)));
+        when(customerStatementRecordStore.stream(anyString(), anyInt(), anyInt()))
+                .thenAnswer(invocation -> Stream.ofNullable(storedRecords.get(invocation.<Integer>getArgument(1))));
+    }
+
+    @Test
+    void ingestFileTestRecordsAreIngestedAndRejectionsReported() throws Exception {
+        // Given
+        writeFile("statements.csv", HEADER_LINE +
+                buildCsvRecord(1) + "\n" +
+                "2,NL12RABO0123456789,100,-10,,\n" +
+                "\n" +
+                buildCsvRecord(3) + "\r\n" +
+                buildCsvRecord(4));
+
+        // When
+        FileIngestResultDto returnedResult = buildService(1).ingestFile("statements.csv");
+
+        // Then
+        assertEquals(4, returnedResult.getRecordCount());
+        assertEquals(2, returnedResult.getRejectedRecordCount());
+        assertEquals("statements.csv.report.ndjson", returnedResult.getReportFileName());
+        assertEquals(List.of(1, 3, 4), ingestedReferences);
+        assertEquals("{\"result\":\"BAD_REQUEST\",\"errorRecords\":[{\"reference\":2,\"accountNumber\":\"NL12RABO0123456789\"}]}\n" +
+                        "{\"result\":\"DUPLICATE_REFERENCE\",\"errorRecords\":[{\"reference\":3,\"accountNumber\":\"NL12RABO0987654321\"}]}\n",
+                Files.readString(directory.resolve("statements.csv.report.ndjson")));
+        assertTrue(FileIngestCheckpoint.read(directory.resolve("statements.csv.checkpoint")).getSegments().stream()
+                .allMatch(FileIngestCheckpoint.Segment::isDone));
+    }
+
+    @Test
+    void ingestFileTestSegmentsAreIngestedByWorkers() throws Exception {
+        // Given
+        writeFile("statements.csv", HEADER_LINE + IntStream.rangeClosed(10, 99)
+                .mapToObj(this::buildCsvRecord)
+                .collect(Collectors.joining("\n", "", "\n")));
+
+        // When
+        FileIngestResultDto returnedResult = buildService(4).ingestFile("statements.csv");
+
+        // Then
+        assertEquals(90, returnedResult.getRecordCount());
+        assertEquals(4, FileIngestCheckpoint.read(directory.resolve("statements.csv.checkpoint")).getSegments().size());
+        List<Integer> sortedReferences = new ArrayList<>(ingestedReferences);
+        Collections.sort(sortedReferences);
+        assertEquals(IntStream.rangeClosed(10, 99).boxed().collect(Collectors.toList()), sortedReferences);
+    }
+
+    @Test
+    void ingestFileTestInterruptedIngestionResumesFromCheckpoint() throws Exception {
+        // Given
+        writeFile("statements.csv", HEADER_LINE + buildCsvRecord(1) + "\n" + buildCsvRecord(2) + "\n" + buildCsvRecord(4) + "\n" +
+                buildCsvRecord(5) + "\n" + buildCsvRecord(6) + "\n");
+        when(customerStatementService.addMappedCustomerStatementRecordChunk(anyList()))
+                .thenAnswer(invocation -> ingest(invocation.getArgument(0)))
+                .thenThrow(new IllegalStateException("Database went away"));
+        CustomerStatementFileIngestService customerStatementFileIngestService = buildService(1);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> customerStatementFileIngestService.ingestFile("statements.csv"));
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, exception.getStatus());
+        doAnswer(invocation -> ingest(invocation.getArgument(0)))
+                .when(customerStatementService).addMappedCustomerStatementRecordChunk(anyList());
+
+        // When
+        FileIngestResultDto returnedResult = customerStatementFileIngestService.ingestFile("statements.csv");
+
+        // Then
+        assertEquals(3, returnedResult.getRecordCount());
+        assertEquals(List.of(1, 2, 4, 5, 6), ingestedReferences);
+        assertEquals(0, customerStatementFileIngestService.ingestFile("statements.csv").getRecordCount());
+    }
+
+    @Test
+    void ingestFileTestChunkHandledAgainAfterInterruptionIsReportedOnce() throws Exception {
+        // Given
+        when(customerStatementService.getBatchChunkSize()).thenReturn(10);
+        writeFile("statements.csv", HEADER_LINE +
+                buildCsvRecord(1) + "\n" +
+                "2,NL12RABO0123456789,100,-10,,\n" +
+                buildCsvRecord(3) + "\n" +
+                buildCsvRecord(4) + "\n");
+        CustomerStatementFileIngestService customerStatementFileIngestService = buildService(1);
+        Path reportPath = directory.resolve("statements.csv.report.ndjson");
+        interruptBeforeFirstChunk(customerStatementFileIngestService);
+        FileIngestCheckpoint checkpointBeforeChunk = FileIngestCheckpoint.read(checkpointPath());
+        customerStatementFileIngestService.ingestFile("statements.csv");
+        String reportAfterChunk = Files.readString(reportPath);
+        // As if the run was interrupted after storing the chunk and writing its report, before moving the checkpoint past it.
+        checkpointBeforeChunk.write(checkpointPath());
+
+        // When
+        FileIngestResultDto returnedResult = customerStatementFileIngestService.ingestFile("statements.csv");
+
+        // Then
+        assertEquals(4, returnedResult.getRecordCount());
+        assertEquals(2, returnedResult.getRejectedRecordCount());
+        assertEquals(reportAfterChunk, Files.readString(reportPath));
+        assertEquals(List.of(1, 3, 4, 1, 3, 4), ingestedReferences);
+    }
+
+    @Test
+    void ingestFileTestStoredRecordWithOtherContentIsStillADuplicate() throws Exception {
+        // Given
+        writeFile("statements.csv", HEADER_LINE + buildCsvRecord(1) + "\n");
+        CustomerStatementFileIngestService customerStatementFileIngestService = buildService(1);
+        interruptBeforeFirstChunk(customerStatementFileIngestService);
+        CustomerStatementRecord otherRecord = new CustomerStatementRecord();
+        otherRecord.setTransactionReference(1);
+        otherRecord.setAccountNumber("NL12RABO0123456789");
+        otherRecord.setStartBalance(200);
+        otherRecord.setMutation(-10);
+        otherRecord.setEndBalance(190);
+        storedRecords.put(1, otherRecord);
+
+        // When
+        FileIngestResultDto returnedResult = customerStatementFileIngestService.ingestFile("statements.csv");
+
+        // Then
+        assertEquals(1, returnedResult.getRejectedRecordCount());
+        assertTrue(Files.readString(directory.resolve("statements.csv.report.ndjson")).contains("DUPLICATE_REFERENCE"));
+    }
+
+    @Test
+    void ingestFileTestChangedFileResultsInConflict() throws Exception {
+        // Given
+        Path file = writeFile("statements.csv", HEADER_LINE + buildCsvRecord(1) + "\n");
+        CustomerStatementFileIngestService customerStatementFileIngestService = buildService(1);
+        customerStatementFileIngestService.ingestFile("statements.csv");
+        Files.writeString(file, HEADER_LINE + buildCsvRecord(1) + "\n" + buildCsvRecord(2) + "\n");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(0));
+
+        // When
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> customerStatementFileIngestService.ingestFile("statements.csv"));
+
+        // Then
+        assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+        assertEquals(List.of(1), ingestedReferences);
+    }
+
+    @Test
+    void ingestFileTestMissingHeaderFieldResultsInBadRequest() throws Exception {
+        // Given
+        writeFile("statements.csv", "transactionReference,accountNumber\n1,NL12RABO0123456789\n");
+
+        // When
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> buildService(1).ingestFile("statements.csv"));
+
+        // Then
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+    }
+
+    @Test
+    void ingestFileTestOnlyFilesOfTheDirectoryAreFound() throws Exception {
+        // Given
+        writeFile("statements.csv", HEADER_LINE);
+        CustomerStatementFileIngestService customerStatementFileIngestService = new CustomerStatementFileIngestService(
+                customerStatementService, customerStatementRecordStore, new ObjectMapper(), directory.resolve("sub").toString(), 1);
+        Files.createDirectory(directory.resolve("sub"));
+
+        // When
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> customerStatementFileIngestService.ingestFile("../statements.csv"));
+
+        // Then
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+        assertEquals(HttpStatus.NOT_FOUND, assertThrows(ResponseStatusException.class,
+                () -> new CustomerStatementFileIngestService(customerStatementService, customerStatementRecordStore, new ObjectMapper(), "", 1)
+                        .ingestFile("statements.csv")).getStatus());
+    }
+
+    /**
+     * Leaves the checkpoint of a run which stopped before handling any chunk behind, by running with a failing service.
+     */
+    private void interruptBeforeFirstChunk(CustomerStatementFileIngestService customerStatementFileIngestService) {
+        doAnswer(invocation -> {
+            throw new IllegalStateException("Database went away");
+        }).when(customerStatementService).addMappedCustomerStatementRecordChunk(anyList());
+        assertThrows(ResponseStatusException.class, () -> customerStatementFileIngestService.ingestFile("statements.csv"));
+        doAnswer(invocation -> ingest(invocation.getArgument(0)))
+                .when(customerStatementService).addMappedCustomerStatementRecordChunk(anyList());
+    }
+
+    private Path checkpointPath() {
+        return directory.resolve("statements.csv.checkpoint");
+    }
+
+    private List<ResponseBody> ingest(List<CustomerStatementRecord> chunk) {
+        List<ResponseBody> responseBodies = new ArrayList<>(chunk.size());
+        for (CustomerStatementRecord record : chunk) {
+            int transactionReference = record.getTransactionReference();
+            ingestedReferences.add(transactionReference);
+            if (transactionReference == 3) {
+                responseBodies.add(new ResponseBody(ResultType.DUPLICATE_REFERENCE, Collections.singletonList(new ErrorRecord(3, "NL12RABO0987654321"))));
+            } else if (storedRecords.putIfAbsent(transactionReference, record) != null) {
+                responseBodies.add(new ResponseBody(ResultType.DUPLICATE_REFERENCE,
+                        Collections.singletonList(new ErrorRecord(transactionReference, record.getAccountNumber()))));
+            } else {
+                responseBodies.add(ResponseBody.of(ResultType.SUCCESSFUL));
+            }
+        }
+        return responseBodies;
+    }
+
+    private CustomerStatementFileIngestService buildService(int workers) {
+        return new CustomerStatementFileIngestService(customerStatementService, customerStatementRecordStore, new ObjectMapper(),
+                directory.toString(), workers);
+    }
+
+    private Path writeFile(String fileName, String content) throws IOException {
+        return Files.write(directory.resolve(fileName), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String buildCsvRecord(int transactionReference) {
+        return transactionReference + ",NL12RABO0123456789,100,-10,beautiful record,90";
+    }
+}
@@ -0,0 +1,95 @@
+package nl.rabobank.customerstatementservice.service;
+
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecord;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerStatementFileParserTest {
+
+    private static final String HEADER_LINE = "transactionReference,accountNumber,startBalance,mutation,description,endBalance";
+
+    @Test
+    void parseLineTestCompleteRecord() {
+        // Given
+        CustomerStatementFileParser parser = CustomerStatementFileParser.forHeader(HEADER_LINE);
+
+        // When
+        boolean complete = parseLine(parser, "1,NL12RABO0123456789,100,-10,beautiful record,90\r");
+
+        // Then
+        assertTrue(complete);
+        CustomerStatementRecord returnedRecord = parser.toCustomerStatementRecord();
+        assertEquals(1, returnedRecord.getTransactionReference());
+        assertEquals("NL12RABO0123456789", returnedRecord.getAccountNumber());
+        assertEquals(100, returnedRecord.getStartBalance());
+        assertEquals(-10, returnedRecord.getMutation());
+        assertEquals("beautiful record", returnedRecord.getDescription());
+        assertEquals(90, returnedRecord.getEndBalance());
+    }
+
+    @Test
+    void parseLineTestColumnsInTheOrderOfTheHeader() {
+        // Given
+        CustomerStatementFileParser parser = CustomerStatementFileParser.forHeader("endBalance,ignored,mutation,startBalance,accountNumber,transactionReference");
+
+        // When
+        boolean complete = parseLine(parser, "-2147483648,whatever,-10,100,NL12RABO0123456789,2147483647");
+
+        // Then
+        assertTrue(complete);
+        CustomerStatementRecord returnedRecord = parser.toCustomerStatementRecord();
+        assertEquals(Integer.MAX_VALUE, returnedRecord.getTransactionReference());
+        assertEquals(Integer.MIN_VALUE, returnedRecord.getEndBalance());
+        assertNull(returnedRecord.getDescription());
+    }
+
+    @Test
+    void parseLineTestQuotedValues() {
+        // Given
+        CustomerStatementFileParser parser = CustomerStatementFileParser.forHeader(HEADER_LINE);
+
+        // When
+        boolean complete = parseLine(parser, "\"3\",NL12RABO0123456789,100,-10,\"a \"\"quoted\"\", record\",90");
+
+        // Then
+        assertTrue(complete);
+        assertEquals(3, parser.toCustomerStatementRecord().getTransactionReference());
+        assertEquals("a \"quoted\", record", parser.toCustomerStatementRecord().getDescription());
+    }
+
+    @Test
+    void parseLineTestIncompleteOrMalformedRecords() {
+        // Given
+        CustomerStatementFileParser parser = CustomerStatementFileParser.forHeader(HEADER_LINE);
+
+        // Then
+        assertFalse(parseLine(parser, "2,NL12RABO0123456789,100,-10,,"));
+        assertEquals(2, parser.getTransactionReference());
+        assertEquals("NL12RABO0123456789", parser.getAccountNumber());
+        assertFalse(parseLine(parser, "2,NL12RABO0123456789,100"));
+        assertFalse(parseLine(parser, "x2,NL12RABO0123456789,100,-10,,90"));
+        assertNull(parser.getTransactionReference());
+        assertFalse(parseLine(parser, "2,NL12RABO0123456789,100,-10,,2147483648"));
+        assertFalse(parseLine(parser, "2,\"NL12RABO0123456789,100,-10,,90"));
+        assertTrue(parseLine(parser, "2,NL12RABO0123456789,100,-10,,90"));
+    }
+
+    @Test
+    void forHeaderTestMissingRequiredFieldIsRejected() {
+        // Then
+        assertThrows(IllegalArgumentException.class,
+                () -> CustomerStatementFileParser.forHeader("transactionReference,accountNumber,startBalance,mutation,description"));
+    }
+
+    private boolean parseLine(CustomerStatementFileParser parser, String line) {
+        // The line is put in the middle of a larger buffer, like a line of a file.
+        byte[] bytes = ("ignored\n" + line + "\nignored").getBytes(StandardCharsets.UTF_8);
+        int start = "ignored\n".length();
+
+        return parser.parseLine(ByteBuffer.wrap(bytes), start, start + line.getBytes(StandardCharsets.UTF_8).length);
+    }
+}
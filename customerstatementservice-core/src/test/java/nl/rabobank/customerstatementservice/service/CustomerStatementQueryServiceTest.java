@@ -0,0 +1,198 @@
+package nl.rabobank.customerstatementservice.service;
+
+import nl.rabobank.customerstatementservice.dto.AccountSummaryDto;
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordDto;
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordPageDto;
+import nl.rabobank.customerstatementservice.infrastructure.AccountSummary;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecordStore;
+import nl.rabobank.customerstatementservice.infrastructure.StoredCustomerStatementRecord;
+import nl.rabobank.customerstatementservice.mapper.CustomerStatementMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class CustomerStatementQueryServiceTest {
+
+    private static final String GIVEN_RECORD_ACCOUNT_NUMBER = "NL12RABO0123456789";
+
+    @Mock
+    CustomerStatementRecordStore customerStatementRecordStore;
+
+    private CustomerStatementQueryService customerStatementQueryService;
+
+    @BeforeEach
+    public void setUp() {
+        initMocks(this);
+        this.customerStatementQueryService = new CustomerStatementQueryService(customerStatementRecordStore, new CustomerStatementMapper());
+    }
+
+    @Test
+    void getCustomerStatementRecordsTestFullPageContinuesAfterItsLastReference() {
+        // Given
+        when(customerStatementRecordStore.findPage(GIVEN_RECORD_ACCOUNT_NUMBER, null, 3))
+                .thenReturn(Arrays.asList(buildStoredRecord(1), buildStoredRecord(2), buildStoredRecord(3)));
+
+        // When
+        CustomerStatementRecordPageDto returnedPage = customerStatementQueryService.getCustomerStatementRecords(GIVEN_RECORD_ACCOUNT_NUMBER, null, 2);
+
+        // Then
+        assertEquals(Arrays.asList(1, 2), getReferences(returnedPage));
+        assertEquals(2, returnedPage.getNextAfterTransactionReference());
+        CustomerStatementRecordDto returnedRecord = returnedPage.getRecords().get(0);
+        assertEquals(GIVEN_RECORD_ACCOUNT_NUMBER, returnedRecord.getAccountNumber());
+        assertEquals(100, returnedRecord.getStartBalance());
+        assertEquals(-10, returnedRecord.getMutation());
+        assertEquals(90, returnedRecord.getEndBalance());
+        assertEquals("beautiful record", returnedRecord.getDescription());
+        verify(customerStatementRecordStore, times(0)).findPage(anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    void getCustomerStatementRecordsTestLastPageHasNoNextReference() {
+        // Given
+        when(customerStatementRecordStore.findPage(GIVEN_RECORD_ACCOUNT_NUMBER, 2, 3))
+                .thenReturn(Arrays.asList(buildStoredRecord(3), buildStoredRecord(4)));
+
+        // When
+        CustomerStatementRecordPageDto returnedPage = customerStatementQueryService.getCustomerStatementRecords(GIVEN_RECORD_ACCOUNT_NUMBER, 2, 2);
+
+        // Then
+        assertEquals(Arrays.asList(3, 4), getReferences(returnedPage));
+        assertNull(returnedPage.getNextAfterTransactionReference());
+        verify(customerStatementRecordStore, times(0)).findPage(anyString(), isNull(), anyInt());
+    }
+
+    @Test
+    void getCustomerStatementRecordsTestPagesOfSeveralShardsAreMerged() {
+        // Given
+        when(customerStatementRecordStore.findPage(GIVEN_RECORD_ACCOUNT_NUMBER, null, 3))
+                .thenReturn(Arrays.asList(buildStoredRecord(2), buildStoredRecord(5), buildStoredRecord(6), buildStoredRecord(1), buildStoredRecord(7)));
+
+        // When
+        CustomerStatementRecordPageDto returnedPage = customerStatementQueryService.getCustomerStatementRecords(GIVEN_RECORD_ACCOUNT_NUMBER, null, 2);
+
+        // Then
+        assertEquals(Arrays.asList(1, 2), getReferences(returnedPage));
+        assertEquals(2, returnedPage.getNextAfterTransactionReference());
+    }
+
+    @Test
+    void getCustomerStatementRecordsTestUnknownAccountIsAnEmptyPage() {
+        // Given
+        when(customerStatementRecordStore.findPage(anyString(), isNull(), anyInt()))
+                .thenReturn(Collections.emptyList());
+
+        // When
+        CustomerStatementRecordPageDto returnedPage = customerStatementQueryService.getCustomerStatementRecords(GIVEN_RECORD_ACCOUNT_NUMBER, null, 100);
+
+        // Then
+        assertTrue(returnedPage.getRecords().isEmpty());
+        assertNull(returnedPage.getNextAfterTransactionReference());
+    }
+
+    @Test
+    void getAccountSummaryTestSummaryIsReadByAccountNumber() {
+        // Given
+        AccountSummary givenSummary = mock(AccountSummary.class);
+        when(givenSummary.getAccountNumber()).thenReturn(GIVEN_RECORD_ACCOUNT_NUMBER);
+        when(givenSummary.getRecordCount()).thenReturn(3L);
+        when(givenSummary.getTotalMutation()).thenReturn(-30L);
+        when(givenSummary.getLastEndBalance()).thenReturn(70);
+        when(customerStatementRecordStore.hasAccountSummaries()).thenReturn(true);
+        when(customerStatementRecordStore.findAccountSummary(GIVEN_RECORD_ACCOUNT_NUMBER)).thenReturn(Optional.of(givenSummary));
+
+        // When
+        AccountSummaryDto returnedSummary = customerStatementQueryService.getAccountSummary(GIVEN_RECORD_ACCOUNT_NUMBER);
+
+        // Then
+        assertEquals(GIVEN_RECORD_ACCOUNT_NUMBER, returnedSummary.getAccountNumber());
+        assertEquals(3, returnedSummary.getRecordCount());
+        assertEquals(-30, returnedSummary.getTotalMutation());
+        assertEquals(70, returnedSummary.getLastEndBalance());
+        verify(customerStatementRecordStore, times(0)).findPage(anyString(), any(), anyInt());
+    }
+
+    @Test
+    void getAccountSummaryTestUnknownAccountHasAnEmptySummary() {
+        // Given
+        when(customerStatementRecordStore.hasAccountSummaries()).thenReturn(true);
+        when(customerStatementRecordStore.findAccountSummary(GIVEN_RECORD_ACCOUNT_NUMBER)).thenReturn(Optional.empty());
+
+        // When
+        AccountSummaryDto returnedSummary = customerStatementQueryService.getAccountSummary(GIVEN_RECORD_ACCOUNT_NUMBER);
+
+        // Then
+        assertEquals(GIVEN_RECORD_ACCOUNT_NUMBER, returnedSummary.getAccountNumber());
+        assertEquals(0, returnedSummary.getRecordCount());
+        assertEquals(0, returnedSummary.getTotalMutation());
+        assertNull(returnedSummary.getLastEndBalance());
+    }
+
+    @Test
+    void getAccountSummaryTestNotFoundWithoutAccountSummaries() {
+        // Given
+        when(customerStatementRecordStore.hasAccountSummaries()).thenReturn(false);
+
+        // When
+        ResponseStatusException thrownException = assertThrows(ResponseStatusException.class,
+                () -> customerStatementQueryService.getAccountSummary(GIVEN_RECORD_ACCOUNT_NUMBER));
+
+        // Then
+        assertEquals(HttpStatus.NOT_FOUND, thrownException.getStatus());
+        verify(customerStatementRecordStore, times(0)).findAccountSummary(any());
+    }
+
+    private static List<Integer> getReferences(CustomerStatementRecordPageDto page) {
+        return page.getRecords().stream().map(CustomerStatementRecordDto::getTransactionReference).collect(Collectors.toList());
+    }
+
+    private static StoredCustomerStatementRecord buildStoredRecord(int transactionReference) {
+        return new StoredCustomerStatementRecord() {
+            @Override
+            public Integer getTransactionReference() {
+                return transactionReference;
+            }
+
+            @Override
+            public String getAccountNumber() {
+                return GIVEN_RECORD_ACCOUNT_NUMBER;
+            }
+
+            @Override
+            public Integer getStartBalance() {
+                return 100;
+            }
+
+            @Override
+            public Integer getMutation() {
+                return -10;
+            }
+
+            @Override
+            public Integer getEndBalance() {
+                return 90;
+            }
+
+            @Override
+            public String getDescription() {
+                return "beautiful record";
+            }
+        };
+    }
+}
@@ -0,0 +1,81 @@
+package nl.rabobank.customerstatementservice.service;
+
+import nl.rabobank.customerstatementservice.dto.ResponseBody;
+import nl.rabobank.customerstatementservice.dto.ResultType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerStatementRecordValidatorTest {
+
+    @Test
+    void validateTestCorrectRecordOfNewAccount() {
+        // When
+        ResultType returnedResult = CustomerStatementRecordValidator.validate(100, -10, 90, false, 0);
+
+        // Then
+        assertEquals(ResultType.SUCCESSFUL, returnedResult);
+    }
+
+    @Test
+    void validateTestCorrectRecordContinuingItsAccount() {
+        // When
+        ResultType returnedResult = CustomerStatementRecordValidator.validate(100, -10, 90, true, 100);
+
+        // Then
+        assertEquals(ResultType.SUCCESSFUL, returnedResult);
+    }
+
+    @Test
+    void validateTestIncorrectEndBalanceTakesPrecedenceOverBrokenBalanceChain() {
+        // When
+        ResultType returnedResult = CustomerStatementRecordValidator.validate(100, -10, 110, true, 50);
+
+        // Then
+        assertEquals(ResultType.INCORRECT_END_BALANCE, returnedResult);
+    }
+
+    @Test
+    void validateTestBrokenBalanceChain() {
+        // When
+        ResultType returnedResult = CustomerStatementRecordValidator.validate(100, -10, 90, true, 50);
+
+        // Then
+        assertEquals(ResultType.BROKEN_BALANCE_CHAIN, returnedResult);
+    }
+
+    @Test
+    void resultOfTestDuplicateReferenceTakesPrecedenceOverBrokenBalanceChain() {
+        // When
+        ResultType returnedResult = CustomerStatementRecordValidator.resultOf(true, false, true);
+
+        // Then
+        assertEquals(ResultType.DUPLICATE_REFERENCE, returnedResult);
+        assertEquals(ResultType.DUPLICATE_REFERENCE_INCORRECT_END_BALANCE, CustomerStatementRecordValidator.resultOf(true, true, false));
+    }
+
+    @Test
+    void aggregateTestCombinesDuplicateReferenceAndIncorrectEndBalance() {
+        // When
+        ResultType returnedResult = CustomerStatementRecordValidator.aggregate(ResultType.DUPLICATE_REFERENCE, ResultType.INCORRECT_END_BALANCE);
+
+        // Then
+        assertEquals(ResultType.DUPLICATE_REFERENCE_INCORRECT_END_BALANCE, returnedResult);
+        assertEquals(ResultType.BROKEN_BALANCE_CHAIN,
+                CustomerStatementRecordValidator.aggregate(ResultType.SUCCESSFUL, ResultType.BROKEN_BALANCE_CHAIN));
+        assertEquals(ResultType.DUPLICATE_REFERENCE,
+                CustomerStatementRecordValidator.aggregate(ResultType.BROKEN_BALANCE_CHAIN, ResultType.DUPLICATE_REFERENCE));
+    }
+
+    @Test
+    void responseBodyOfTestIsSharedAndImmutable() {
+        // When
+        ResponseBody returnedResponseBody = ResponseBody.of(ResultType.SUCCESSFUL);
+
+        // Then
+        assertSame(returnedResponseBody, ResponseBody.of(ResultType.SUCCESSFUL));
+        assertEquals(ResultType.SUCCESSFUL, returnedResponseBody.getResult());
+        assertTrue(returnedResponseBody.getErrorRecords().isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> returnedResponseBody.getErrorRecords().add(null));
+    }
+}
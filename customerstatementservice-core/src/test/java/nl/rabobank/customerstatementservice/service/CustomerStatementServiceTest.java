@@ -1,24 +1,45 @@
 package nl.rabobank.customerstatementservice.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordDto;
 import nl.rabobank.customerstatementservice.dto.ErrorRecord;
 import nl.rabobank.customerstatementservice.dto.ResponseBody;
 import nl.rabobank.customerstatementservice.dto.ResultType;
+import nl.rabobank.customerstatementservice.infrastructure.AccountBalanceCache;
 import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecord;
-import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecordRepository;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecordStore;
+import nl.rabobank.customerstatementservice.infrastructure.DirectCustomerStatementRecordWriter;
+import nl.rabobank.customerstatementservice.infrastructure.RepositoryTransactionReferenceLookup;
+import nl.rabobank.customerstatementservice.infrastructure.UncheckedAccountBalanceLookup;
 import nl.rabobank.customerstatementservice.mapper.CustomerStatementMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 import static org.mockito.MockitoAnnotations.initMocks;
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
@@ -32,28 +53,37 @@ class CustomerStatementServiceTest {
     private static final Integer GIVEN_TRANSACTION_REFERENCE = 1234;
 
     @Mock
-    CustomerStatementRecordRepository customerStatementRecordRepository;
+    CustomerStatementRecordStore customerStatementRecordStore;
+    private SimpleMeterRegistry meterRegistry;
+
+    private AccountSequencer accountSequencer;
+
     private CustomerStatementService customerStatementService;
 
     @BeforeEach
     public void setUp() {
         initMocks(this);
-        this.customerStatementService = new CustomerStatementService(customerStatementRecordRepository, new CustomerStatementMapper());
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.accountSequencer = new AccountSequencer(4);
+        this.customerStatementService = new CustomerStatementService(customerStatementRecordStore,
+                new RepositoryTransactionReferenceLookup(customerStatementRecordStore), new UncheckedAccountBalanceLookup(),
+                new DirectCustomerStatementRecordWriter(customerStatementRecordStore), new CustomerStatementMapper(),
+                new CustomerStatementMetrics(meterRegistry), accountSequencer, 2);
     }
 
     @Test
     void addCustomerStatementRecordWithExceptionHandlingTestAnExceptionResultsInAnInternalServerError() {
         // Given
         CustomerStatementRecordDto givenRecord = buildRecord(false);
-        when(customerStatementRecordRepository.existsById(any()))
-                .thenThrow(new IllegalArgumentException("Any exception will do"));
+        doThrow(new IllegalArgumentException("Any exception will do"))
+                .when(customerStatementRecordStore).insert(any());
 
         // When
         ResponseStatusException thrownException = assertThrows(ResponseStatusException.class, () -> customerStatementService.addCustomerStatementRecordWithExceptionHandling(givenRecord));
 
         // Then
         assertEquals(INTERNAL_SERVER_ERROR, thrownException.getStatus());
-        verify(customerStatementRecordRepository).existsById(any());
+        verify(customerStatementRecordStore).insert(any());
     }
 
     @Test
@@ -61,10 +91,10 @@ class CustomerStatementServiceTest {
         // Given
         CustomerStatementRecordDto givenRecord = buildRecord(true);
         CustomerStatementRecord givenDuplicateDatabaseRecord = buildDuplicateDatabaseRecord();
-        when(customerStatementRecordRepository.existsById(GIVEN_TRANSACTION_REFERENCE))
+        when(customerStatementRecordStore.exists(GIVEN_TRANSACTION_REFERENCE))
                 .thenReturn(true);
-        when(customerStatementRecordRepository.findById(GIVEN_TRANSACTION_REFERENCE))
-                .thenReturn(Optional.of(givenDuplicateDatabaseRecord));
+        when(customerStatementRecordStore.findAccountNumber(GIVEN_TRANSACTION_REFERENCE))
+                .thenReturn(givenDuplicateDatabaseRecord.getAccountNumber());
 
         // When
         ResponseBody returnedResponseBody = customerStatementService.addCustomerStatementRecordWithExceptionHandling(givenRecord);
@@ -78,8 +108,8 @@ class CustomerStatementServiceTest {
             // Can't verify accountNumber as we can't be sure about the order and there's no reference to the reason for the errorRecord.
         });
 
-        verify(customerStatementRecordRepository).existsById(GIVEN_TRANSACTION_REFERENCE);
-        verify(customerStatementRecordRepository).findById(givenRecord.getTransactionReference());
+        verify(customerStatementRecordStore).exists(GIVEN_TRANSACTION_REFERENCE);
+        verify(customerStatementRecordStore).findAccountNumber(givenRecord.getTransactionReference());
     }
 
     @Test
@@ -87,10 +117,10 @@ class CustomerStatementServiceTest {
         // Given
         CustomerStatementRecordDto givenRecord = buildRecord(false);
         CustomerStatementRecord givenDuplicateDatabaseRecord = buildDuplicateDatabaseRecord();
-        when(customerStatementRecordRepository.existsById(GIVEN_TRANSACTION_REFERENCE))
-                .thenReturn(true);
-        when(customerStatementRecordRepository.findById(GIVEN_TRANSACTION_REFERENCE))
-                .thenReturn(Optional.of(givenDuplicateDatabaseRecord));
+        doThrow(new DataIntegrityViolationException("Primary key violation"))
+                .when(customerStatementRecordStore).insert(any());
+        when(customerStatementRecordStore.findAccountNumber(GIVEN_TRANSACTION_REFERENCE))
+                .thenReturn(givenDuplicateDatabaseRecord.getAccountNumber());
 
         // When
         ResponseBody returnedResponseBody = customerStatementService.addCustomerStatementRecordWithExceptionHandling(givenRecord);
@@ -103,16 +133,15 @@ class CustomerStatementServiceTest {
         assertEquals(givenDuplicateDatabaseRecord.getTransactionReference(), returnedErrorRecord.getReference());
         assertEquals(givenDuplicateDatabaseRecord.getAccountNumber(), returnedErrorRecord.getAccountNumber());
 
-        verify(customerStatementRecordRepository).existsById(GIVEN_TRANSACTION_REFERENCE);
-        verify(customerStatementRecordRepository).findById(givenRecord.getTransactionReference());
+        verify(customerStatementRecordStore).insert(any());
+        verify(customerStatementRecordStore, times(0)).exists(GIVEN_TRANSACTION_REFERENCE);
+        verify(customerStatementRecordStore).findAccountNumber(givenRecord.getTransactionReference());
     }
 
     @Test
     void addCustomerStatementRecordWithExceptionHandlingTestNoDuplicateAndNotIncorrectBalance() {
         // Given
         CustomerStatementRecordDto givenRecord = buildRecord(false);
-        when(customerStatementRecordRepository.existsById(GIVEN_TRANSACTION_REFERENCE))
-                .thenReturn(false);
 
         // When
         ResponseBody returnedResponseBody = customerStatementService.addCustomerStatementRecordWithExceptionHandling(givenRecord);
@@ -121,15 +150,21 @@ class CustomerStatementServiceTest {
         assertEquals(ResultType.SUCCESSFUL, returnedResponseBody.getResult());
         assertEquals(0, returnedResponseBody.getErrorRecords().size());
 
-        verify(customerStatementRecordRepository).existsById(GIVEN_TRANSACTION_REFERENCE);
-        verify(customerStatementRecordRepository, times(0)).findById(givenRecord.getTransactionReference());
+        verify(customerStatementRecordStore).insert(any());
+        verify(customerStatementRecordStore, times(0)).exists(GIVEN_TRANSACTION_REFERENCE);
+        verify(customerStatementRecordStore, times(0)).findAccountNumber(givenRecord.getTransactionReference());
+
+        assertEquals(1, meterRegistry.get("customerstatement.records").tag("result", "SUCCESSFUL").counter().count());
+        assertEquals(1, meterRegistry.get("customerstatement.record").tag("result", "SUCCESSFUL").timer().count());
+        assertEquals(1, meterRegistry.get("customerstatement.stage").tag("stage", "save").tag("result", "SUCCESSFUL").timer().count());
+        assertEquals(0, meterRegistry.get("customerstatement.stage").tag("stage", "duplicate_lookup").tag("result", "SUCCESSFUL").timer().count());
     }
 
     @Test
     void addCustomerStatementRecordWithExceptionHandlingTestNoDuplicateButIncorrectBalance() {
         // Given
         CustomerStatementRecordDto givenRecord = buildRecord(true);
-        when(customerStatementRecordRepository.existsById(GIVEN_TRANSACTION_REFERENCE))
+        when(customerStatementRecordStore.exists(GIVEN_TRANSACTION_REFERENCE))
                 .thenReturn(false);
 
         // When
@@ -143,8 +178,342 @@ class CustomerStatementServiceTest {
         assertEquals(GIVEN_TRANSACTION_REFERENCE, returnedErrorRecord.getReference());
         assertEquals(givenRecord.getAccountNumber(), returnedErrorRecord.getAccountNumber());
 
-        verify(customerStatementRecordRepository).existsById(GIVEN_TRANSACTION_REFERENCE);
-        verify(customerStatementRecordRepository, times(0)).findById(givenRecord.getTransactionReference());
+        verify(customerStatementRecordStore).exists(GIVEN_TRANSACTION_REFERENCE);
+        verify(customerStatementRecordStore, times(0)).findAccountNumber(givenRecord.getTransactionReference());
+    }
+
+    @Test
+    void addCustomerStatementRecordWithExceptionHandlingTestStagesOfThePreviousRecordAreNotRecordedAgain() {
+        // Given
+        CustomerStatementRecordDto incorrectRecord = buildRecord(true);
+        CustomerStatementRecordDto correctRecord = buildRecord(GIVEN_TRANSACTION_REFERENCE + 1, false);
+        when(customerStatementRecordStore.exists(GIVEN_TRANSACTION_REFERENCE))
+                .thenReturn(false);
+
+        // When
+        customerStatementService.addCustomerStatementRecordWithExceptionHandling(incorrectRecord);
+        ResponseBody returnedResponseBody = customerStatementService.addCustomerStatementRecordWithExceptionHandling(correctRecord);
+
+        // Then
+        assertEquals(ResultType.SUCCESSFUL, returnedResponseBody.getResult());
+        assertEquals(1, meterRegistry.get("customerstatement.stage").tag("stage", "duplicate_lookup").tag("result", "INCORRECT_END_BALANCE").timer().count());
+        assertEquals(0, meterRegistry.get("customerstatement.stage").tag("stage", "duplicate_lookup").tag("result", "SUCCESSFUL").timer().count());
+        assertEquals(1, meterRegistry.get("customerstatement.stage").tag("stage", "end_balance_check").tag("result", "SUCCESSFUL").timer().count());
+    }
+
+    @Test
+    void addCustomerStatementRecordsWithExceptionHandlingTestAllCorrect() {
+        // Given
+        List<CustomerStatementRecordDto> givenRecords = Arrays.asList(buildRecord(1, false), buildRecord(2, false), buildRecord(3, false));
+        when(customerStatementRecordStore.findAccountNumbers(anyCollection()))
+                .thenAnswer(invocation -> new HashMap<>());
+
+        // When
+        ResponseBody returnedResponseBody = customerStatementService.addCustomerStatementRecordsWithExceptionHandling(givenRecords);
+
+        // Then
+        assertEquals(ResultType.SUCCESSFUL, returnedResponseBody.getResult());
+        assertEquals(0, returnedResponseBody.getErrorRecords().size());
+
+        // Chunk size of 2 results in two lookups and two inserts
+        verify(customerStatementRecordStore, times(2)).findAccountNumbers(anyCollection());
+        verify(customerStatementRecordStore, times(2)).insertAll(any());
+        verify(customerStatementRecordStore, times(0)).exists(anyInt());
+        verify(customerStatementRecordStore, times(0)).insert(any());
+    }
+
+    @Test
+    void addCustomerStatementRecordsWithExceptionHandlingTestDuplicatesAndIncorrectBalances() {
+        // Given
+        List<CustomerStatementRecordDto> givenRecords = Arrays.asList(
+                buildRecord(1, false),
+                buildRecord(1, false),
+                buildRecord(GIVEN_TRANSACTION_REFERENCE, false),
+                buildRecord(3, true));
+        when(customerStatementRecordStore.findAccountNumbers(anyCollection()))
+                .thenAnswer(invocation -> new HashMap<>())
+                .thenAnswer(invocation -> buildExistingReferences());
+
+        // When
+        ResponseBody returnedResponseBody = customerStatementService.addCustomerStatementRecordsWithExceptionHandling(givenRecords);
+
+        // Then
+        assertEquals(ResultType.DUPLICATE_REFERENCE_INCORRECT_END_BALANCE, returnedResponseBody.getResult());
+        assertEquals(3, returnedResponseBody.getErrorRecords().size());
+
+        // Reference 1 was accepted earlier in the same chunk, so the second occurrence is a duplicate
+        ErrorRecord batchDuplicate = returnedResponseBody.getErrorRecords().get(0);
+        assertEquals(1, batchDuplicate.getReference());
+        assertEquals(GIVEN_RECORD_ACCOUNT_NUMBER, batchDuplicate.getAccountNumber());
+
+        ErrorRecord databaseDuplicate = returnedResponseBody.getErrorRecords().get(1);
+        assertEquals(GIVEN_TRANSACTION_REFERENCE, databaseDuplicate.getReference());
+        assertEquals(DUPLICATED_RECORD_ACCOUNT_NUMBER, databaseDuplicate.getAccountNumber());
+
+        ErrorRecord incorrectEndBalance = returnedResponseBody.getErrorRecords().get(2);
+        assertEquals(3, incorrectEndBalance.getReference());
+        assertEquals(GIVEN_RECORD_ACCOUNT_NUMBER, incorrectEndBalance.getAccountNumber());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<CustomerStatementRecord>> insertedRecords = ArgumentCaptor.forClass(List.class);
+        verify(customerStatementRecordStore, times(2)).insertAll(insertedRecords.capture());
+        assertEquals(1, insertedRecords.getAllValues().get(0).size());
+        assertEquals(0, insertedRecords.getAllValues().get(1).size());
+        verify(customerStatementRecordStore, times(0)).findAccountNumber(anyInt());
+
+        assertEquals(1, meterRegistry.get("customerstatement.records").tag("result", "SUCCESSFUL").counter().count());
+        assertEquals(2, meterRegistry.get("customerstatement.records").tag("result", "DUPLICATE_REFERENCE").counter().count());
+        assertEquals(1, meterRegistry.get("customerstatement.records").tag("result", "INCORRECT_END_BALANCE").counter().count());
+        // Chunks are timed with their aggregated result
+        assertEquals(1, meterRegistry.get("customerstatement.stage").tag("stage", "save").tag("result", "DUPLICATE_REFERENCE").timer().count());
+        assertEquals(1, meterRegistry.get("customerstatement.stage").tag("stage", "save").tag("result", "DUPLICATE_REFERENCE_INCORRECT_END_BALANCE").timer().count());
+    }
+
+    @Test
+    void addCustomerStatementRecordsWithExceptionHandlingTestConcurrentInsertFallsBackToOneByOne() {
+        // Given
+        List<CustomerStatementRecordDto> givenRecords = Arrays.asList(buildRecord(1, false), buildRecord(GIVEN_TRANSACTION_REFERENCE, false));
+        when(customerStatementRecordStore.findAccountNumbers(anyCollection()))
+                .thenAnswer(invocation -> new HashMap<>());
+        doThrow(new DuplicateKeyException("Inserted by someone else in the meantime"))
+                .when(customerStatementRecordStore).insertAll(any());
+        doNothing()
+                .doThrow(new DataIntegrityViolationException("Primary key violation"))
+                .when(customerStatementRecordStore).insert(any());
+        when(customerStatementRecordStore.findAccountNumber(GIVEN_TRANSACTION_REFERENCE))
+                .thenReturn(buildDuplicateDatabaseRecord().getAccountNumber());
+
+        // When
+        ResponseBody returnedResponseBody = customerStatementService.addCustomerStatementRecordsWithExceptionHandling(givenRecords);
+
+        // Then
+        assertEquals(ResultType.DUPLICATE_REFERENCE, returnedResponseBody.getResult());
+        assertEquals(1, returnedResponseBody.getErrorRecords().size());
+        assertEquals(GIVEN_TRANSACTION_REFERENCE, returnedResponseBody.getErrorRecords().get(0).getReference());
+        assertEquals(DUPLICATED_RECORD_ACCOUNT_NUMBER, returnedResponseBody.getErrorRecords().get(0).getAccountNumber());
+
+        verify(customerStatementRecordStore, times(2)).insert(any());
+    }
+
+    @Test
+    void addCustomerStatementRecordsWithExceptionHandlingTestAnExceptionResultsInAnInternalServerError() {
+        // Given
+        List<CustomerStatementRecordDto> givenRecords = Collections.singletonList(buildRecord(false));
+        when(customerStatementRecordStore.findAccountNumbers(anyCollection()))
+                .thenThrow(new IllegalArgumentException("Any exception will do"));
+
+        // When
+        ResponseStatusException thrownException = assertThrows(ResponseStatusException.class, () -> customerStatementService.addCustomerStatementRecordsWithExceptionHandling(givenRecords));
+
+        // Then
+        assertEquals(INTERNAL_SERVER_ERROR, thrownException.getStatus());
+        verify(customerStatementRecordStore, times(0)).insertAll(any());
+    }
+
+    @Test
+    void addCustomerStatementRecordWithExceptionHandlingTestBrokenBalanceChain() {
+        // Given
+        CustomerStatementService balanceCheckingService = createBalanceCheckingService();
+        CustomerStatementRecordDto givenRecord = buildRecord(false);
+        when(customerStatementRecordStore.findLastEndBalance(GIVEN_RECORD_ACCOUNT_NUMBER))
+                .thenReturn(Optional.of(50));
+        when(customerStatementRecordStore.exists(GIVEN_TRANSACTION_REFERENCE))
+                .thenReturn(false);
+
+        // When
+        ResponseBody returnedResponseBody = balanceCheckingService.addCustomerStatementRecordWithExceptionHandling(givenRecord);
+
+        // Then
+        assertEquals(ResultType.BROKEN_BALANCE_CHAIN, returnedResponseBody.getResult());
+        assertEquals(1, returnedResponseBody.getErrorRecords().size());
+        assertEquals(GIVEN_TRANSACTION_REFERENCE, returnedResponseBody.getErrorRecords().get(0).getReference());
+        assertEquals(GIVEN_RECORD_ACCOUNT_NUMBER, returnedResponseBody.getErrorRecords().get(0).getAccountNumber());
+
+        verify(customerStatementRecordStore, times(0)).insert(any());
+    }
+
+    @Test
+    void addCustomerStatementRecordWithExceptionHandlingTestBrokenBalanceChainOfStoredRecordIsADuplicate() {
+        // Given
+        CustomerStatementService balanceCheckingService = createBalanceCheckingService();
+        CustomerStatementRecordDto givenRecord = buildRecord(false);
+        when(customerStatementRecordStore.findLastEndBalance(GIVEN_RECORD_ACCOUNT_NUMBER))
+                .thenReturn(Optional.of(50));
+        when(customerStatementRecordStore.exists(GIVEN_TRANSACTION_REFERENCE))
+                .thenReturn(true);
+        when(customerStatementRecordStore.findAccountNumber(GIVEN_TRANSACTION_REFERENCE))
+                .thenReturn(buildDuplicateDatabaseRecord().getAccountNumber());
+
+        // When
+        ResponseBody returnedResponseBody = balanceCheckingService.addCustomerStatementRecordWithExceptionHandling(givenRecord);
+
+        // Then
+        assertEquals(ResultType.DUPLICATE_REFERENCE, returnedResponseBody.getResult());
+        verify(customerStatementRecordStore, times(0)).insert(any());
+    }
+
+    @Test
+    void addCustomerStatementRecordWithExceptionHandlingTestContinuedBalanceChainIsCached() {
+        // Given
+        CustomerStatementService balanceCheckingService = createBalanceCheckingService();
+        when(customerStatementRecordStore.findLastEndBalance(GIVEN_RECORD_ACCOUNT_NUMBER))
+                .thenReturn(Optional.empty());
+
+        // When
+        ResponseBody firstResponseBody = balanceCheckingService.addCustomerStatementRecordWithExceptionHandling(buildRecord(1, 100));
+        ResponseBody secondResponseBody = balanceCheckingService.addCustomerStatementRecordWithExceptionHandling(buildRecord(2, 90));
+
+        // Then
+        assertEquals(ResultType.SUCCESSFUL, firstResponseBody.getResult());
+        assertEquals(ResultType.SUCCESSFUL, secondResponseBody.getResult());
+        verify(customerStatementRecordStore, times(1)).findLastEndBalance(anyString());
+        verify(customerStatementRecordStore, times(2)).insert(any());
+    }
+
+    @Test
+    void addCustomerStatementRecordsWithExceptionHandlingTestBrokenBalanceChain() {
+        // Given
+        CustomerStatementService balanceCheckingService = createBalanceCheckingService();
+        List<CustomerStatementRecordDto> givenRecords = Arrays.asList(buildRecord(1, 100), buildRecord(2, 90), buildRecord(3, 100));
+        when(customerStatementRecordStore.findAccountNumbers(anyCollection()))
+                .thenAnswer(invocation -> new HashMap<>());
+        when(customerStatementRecordStore.findLastEndBalances(anyCollection()))
+                .thenAnswer(invocation -> new HashMap<>());
+
+        // When
+        ResponseBody returnedResponseBody = balanceCheckingService.addCustomerStatementRecordsWithExceptionHandling(givenRecords);
+
+        // Then
+        assertEquals(ResultType.BROKEN_BALANCE_CHAIN, returnedResponseBody.getResult());
+        assertEquals(1, returnedResponseBody.getErrorRecords().size());
+        assertEquals(3, returnedResponseBody.getErrorRecords().get(0).getReference());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<CustomerStatementRecord>> insertedRecords = ArgumentCaptor.forClass(List.class);
+        verify(customerStatementRecordStore, times(2)).insertAll(insertedRecords.capture());
+        assertEquals(2, insertedRecords.getAllValues().get(0).size());
+        assertEquals(0, insertedRecords.getAllValues().get(1).size());
+        // The second chunk continues from the balance the first chunk left in the cache
+        verify(customerStatementRecordStore, times(1)).findLastEndBalances(anyCollection());
+        assertEquals(1, meterRegistry.get("customerstatement.records").tag("result", "BROKEN_BALANCE_CHAIN").counter().count());
+    }
+
+    @Test
+    void addCustomerStatementRecordWithExceptionHandlingTestNotSequencedWithoutBalanceContinuity() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        CountDownLatch stripeHeld = new CountDownLatch(1);
+        executorService.submit(() -> accountSequencer.sequence(GIVEN_RECORD_ACCOUNT_NUMBER, () -> {
+            stripeHeld.countDown();
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }));
+        assertTrue(stripeHeld.await(5, TimeUnit.SECONDS));
+
+        try {
+            // When
+            ResponseBody returnedResponseBody = customerStatementService.addCustomerStatementRecordWithExceptionHandling(buildRecord(false));
+
+            // Then
+            assertEquals(ResultType.SUCCESSFUL, returnedResponseBody.getResult());
+        } finally {
+            release.countDown();
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    void addCustomerStatementRecordsWithExceptionHandlingTestChunkIsCommittedPerStripe() {
+        // Given
+        CustomerStatementService balanceCheckingService = createBalanceCheckingService();
+        String otherAccountNumber = findAccountOnOtherStripe(GIVEN_RECORD_ACCOUNT_NUMBER);
+        CustomerStatementRecordDto otherAccountRecord = buildRecord(2, 100);
+        otherAccountRecord.setAccountNumber(otherAccountNumber);
+        List<CustomerStatementRecordDto> givenRecords = Arrays.asList(buildRecord(1, 100), otherAccountRecord);
+        when(customerStatementRecordStore.findAccountNumbers(anyCollection()))
+                .thenAnswer(invocation -> new HashMap<>());
+        when(customerStatementRecordStore.findLastEndBalances(anyCollection()))
+                .thenAnswer(invocation -> new HashMap<>());
+
+        // When
+        ResponseBody returnedResponseBody = balanceCheckingService.addCustomerStatementRecordsWithExceptionHandling(givenRecords);
+
+        // Then
+        assertEquals(ResultType.SUCCESSFUL, returnedResponseBody.getResult());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<CustomerStatementRecord>> insertedRecords = ArgumentCaptor.forClass(List.class);
+        verify(customerStatementRecordStore, times(2)).insertAll(insertedRecords.capture());
+        insertedRecords.getAllValues().forEach(stripeRecords -> assertEquals(1, stripeRecords.size()));
+        assertEquals(2, meterRegistry.get("customerstatement.records").tag("result", "SUCCESSFUL").counter().count());
+    }
+
+    @Test
+    void addCustomerStatementRecordsWithExceptionHandlingTestReferenceOnSeveralStripesIsADuplicateWithinTheChunk() {
+        // Given
+        CustomerStatementService balanceCheckingService = createBalanceCheckingService();
+        String otherAccountNumber = findAccountOnOtherStripe(GIVEN_RECORD_ACCOUNT_NUMBER);
+        CustomerStatementRecordDto otherAccountRecord = buildRecord(1, 100);
+        otherAccountRecord.setAccountNumber(otherAccountNumber);
+        List<CustomerStatementRecordDto> givenRecords = Arrays.asList(otherAccountRecord, buildRecord(1, 100));
+        when(customerStatementRecordStore.findAccountNumbers(anyCollection()))
+                .thenAnswer(invocation -> new HashMap<>());
+        when(customerStatementRecordStore.findLastEndBalances(anyCollection()))
+                .thenAnswer(invocation -> new HashMap<>());
+
+        // When
+        ResponseBody returnedResponseBody = balanceCheckingService.addCustomerStatementRecordsWithExceptionHandling(givenRecords);
+
+        // Then
+        assertEquals(ResultType.DUPLICATE_REFERENCE, returnedResponseBody.getResult());
+        assertEquals(otherAccountNumber, returnedResponseBody.getErrorRecords().get(0).getAccountNumber());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<CustomerStatementRecord>> insertedRecords = ArgumentCaptor.forClass(List.class);
+        verify(customerStatementRecordStore, times(1)).insertAll(insertedRecords.capture());
+        assertEquals(otherAccountNumber, insertedRecords.getValue().get(0).getAccountNumber());
+    }
+
+    private String findAccountOnOtherStripe(String accountNumber) {
+        for (int account = 0; ; account++) {
+            String otherAccountNumber = String.format("NL12RABO%010d", account);
+            if (accountSequencer.stripeOf(otherAccountNumber) != accountSequencer.stripeOf(accountNumber)) {
+                return otherAccountNumber;
+            }
+        }
+    }
+
+    private CustomerStatementService createBalanceCheckingService() {
+        return new CustomerStatementService(customerStatementRecordStore,
+                new RepositoryTransactionReferenceLookup(customerStatementRecordStore),
+                new AccountBalanceCache(customerStatementRecordStore, 100, meterRegistry),
+                new DirectCustomerStatementRecordWriter(customerStatementRecordStore), new CustomerStatementMapper(),
+                new CustomerStatementMetrics(meterRegistry), accountSequencer, 2);
+    }
+
+    private Map<Integer, String> buildExistingReferences() {
+        Map<Integer, String> existingReferences = new HashMap<>();
+        existingReferences.put(GIVEN_TRANSACTION_REFERENCE, DUPLICATED_RECORD_ACCOUNT_NUMBER);
+
+        return existingReferences;
+    }
+
+    private CustomerStatementRecordDto buildRecord(Integer transactionReference, boolean incorrectBalance) {
+        CustomerStatementRecordDto customerStatementRecordDto = buildRecord(incorrectBalance);
+        customerStatementRecordDto.setTransactionReference(transactionReference);
+
+        return customerStatementRecordDto;
+    }
+
+    private CustomerStatementRecordDto buildRecord(Integer transactionReference, int startBalance) {
+        CustomerStatementRecordDto customerStatementRecordDto = buildRecord(transactionReference, false);
+        customerStatementRecordDto.setStartBalance(startBalance);
+        customerStatementRecordDto.setEndBalance(startBalance + customerStatementRecordDto.getMutation());
+
+        return customerStatementRecordDto;
     }
 
     private CustomerStatementRecord buildDuplicateDatabaseRecord() {
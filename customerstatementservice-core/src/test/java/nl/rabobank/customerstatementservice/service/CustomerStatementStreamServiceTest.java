@@ -0,0 +1,225 @@
+package nl.rabobank.customerstatementservice.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import nl.rabobank.customerstatementservice.codec.CustomerStatementRecordEncoder;
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordDto;
+import nl.rabobank.customerstatementservice.dto.ErrorRecord;
+import nl.rabobank.customerstatementservice.dto.ResponseBody;
+import nl.rabobank.customerstatementservice.dto.ResultType;
+import nl.rabobank.customerstatementservice.infrastructure.CustomerStatementRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+import javax.validation.Validation;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class CustomerStatementStreamServiceTest {
+
+    private static final String SUCCESSFUL_LINE = "{\"result\":\"SUCCESSFUL\",\"errorRecords\":[]}";
+
+    private static final String BAD_REQUEST_LINE = "{\"result\":\"BAD_REQUEST\",\"errorRecords\":[]}";
+
+    @Mock
+    CustomerStatementService customerStatementService;
+
+    private CustomerStatementStreamService customerStatementStreamService;
+
+    @BeforeEach
+    public void setUp() {
+        initMocks(this);
+        when(customerStatementService.getBatchChunkSize()).thenReturn(2);
+        when(customerStatementService.addCustomerStatementRecordChunk(anyList()))
+                .thenAnswer(invocation -> {
+                    List<CustomerStatementRecordDto> chunk = invocation.getArgument(0);
+                    ResponseBody[] responseBodies = new ResponseBody[chunk.size()];
+                    Arrays.fill(responseBodies, new ResponseBody(ResultType.SUCCESSFUL));
+                    return Arrays.asList(responseBodies);
+                });
+        when(customerStatementService.addMappedCustomerStatementRecordChunk(anyList()))
+                .thenAnswer(invocation -> {
+                    List<CustomerStatementRecord> chunk = invocation.getArgument(0);
+                    ResponseBody[] responseBodies = new ResponseBody[chunk.size()];
+                    Arrays.fill(responseBodies, ResponseBody.of(ResultType.SUCCESSFUL));
+                    return Arrays.asList(responseBodies);
+                });
+
+        this.customerStatementStreamService = new CustomerStatementStreamService(customerStatementService,
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper());
+    }
+
+    @Test
+    void addCustomerStatementRecordsTestNdjsonIsHandledInChunks() throws Exception {
+        // Given
+        String givenInput = buildJsonRecord(1) + "\n" + buildJsonRecord(2) + "\n" + buildJsonRecord(3) + "\n";
+
+        // When
+        String output = addCustomerStatementRecords(givenInput, false);
+
+        // Then
+        assertEquals(String.join("\n", SUCCESSFUL_LINE, SUCCESSFUL_LINE, SUCCESSFUL_LINE) + "\n", output);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<CustomerStatementRecordDto>> chunks = ArgumentCaptor.forClass(List.class);
+        verify(customerStatementService, times(2)).addCustomerStatementRecordChunk(chunks.capture());
+        // The chunk is reused after being handled, so only its size at the end can be verified
+        assertEquals(0, chunks.getValue().size());
+    }
+
+    @Test
+    void addCustomerStatementRecordsTestIncompleteRecordResultsInBadRequestLine() throws Exception {
+        // Given
+        String givenInput = buildJsonRecord(1) + "\n{\"transactionReference\":2}\n" + buildJsonRecord(3) + "\n";
+
+        // When
+        String output = addCustomerStatementRecords(givenInput, false);
+
+        // Then
+        assertEquals(String.join("\n", SUCCESSFUL_LINE, BAD_REQUEST_LINE, SUCCESSFUL_LINE) + "\n", output);
+        verify(customerStatementService, times(2)).addCustomerStatementRecordChunk(anyList());
+    }
+
+    @Test
+    void addCustomerStatementRecordsTestMalformedInputStopsTheStream() throws Exception {
+        // Given
+        String givenInput = buildJsonRecord(1) + "\n{\"transactionReference\":\n" + buildJsonRecord(3) + "\n";
+
+        // When
+        String output = addCustomerStatementRecords(givenInput, false);
+
+        // Then
+        assertEquals(String.join("\n", SUCCESSFUL_LINE, BAD_REQUEST_LINE) + "\n", output);
+        verify(customerStatementService).addCustomerStatementRecordChunk(anyList());
+    }
+
+    @Test
+    void addCustomerStatementRecordsTestValueOtherThanARecordStopsTheStream() throws Exception {
+        // Given
+        String givenInput = buildJsonRecord(1) + "\n[" + buildJsonRecord(2) + "]\n" + buildJsonRecord(3) + "\n";
+
+        // When
+        String output = addCustomerStatementRecords(givenInput, false);
+
+        // Then
+        assertEquals(String.join("\n", SUCCESSFUL_LINE, BAD_REQUEST_LINE) + "\n", output);
+        verify(customerStatementService).addCustomerStatementRecordChunk(anyList());
+    }
+
+    @Test
+    void addCustomerStatementRecordsTestCsv() throws Exception {
+        // Given
+        String givenInput = "transactionReference,accountNumber,startBalance,mutation,description,endBalance\n" +
+                "1,NL12RABO0123456789,100,-10,beautiful record,90\n" +
+                "2,NL12RABO0123456789,100,-10,,\n";
+        when(customerStatementService.addCustomerStatementRecordChunk(anyList()))
+                .thenReturn(Collections.singletonList(new ResponseBody(ResultType.DUPLICATE_REFERENCE,
+                        Collections.singletonList(new ErrorRecord(1, "NL12RABO0987654321")))));
+
+        // When
+        String output = addCustomerStatementRecords(givenInput, true);
+
+        // Then
+        assertEquals("{\"result\":\"DUPLICATE_REFERENCE\",\"errorRecords\":[{\"reference\":1,\"accountNumber\":\"NL12RABO0987654321\"}]}\n" +
+                BAD_REQUEST_LINE + "\n", output);
+    }
+
+    @Test
+    void addCustomerStatementRecordsTestCsvIsReadWithTheSettingsOfTheObjectMapper() throws Exception {
+        // Given
+        customerStatementStreamService = new CustomerStatementStreamService(customerStatementService,
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES));
+        String givenInput = "transactionReference,accountNumber,startBalance,mutation,description,endBalance,currency\n" +
+                "1,NL12RABO0123456789,100,-10,beautiful record,90,EUR\n";
+
+        // When
+        String output = addCustomerStatementRecords(givenInput, true);
+
+        // Then
+        assertEquals(SUCCESSFUL_LINE + "\n", output);
+    }
+
+    @Test
+    void addCustomerStatementRecordsTestSharedBodiesAreWrittenPreSerialized() throws Exception {
+        // Given
+        String givenInput = buildJsonRecord(1) + "\n" + buildJsonRecord(2) + "\n";
+        when(customerStatementService.addCustomerStatementRecordChunk(anyList()))
+                .thenReturn(Arrays.asList(ResponseBody.of(ResultType.SUCCESSFUL), new ResponseBody(ResultType.INCORRECT_END_BALANCE,
+                        Collections.singletonList(new ErrorRecord(2, "NL12RABO0123456789")))));
+
+        // When
+        String output = addCustomerStatementRecords(givenInput, false);
+
+        // Then
+        assertEquals(SUCCESSFUL_LINE + "\n" +
+                "{\"result\":\"INCORRECT_END_BALANCE\",\"errorRecords\":[{\"reference\":2,\"accountNumber\":\"NL12RABO0123456789\"}]}\n", output);
+    }
+
+    @Test
+    void addBinaryCustomerStatementRecordsTestRecordsAreHandledInChunks() throws Exception {
+        // Given
+        ByteArrayOutputStream input = new ByteArrayOutputStream();
+        try (CustomerStatementRecordEncoder encoder = new CustomerStatementRecordEncoder(input)) {
+            encoder.write(1, "NL12RABO0123456789", 100, -10, "beautiful record", 90);
+            encoder.write(2, null, 100, -10, "beautiful record", 90);
+            encoder.write(3, "NL12RABO0123456789", 100, -10, null, 90);
+            encoder.write(4, "NL12RABO0123456789", 100, -10, null, 90);
+        }
+
+        // When
+        String output = addBinaryCustomerStatementRecords(input.toByteArray());
+
+        // Then
+        assertEquals(String.join("\n", SUCCESSFUL_LINE, BAD_REQUEST_LINE, SUCCESSFUL_LINE, SUCCESSFUL_LINE) + "\n", output);
+
+        verify(customerStatementService, times(2)).addMappedCustomerStatementRecordChunk(anyList());
+        verify(customerStatementService, times(0)).addCustomerStatementRecordChunk(anyList());
+    }
+
+    @Test
+    void addBinaryCustomerStatementRecordsTestTruncatedRecordStopsTheStream() throws Exception {
+        // Given
+        ByteArrayOutputStream input = new ByteArrayOutputStream();
+        try (CustomerStatementRecordEncoder encoder = new CustomerStatementRecordEncoder(input)) {
+            encoder.write(1, "NL12RABO0123456789", 100, -10, "beautiful record", 90);
+        }
+        byte[] givenInput = Arrays.copyOf(input.toByteArray(), input.size() + 2);
+
+        // When
+        String output = addBinaryCustomerStatementRecords(givenInput);
+
+        // Then
+        assertEquals(String.join("\n", SUCCESSFUL_LINE, BAD_REQUEST_LINE) + "\n", output);
+    }
+
+    private String addBinaryCustomerStatementRecords(byte[] input) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        customerStatementStreamService.addBinaryCustomerStatementRecords(new ByteArrayInputStream(input), outputStream);
+
+        return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private String addCustomerStatementRecords(String input, boolean csv) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        customerStatementStreamService.addCustomerStatementRecords(
+                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), csv, outputStream);
+
+        return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private String buildJsonRecord(int transactionReference) {
+        return "{\"transactionReference\":" + transactionReference + ",\"accountNumber\":\"NL12RABO0123456789\"," +
+                "\"startBalance\":100,\"mutation\":-10,\"description\":\"beautiful record\",\"endBalance\":90}";
+    }
+}
@@ -1,11 +1,20 @@
 package nl.rabobank.customerstatementservice.ui.rest;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import nl.rabobank.customerstatementservice.config.CompiledValidationBinderAdvice;
 import nl.rabobank.customerstatementservice.config.CustomRestExceptionHandler;
+import nl.rabobank.customerstatementservice.dto.AccountSummaryDto;
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordBatchDto;
 import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordDto;
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordPageDto;
+import nl.rabobank.customerstatementservice.dto.FileIngestResultDto;
 import nl.rabobank.customerstatementservice.dto.ResponseBody;
 import nl.rabobank.customerstatementservice.dto.ResultType;
+import nl.rabobank.customerstatementservice.service.CustomerStatementExportService;
+import nl.rabobank.customerstatementservice.service.CustomerStatementFileIngestService;
+import nl.rabobank.customerstatementservice.service.CustomerStatementQueryService;
 import nl.rabobank.customerstatementservice.service.CustomerStatementService;
+import nl.rabobank.customerstatementservice.service.CustomerStatementStreamService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -20,10 +29,27 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.view.json.MappingJackson2JsonView;
 
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,6 +61,18 @@ class CustomerStatementControllerTest {
     @Mock
     private CustomerStatementService customerStatementService;
 
+    @Mock
+    private CustomerStatementStreamService customerStatementStreamService;
+
+    @Mock
+    private CustomerStatementQueryService customerStatementQueryService;
+
+    @Mock
+    private CustomerStatementExportService customerStatementExportService;
+
+    @Mock
+    private CustomerStatementFileIngestService customerStatementFileIngestService;
+
     private MockMvc mockMvc;
 
     @BeforeEach
@@ -105,6 +143,362 @@ class CustomerStatementControllerTest {
         verify(customerStatementService, times(0)).addCustomerStatementRecordWithExceptionHandling(any());
     }
 
+    @Test
+    void addCustomerStatementRecordTestCompiledValidationResultsInTheSameBadRequest() throws Exception {
+        // Given
+        MockMvc compiledValidationMockMvc = buildCompiledValidationMockMvc();
+        CustomerStatementRecordDto givenRecord = buildRecord(true);
+
+        // When
+        compiledValidationMockMvc.perform(post("/v1/customerstatements")
+                .contentType("application/json")
+                .content(new ObjectMapper().writeValueAsBytes(givenRecord)))
+                // Then
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("{\"result\":\"BAD_REQUEST\",\"errorRecords\":[]}"));
+
+        verify(customerStatementService, times(0)).addCustomerStatementRecordWithExceptionHandling(any());
+    }
+
+    @Test
+    void addCustomerStatementRecordTestCompiledValidationAcceptsCorrectInput() throws Exception {
+        // Given
+        MockMvc compiledValidationMockMvc = buildCompiledValidationMockMvc();
+        CustomerStatementRecordDto givenRecord = buildRecord(false);
+
+        when(customerStatementService.addCustomerStatementRecordWithExceptionHandling(any()))
+                .thenReturn(ResponseBody.of(ResultType.SUCCESSFUL));
+
+        // When
+        compiledValidationMockMvc.perform(post("/v1/customerstatements")
+                .contentType("application/json")
+                .content(new ObjectMapper().writeValueAsBytes(givenRecord)))
+                // Then
+                .andExpect(status().isOk())
+                .andExpect(content().string("{\"result\":\"SUCCESSFUL\",\"errorRecords\":[]}"));
+
+        verify(customerStatementService).addCustomerStatementRecordWithExceptionHandling(any());
+    }
+
+    @Test
+    void addCustomerStatementRecordsTestCompiledValidationRejectsInvalidRecord() throws Exception {
+        // Given
+        MockMvc compiledValidationMockMvc = buildCompiledValidationMockMvc();
+        CustomerStatementRecordBatchDto givenBatch = new CustomerStatementRecordBatchDto();
+        givenBatch.setRecords(Arrays.asList(buildRecord(false), buildRecord(true)));
+
+        // When
+        compiledValidationMockMvc.perform(post("/v1/customerstatements/batch")
+                .contentType("application/json")
+                .content(new ObjectMapper().writeValueAsBytes(givenBatch)))
+                // Then
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("{\"result\":\"BAD_REQUEST\",\"errorRecords\":[]}"));
+
+        verify(customerStatementService, times(0)).addCustomerStatementRecordsWithExceptionHandling(any());
+    }
+
+    @Test
+    void addCustomerStatementRecordsTestBatchWithNullRecordIsRejectedByBothValidationModes() throws Exception {
+        // Given
+        CustomerStatementRecordBatchDto givenBatch = new CustomerStatementRecordBatchDto();
+        givenBatch.setRecords(Arrays.asList(buildRecord(false), null));
+        byte[] givenContent = new ObjectMapper().writeValueAsBytes(givenBatch);
+
+        for (MockMvc validationModeMockMvc : Arrays.asList(mockMvc, buildCompiledValidationMockMvc())) {
+            // When
+            validationModeMockMvc.perform(post("/v1/customerstatements/batch")
+                    .contentType("application/json")
+                    .content(givenContent))
+                    // Then
+                    .andExpect(status().isBadRequest())
+                    .andExpect(content().string("{\"result\":\"BAD_REQUEST\",\"errorRecords\":[]}"));
+        }
+
+        verify(customerStatementService, times(0)).addCustomerStatementRecordsWithExceptionHandling(any());
+    }
+
+    @Test
+    void addCustomerStatementRecordsTestCorrectInputResultsInOk() throws Exception {
+        // Given
+        CustomerStatementRecordBatchDto givenBatch = new CustomerStatementRecordBatchDto();
+        givenBatch.setRecords(Arrays.asList(buildRecord(false), buildRecord(false)));
+
+        when(customerStatementService.addCustomerStatementRecordsWithExceptionHandling(any()))
+                .thenReturn(new ResponseBody(ResultType.SUCCESSFUL));
+
+        // When
+        mockMvc.perform(post("/v1/customerstatements/batch")
+                .contentType("application/json")
+                .content(new ObjectMapper().writeValueAsBytes(givenBatch)))
+                // Then
+                .andExpect(status().isOk())
+                .andExpect(content().string("{\"result\":\"SUCCESSFUL\",\"errorRecords\":[]}"));
+
+        verify(customerStatementService).addCustomerStatementRecordsWithExceptionHandling(any());
+    }
+
+    @Test
+    void addCustomerStatementRecordsTestInvalidRecordResultsInBadRequest() throws Exception {
+        // Given
+        CustomerStatementRecordBatchDto givenBatch = new CustomerStatementRecordBatchDto();
+        givenBatch.setRecords(Arrays.asList(buildRecord(false), buildRecord(true)));
+
+        // When
+        mockMvc.perform(post("/v1/customerstatements/batch")
+                .contentType("application/json")
+                .content(new ObjectMapper().writeValueAsBytes(givenBatch)))
+                // Then
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("{\"result\":\"BAD_REQUEST\",\"errorRecords\":[]}"));
+
+        verify(customerStatementService, times(0)).addCustomerStatementRecordsWithExceptionHandling(any());
+    }
+
+    @Test
+    void addCustomerStatementRecordStreamTestCsvIsStreamedToTheService() throws Exception {
+        // Given
+        String givenCsv = "transactionReference,accountNumber,startBalance,mutation,description,endBalance\n" +
+                "1234,NL12RABO0123456789,100,-10,beautiful record,90\n";
+
+        // When
+        mockMvc.perform(post("/v1/customerstatements/stream")
+                .contentType("text/csv")
+                .content(givenCsv))
+                // Then
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"));
+
+        verify(customerStatementStreamService).addCustomerStatementRecords(any(), eq(true), any());
+    }
+
+    @Test
+    void addCustomerStatementRecordStreamTestBinaryIsStreamedToTheService() throws Exception {
+        // When
+        mockMvc.perform(post("/v1/customerstatements/stream")
+                .contentType("application/x-customer-statement-records")
+                .content(new byte[0]))
+                // Then
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"));
+
+        verify(customerStatementStreamService).addBinaryCustomerStatementRecords(any(), any());
+        verify(customerStatementStreamService, times(0)).addCustomerStatementRecords(any(), anyBoolean(), any());
+    }
+
+    @Test
+    void addCustomerStatementRecordStreamTestUnsupportedContentType() throws Exception {
+        // When
+        mockMvc.perform(post("/v1/customerstatements/stream")
+                .contentType("application/xml")
+                .content("<record/>"))
+                // Then
+                .andExpect(status().isUnsupportedMediaType());
+
+        verify(customerStatementStreamService, times(0)).addCustomerStatementRecords(any(), anyBoolean(), any());
+    }
+
+    @Test
+    void getCustomerStatementRecordsTestReturnsThePage() throws Exception {
+        // Given
+        CustomerStatementRecordPageDto givenPage = new CustomerStatementRecordPageDto();
+        givenPage.setRecords(Collections.singletonList(buildRecord(false)));
+        givenPage.setNextAfterTransactionReference(1234);
+
+        when(customerStatementQueryService.getCustomerStatementRecords("NL12RABO0123456789", 1000, 1))
+                .thenReturn(givenPage);
+
+        // When
+        mockMvc.perform(get("/v1/customerstatements")
+                .param("accountNumber", "NL12RABO0123456789")
+                .param("afterTransactionReference", "1000")
+                .param("pageSize", "1"))
+                // Then
+                .andExpect(status().isOk())
+                .andExpect(content().string("{\"records\":[{\"transactionReference\":1234,\"accountNumber\":\"NL12RABO0123456789\","
+                        + "\"startBalance\":100,\"mutation\":-10,\"description\":\"beautiful record\",\"endBalance\":90}],"
+                        + "\"nextAfterTransactionReference\":1234}"));
+    }
+
+    @Test
+    void getCustomerStatementRecordsTestFirstPageHasTheDefaultSize() throws Exception {
+        // Given
+        when(customerStatementQueryService.getCustomerStatementRecords(anyString(), isNull(), anyInt()))
+                .thenReturn(new CustomerStatementRecordPageDto());
+
+        // When
+        mockMvc.perform(get("/v1/customerstatements")
+                .param("accountNumber", "NL12RABO0123456789"))
+                // Then
+                .andExpect(status().isOk());
+
+        verify(customerStatementQueryService).getCustomerStatementRecords("NL12RABO0123456789", null, 100);
+    }
+
+    @Test
+    void getCustomerStatementRecordsTestMissingAccountNumberResultsInBadRequest() throws Exception {
+        // When
+        mockMvc.perform(get("/v1/customerstatements"))
+                // Then
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("{\"result\":\"BAD_REQUEST\",\"errorRecords\":[]}"));
+
+        verify(customerStatementQueryService, times(0)).getCustomerStatementRecords(any(), any(), anyInt());
+    }
+
+    @Test
+    void getCustomerStatementRecordsTestMalformedReferenceResultsInBadRequest() throws Exception {
+        // When
+        mockMvc.perform(get("/v1/customerstatements")
+                .param("accountNumber", "NL12RABO0123456789")
+                .param("afterTransactionReference", "last"))
+                // Then
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("{\"result\":\"BAD_REQUEST\",\"errorRecords\":[]}"));
+    }
+
+    @Test
+    void getAccountSummaryTestReturnsTheSummary() throws Exception {
+        // Given
+        AccountSummaryDto givenSummary = new AccountSummaryDto();
+        givenSummary.setAccountNumber("NL12RABO0123456789");
+        givenSummary.setRecordCount(2);
+        givenSummary.setTotalMutation(-20);
+        givenSummary.setLastEndBalance(80);
+        when(customerStatementQueryService.getAccountSummary("NL12RABO0123456789")).thenReturn(givenSummary);
+
+        // When
+        mockMvc.perform(get("/v1/customerstatements/summary")
+                .param("accountNumber", "NL12RABO0123456789"))
+                // Then
+                .andExpect(status().isOk())
+                .andExpect(content().string("{\"accountNumber\":\"NL12RABO0123456789\",\"recordCount\":2,\"totalMutation\":-20,\"lastEndBalance\":80}"));
+    }
+
+    @Test
+    void getAccountSummaryTestMissingAccountNumberResultsInBadRequest() throws Exception {
+        // When
+        mockMvc.perform(get("/v1/customerstatements/summary"))
+                // Then
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("{\"result\":\"BAD_REQUEST\",\"errorRecords\":[]}"));
+
+        verify(customerStatementQueryService, times(0)).getAccountSummary(any());
+    }
+
+    @Test
+    void ingestCustomerStatementFileTestReturnsTheResult() throws Exception {
+        // Given
+        FileIngestResultDto givenResult = new FileIngestResultDto();
+        givenResult.setFileName("statements.csv");
+        givenResult.setRecordCount(3);
+        givenResult.setRejectedRecordCount(1);
+        givenResult.setReportFileName("statements.csv.report.ndjson");
+        when(customerStatementFileIngestService.ingestFile("statements.csv")).thenReturn(givenResult);
+
+        // When
+        mockMvc.perform(post("/v1/customerstatements/files/statements.csv"))
+                // Then
+                .andExpect(status().isOk())
+                .andExpect(content().string("{\"fileName\":\"statements.csv\",\"recordCount\":3,\"rejectedRecordCount\":1," +
+                        "\"reportFileName\":\"statements.csv.report.ndjson\"}"));
+    }
+
+    @Test
+    void exportCustomerStatementRecordsTestNdjsonByDefault() throws Exception {
+        // When
+        mockMvc.perform(get("/v1/customerstatements/export")
+                .param("accountNumber", "NL12RABO0123456789"))
+                // Then
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(header().doesNotExist("Content-Encoding"));
+
+        verify(customerStatementExportService).exportCustomerStatementRecords(eq("NL12RABO0123456789"), isNull(), isNull(), eq(false), any());
+    }
+
+    @Test
+    void exportCustomerStatementRecordsTestCsvIsGzippedWhenAccepted() throws Exception {
+        // Given
+        when(customerStatementExportService.exportCustomerStatementRecords(isNull(), eq(1000), eq(2000), eq(true), any()))
+                .thenAnswer(invocation -> {
+                    try (OutputStream outputStream = invocation.getArgument(4)) {
+                        outputStream.write("transactionReference\n1234\n".getBytes(StandardCharsets.UTF_8));
+                    }
+                    return 1L;
+                });
+
+        // When
+        byte[] returnedContent = mockMvc.perform(get("/v1/customerstatements/export")
+                .param("fromTransactionReference", "1000")
+                .param("toTransactionReference", "2000")
+                .header("Accept", "text/csv")
+                .header("Accept-Encoding", "deflate, gzip"))
+                // Then
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(returnedContent))) {
+            assertEquals("transactionReference\n1234\n", new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void exportCustomerStatementRecordsTestNotGzippedWhenRefused() throws Exception {
+        // Given
+        when(customerStatementExportService.exportCustomerStatementRecords(isNull(), isNull(), isNull(), eq(false), any()))
+                .thenAnswer(invocation -> {
+                    try (OutputStream outputStream = invocation.getArgument(4)) {
+                        outputStream.write("{}\n".getBytes(StandardCharsets.UTF_8));
+                    }
+                    return 1L;
+                });
+
+        // When
+        mockMvc.perform(get("/v1/customerstatements/export")
+                .header("Accept-Encoding", "gzip;q=0, deflate"))
+                // Then
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(content().string("{}\n"));
+    }
+
+    @Test
+    void acceptsGzipTestCodingsAndQualities() {
+        // When & Then
+        assertTrue(CustomerStatementController.acceptsGzip("gzip"));
+        assertTrue(CustomerStatementController.acceptsGzip("deflate, GZIP;q=0.5"));
+        assertTrue(CustomerStatementController.acceptsGzip("x-gzip"));
+        assertTrue(CustomerStatementController.acceptsGzip("br;q=1.0, *;q=0.1"));
+        assertFalse(CustomerStatementController.acceptsGzip(""));
+        assertFalse(CustomerStatementController.acceptsGzip("deflate, br"));
+        assertFalse(CustomerStatementController.acceptsGzip("gzip;q=0"));
+        assertFalse(CustomerStatementController.acceptsGzip("gzip; q=0.000"));
+        assertFalse(CustomerStatementController.acceptsGzip("*, gzip;q=0"));
+        assertFalse(CustomerStatementController.acceptsGzip("*;q=0"));
+        assertFalse(CustomerStatementController.acceptsGzip("gzip;q=high"));
+        assertFalse(CustomerStatementController.acceptsGzip("gzipped"));
+    }
+
+    @Test
+    void exportCustomerStatementRecordsTestMalformedReferenceResultsInBadRequest() throws Exception {
+        // When
+        mockMvc.perform(get("/v1/customerstatements/export")
+                .param("fromTransactionReference", "first"))
+                // Then
+                .andExpect(status().isBadRequest());
+
+        verify(customerStatementExportService, times(0)).exportCustomerStatementRecords(any(), any(), any(), anyBoolean(), any());
+    }
+
+    private MockMvc buildCompiledValidationMockMvc() {
+        return MockMvcBuilders.standaloneSetup(customerStatementController)
+                .setControllerAdvice(new CustomRestExceptionHandler(), new CompiledValidationBinderAdvice())
+                .build();
+    }
+
     private CustomerStatementRecordDto buildRecord(boolean badRequest) {
         CustomerStatementRecordDto customerStatementRecordDto = new CustomerStatementRecordDto();
         if (badRequest) {
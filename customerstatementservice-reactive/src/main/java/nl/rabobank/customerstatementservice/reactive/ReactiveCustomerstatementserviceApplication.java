@@ -0,0 +1,13 @@
+package nl.rabobank.customerstatementservice.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class ReactiveCustomerstatementserviceApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(ReactiveCustomerstatementserviceApplication.class, args);
+	}
+
+}
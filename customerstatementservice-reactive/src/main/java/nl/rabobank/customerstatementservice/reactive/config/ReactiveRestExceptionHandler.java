@@ -0,0 +1,40 @@
+package nl.rabobank.customerstatementservice.reactive.config;
+
+import nl.rabobank.customerstatementservice.dto.ResponseBody;
+import nl.rabobank.customerstatementservice.dto.ResultType;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebInputException;
+
+/**
+ * Returns the same 400 and 500 response bodies as the CustomRestExceptionHandler of customerstatementservice-core.
+ */
+@ControllerAdvice
+public class ReactiveRestExceptionHandler {
+
+    /**
+     * Handles unreadable and invalid request bodies, validation errors are a {@link ServerWebInputException} as well.
+     */
+    @ExceptionHandler(ServerWebInputException.class)
+    protected ResponseEntity<Object> handleServerWebInputException(ServerWebInputException ex) {
+        ResponseBody responseBody = ResponseBody.of(ResultType.BAD_REQUEST);
+
+        return ResponseEntity.badRequest()
+                .body(responseBody);
+    }
+
+    @ExceptionHandler(ResponseStatusException.class)
+    protected ResponseEntity<Object> handleResponseStatusException(ResponseStatusException ex) {
+        if (ex.getStatus() != HttpStatus.INTERNAL_SERVER_ERROR) {
+            throw ex;
+        }
+
+        ResponseBody responseBody = ResponseBody.of(ResultType.INTERNAL_SERVER_ERROR);
+
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(responseBody);
+    }
+}
@@ -0,0 +1,91 @@
+package nl.rabobank.customerstatementservice.reactive.infrastructure;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.domain.Persistable;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * Maps the same customer_statement_record table as the JPA entity of customerstatementservice-core.
+ * The transaction reference is assigned by the application and records are never updated, so every save is an insert.
+ */
+@Table("customer_statement_record")
+public class CustomerStatementRecord implements Persistable<Integer> {
+
+    @Id
+    @Column("transaction_reference")
+    private Integer transactionReference;
+
+    @Column("account_number")
+    private String accountNumber;
+
+    @Column("start_balance")
+    private int startBalance;
+
+    @Column("mutation")
+    private int mutation;
+
+    @Column("description")
+    private String description;
+
+    @Column("end_balance")
+    private int endBalance;
+
+    @Override
+    public Integer getId() {
+        return transactionReference;
+    }
+
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public int getEndBalance() {
+        return endBalance;
+    }
+
+    public int getMutation() {
+        return mutation;
+    }
+
+    public int getStartBalance() {
+        return startBalance;
+    }
+
+    public Integer getTransactionReference() {
+        return transactionReference;
+    }
+
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public void setEndBalance(int endBalance) {
+        this.endBalance = endBalance;
+    }
+
+    public void setMutation(int mutation) {
+        this.mutation = mutation;
+    }
+
+    public void setStartBalance(int startBalance) {
+        this.startBalance = startBalance;
+    }
+
+    public void setTransactionReference(Integer transactionReference) {
+        this.transactionReference = transactionReference;
+    }
+}
@@ -0,0 +1,8 @@
+package nl.rabobank.customerstatementservice.reactive.infrastructure;
+
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReactiveCustomerStatementRecordRepository extends ReactiveCrudRepository<CustomerStatementRecord, Integer> {
+}
@@ -0,0 +1,32 @@
+package nl.rabobank.customerstatementservice.reactive.mapper;
+
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordDto;
+import nl.rabobank.customerstatementservice.reactive.infrastructure.CustomerStatementRecord;
+import org.springframework.stereotype.Service;
+
+@Service
+public class CustomerStatementMapper {
+
+    public CustomerStatementRecord toCustomerStatementRecord(CustomerStatementRecordDto customerStatementRecordDto) {
+        if (customerStatementRecordDto == null) {
+            return null;
+        }
+
+        CustomerStatementRecord customerStatementRecord = new CustomerStatementRecord();
+
+        customerStatementRecord.setAccountNumber(customerStatementRecordDto.getAccountNumber());
+        customerStatementRecord.setDescription(customerStatementRecordDto.getDescription());
+        if (customerStatementRecordDto.getEndBalance() != null) {
+            customerStatementRecord.setEndBalance(customerStatementRecordDto.getEndBalance());
+        }
+        if (customerStatementRecordDto.getMutation() != null) {
+            customerStatementRecord.setMutation(customerStatementRecordDto.getMutation());
+        }
+        if (customerStatementRecordDto.getStartBalance() != null) {
+            customerStatementRecord.setStartBalance(customerStatementRecordDto.getStartBalance());
+        }
+        customerStatementRecord.setTransactionReference(customerStatementRecordDto.getTransactionReference());
+
+        return customerStatementRecord;
+    }
+}
@@ -0,0 +1,147 @@
+package nl.rabobank.customerstatementservice.reactive.service;
+
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordDto;
+import nl.rabobank.customerstatementservice.dto.ErrorRecord;
+import nl.rabobank.customerstatementservice.dto.ResponseBody;
+import nl.rabobank.customerstatementservice.dto.ResultType;
+import nl.rabobank.customerstatementservice.reactive.infrastructure.CustomerStatementRecord;
+import nl.rabobank.customerstatementservice.reactive.infrastructure.ReactiveCustomerStatementRecordRepository;
+import nl.rabobank.customerstatementservice.reactive.mapper.CustomerStatementMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Validator;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Arrays.asList;
+
+/**
+ * Applies the same rules as the CustomerStatementService of customerstatementservice-core, without blocking a thread
+ * while waiting for the database.
+ */
+@Service
+public class ReactiveCustomerStatementService {
+
+    private final ReactiveCustomerStatementRecordRepository customerStatementRecordRepository;
+
+    private final CustomerStatementMapper customerStatementMapper;
+
+    private final Validator validator;
+
+    private final int streamConcurrency;
+
+    private final Logger log = LoggerFactory.getLogger(ReactiveCustomerStatementService.class);
+
+    public ReactiveCustomerStatementService(ReactiveCustomerStatementRecordRepository customerStatementRecordRepository,
+                                            CustomerStatementMapper customerStatementMapper,
+                                            Validator validator,
+                                            @Value("${customerstatementservice.stream.concurrency:256}") int streamConcurrency) {
+        this.customerStatementRecordRepository = customerStatementRecordRepository;
+        this.customerStatementMapper = customerStatementMapper;
+        this.validator = validator;
+        this.streamConcurrency = streamConcurrency;
+    }
+
+    /**
+     * @return the result of the record. Any exception results in a ResponseStatusException with HttpStatus 500.
+     */
+    public Mono<ResponseBody> addCustomerStatementRecordWithExceptionHandling(CustomerStatementRecordDto recordDto) {
+        return addCustomerStatementRecord(recordDto)
+                .onErrorMap(e -> !(e instanceof ResponseStatusException), e -> {
+                    log.info("Unknown exception thrown when adding customer statement record; {}", recordDto, e);
+                    return new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR);
+                });
+    }
+
+    /**
+     * Handles a stream of records, emitting one result per record in the order of the records. At most
+     * customerstatementservice.stream.concurrency records are requested from the stream and handled at the same time,
+     * so a slow database slows down reading the stream instead of buffering it. A record with the same reference as a
+     * record still being handled waits for it, so the first occurrence in the stream is the one which is accepted.
+     * <p>
+     * An incomplete record results in a BAD_REQUEST result at its position. An error, either while reading the stream
+     * or handling a record, ends the results after the results of the records before it.
+     */
+    public Flux<ResponseBody> addCustomerStatementRecords(Flux<CustomerStatementRecordDto> recordDtos) {
+        return Flux.defer(() -> {
+            Map<Integer, Mono<ResponseBody>> inFlightReferences = new ConcurrentHashMap<>();
+
+            return recordDtos.flatMapSequentialDelayError(recordDto -> {
+                if (!validator.validate(recordDto).isEmpty()) {
+                    log.debug("Skipping incomplete record of the stream: {}", recordDto);
+                    return Mono.just(ResponseBody.of(ResultType.BAD_REQUEST));
+                }
+
+                Integer transactionReference = recordDto.getTransactionReference();
+                Mono<ResponseBody> responseBody = Mono.defer(() -> addCustomerStatementRecordWithExceptionHandling(recordDto));
+                Mono<ResponseBody> previousResponseBody = inFlightReferences.get(transactionReference);
+                if (previousResponseBody != null) {
+                    responseBody = previousResponseBody.onErrorResume(e -> Mono.empty()).then(responseBody);
+                }
+
+                Mono<ResponseBody> cachedResponseBody = responseBody.cache();
+                inFlightReferences.put(transactionReference, cachedResponseBody);
+                return cachedResponseBody.doFinally(signal -> inFlightReferences.remove(transactionReference, cachedResponseBody));
+            }, streamConcurrency, streamConcurrency);
+        });
+    }
+
+    private Mono<ResponseBody> addCustomerStatementRecord(CustomerStatementRecordDto recordDto) {
+        Integer transactionReference = recordDto.getTransactionReference();
+        boolean incorrectEndBalance = checkEndBalanceIncorrect(recordDto.getStartBalance(), recordDto.getMutation(), recordDto.getEndBalance());
+
+        // Expecting most records to be correct, thus inserting right away. The primary key detects a duplicate reference
+        // atomically, so concurrent requests with the same reference can't both be accepted.
+        if (!incorrectEndBalance) {
+            return customerStatementRecordRepository.save(customerStatementMapper.toCustomerStatementRecord(recordDto))
+                    .map(insertedRecord -> ResponseBody.of(ResultType.SUCCESSFUL))
+                    .onErrorResume(DataIntegrityViolationException.class, e -> getAccountNumberFromExistingRecord(transactionReference)
+                            .map(accountNumber -> createErrorResponseBody(recordDto, accountNumber, false)));
+        }
+
+        return customerStatementRecordRepository.findById(transactionReference)
+                .map(existingRecord -> createErrorResponseBody(recordDto, existingRecord.getAccountNumber(), true))
+                .switchIfEmpty(Mono.fromSupplier(() -> createErrorResponseBody(recordDto, null, true)));
+    }
+
+    private ResponseBody createErrorResponseBody(CustomerStatementRecordDto recordDto, String accountNumberFromExistingRecord, boolean incorrectEndBalance) {
+        Integer transactionReference = recordDto.getTransactionReference();
+
+        if (accountNumberFromExistingRecord == null) {
+            log.debug("To be inserted record had an incorrect end balance. Won't insert it into the database: {}", recordDto);
+            ErrorRecord errorRecord = new ErrorRecord(transactionReference, recordDto.getAccountNumber());
+
+            return new ResponseBody(ResultType.INCORRECT_END_BALANCE, Collections.singletonList(errorRecord));
+        } else if (!incorrectEndBalance) {
+            log.debug("Transaction reference of the to be inserted record already existed. Won't insert it into the database: {}", recordDto);
+            ErrorRecord errorRecord = new ErrorRecord(transactionReference, accountNumberFromExistingRecord);
+
+            return new ResponseBody(ResultType.DUPLICATE_REFERENCE, Collections.singletonList(errorRecord));
+        } else {
+            log.debug("To be inserted record had an incorrect end balance & reference already exists in database. Won't insert it into the database: {}", recordDto);
+            ErrorRecord duplicateReferenceError = new ErrorRecord(transactionReference, recordDto.getAccountNumber());
+            ErrorRecord incorrectEndBalanceError = new ErrorRecord(transactionReference, accountNumberFromExistingRecord);
+
+            return new ResponseBody(ResultType.DUPLICATE_REFERENCE_INCORRECT_END_BALANCE, asList(duplicateReferenceError, incorrectEndBalanceError));
+        }
+    }
+
+    private boolean checkEndBalanceIncorrect(int startBalance, int mutation, int expectedEndBalance) {
+        return (startBalance + mutation) != expectedEndBalance;
+    }
+
+    private Mono<String> getAccountNumberFromExistingRecord(Integer transactionReference) {
+        return customerStatementRecordRepository.findById(transactionReference)
+                .map(CustomerStatementRecord::getAccountNumber)
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR)));
+    }
+}
@@ -0,0 +1,68 @@
+package nl.rabobank.customerstatementservice.reactive.ui.rest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordDto;
+import nl.rabobank.customerstatementservice.dto.ResponseBody;
+import nl.rabobank.customerstatementservice.dto.ResultType;
+import nl.rabobank.customerstatementservice.reactive.service.ReactiveCustomerStatementService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+
+@RestController
+@RequestMapping("/v1/customerstatements")
+public class ReactiveCustomerStatementController {
+
+    private final ReactiveCustomerStatementService customerStatementService;
+
+    private final ObjectReader recordReader;
+
+    public ReactiveCustomerStatementController(ReactiveCustomerStatementService customerStatementService, ObjectMapper objectMapper) {
+        this.customerStatementService = customerStatementService;
+        this.recordReader = objectMapper.readerFor(CustomerStatementRecordDto.class);
+    }
+
+    @PostMapping
+    public Mono<ResponseBody> addCustomerStatementRecord(@Valid @RequestBody CustomerStatementRecordDto customerStatementRecordDto) {
+
+        return customerStatementService.addCustomerStatementRecordWithExceptionHandling(customerStatementRecordDto);
+    }
+
+    /**
+     * Adds a stream of newline delimited JSON records, writing back one result per record while reading. Malformed
+     * input ends the results with a BAD_REQUEST line, a failure with an INTERNAL_SERVER_ERROR line.
+     * <p>
+     * The lines are parsed one by one, instead of decoding the body as a stream of records, so malformed input only
+     * ends the stream after the results of the records before it, even when they arrived in the same buffer.
+     */
+    @PostMapping(value = "/stream", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ResponseBody> addCustomerStatementRecordStream(@RequestBody Flux<String> lines) {
+        Flux<CustomerStatementRecordDto> customerStatementRecordDtos = lines
+                .filter(line -> !line.trim().isEmpty())
+                .map(this::readRecord);
+
+        return customerStatementService.addCustomerStatementRecords(customerStatementRecordDtos)
+                .onErrorResume(ServerWebInputException.class, e -> Mono.just(ResponseBody.of(ResultType.BAD_REQUEST)))
+                .onErrorResume(e -> e instanceof ResponseStatusException && ((ResponseStatusException) e).getStatus() == HttpStatus.INTERNAL_SERVER_ERROR,
+                        e -> Mono.just(ResponseBody.of(ResultType.INTERNAL_SERVER_ERROR)));
+    }
+
+    private CustomerStatementRecordDto readRecord(String line) {
+        try {
+            return recordReader.readValue(line);
+        } catch (JsonProcessingException e) {
+            throw new ServerWebInputException("Malformed record", null, e);
+        }
+    }
+}
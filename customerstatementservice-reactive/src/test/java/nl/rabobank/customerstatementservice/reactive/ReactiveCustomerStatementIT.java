@@ -0,0 +1,139 @@
+package nl.rabobank.customerstatementservice.reactive;
+
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordDto;
+import nl.rabobank.customerstatementservice.dto.ResponseBody;
+import nl.rabobank.customerstatementservice.reactive.infrastructure.ReactiveCustomerStatementRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+
+import static nl.rabobank.customerstatementservice.dto.ResultType.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@SpringBootTest
+@AutoConfigureWebTestClient
+class ReactiveCustomerStatementIT {
+
+    private static final String GIVEN_RECORD_ACCOUNT_NUMBER = "NL12RABO0123456789";
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Autowired
+    ReactiveCustomerStatementRecordRepository customerStatementRecordRepository;
+
+    @Autowired
+    DatabaseClient databaseClient;
+
+    @BeforeEach
+    public void setUp() {
+        customerStatementRecordRepository.deleteAll().block();
+    }
+
+    @Test
+    void addCustomerStatementRecordTestDuplicateTransactionReference() {
+        // Given
+        post(buildRecord(1234, false)).expectBody(ResponseBody.class)
+                .value(responseBody -> assertEquals(SUCCESSFUL, responseBody.getResult()));
+
+        // When & Then
+        post(buildRecord(1234, true)).expectBody(ResponseBody.class)
+                .value(responseBody -> {
+                    assertEquals(DUPLICATE_REFERENCE_INCORRECT_END_BALANCE, responseBody.getResult());
+                    assertEquals(2, responseBody.getErrorRecords().size());
+                });
+        assertEquals(1, customerStatementRecordRepository.count().block());
+    }
+
+    @Test
+    void addCustomerStatementRecordTestIncompleteRecordIsABadRequest() {
+        // Given
+        CustomerStatementRecordDto givenRecord = buildRecord(1234, false);
+        givenRecord.setAccountNumber(null);
+
+        // When & Then
+        webTestClient.post().uri("/v1/customerstatements")
+                .bodyValue(givenRecord)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(ResponseBody.class)
+                .value(responseBody -> assertEquals(BAD_REQUEST, responseBody.getResult()));
+    }
+
+    @Test
+    void addCustomerStatementRecordStreamTest() {
+        // Given
+        String givenRecords = "{\"transactionReference\":1,\"accountNumber\":\"" + GIVEN_RECORD_ACCOUNT_NUMBER + "\",\"startBalance\":100,\"mutation\":-10,\"endBalance\":90}\n"
+                + "{\"transactionReference\":1,\"accountNumber\":\"" + GIVEN_RECORD_ACCOUNT_NUMBER + "\",\"startBalance\":100,\"mutation\":-10,\"endBalance\":90}\n"
+                + "{\"transactionReference\":2,\"accountNumber\":\"" + GIVEN_RECORD_ACCOUNT_NUMBER + "\",\"startBalance\":100}\n"
+                + "{\"transactionReference\":3,\"accountNumber\":\"" + GIVEN_RECORD_ACCOUNT_NUMBER + "\",\"startBalance\":100,\"mutation\":-10,\"endBalance\":20}\n"
+                + "not json\n";
+
+        // When
+        List<ResponseBody> returnedResponseBodies = webTestClient.post().uri("/v1/customerstatements/stream")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(givenRecords)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(ResponseBody.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        // Then
+        assertEquals(5, returnedResponseBodies.size());
+        assertEquals(SUCCESSFUL, returnedResponseBodies.get(0).getResult());
+        assertEquals(DUPLICATE_REFERENCE, returnedResponseBodies.get(1).getResult());
+        assertEquals(BAD_REQUEST, returnedResponseBodies.get(2).getResult());
+        assertEquals(INCORRECT_END_BALANCE, returnedResponseBodies.get(3).getResult());
+        assertEquals(BAD_REQUEST, returnedResponseBodies.get(4).getResult());
+        assertEquals(1, customerStatementRecordRepository.count().block());
+    }
+
+    @Test
+    void addCustomerStatementRecordTestStoredInTheSchemaOfTheCoreService() {
+        // When
+        post(buildRecord(1234, false)).expectBody(ResponseBody.class)
+                .value(responseBody -> assertEquals(SUCCESSFUL, responseBody.getResult()));
+
+        // Then
+        Long sequenceNumber = databaseClient.sql("SELECT sequence_number FROM customer_statement_record WHERE transaction_reference = 1234")
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .block();
+        assertNotNull(sequenceNumber);
+        assertNotNull(databaseClient.sql("SELECT COUNT(*) FROM account_summary")
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .block());
+    }
+
+    private WebTestClient.ResponseSpec post(CustomerStatementRecordDto recordDto) {
+        return webTestClient.post().uri("/v1/customerstatements")
+                .bodyValue(recordDto)
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    private CustomerStatementRecordDto buildRecord(Integer transactionReference, boolean incorrectBalance) {
+        CustomerStatementRecordDto customerStatementRecordDto = new CustomerStatementRecordDto();
+
+        customerStatementRecordDto.setTransactionReference(transactionReference);
+        customerStatementRecordDto.setAccountNumber(GIVEN_RECORD_ACCOUNT_NUMBER);
+        customerStatementRecordDto.setDescription("beautiful record");
+        customerStatementRecordDto.setStartBalance(100);
+        customerStatementRecordDto.setMutation(-10);
+        customerStatementRecordDto.setEndBalance(incorrectBalance ? 20 : 90);
+
+        return customerStatementRecordDto;
+    }
+}
@@ -0,0 +1,187 @@
+package nl.rabobank.customerstatementservice.reactive.service;
+
+import nl.rabobank.customerstatementservice.dto.CustomerStatementRecordDto;
+import nl.rabobank.customerstatementservice.dto.ErrorRecord;
+import nl.rabobank.customerstatementservice.dto.ResultType;
+import nl.rabobank.customerstatementservice.reactive.infrastructure.CustomerStatementRecord;
+import nl.rabobank.customerstatementservice.reactive.infrastructure.ReactiveCustomerStatementRecordRepository;
+import nl.rabobank.customerstatementservice.reactive.mapper.CustomerStatementMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import javax.validation.Validation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveCustomerStatementServiceTest {
+
+    private static final String DUPLICATED_RECORD_ACCOUNT_NUMBER = "NL12RABO0987654321";
+
+    private static final String GIVEN_RECORD_ACCOUNT_NUMBER = "NL12RABO0123456789";
+
+    private static final Integer GIVEN_TRANSACTION_REFERENCE = 1234;
+
+    @Mock
+    ReactiveCustomerStatementRecordRepository customerStatementRecordRepository;
+
+    private ReactiveCustomerStatementService customerStatementService;
+
+    @BeforeEach
+    public void setUp() {
+        this.customerStatementService = new ReactiveCustomerStatementService(customerStatementRecordRepository, new CustomerStatementMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator(), 2);
+    }
+
+    @Test
+    void addCustomerStatementRecordWithExceptionHandlingTestNoDuplicateAndNotIncorrectBalance() {
+        // Given
+        CustomerStatementRecordDto givenRecord = buildRecord(false);
+        when(customerStatementRecordRepository.save(any()))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        // When & Then
+        StepVerifier.create(customerStatementService.addCustomerStatementRecordWithExceptionHandling(givenRecord))
+                .assertNext(responseBody -> {
+                    assertEquals(ResultType.SUCCESSFUL, responseBody.getResult());
+                    assertEquals(0, responseBody.getErrorRecords().size());
+                })
+                .verifyComplete();
+
+        verify(customerStatementRecordRepository, times(0)).findById(any(Integer.class));
+    }
+
+    @Test
+    void addCustomerStatementRecordWithExceptionHandlingTestDuplicateButNotIncorrectBalance() {
+        // Given
+        CustomerStatementRecordDto givenRecord = buildRecord(false);
+        when(customerStatementRecordRepository.save(any()))
+                .thenReturn(Mono.error(new DataIntegrityViolationException("Primary key violation")));
+        when(customerStatementRecordRepository.findById(GIVEN_TRANSACTION_REFERENCE))
+                .thenReturn(Mono.just(buildDuplicateDatabaseRecord()));
+
+        // When & Then
+        StepVerifier.create(customerStatementService.addCustomerStatementRecordWithExceptionHandling(givenRecord))
+                .assertNext(responseBody -> {
+                    assertEquals(ResultType.DUPLICATE_REFERENCE, responseBody.getResult());
+                    ErrorRecord returnedErrorRecord = responseBody.getErrorRecords().get(0);
+                    assertEquals(GIVEN_TRANSACTION_REFERENCE, returnedErrorRecord.getReference());
+                    assertEquals(DUPLICATED_RECORD_ACCOUNT_NUMBER, returnedErrorRecord.getAccountNumber());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void addCustomerStatementRecordWithExceptionHandlingTestDuplicateAndIncorrectBalance() {
+        // Given
+        CustomerStatementRecordDto givenRecord = buildRecord(true);
+        when(customerStatementRecordRepository.findById(GIVEN_TRANSACTION_REFERENCE))
+                .thenReturn(Mono.just(buildDuplicateDatabaseRecord()));
+
+        // When & Then
+        StepVerifier.create(customerStatementService.addCustomerStatementRecordWithExceptionHandling(givenRecord))
+                .assertNext(responseBody -> {
+                    assertEquals(ResultType.DUPLICATE_REFERENCE_INCORRECT_END_BALANCE, responseBody.getResult());
+                    assertEquals(2, responseBody.getErrorRecords().size());
+                })
+                .verifyComplete();
+
+        verify(customerStatementRecordRepository, times(0)).save(any());
+    }
+
+    @Test
+    void addCustomerStatementRecordWithExceptionHandlingTestNoDuplicateButIncorrectBalance() {
+        // Given
+        CustomerStatementRecordDto givenRecord = buildRecord(true);
+        when(customerStatementRecordRepository.findById(GIVEN_TRANSACTION_REFERENCE))
+                .thenReturn(Mono.empty());
+
+        // When & Then
+        StepVerifier.create(customerStatementService.addCustomerStatementRecordWithExceptionHandling(givenRecord))
+                .assertNext(responseBody -> {
+                    assertEquals(ResultType.INCORRECT_END_BALANCE, responseBody.getResult());
+                    assertEquals(GIVEN_RECORD_ACCOUNT_NUMBER, responseBody.getErrorRecords().get(0).getAccountNumber());
+                })
+                .verifyComplete();
+
+        verify(customerStatementRecordRepository, times(0)).save(any());
+    }
+
+    @Test
+    void addCustomerStatementRecordWithExceptionHandlingTestAnExceptionResultsInAnInternalServerError() {
+        // Given
+        CustomerStatementRecordDto givenRecord = buildRecord(false);
+        when(customerStatementRecordRepository.save(any()))
+                .thenReturn(Mono.error(new IllegalArgumentException("Any exception will do")));
+
+        // When & Then
+        StepVerifier.create(customerStatementService.addCustomerStatementRecordWithExceptionHandling(givenRecord))
+                .verifyError(ResponseStatusException.class);
+    }
+
+    @Test
+    void addCustomerStatementRecordsTestResultsInOrderOfTheRecords() {
+        // Given
+        CustomerStatementRecordDto incompleteRecord = buildRecord(2, false);
+        incompleteRecord.setEndBalance(null);
+        when(customerStatementRecordRepository.save(any()))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(customerStatementRecordRepository.findById(3))
+                .thenReturn(Mono.empty());
+
+        // When & Then
+        StepVerifier.create(customerStatementService.addCustomerStatementRecords(Flux.just(buildRecord(1, false), incompleteRecord, buildRecord(3, true))))
+                .assertNext(responseBody -> assertEquals(ResultType.SUCCESSFUL, responseBody.getResult()))
+                .assertNext(responseBody -> assertEquals(ResultType.BAD_REQUEST, responseBody.getResult()))
+                .assertNext(responseBody -> assertEquals(ResultType.INCORRECT_END_BALANCE, responseBody.getResult()))
+                .verifyComplete();
+    }
+
+    private CustomerStatementRecordDto buildRecord(Integer transactionReference, boolean incorrectBalance) {
+        CustomerStatementRecordDto customerStatementRecordDto = buildRecord(incorrectBalance);
+        customerStatementRecordDto.setTransactionReference(transactionReference);
+
+        return customerStatementRecordDto;
+    }
+
+    private CustomerStatementRecord buildDuplicateDatabaseRecord() {
+        CustomerStatementRecord databaseRecord = new CustomerStatementRecord();
+
+        databaseRecord.setTransactionReference(GIVEN_TRANSACTION_REFERENCE);
+        databaseRecord.setAccountNumber(DUPLICATED_RECORD_ACCOUNT_NUMBER);
+        databaseRecord.setDescription("beautiful record");
+        databaseRecord.setStartBalance(100);
+        databaseRecord.setMutation(-10);
+        databaseRecord.setEndBalance(90);
+
+        return databaseRecord;
+    }
+
+    private CustomerStatementRecordDto buildRecord(boolean incorrectBalance) {
+        CustomerStatementRecordDto customerStatementRecordDto = new CustomerStatementRecordDto();
+
+        customerStatementRecordDto.setTransactionReference(GIVEN_TRANSACTION_REFERENCE);
+        customerStatementRecordDto.setAccountNumber(GIVEN_RECORD_ACCOUNT_NUMBER);
+        customerStatementRecordDto.setDescription("beautiful record");
+        customerStatementRecordDto.setStartBalance(100);
+        customerStatementRecordDto.setMutation(-10);
+
+        if (incorrectBalance) {
+            customerStatementRecordDto.setEndBalance(20);
+        } else {
+            customerStatementRecordDto.setEndBalance(90);
+        }
+
+        return customerStatementRecordDto;
+    }
+}